@@ -0,0 +1,246 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.impl.Quoter;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/** An array initializer, like {@code {1, 2, 3}}, with primitive values,
+ * or string constants. Unlike an equivalent sequence of tokens, the values
+ * are neither boxed, nor converted into strings, until the formatter
+ * writes them. The formatter
+ * emits the values in rows, with {@link #getValuesPerRow()} values per row.
+ * Instances are immutable, and created by using the static factory
+ * methods, or {@link Field#assign(int[])}, {@link Field#assign(long[])},
+ * {@link Field#assign(byte[])}, {@link Field#assignStrings(String...)}, and the like.
+ */
+public class ArrayInitializer {
+	/** The type of the array elements.
+	 */
+	public enum Kind {
+		/** The array elements are bytes, see {@link ArrayInitializer#getBytes()}.
+		 */
+		BYTE,
+		/** The array elements are integers, see {@link ArrayInitializer#getInts()}.
+		 */
+		INT,
+		/** The array elements are long integers, see {@link ArrayInitializer#getLongs()}.
+		 */
+		LONG,
+		/** The array elements are string constants, see {@link ArrayInitializer#getStrings()}.
+		 * The elements must not be null.
+		 */
+		STRING
+	}
+
+	/** The default number of values per row: {@value}.
+	 */
+	public static final int DEFAULT_VALUES_PER_ROW = 16;
+
+	private final @Nonnull Kind kind;
+	private final @Nonnull Object values;
+	private final int length;
+	private final int valuesPerRow;
+
+	private ArrayInitializer(@Nonnull Kind pKind, @Nonnull Object pValues, int pLength, int pValuesPerRow) {
+		if (pValuesPerRow <= 0) {
+			throw new IllegalArgumentException("Invalid number of values per row: " + pValuesPerRow);
+		}
+		kind = pKind;
+		values = pValues;
+		length = pLength;
+		valuesPerRow = pValuesPerRow;
+	}
+
+	/** Creates a new instance with the given integer values. The array is used
+	 * as it is, so it must not be modified thereafter.
+	 * @param pValues The array elements.
+	 * @return The created instance.
+	 */
+	@Nonnull public static ArrayInitializer of(@Nonnull int[] pValues) {
+		final int[] values = Objects.requireNonNull(pValues, "Values");
+		return new ArrayInitializer(Kind.INT, values, values.length, DEFAULT_VALUES_PER_ROW);
+	}
+
+	/** Creates a new instance with the given long values. The array is used
+	 * as it is, so it must not be modified thereafter.
+	 * @param pValues The array elements.
+	 * @return The created instance.
+	 */
+	@Nonnull public static ArrayInitializer of(@Nonnull long[] pValues) {
+		final long[] values = Objects.requireNonNull(pValues, "Values");
+		return new ArrayInitializer(Kind.LONG, values, values.length, DEFAULT_VALUES_PER_ROW);
+	}
+
+	/** Creates a new instance with the given byte values. The array is used
+	 * as it is, so it must not be modified thereafter.
+	 * @param pValues The array elements.
+	 * @return The created instance.
+	 */
+	@Nonnull public static ArrayInitializer of(@Nonnull byte[] pValues) {
+		final byte[] values = Objects.requireNonNull(pValues, "Values");
+		return new ArrayInitializer(Kind.BYTE, values, values.length, DEFAULT_VALUES_PER_ROW);
+	}
+
+	/** Creates a new instance with the given string constants. The array is used
+	 * as it is, so it must not be modified thereafter.
+	 * @param pValues The array elements. Null elements are not permitted.
+	 * @return The created instance.
+	 */
+	@Nonnull public static ArrayInitializer of(@Nonnull String[] pValues) {
+		final String[] values = Objects.requireAllNonNull(pValues, "Values");
+		return new ArrayInitializer(Kind.STRING, values, values.length, DEFAULT_VALUES_PER_ROW);
+	}
+
+	/** Creates a new instance with the integer values, that are returned by
+	 * the given iterator. The iterator is consumed immediately.
+	 * @param pValues The array elements.
+	 * @return The created instance.
+	 */
+	@Nonnull public static ArrayInitializer of(@Nonnull PrimitiveIterator.OfInt pValues) {
+		final PrimitiveIterator.OfInt iter = Objects.requireNonNull(pValues, "Values");
+		int[] values = new int[256];
+		int len = 0;
+		while (iter.hasNext()) {
+			if (len == values.length) {
+				values = Arrays.copyOf(values, len*2);
+			}
+			values[len++] = iter.nextInt();
+		}
+		return new ArrayInitializer(Kind.INT, values, len, DEFAULT_VALUES_PER_ROW);
+	}
+
+	/** Creates a new instance with the long values, that are returned by
+	 * the given iterator. The iterator is consumed immediately.
+	 * @param pValues The array elements.
+	 * @return The created instance.
+	 */
+	@Nonnull public static ArrayInitializer of(@Nonnull PrimitiveIterator.OfLong pValues) {
+		final PrimitiveIterator.OfLong iter = Objects.requireNonNull(pValues, "Values");
+		long[] values = new long[256];
+		int len = 0;
+		while (iter.hasNext()) {
+			if (len == values.length) {
+				values = Arrays.copyOf(values, len*2);
+			}
+			values[len++] = iter.nextLong();
+		}
+		return new ArrayInitializer(Kind.LONG, values, len, DEFAULT_VALUES_PER_ROW);
+	}
+
+	/** Returns a copy of this instance, with the given number of values
+	 * per row.
+	 * @param pValuesPerRow The number of values per row.
+	 * @return A new instance with the same values, and the given
+	 *   number of values per row.
+	 */
+	@Nonnull public ArrayInitializer valuesPerRow(int pValuesPerRow) {
+		return new ArrayInitializer(kind, values, length, pValuesPerRow);
+	}
+
+	/** Returns the type of the array elements.
+	 * @return The type of the array elements.
+	 */
+	@Nonnull public Kind getKind() {
+		return kind;
+	}
+
+	/** Returns the number of array elements.
+	 * @return The number of array elements. Note, that this may be less
+	 *   than the length of the backing array.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/** Returns the number of values per row.
+	 * @return The number of values per row.
+	 */
+	public int getValuesPerRow() {
+		return valuesPerRow;
+	}
+
+	/** Returns the backing array, if the kind is {@link Kind#INT}.
+	 * The array must not be modified.
+	 * @return The backing array. Only the first {@link #getLength()}
+	 *   elements are valid.
+	 * @throws IllegalStateException The kind is not {@link Kind#INT}.
+	 */
+	@Nonnull public int[] getInts() {
+		assertKind(Kind.INT);
+		return (int[]) values;
+	}
+
+	/** Returns the backing array, if the kind is {@link Kind#LONG}.
+	 * The array must not be modified.
+	 * @return The backing array. Only the first {@link #getLength()}
+	 *   elements are valid.
+	 * @throws IllegalStateException The kind is not {@link Kind#LONG}.
+	 */
+	@Nonnull public long[] getLongs() {
+		assertKind(Kind.LONG);
+		return (long[]) values;
+	}
+
+	/** Returns the backing array, if the kind is {@link Kind#BYTE}.
+	 * The array must not be modified.
+	 * @return The backing array. Only the first {@link #getLength()}
+	 *   elements are valid.
+	 * @throws IllegalStateException The kind is not {@link Kind#BYTE}.
+	 */
+	@Nonnull public byte[] getBytes() {
+		assertKind(Kind.BYTE);
+		return (byte[]) values;
+	}
+
+	/** Returns the backing array, if the kind is {@link Kind#STRING}.
+	 * The array must not be modified.
+	 * @return The backing array. Only the first {@link #getLength()}
+	 *   elements are valid.
+	 * @throws IllegalStateException The kind is not {@link Kind#STRING}.
+	 */
+	@Nonnull public String[] getStrings() {
+		assertKind(Kind.STRING);
+		return (String[]) values;
+	}
+
+	/** Appends the array element with the given index to the given
+	 * string builder, as a Java literal.
+	 * @param pSb The string builder, to which the literal is being appended.
+	 * @param pIndex The array elements index.
+	 */
+	public void appendValue(@Nonnull StringBuilder pSb, int pIndex) {
+		switch (kind) {
+		  case INT: pSb.append(((int[]) values)[pIndex]); break;
+		  case LONG: pSb.append(((long[]) values)[pIndex]).append('L'); break;
+		  case BYTE: pSb.append(((byte[]) values)[pIndex]); break;
+		  case STRING: Quoter.quoteTo(pSb, ((String[]) values)[pIndex]); break;
+		  default: throw new IllegalStateException("Invalid kind: " + kind);
+		}
+	}
+
+	private void assertKind(Kind pKind) {
+		if (kind != pKind) {
+			throw new IllegalStateException("Expected kind " + pKind + ", got " + kind);
+		}
+	}
+}
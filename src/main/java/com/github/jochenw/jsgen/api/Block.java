@@ -15,7 +15,13 @@
  */
 package com.github.jochenw.jsgen.api;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.annotation.Nonnull;
@@ -43,7 +49,7 @@ public class Block<T extends Block<T>> extends AbstractBuilder<T> implements IBl
 	 * A single line may contain multiple statements. On the other hand, a statement may
 	 * extend over multiple lines.
 	 */
-	public static class Line {
+	public static class Line implements INode {
 		private final Object elements;
 		private final boolean terminated;
 		/**
@@ -87,6 +93,11 @@ public class Block<T extends Block<T>> extends AbstractBuilder<T> implements IBl
 		public boolean isTerminated() {
 			return terminated;
 		}
+
+		@Override
+		public void accept(@Nonnull INodeVisitor pVisitor) {
+			pVisitor.visitLine(this);
+		}
 	}
 	private List<Object> contents = new ArrayList<>();
 
@@ -175,6 +186,22 @@ public class Block<T extends Block<T>> extends AbstractBuilder<T> implements IBl
 		return block;
 	}
 
+	@Override
+	@Nonnull public SwitchBlock newSwitch(@Nonnull Object... pExpression) {
+		assertMutable();
+		final SwitchBlock block = new SwitchBlock().expression(pExpression);
+		contents.add(block);
+		return block;
+	}
+
+	@Override
+	@Nonnull public SwitchBlock newSwitch(@Nonnull Iterable<Object> pExpression) {
+		assertMutable();
+		final SwitchBlock block = new SwitchBlock().expression(pExpression);
+		contents.add(block);
+		return block;
+	}
+
 	@Override
 	@Nonnull public ForBlock newFor(@Nonnull Object... pCondition) {
 		final ForBlock forBlock = new ForBlock().condition(pCondition);
@@ -189,6 +216,27 @@ public class Block<T extends Block<T>> extends AbstractBuilder<T> implements IBl
 		return forBlock;
 	}
 	
+	@Override
+	@Nonnull public T raw(@Nonnull CharSequence pText, @Nonnull JQName... pImports) {
+		assertMutable();
+		Objects.requireNonNull(pText, "Text");
+		Objects.requireAllNonNull(pImports, "Imports");
+		contents.add(new RawFragment(pText, Arrays.asList(pImports)));
+		return self();
+	}
+
+	@Override
+	@Nonnull public T raw(@Nonnull Path pFile, @Nonnull JQName... pImports) {
+		Objects.requireNonNull(pFile, "File");
+		final String text;
+		try {
+			text = new String(Files.readAllBytes(pFile), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return raw(text, pImports);
+	}
+
 	/** Creates a line with a new "throw new SomeClass();" statement.
 	 * @param pType Type of the exception, which is being thrown in the statement.
 	 * @param pValues Constructor arguments, if any.
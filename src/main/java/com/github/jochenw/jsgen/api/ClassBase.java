@@ -35,7 +35,8 @@ public abstract class ClassBase<T extends ClassBase<T>> extends AbstractBuilder<
 	private Protection protection;
 	private final List<JQName> extendedClasses = new ArrayList<>();
 	private final List<JQName> implementedInterfaces = new ArrayList<>();
-	private boolean isInterface, isAbstract;
+	private final List<EnumConstant> enumConstants = new ArrayList<>();
+	private boolean isInterface, isAbstract, isFinal, isEnum;
 	private Comment comment;
 
 	protected ClassBase(JQName pType) {
@@ -177,7 +178,7 @@ public abstract class ClassBase<T extends ClassBase<T>> extends AbstractBuilder<
 	 * @see #newField(String, String, com.github.jochenw.jsgen.api.IProtectable.Protection)
 	 */
 	@Nonnull public Field newField(@Nonnull JQName pType, @Nonnull String pName, @Nonnull Protection pProtection) {
-		final Field f = new Field().type(pType).name(pName).protection(pProtection);
+		final Field f = new Field().type(pType).name(pName).protection(pProtection).sourceClass(this);
 		content.add(f);
 		return f;
 	}
@@ -405,6 +406,70 @@ public abstract class ClassBase<T extends ClassBase<T>> extends AbstractBuilder<
 		return implementedInterfaces;
 	}
 
+	/**
+	 * Makes this class an enum. Equivalent to
+	 * {@code makeEnum(true)}.
+	 * @return This builder.
+	 * @see #newEnumConstant(String, Object...)
+	 */
+	@Nonnull
+	public T makeEnum() {
+		return makeEnum(true);
+	}
+
+	/**
+	 * Sets, whether this class is an enum. Enums must not be abstract, or
+	 * final, and their constructors must not be public, or protected.
+	 * @param pEnum True, if this generated class should be an
+	 *   enum, otherwise false.
+	 * @return This builder.
+	 * @see #newEnumConstant(String, Object...)
+	 */
+	@Nonnull
+	public T makeEnum(boolean pEnum) {
+		assertMutable();
+		isEnum = pEnum;
+		return self();
+	}
+
+	/** Returns, whether this generated class is an enum.
+	 * @return True, if the generated class is an enum, otherwise
+	 *   false.
+	 */
+	public boolean isEnum() {
+		return isEnum;
+	}
+
+	/** Creates a new enum constant.
+	 * @param pName The constants name.
+	 * @param pArguments The constructor arguments, if any. Every argument is a token,
+	 *   or an array of tokens, like the values of {@link Field#assign(Object...)}.
+	 * @return The created constant.
+	 * @throws IllegalStateException This class isn't an enum.
+	 * @throws IllegalArgumentException Another constant with the same name exists.
+	 */
+	@Nonnull public EnumConstant newEnumConstant(@Nonnull String pName, @Nonnull Object... pArguments) {
+		assertMutable();
+		if (!isEnum) {
+			throw new IllegalStateException("The class " + type + " is not an enum.");
+		}
+		for (EnumConstant constant : enumConstants) {
+			if (constant.getName().equals(pName)) {
+				throw new IllegalArgumentException("Duplicate enum constant: " + pName);
+			}
+		}
+		final EnumConstant constant = new EnumConstant(pName, pArguments);
+		enumConstants.add(constant);
+		return constant;
+	}
+
+	/** Returns the enum constants, in the order of creation.
+	 * @return The enum constants, possibly empty.
+	 */
+	@Nonnull public List<EnumConstant> getEnumConstants() {
+		return enumConstants;
+	}
+
 	/**
 	 * Makes this class an interface. Equivalent to
 	 * {@code makeInterface(true)}.
@@ -538,4 +603,29 @@ public abstract class ClassBase<T extends ClassBase<T>> extends AbstractBuilder<
 		isAbstract = pAbstract;
 		return self();
 	}
+
+	/** Returns, whether this class is final.
+	 * @return True, if this class is final, otherwise false.
+	 */
+	public boolean isFinal() {
+		return isFinal;
+	}
+
+	/** Declares this class to be final. Equivalent to
+	 * {@code makeFinal(true)}.
+	 * @return This builder.
+	 */
+	@Nonnull public T makeFinal() {
+		return makeFinal(true);
+	}
+
+	/** Declares this class to be final, or not.
+	 * @param pFinal True, if this class should be final, otherwise false.
+	 * @return This builder.
+	 */
+	@Nonnull public T makeFinal(boolean pFinal) {
+		assertMutable();
+		isFinal = pFinal;
+		return self();
+	}
 }
@@ -15,6 +15,8 @@
  */
 package com.github.jochenw.jsgen.api;
 
+import java.nio.file.Path;
+
 import javax.annotation.Nonnull;
 
 import com.github.jochenw.jsgen.util.AbstractBuilder;
@@ -191,8 +193,32 @@ public abstract class CodeBlock<T extends CodeBlock<T>> extends AbstractBuilder<
 		return body().newDoWhile(pCondition);
 	}
 
+	@Override
+	public SwitchBlock newSwitch(Object... pExpression) {
+		return body().newSwitch(pExpression);
+	}
+
+	@Override
+	public SwitchBlock newSwitch(Iterable<Object> pExpression) {
+		return body().newSwitch(pExpression);
+	}
+
 	@Override
 	public ForBlock newFor(Iterable<?> pCondition) {
 		return body().newFor(pCondition);
 	}
+
+	@Override
+	public T raw(CharSequence pText, JQName... pImports) {
+		assertMutable();
+		body.raw(pText, pImports);
+		return self();
+	}
+
+	@Override
+	public T raw(Path pFile, JQName... pImports) {
+		assertMutable();
+		body.raw(pFile, pImports);
+		return self();
+	}
 }
@@ -30,7 +30,7 @@ import com.github.jochenw.jsgen.util.Objects;
  * {@link #getText()}, plus a boolean flag, which makes the comment
  * either public (Starts with "/**"), or non-public (starts with "/*").
  */
-public class Comment extends AbstractBuilder<Comment> {
+public class Comment extends AbstractBuilder<Comment> implements INode {
 	private final List<String> text = new ArrayList<String>();
 	private boolean isPublic;
 	private boolean terse;
@@ -137,4 +137,9 @@ public class Comment extends AbstractBuilder<Comment> {
 		terse = pTerse;
 		return this;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitComment(this);
+	}
 }
@@ -15,14 +15,21 @@
  */
 package com.github.jochenw.jsgen.api;
 
+import javax.annotation.Nonnull;
+
 
 /** Object, which defines a constructor, that is being generated.
  * Use {@link ClassBase#newConstructor()}, or {@link ClassBase#newConstructor(com.github.jochenw.jsgen.api.IProtectable.Protection)},
  * to create an instance.
  */
-public class Constructor extends Subroutine<Constructor> {
+public class Constructor extends Subroutine<Constructor> implements INode {
 	@Override
 	protected Constructor self() {
 		return this;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitConstructor(this);
+	}
 }
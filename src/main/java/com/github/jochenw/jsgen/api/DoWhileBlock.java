@@ -24,7 +24,7 @@ import com.github.jochenw.jsgen.util.Objects;
  * Use {@link IBlock#newDoWhile(Object...)}, or {@link IBlock#newDoWhile(Iterable)},
  * to create an instance.
  */
-public class DoWhileBlock extends Block<DoWhileBlock> {
+public class DoWhileBlock extends Block<DoWhileBlock> implements INode {
 	private Object condition;
 
 	/** Specifies the condition elements. The actual condition
@@ -73,4 +73,9 @@ public class DoWhileBlock extends Block<DoWhileBlock> {
 	@Nonnull public Object getCondition() {
 		return condition;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitDoWhileBlock(this);
+	}
 }
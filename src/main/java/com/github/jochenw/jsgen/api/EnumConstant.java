@@ -0,0 +1,76 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/** Representation of an enum constant, as created by
+ * {@link ClassBase#newEnumConstant(String, Object...)}. The constants
+ * arguments are passed to the enums constructor.
+ */
+public class EnumConstant implements ICommentOwner {
+	private final String name;
+	private final List<Object> arguments;
+	private Comment comment;
+
+	/** Creates a new instance with the given name, and the given constructor arguments.
+	 * @param pName The constants name.
+	 * @param pArguments The constructor arguments. Every argument is a token, or an
+	 *   array of tokens, like the values of {@link Field#assign(Object...)}.
+	 */
+	public EnumConstant(@Nonnull String pName, @Nonnull Object... pArguments) {
+		name = Objects.requireNonNull(pName, "Name");
+		arguments = Collections.unmodifiableList(Arrays.asList(pArguments));
+	}
+
+	/** Returns the constants name.
+	 * @return The constants name.
+	 */
+	@Nonnull public String getName() {
+		return name;
+	}
+
+	/** Returns the constructor arguments.
+	 * @return The constructor arguments, possibly empty.
+	 */
+	@Nonnull public List<Object> getArguments() {
+		return arguments;
+	}
+
+	/** Sets the constants comment.
+	 * @param pText The comments text.
+	 * @return This constant.
+	 */
+	@Nonnull public EnumConstant comment(@Nonnull String... pText) {
+		if (comment == null) {
+			comment = new Comment().makePublic(true);
+		}
+		comment.text(pText);
+		return this;
+	}
+
+	@Override
+	@Nullable public Comment getComment() {
+		return comment;
+	}
+}
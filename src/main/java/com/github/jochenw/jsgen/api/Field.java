@@ -15,9 +15,19 @@
  */
 package com.github.jochenw.jsgen.api;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.github.jochenw.jsgen.impl.Quoter;
 import com.github.jochenw.jsgen.util.AbstractBuilder;
 import com.github.jochenw.jsgen.util.Objects;
 
@@ -26,7 +36,23 @@ import com.github.jochenw.jsgen.util.Objects;
  * This class represents a field in a Java class, as opposed to a field, which is local to a
  * method, or a code block.
  */
-public class Field extends AbstractBuilder<Field> implements IProtectable<Field>, ICommentOwner, IField<Field>, IStaticable<Field>, IVolatilable<Field> {
+public class Field extends AbstractBuilder<Field> implements INode, IProtectable<Field>, ICommentOwner, IField<Field>, IStaticable<Field>, IVolatilable<Field> {
+	/** The implementation of atomic accessors, as created by
+	 * {@link Field#atomicAccessors(AtomicAccess)}.
+	 */
+	public enum AtomicAccess {
+		/** The accessors are using a static {@link java.util.concurrent.atomic.AtomicIntegerFieldUpdater},
+		 * {@link java.util.concurrent.atomic.AtomicLongFieldUpdater}, or
+		 * {@link java.util.concurrent.atomic.AtomicReferenceFieldUpdater}. This works with
+		 * Java 5, or later.
+		 */
+		FIELD_UPDATER,
+		/** The accessors are using a static {@code java.lang.invoke.VarHandle}. This requires
+		 * Java 9, or later.
+		 */
+		VAR_HANDLE
+	}
+
 	private AnnotationSet annotations = new AnnotationSet();
 	private @Nonnull Protection protection;
 	private @Nonnull JQName type;
@@ -34,6 +60,8 @@ public class Field extends AbstractBuilder<Field> implements IProtectable<Field>
 	private @Nullable Object value;
 	private boolean isStatic, isVolatile, isFinal;
 	private Comment comment;
+	private ClassBase<?> sourceClass;
+	private String lazyGetterName;
 
 	@Override
 	@Nonnull public AnnotationSet getAnnotations() {
@@ -148,12 +176,117 @@ public class Field extends AbstractBuilder<Field> implements IProtectable<Field>
 		return this;
 	}
 
+	/** Sets this fields value to an array initializer with primitive values.
+	 * @param pValue The fields value.
+	 * @return This builder.
+	 * @see #assign(int[])
+	 * @see #assign(long[])
+	 * @see #assign(byte[])
+	 * @see #getValue()
+	 */
+	@Nonnull public Field assign(@Nonnull ArrayInitializer pValue) {
+		assertMutable();
+		Objects.requireNonNull(pValue, "Value");
+		if (value != null) {
+			throw new IllegalStateException("A value has already been assigned to this field.");
+		}
+		value = pValue;
+		return this;
+	}
+
+	/** Sets this fields value to an array initializer with the given integer values,
+	 * like {@code {1, 2, 3}}. The values are written by the formatter without boxing,
+	 * so this is suitable for large tables. The array is used as it is, so it must
+	 * not be modified thereafter.
+	 * @param pValues The array elements.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assign(@Nonnull int[] pValues) {
+		return assign(ArrayInitializer.of(pValues));
+	}
+
+	/** Sets this fields value to an array initializer with the given long values,
+	 * like {@code {1L, 2L, 3L}}. The array is used as it is, so it must
+	 * not be modified thereafter.
+	 * @param pValues The array elements.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assign(@Nonnull long[] pValues) {
+		return assign(ArrayInitializer.of(pValues));
+	}
+
+	/** Sets this fields value to an array initializer with the given byte values.
+	 * The array is used as it is, so it must not be modified thereafter.
+	 * @param pValues The array elements.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assign(@Nonnull byte[] pValues) {
+		return assign(ArrayInitializer.of(pValues));
+	}
+
+	/** Sets this fields value to an array initializer with the given string constants,
+	 * like {@code {"a", "b", "c"}}. The array is used as it is, so it must not be
+	 * modified thereafter. Note the difference to {@link #assign(Object...)}, which
+	 * concatenates the given strings as code tokens.
+	 * @param pValues The array elements. Null elements are not permitted.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assignStrings(@Nonnull String... pValues) {
+		return assign(ArrayInitializer.of(pValues));
+	}
+
+	/** Sets this fields value to an array initializer with the given integer values.
+	 * The stream is consumed immediately, because a source is being rendered more
+	 * than once (for example, to collect the imports).
+	 * @param pValues The array elements.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assign(@Nonnull IntStream pValues) {
+		return assign(ArrayInitializer.of(pValues.toArray()));
+	}
+
+	/** Sets this fields value to an array initializer with the given long values.
+	 * The stream is consumed immediately.
+	 * @param pValues The array elements.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assign(@Nonnull LongStream pValues) {
+		return assign(ArrayInitializer.of(pValues.toArray()));
+	}
+
+	/** Sets this fields value to an array initializer with the given integer values.
+	 * The iterator is consumed immediately.
+	 * @param pValues The array elements.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assign(@Nonnull PrimitiveIterator.OfInt pValues) {
+		return assign(ArrayInitializer.of(pValues));
+	}
+
+	/** Sets this fields value to an array initializer with the given long values.
+	 * The iterator is consumed immediately.
+	 * @param pValues The array elements.
+	 * @return This builder.
+	 * @see #assign(ArrayInitializer)
+	 */
+	@Nonnull public Field assign(@Nonnull PrimitiveIterator.OfLong pValues) {
+		return assign(ArrayInitializer.of(pValues));
+	}
+
 	/**
 	 * Returns the fields value.
-	 * @return Either an array, or an {@link Iterable}, depending on which version was used to set the
-	 * value
+	 * @return Either an array, an {@link Iterable}, or an {@link ArrayInitializer},
+	 * depending on which version was used to set the value
 	 * @see #assign(Object...)
 	 * @see #assign(Iterable)
+	 * @see #assign(ArrayInitializer)
 	 */
 	@Nullable public Object getValue() {
 		return value;
@@ -242,6 +375,308 @@ public class Field extends AbstractBuilder<Field> implements IProtectable<Field>
 		return isFinal;
 	}
 
+	/** Returns the class, which contains this field.
+	 * @return The class, which contains this field. Null, if the field
+	 *   hasn't been created by {@link ClassBase#newField(JQName, String)},
+	 *   or the like.
+	 */
+	@Nullable public ClassBase<?> getSourceClass() {
+		return sourceClass;
+	}
+
+	/** Sets the class, which contains this field.
+	 * @param pClass The class, which contains this field.
+	 * @return This builder.
+	 */
+	@Nonnull Field sourceClass(ClassBase<?> pClass) {
+		assertMutable();
+		sourceClass = pClass;
+		return this;
+	}
+
+	/** Moves this field from its current source class to the given class.
+	 * The field is appended to the given classes contents.
+	 * @param pClass The fields new source class.
+	 * @return This builder.
+	 * @throws IllegalStateException The field hasn't been created by
+	 *   {@link ClassBase#newField(JQName, String)}, or the like.
+	 */
+	@Nonnull public Field moveTo(@Nonnull ClassBase<?> pClass) {
+		assertMutable();
+		Objects.requireNonNull(pClass, "Class");
+		if (sourceClass == null  ||  !sourceClass.getContent().remove(this)) {
+			throw new IllegalStateException("The field " + name + " is not contained in its source class.");
+		}
+		pClass.getContent().add(this);
+		sourceClass = pClass;
+		return this;
+	}
+
+	/** Converts this field into a lazily initialized static field, using
+	 * the "initialization on demand holder" idiom. Equivalent to
+	 * {@code lazyStatic("get" + name)}, where "name" is the fields name in
+	 * camel case. For example, the getter of a field named "PATTERN_CACHE"
+	 * would be "getPatternCache".
+	 * @return This builder.
+	 * @see #lazyStatic(String)
+	 */
+	@Nonnull public Field lazyStatic() {
+		return lazyStatic("get" + asCamelCase(name));
+	}
+
+	/** Converts this field into a lazily initialized static field, using
+	 * the "initialization on demand holder" idiom: The field is moved into
+	 * a private static inner class (the holder), and a static getter with
+	 * the fields previous protection is added to the fields class. The JVM
+	 * initializes the holder class (and, thus, computes the fields value)
+	 * not before the getter is invoked for the first time.
+	 *
+	 * The field is made static, and final. Its value must be set by using
+	 * one of the {@code assign(...)} methods, because an assignment in
+	 * the outer classes static initializer would defeat the purpose.
+	 * If the field is used as a token in the outer class, for example
+	 * in {@code line("return ", field, ".length")}, then the formatter
+	 * writes a call to the getter instead of the fields name.
+	 * @param pGetterName Name of the getter method.
+	 * @return This builder.
+	 * @throws IllegalStateException The field has already been converted,
+	 *   or it hasn't been created by {@link ClassBase#newField(JQName, String)},
+	 *   or the like.
+	 * @see #lazyStatic()
+	 * @see #getLazyGetterName()
+	 */
+	@Nonnull public Field lazyStatic(@Nonnull String pGetterName) {
+		final int index = assertLazyStaticConvertible(pGetterName);
+		final ClassBase<?> outerClass = Objects.requireNonNull(sourceClass, "Source class");
+		final InnerClass holder = outerClass.newInnerClass(asCamelCase(name) + "Holder", Protection.PRIVATE).makeStatic();
+		final List<Object> content = outerClass.getContent();
+		content.remove(content.size()-1);
+		content.add(index, holder);
+		return lazyStatic(holder, pGetterName);
+	}
+
+	/** Converts this field into a lazily initialized static field, like
+	 * {@link #lazyStatic(String)}, except that the holder is given. This allows
+	 * to share a holder between several fields, which are always used together.
+	 * The holder may also have a static initializer, which assigns the fields.
+	 * @param pHolder The holder class, an inner class of this fields class.
+	 * @param pGetterName Name of the getter method.
+	 * @return This builder.
+	 * @throws IllegalStateException The field has already been converted,
+	 *   or it hasn't been created by {@link ClassBase#newField(JQName, String)},
+	 *   or the like, or the holder isn't an inner class of this fields class.
+	 * @see #lazyStatic(String)
+	 */
+	@Nonnull public Field lazyStatic(@Nonnull InnerClass pHolder, @Nonnull String pGetterName) {
+		final int index = assertLazyStaticConvertible(pGetterName);
+		final ClassBase<?> outerClass = Objects.requireNonNull(sourceClass, "Source class");
+		final List<Object> content = outerClass.getContent();
+		if (!content.contains(Objects.requireNonNull(pHolder, "Holder"))) {
+			throw new IllegalStateException("The holder " + pHolder.getType()
+			                                + " is not an inner class of " + outerClass.getType());
+		}
+		final Method getter = outerClass.newMethod(protection, type, pGetterName).makeStatic();
+		getter.body().tline("return ", pHolder.getType().getSimpleClassName(), ".", name);
+		content.remove(content.size()-1);
+		content.set(index, getter);
+		pHolder.getContent().add(this);
+		sourceClass = pHolder;
+		// Package private, so that the getter doesn't need a synthetic accessor.
+		protection = Protection.PACKAGE;
+		isStatic = true;
+		isFinal = true;
+		lazyGetterName = pGetterName;
+		return this;
+	}
+
+	private int assertLazyStaticConvertible(String pGetterName) {
+		assertMutable();
+		Objects.requireNonNull(pGetterName, "Getter name");
+		if (lazyGetterName != null) {
+			throw new IllegalStateException("The field " + name + " is already initialized lazily.");
+		}
+		if (sourceClass == null) {
+			throw new IllegalStateException("The field " + name + " doesn't have a source class.");
+		}
+		final int index = sourceClass.getContent().indexOf(this);
+		if (index == -1) {
+			throw new IllegalStateException("The field " + name + " is not contained in its source class.");
+		}
+		return index;
+	}
+
+	/** Returns, whether this field is initialized lazily.
+	 * @return True, if {@link #lazyStatic(String)} has been invoked.
+	 *   Otherwise false.
+	 */
+	public boolean isLazyStatic() {
+		return lazyGetterName != null;
+	}
+
+	/** Returns the name of the getter, which provides access to the
+	 * lazily initialized field.
+	 * @return The getters name, if {@link #lazyStatic(String)} has been
+	 *   invoked. Otherwise null.
+	 */
+	@Nullable public String getLazyGetterName() {
+		return lazyGetterName;
+	}
+
+	private static String asCamelCase(String pName) {
+		final StringBuilder sb = new StringBuilder(pName.length());
+		final boolean upperCase = pName.equals(pName.toUpperCase(Locale.ROOT));
+		boolean startOfWord = true;
+		for (int i = 0;  i < pName.length();  i++) {
+			final char c = pName.charAt(i);
+			if (c == '_') {
+				startOfWord = true;
+			} else if (startOfWord) {
+				sb.append(Character.toUpperCase(c));
+				startOfWord = false;
+			} else {
+				sb.append(upperCase ? Character.toLowerCase(c) : c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/** Creates atomic accessors for this field, which is being made volatile.
+	 * Equivalent to {@code atomicAccessors(AtomicAccess.FIELD_UPDATER)}.
+	 * @return This builder.
+	 * @see #atomicAccessors(AtomicAccess)
+	 */
+	@Nonnull public Field atomicAccessors() {
+		return atomicAccessors(AtomicAccess.FIELD_UPDATER);
+	}
+
+	/** Creates atomic accessors for this field, which is being made volatile.
+	 * A private static final constant (the field updater, or var handle) is
+	 * inserted before the field, and the following methods are added to the
+	 * fields class, with the fields protection, and the fields name in
+	 * camel case (for example, "Count") as the suffix "X":
+	 * <ul>
+	 *   <li>{@code boolean compareAndSetX(T pExpect, T pUpdate)}</li>
+	 *   <li>{@code T getAndSetX(T pValue)}</li>
+	 *   <li>{@code void lazySetX(T pValue)}</li>
+	 *   <li>{@code T getAndAddX(T pDelta)}, if the fields type is int, or long.</li>
+	 * </ul>
+	 * Unlike a field of type {@link java.util.concurrent.atomic.AtomicLong},
+	 * or the like, this doesn't require an additional object per instance.
+	 * @param pAccess The accessors implementation.
+	 * @return This builder.
+	 * @throws IllegalStateException The field is static, or final, its type
+	 *   is a primitive type other than int, or long, or the field hasn't been
+	 *   created by {@link ClassBase#newField(JQName, String)}, or the like.
+	 */
+	@Nonnull public Field atomicAccessors(@Nonnull AtomicAccess pAccess) {
+		assertMutable();
+		Objects.requireNonNull(pAccess, "Access");
+		if (sourceClass == null) {
+			throw new IllegalStateException("The field " + name + " doesn't have a source class.");
+		}
+		if (isStatic  ||  isFinal) {
+			throw new IllegalStateException("Atomic accessors require a non-static, non-final field: " + name);
+		}
+		// JQName.equals() ignores the array flag, so arrays must be excluded
+		// explicitly. Arrays (of primitives, too) are treated as references.
+		final boolean numeric = !type.isArray()
+				&&  (JQName.INT_TYPE.equals(type)  ||  JQName.LONG_TYPE.equals(type));
+		if (type.isPrimitive()  &&  !type.isArray()  &&  !numeric) {
+			throw new IllegalStateException("Atomic accessors require an int, long, or reference field: " + name);
+		}
+		final ClassBase<?> clazz = sourceClass;
+		final List<Object> content = clazz.getContent();
+		final int index = content.indexOf(this);
+		if (index == -1) {
+			throw new IllegalStateException("The field " + name + " is not contained in its source class.");
+		}
+		isVolatile = true;
+		final String suffix = asCamelCase(name);
+		// The constant is static, so the type parameters of a generic class aren't available.
+		final JQName outerType = JQName.valueOf(clazz.getType().getQName());
+		final Field constant;
+		final Object cast;
+		if (pAccess == AtomicAccess.FIELD_UPDATER) {
+			constant = clazz.newField(getUpdaterType(outerType), asConstantName(name) + "_UPDATER", Protection.PRIVATE);
+			cast = "";
+			final JQName updaterClass = JQName.valueOf(constant.getType().getQName());
+			if (numeric) {
+				constant.assign(updaterClass, ".newUpdater(", outerType, ".class, ",
+						Quoter.valueOf(name), ")");
+			} else {
+				constant.assign(updaterClass, ".newUpdater(", outerType, ".class, ",
+						getRawType(), ".class, ", Quoter.valueOf(name), ")");
+			}
+		} else {
+			final String helperName = name + "$handle";
+			constant = clazz.newField(VAR_HANDLE, asConstantName(name) + "_HANDLE", Protection.PRIVATE);
+			constant.assign(helperName, "()");
+			final Method helper = clazz.newMethod(Protection.PRIVATE, VAR_HANDLE, helperName).makeStatic();
+			final Block<?> body = helper.body();
+			body.line("try ");
+			body.newBlock().tline("return ", METHOD_HANDLES, ".lookup().findVarHandle(", outerType, ".class, ",
+					Quoter.valueOf(name), ", ", getRawType(), ".class)");
+			body.line("catch (ReflectiveOperationException e) ");
+			body.newBlock().tline("throw new ExceptionInInitializerError(e)");
+			cast = new Object[] { "(", type, ") " };
+		}
+		constant.makeStatic().makeFinal();
+		content.remove(constant);
+		content.add(content.indexOf(this), constant);
+		final String constantName = constant.getName();
+		final Method compareAndSet = clazz.newMethod(protection, JQName.BOOLEAN_TYPE, "compareAndSet" + suffix);
+		compareAndSet.parameter(type, "pExpect");
+		compareAndSet.parameter(type, "pUpdate");
+		compareAndSet.body().tline("return ", constantName, ".compareAndSet(this, pExpect, pUpdate)");
+		final Method getAndSet = clazz.newMethod(protection, type, "getAndSet" + suffix);
+		getAndSet.parameter(type, "pValue");
+		getAndSet.body().tline("return ", cast, constantName, ".getAndSet(this, pValue)");
+		final Method lazySet = clazz.newMethod(protection, JQName.VOID_TYPE, "lazySet" + suffix);
+		lazySet.parameter(type, "pValue");
+		lazySet.body().tline(constantName, pAccess == AtomicAccess.FIELD_UPDATER ? ".lazySet" : ".setRelease",
+				"(this, pValue)");
+		if (numeric) {
+			final Method getAndAdd = clazz.newMethod(protection, type, "getAndAdd" + suffix);
+			getAndAdd.parameter(type, "pDelta");
+			getAndAdd.body().tline("return ", cast, constantName, ".getAndAdd(this, pDelta)");
+		}
+		return this;
+	}
+
+	private static final JQName VAR_HANDLE = JQName.valueOf("java.lang.invoke.VarHandle");
+	private static final JQName METHOD_HANDLES = JQName.valueOf("java.lang.invoke.MethodHandles");
+
+	private JQName getUpdaterType(JQName pOuterType) {
+		if (type.isArray()) {
+			return JQName.valueOf(AtomicReferenceFieldUpdater.class).qualifiedBy(pOuterType, getRawType());
+		} else if (JQName.INT_TYPE.equals(type)) {
+			return JQName.valueOf(AtomicIntegerFieldUpdater.class).qualifiedBy(pOuterType);
+		} else if (JQName.LONG_TYPE.equals(type)) {
+			return JQName.valueOf(AtomicLongFieldUpdater.class).qualifiedBy(pOuterType);
+		} else {
+			return JQName.valueOf(AtomicReferenceFieldUpdater.class).qualifiedBy(pOuterType, getRawType());
+		}
+	}
+
+	private JQName getRawType() {
+		if (type.hasQualifiers()) {
+			return JQName.valueOf(type.getQName());
+		}
+		return type;
+	}
+
+	private static String asConstantName(String pName) {
+		final StringBuilder sb = new StringBuilder(pName.length() + 4);
+		for (int i = 0;  i < pName.length();  i++) {
+			final char c = pName.charAt(i);
+			if (i > 0  &&  Character.isUpperCase(c)  &&  Character.isLowerCase(pName.charAt(i-1))) {
+				sb.append('_');
+			}
+			sb.append(Character.toUpperCase(c));
+		}
+		return sb.toString();
+	}
+
 	@Override
 	protected @Nonnull Field self() { return this; }
 
@@ -276,4 +711,9 @@ public class Field extends AbstractBuilder<Field> implements IProtectable<Field>
 	@Nullable public Comment getComment() {
 		return comment;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitField(this);
+	}
 }
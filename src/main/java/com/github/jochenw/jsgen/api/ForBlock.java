@@ -22,7 +22,7 @@ import com.github.jochenw.jsgen.util.Objects;
 /**
  * Representation of a for(...) block.
  */
-public class ForBlock extends Block<ForBlock> {
+public class ForBlock extends Block<ForBlock> implements INode {
 	private Object condition;
 
 	/** Sets the blocks condition, as an array of elements. The actual condition is
@@ -61,4 +61,9 @@ public class ForBlock extends Block<ForBlock> {
 	@Nonnull public Object getCondition() {
 		return condition;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitForBlock(this);
+	}
 }
@@ -15,6 +15,8 @@
  */
 package com.github.jochenw.jsgen.api;
 
+import java.nio.file.Path;
+
 import javax.annotation.Nonnull;
 
 /**
@@ -127,6 +129,22 @@ public interface IBlock<T extends IBlock<T>> {
 	 */
 	@Nonnull public DoWhileBlock newDoWhile(@Nonnull Iterable<?> pCondition);
 
+	/** Creates a new, nested "switch" block, with the given expression, and adds it to the
+	 * current block. Use {@link SwitchBlock#newCase(int...)}, and the like, to add cases.
+	 * @param pExpression The expression elements. The actual expression will be created by
+	 *   concatenating the elements.
+	 * @return The created block, which has been added to the current code block.
+	 */
+	@Nonnull public SwitchBlock newSwitch(@Nonnull Object... pExpression);
+
+	/** Creates a new, nested "switch" block, with the given expression, and adds it to the
+	 * current block. Use {@link SwitchBlock#newCase(int...)}, and the like, to add cases.
+	 * @param pExpression The expression elements. The actual expression will be created by
+	 *   concatenating the elements.
+	 * @return The created block, which has been added to the current code block.
+	 */
+	@Nonnull public SwitchBlock newSwitch(@Nonnull Iterable<Object> pExpression);
+
 	/**
 	 * Creates a new, nested, "for" block, with the given condition, and adds it to the current block.
 	 * @param pCondition The condition elements. The actual line will be created by concatenating
@@ -160,4 +178,28 @@ public interface IBlock<T extends IBlock<T>> {
 	 * multi-line) is being determined by the number of elements in the array.
 	 */
 	@Nonnull T comment(Iterable<String> pText);
+
+	/** Adds a raw fragment of pre-formatted code to the current code block.
+	 * The text is embedded verbatim: Every line is prefixed with the
+	 * current indentation, but otherwise left unchanged. This is much cheaper
+	 * than adding the same text line by line, in particular for large
+	 * chunks of code, which have been generated by other tools.
+	 * @param pText The text, which is being embedded. Must not be modified thereafter.
+	 * @param pImports Types, which are being used by the text by their simple names,
+	 *   and must therefore be imported. Note, that it is up to the caller to make sure,
+	 *   that the names don't conflict with other imports.
+	 * @return This code block.
+	 */
+	@Nonnull T raw(@Nonnull CharSequence pText, @Nonnull JQName... pImports);
+
+	/** Adds a raw fragment of pre-formatted code to the current code block.
+	 * The fragment is read from the given file (UTF-8 encoded) immediately.
+	 * @param pFile The file, which is being embedded.
+	 * @param pImports Types, which are being used by the text by their simple names,
+	 *   and must therefore be imported.
+	 * @return This code block.
+	 * @throws java.io.UncheckedIOException Reading the file failed.
+	 * @see #raw(CharSequence, JQName...)
+	 */
+	@Nonnull T raw(@Nonnull Path pFile, @Nonnull JQName... pImports);
 }
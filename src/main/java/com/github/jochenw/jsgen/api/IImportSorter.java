@@ -40,6 +40,14 @@ public interface IImportSorter {
 	 * @return The types category.
 	 */
 	int getCategory(JQName pName);
+	/** Returns a string, which identifies this import sorter, and its settings.
+	 * Import sorters with the same identity must produce the same order. The
+	 * identity is used as part of the key in a render cache.
+	 * @return The import sorters identity. By default, the class name.
+	 */
+	default String getIdentity() {
+		return getClass().getName();
+	}
 	/** Compares the given types, following the rules of a
 	 * {@link Comparator}. The {@link DefaultImportSorter default implementation}
 	 * sorts types by alphabetically comparing the fully, qualified names, ignoring
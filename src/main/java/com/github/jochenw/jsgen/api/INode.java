@@ -0,0 +1,36 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import javax.annotation.Nonnull;
+
+
+/** Interface of a node, which may be part of a classes content
+ * ({@link ClassBase#getContent()}), or a blocks content ({@link Block#getContents()}):
+ * Fields, methods, constructors, inner classes, static initializers,
+ * lines, comments, and the various kinds of blocks.
+ * A node is processed by passing an {@link INodeVisitor} to its
+ * {@link #accept(INodeVisitor)} method, which invokes the visitor method,
+ * that matches the nodes kind.
+ */
+public interface INode {
+	/** Invokes the visitor method, which matches this nodes kind.
+	 * For example, a {@link Field} invokes
+	 * {@link INodeVisitor#visitField(Field)}.
+	 * @param pVisitor The visitor, which is being invoked.
+	 */
+	void accept(@Nonnull INodeVisitor pVisitor);
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.Block.Line;
+
+
+/** Interface of a visitor, which processes the {@link INode nodes}
+ * in a classes, or a blocks content. A visitor is typically used by
+ * serializers, which would otherwise be forced to determine a nodes
+ * kind by a sequence of {@code instanceof} checks: Instead, they invoke
+ * {@link INode#accept(INodeVisitor)}, and the node selects the matching
+ * visitor method.
+ */
+public interface INodeVisitor {
+	/** Called to process a field, that is a member of a class.
+	 * @param pField The field, which is being processed.
+	 */
+	void visitField(@Nonnull Field pField);
+	/** Called to process a local field, that is part of a code block.
+	 * @param pField The local field, which is being processed.
+	 */
+	void visitLocalField(@Nonnull LocalField pField);
+	/** Called to process a method.
+	 * @param pMethod The method, which is being processed.
+	 */
+	void visitMethod(@Nonnull Method pMethod);
+	/** Called to process a constructor.
+	 * @param pConstructor The constructor, which is being processed.
+	 */
+	void visitConstructor(@Nonnull Constructor pConstructor);
+	/** Called to process an inner class.
+	 * @param pClass The inner class, which is being processed.
+	 */
+	void visitInnerClass(@Nonnull InnerClass pClass);
+	/** Called to process a static initializer.
+	 * @param pInitializer The static initializer, which is being processed.
+	 */
+	void visitStaticInitializer(@Nonnull StaticInitializer pInitializer);
+	/** Called to process an "if" block, including the connected
+	 * "else if", and "else" blocks, if any.
+	 * @param pBlock The block, which is being processed.
+	 */
+	void visitIfBlock(@Nonnull IfBlock pBlock);
+	/** Called to process a "for" block.
+	 * @param pBlock The block, which is being processed.
+	 */
+	void visitForBlock(@Nonnull ForBlock pBlock);
+	/** Called to process a "while" block.
+	 * @param pBlock The block, which is being processed.
+	 */
+	void visitWhileBlock(@Nonnull WhileBlock pBlock);
+	/** Called to process a "do ... while" block.
+	 * @param pBlock The block, which is being processed.
+	 */
+	void visitDoWhileBlock(@Nonnull DoWhileBlock pBlock);
+	/** Called to process a single line of code.
+	 * @param pLine The line, which is being processed.
+	 */
+	void visitLine(@Nonnull Line pLine);
+	/** Called to process a comment.
+	 * @param pComment The comment, which is being processed.
+	 */
+	void visitComment(@Nonnull Comment pComment);
+	/** Called to process an anonymous, nested block.
+	 * @param pBlock The block, which is being processed.
+	 */
+	void visitNestedBlock(@Nonnull NestedBlock pBlock);
+	/** Called to process a raw fragment of pre-formatted code.
+	 * @param pFragment The fragment, which is being processed.
+	 */
+	void visitRawFragment(@Nonnull RawFragment pFragment);
+	/** Called to process a switch block.
+	 * @param pBlock The switch block, which is being processed.
+	 */
+	void visitSwitchBlock(@Nonnull SwitchBlock pBlock);
+}
@@ -23,7 +23,7 @@ import com.github.jochenw.jsgen.util.Objects;
 /**
  * Representation of an "if(...) { ... }" block.
  */
-public class IfBlock extends Block<IfBlock> {
+public class IfBlock extends Block<IfBlock> implements INode {
 	private Object condition;
 	private IfBlock nextIfBlock;
 	private ElseBlock elseBlock;
@@ -113,4 +113,9 @@ public class IfBlock extends Block<IfBlock> {
 		elseBlock = new ElseBlock();
 		return elseBlock;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitIfBlock(this);
+	}
 }
@@ -19,7 +19,7 @@ import javax.annotation.Nonnull;
 
 /** Representation of an inner class.
  */
-public class InnerClass extends ClassBase<InnerClass> implements IStaticable<InnerClass> {
+public class InnerClass extends ClassBase<InnerClass> implements INode, IStaticable<InnerClass> {
 	private boolean isStatic;
 
 	/** Creates a new instance with the given type.
@@ -53,4 +53,9 @@ public class InnerClass extends ClassBase<InnerClass> implements IStaticable<Inn
 	public boolean isStatic() {
 		return isStatic;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitInnerClass(this);
+	}
 }
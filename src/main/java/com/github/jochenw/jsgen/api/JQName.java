@@ -74,7 +74,12 @@ public class JQName implements ILocation {
 
 	@Override
 	public int hashCode() {
-		return java.util.Objects.hash(className, packageName, qName, qualifiers, outerClassName);
+		// Equivalent to Objects.hash(...), but without allocating a varargs array.
+		int h = 31 + className.hashCode();
+		h = 31 * h + packageName.hashCode();
+		h = 31 * h + qName.hashCode();
+		h = 31 * h + qualifiers.hashCode();
+		return 31 * h + java.util.Objects.hashCode(outerClassName);
 	}
 
 
@@ -409,6 +414,18 @@ public class JQName implements ILocation {
 		return new JQName(packageName, className, qName, Collections.emptyList(), primitive, true, null);
 	}
 
+	/** Returns a type, which is the current type, with its qualifiers replaced by
+	 * the given list. Unlike {@link #qualifiedBy(Object...)}, the outer class,
+	 * and the array flag are retained.
+	 * @param pQualifiers The new list of qualifiers, possibly empty.
+	 * @return A new type, with the same base type, and the given qualifiers.
+	 */
+	@Nonnull public JQName withQualifiers(@Nonnull List<JQName> pQualifiers) {
+		Objects.requireAllNonNull(pQualifiers, "Qualifier");
+		return new JQName(packageName, className, qName, new ArrayList<>(pQualifiers), primitive, array,
+				          outerClassName, pseudo);
+	}
+
 	/** Returns a type, which is the current type, with the given qualifiers applied.
 	 * Example 1: If the current type is "java.util.Map", and the qualifiers are
 	 * "java.lang.String", and "java.lang.Object", then the result will be
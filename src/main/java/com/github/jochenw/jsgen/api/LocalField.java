@@ -25,7 +25,7 @@ import com.github.jochenw.jsgen.util.Objects;
 /**
  * Representation of a local field: A variable, which has a code block as its scope.
  */
-public class LocalField extends AbstractBuilder<LocalField> implements ICommentOwner, IField<LocalField> {
+public class LocalField extends AbstractBuilder<LocalField> implements INode, ICommentOwner, IField<LocalField> {
 	private final AnnotationSet annotations = new AnnotationSet();
 	private boolean isFinal;
 	private JQName type;
@@ -169,4 +169,9 @@ public class LocalField extends AbstractBuilder<LocalField> implements ICommentO
 	@Nullable public Comment getComment() {
 		return comment;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitLocalField(this);
+	}
 }
@@ -21,7 +21,7 @@ import javax.annotation.Nonnull;
 /** Representation of a method, that is a member of a class.
  */
 public class Method extends Subroutine<Method>
-        implements IAbstractable<Method>, IProtectable<Method>, IStaticable<Method> {
+        implements INode, IAbstractable<Method>, IProtectable<Method>, IStaticable<Method> {
 	@Nonnull private JQName type;
 	@Nonnull private IProtectable.Protection protection;
 	@Nonnull private String name;
@@ -251,4 +251,9 @@ public class Method extends Subroutine<Method>
 	public boolean isOverriding() {
 		return isAnnotatedWith(OVERRIDE);
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitMethod(this);
+	}
 }
@@ -15,9 +15,15 @@
  */
 package com.github.jochenw.jsgen.api;
 
+import javax.annotation.Nonnull;
+
 
 /** A nested block is an anonymous block, which is nested inside another
  * block.
  */
-public class NestedBlock extends Block<NestedBlock> {
+public class NestedBlock extends Block<NestedBlock> implements INode {
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitNestedBlock(this);
+	}
 }
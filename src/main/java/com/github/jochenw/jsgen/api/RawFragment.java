@@ -0,0 +1,64 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+
+/** A raw fragment is a piece of pre-formatted Java code, which is
+ * embedded into a block verbatim. Unlike a sequence of {@link Block.Line lines},
+ * the text isn't split into tokens. Instead, the formatter copies it
+ * in bulk, and merely prefixes every line with the current indentation.
+ * Use {@link Block#raw(CharSequence, JQName...)}, or
+ * {@link Block#raw(java.nio.file.Path, JQName...)} to create an instance.
+ */
+public class RawFragment implements INode {
+	private final CharSequence text;
+	private final List<JQName> imports;
+
+	/** Creates a new instance with the given text, and the given imports.
+	 * @param pText The fragments text. The text is used as it is, so it must
+	 *   not be modified thereafter.
+	 * @param pImports The types, which are being used by the text. These types will
+	 *   be imported, so that the text may refer to them by their simple names.
+	 */
+	public RawFragment(@Nonnull CharSequence pText, @Nonnull List<JQName> pImports) {
+		text = pText;
+		imports = pImports;
+	}
+
+	/** Returns the fragments text.
+	 * @return The fragments text.
+	 */
+	@Nonnull public CharSequence getText() {
+		return text;
+	}
+
+	/** Returns the types, which are being used by the fragments text,
+	 * and should be imported.
+	 * @return The types, which are being used by the fragments text.
+	 */
+	@Nonnull public List<JQName> getImports() {
+		return imports;
+	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitRawFragment(this);
+	}
+}
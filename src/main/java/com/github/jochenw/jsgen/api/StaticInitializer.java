@@ -22,7 +22,7 @@ import javax.annotation.Nullable;
 /** Representation of a static initializer: An anonymous code block, which is being
  * executed, when the class is loaded. 
  */
-public class StaticInitializer extends CodeBlock<StaticInitializer> implements ICommentOwner  {
+public class StaticInitializer extends CodeBlock<StaticInitializer> implements INode, ICommentOwner  {
 	private Comment comment;
 
 	@Override
@@ -52,4 +52,9 @@ public class StaticInitializer extends CodeBlock<StaticInitializer> implements I
 	@Nullable public Comment getComment() {
 		return comment;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitStaticInitializer(this);
+	}
 }
@@ -80,13 +80,21 @@ public abstract class Subroutine<T extends Subroutine<T>> extends CodeBlock<T> i
 		@Override
 		protected Parameter self() { return this; }
 
+		/** Declares this parameter to be final. Equivalent to
+		 * {@code makeFinal(true)}.
+		 * @return This builder.
+		 */
 		@Nonnull
-		Parameter makeFinal() {
+		public Parameter makeFinal() {
 			return makeFinal(true);
 		}
 
+		/** Declares this parameter to be final, or not.
+		 * @param pFinal True, if this parameter should be final, otherwise false.
+		 * @return This builder.
+		 */
 		@Nonnull
-		Parameter makeFinal(boolean pFinal) {
+		public Parameter makeFinal(boolean pFinal) {
 			assertMutable();
 			isFinal = pFinal;
 			return this;
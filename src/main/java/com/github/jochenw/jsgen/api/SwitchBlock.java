@@ -0,0 +1,362 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.jochenw.jsgen.util.AbstractBuilder;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/**
+ * Representation of a switch(...) block. The case labels are either
+ * integers, strings, or enum constants. All labels in a switch block
+ * must have the same type. Enum constants are either runtime {@link Enum}
+ * objects, or {@link EnumLabel labels}, which refer to an enum by name
+ * (for example, a generated enum).
+ */
+public class SwitchBlock extends AbstractBuilder<SwitchBlock> implements INode {
+	/**
+	 * Representation of a single case in a switch block: One, or more
+	 * labels, or the default label, followed by the code, which is being
+	 * executed for these labels. Note, that a "break" statement is not
+	 * added automatically.
+	 */
+	public static class Case extends Block<Case> {
+		private final List<Object> labels;
+
+		Case(@Nonnull List<Object> pLabels) {
+			labels = pLabels;
+		}
+
+		/** Returns the cases labels: Instances of {@link Integer}, {@link String},
+		 * {@link Enum}, or {@link EnumLabel}.
+		 * @return The cases labels. Empty, if this is the default case.
+		 */
+		@Nonnull public List<Object> getLabels() {
+			return labels;
+		}
+
+		/** Returns, whether this is the default case.
+		 * @return True, if this is the default case. Otherwise false.
+		 */
+		public boolean isDefault() {
+			return labels.isEmpty();
+		}
+	}
+
+	/**
+	 * A case label, which refers to an enum constant by name. Used for enums,
+	 * which aren't available at runtime, like generated enums.
+	 */
+	public static class EnumLabel {
+		private final @Nonnull JQName type;
+		private final @Nonnull String name;
+
+		EnumLabel(@Nonnull JQName pType, @Nonnull String pName) {
+			type = pType;
+			name = pName;
+		}
+
+		/** Returns the enum type.
+		 * @return The enum type.
+		 */
+		@Nonnull public JQName getType() {
+			return type;
+		}
+
+		/** Returns the enum constants name.
+		 * @return The enum constants name.
+		 */
+		@Nonnull public String getName() {
+			return name;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + name.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object pOther) {
+			if (pOther == this) {
+				return true;
+			}
+			if (pOther == null  ||  pOther.getClass() != getClass()) {
+				return false;
+			}
+			final EnumLabel other = (EnumLabel) pOther;
+			return type.equals(other.type)  &&  name.equals(other.name);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private Object expression;
+	private final List<Case> cases = new ArrayList<>();
+	private final Set<Object> labels = new HashSet<>();
+	private Class<?> labelType;
+	private JQName enumLabelType;
+	private boolean hasDefault;
+
+	/** Sets the switch blocks expression.
+	 * @param pValues The expression, an array of elements, which are being concatenated
+	 *   to build the actual expression.
+	 * @return This switch block.
+	 */
+	public SwitchBlock expression(@Nonnull Object... pValues) {
+		assertMutable();
+		Objects.requireAllNonNull(pValues, "Values");
+		if (expression != null) {
+			throw new IllegalStateException("An expression has already been assigned.");
+		}
+		expression = pValues;
+		return this;
+	}
+
+	/** Sets the switch blocks expression.
+	 * @param pValues The expression, an {@link Iterable} of elements, which are being concatenated
+	 *   to build the actual expression.
+	 * @return This switch block.
+	 */
+	public SwitchBlock expression(@Nonnull Iterable<Object> pValues) {
+		assertMutable();
+		Objects.requireAllNonNull(pValues, "Values");
+		if (expression != null) {
+			throw new IllegalStateException("An expression has already been assigned.");
+		}
+		expression = pValues;
+		return this;
+	}
+
+	/** Returns the switch blocks expression.
+	 * @return The expression; an array, or {@link Iterable} of elements, which
+	 *   are being concatenated.
+	 */
+	@Nonnull public Object getExpression() {
+		return expression;
+	}
+
+	/** Creates a new case with the given integer labels.
+	 * @param pLabels The cases labels.
+	 * @return The created case, a builder object, which can be used to add code.
+	 */
+	@Nonnull public Case newCase(@Nonnull int... pLabels) {
+		final Object[] labels = new Object[pLabels.length];
+		for (int i = 0;  i < pLabels.length;  i++) {
+			labels[i] = Integer.valueOf(pLabels[i]);
+		}
+		return newCase(Integer.class, labels);
+	}
+
+	/** Creates a new case with the given string labels.
+	 * @param pLabels The cases labels.
+	 * @return The created case, a builder object, which can be used to add code.
+	 */
+	@Nonnull public Case newCase(@Nonnull String... pLabels) {
+		return newCase(String.class, pLabels);
+	}
+
+	/** Creates a new case with the given enum labels. All labels must
+	 * belong to the same enum type.
+	 * @param pLabels The cases labels.
+	 * @return The created case, a builder object, which can be used to add code.
+	 */
+	@Nonnull public Case newCase(@Nonnull Enum<?>... pLabels) {
+		if (pLabels.length > 0) {
+			Objects.requireAllNonNull(pLabels, "Labels");
+			return newCase(pLabels[0].getDeclaringClass(), pLabels);
+		}
+		return newCase(Enum.class, pLabels);
+	}
+
+	/** Creates a new case with the given enum labels, which are specified
+	 * by name. This allows to switch over enums, which aren't available at
+	 * runtime, like an enum, which is being generated.
+	 * @param pType The enum type. All cases in the switch block must use the
+	 *   same enum type.
+	 * @param pConstantNames The names of the enum constants.
+	 * @return The created case, a builder object, which can be used to add code.
+	 * @see ClassBase#newEnumConstant(String, Object...)
+	 */
+	@Nonnull public Case newCase(@Nonnull JQName pType, @Nonnull String... pConstantNames) {
+		assertMutable();
+		Objects.requireNonNull(pType, "Type");
+		Objects.requireAllNonNull(pConstantNames, "Constant names");
+		if (enumLabelType != null  &&  !enumLabelType.equals(pType)) {
+			throw new IllegalArgumentException("Invalid label type: Expected " + enumLabelType.getQName()
+			                                   + ", got " + pType.getQName());
+		}
+		final Object[] labels = new Object[pConstantNames.length];
+		for (int i = 0;  i < labels.length;  i++) {
+			labels[i] = new EnumLabel(pType, pConstantNames[i]);
+		}
+		final Case c = newCase(EnumLabel.class, labels);
+		enumLabelType = pType;
+		return c;
+	}
+
+	/** Creates the default case.
+	 * @return The created case, a builder object, which can be used to add code.
+	 */
+	@Nonnull public Case newDefault() {
+		assertMutable();
+		if (hasDefault) {
+			throw new IllegalStateException("A default case has already been created.");
+		}
+		hasDefault = true;
+		final Case c = new Case(Collections.emptyList());
+		cases.add(c);
+		return c;
+	}
+
+	private Case newCase(Class<?> pType, Object[] pLabels) {
+		assertMutable();
+		if (pLabels.length == 0) {
+			throw new IllegalArgumentException("At least one label is required.");
+		}
+		Objects.requireAllNonNull(pLabels, "Labels");
+		if (labelType == null) {
+			labelType = pType;
+		} else if (labelType != pType) {
+			throw new IllegalArgumentException("Invalid label type: Expected " + labelType.getName()
+			                                   + ", got " + pType.getName());
+		}
+		for (Object label : pLabels) {
+			if (!labels.add(label)) {
+				throw new IllegalArgumentException("Duplicate label: " + label);
+			}
+		}
+		final Case c = new Case(Collections.unmodifiableList(Arrays.asList(pLabels)));
+		cases.add(c);
+		return c;
+	}
+
+	/** Returns the switch blocks cases, in the order of creation.
+	 * @return The list of cases.
+	 */
+	@Nonnull public List<Case> getCases() {
+		return cases;
+	}
+
+	/** Returns the type of the case labels.
+	 * @return The type of the case labels: {@link Integer}, {@link String},
+	 *   an enum type, {@link EnumLabel}, or null, if no labels have been created yet.
+	 * @see #getEnumLabelType()
+	 */
+	@Nullable public Class<?> getLabelType() {
+		return labelType;
+	}
+
+	/** Returns the enum type, if the case labels are {@link EnumLabel enum labels}.
+	 * @return The enum type of the {@link EnumLabel enum labels}, or null.
+	 */
+	@Nullable public JQName getEnumLabelType() {
+		return enumLabelType;
+	}
+
+	/** Returns, whether javac will compile this switch block into a {@code tableswitch}
+	 * instruction (O(1) dispatch), rather than a {@code lookupswitch} (binary search).
+	 * For integer labels, this depends on the labels density, see
+	 * {@link #isTableSwitch(int[])}. For string labels, javac switches on the
+	 * strings hash codes first, so these are checked instead. Enum labels are
+	 * always mapped to a dense table.
+	 * @return True, if the switch block will be compiled into a {@code tableswitch}.
+	 */
+	public boolean isTableSwitch() {
+		if (labelType == null) {
+			return false;
+		} else if (labelType == Integer.class) {
+			return isTableSwitch(getIntLabels(false));
+		} else if (labelType == String.class) {
+			return isTableSwitch(getIntLabels(true));
+		} else {
+			return true;
+		}
+	}
+
+	/** Returns, whether javac will compile a switch with the given integer labels
+	 * into a {@code tableswitch} instruction. This uses javac's cost model, which
+	 * compares the size, and the number of comparisons of either instruction:
+	 * A {@code tableswitch} is chosen, if
+	 * {@code (4 + (hi - lo + 1)) + 3*3 <= (3 + 2*n) + 3*n}.
+	 * @param pLabels The case labels. Must not contain duplicates.
+	 * @return True, if javac will generate a {@code tableswitch}.
+	 */
+	public static boolean isTableSwitch(@Nonnull int[] pLabels) {
+		final int n = pLabels.length;
+		if (n == 0) {
+			return false;
+		}
+		int lo = pLabels[0], hi = pLabels[0];
+		for (int label : pLabels) {
+			lo = Math.min(lo, label);
+			hi = Math.max(hi, label);
+		}
+		final long tableSpaceCost = 4 + ((long) hi - lo + 1);
+		final long tableTimeCost = 3;
+		final long lookupSpaceCost = 3 + 2 * (long) n;
+		final long lookupTimeCost = n;
+		return tableSpaceCost + 3 * tableTimeCost <= lookupSpaceCost + 3 * lookupTimeCost;
+	}
+
+	/** Returns the density of the integer labels: The number of labels, divided by
+	 * the size of the range, which they cover.
+	 * @return The density of the integer labels (a value between 0, and 1), or 0,
+	 *   if the labels aren't integers.
+	 */
+	public double getDensity() {
+		if (labelType != Integer.class) {
+			return 0;
+		}
+		final int[] ints = getIntLabels(false);
+		int lo = ints[0], hi = ints[0];
+		for (int label : ints) {
+			lo = Math.min(lo, label);
+			hi = Math.max(hi, label);
+		}
+		return ints.length / ((double) hi - lo + 1);
+	}
+
+	private int[] getIntLabels(boolean pHashCodes) {
+		final Set<Integer> set = new HashSet<>();
+		for (Object label : labels) {
+			set.add(Integer.valueOf(pHashCodes ? label.hashCode() : ((Integer) label).intValue()));
+		}
+		final int[] result = new int[set.size()];
+		int i = 0;
+		for (Integer label : set) {
+			result[i++] = label.intValue();
+		}
+		return result;
+	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitSwitchBlock(this);
+	}
+}
@@ -22,7 +22,7 @@ import com.github.jochenw.jsgen.util.Objects;
 /**
  * Representation of a while(...) block.
  */
-public class WhileBlock extends Block<WhileBlock> {
+public class WhileBlock extends Block<WhileBlock> implements INode {
 	private Object condition;
 
 	/** Creates a new while block with the given condition.
@@ -62,4 +62,9 @@ public class WhileBlock extends Block<WhileBlock> {
 	@Nonnull public Object getCondition() {
 		return condition;
 	}
+
+	@Override
+	public void accept(@Nonnull INodeVisitor pVisitor) {
+		pVisitor.visitWhileBlock(this);
+	}
 }
@@ -0,0 +1,356 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Constructor;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+
+
+/** A generator for mapper classes, which copy the fields of one bean class into
+ * another (for example, from a DTO to an entity), without using reflection. The
+ * mapper consists of static methods with straight-line code, which the JIT
+ * compiler can inline into the caller.
+ *
+ * Fields are matched by name. A target field is assigned, if
+ * <ul>
+ *   <li>the source field is readable by the mapper (directly, or via a getter
+ *     {@code getX()}, or {@code isX()}), and the target field is writable by the
+ *     mapper (directly, or via a setter {@code setX(value)}), and</li>
+ *   <li>a converter has been registered for the field types, or the types are
+ *     the same, or the source type can be converted into the target type by
+ *     primitive widening, boxing, or unboxing (for example {@code int}
+ *     to {@code long}, {@code int} to {@link Integer}, or {@link Integer}
+ *     to {@code long}).</li>
+ * </ul>
+ * Other fields are ignored, unless {@link #isStrict() strict mode} is enabled.
+ * Note, that unboxing a null value throws a {@link NullPointerException},
+ * as it does in handwritten code.
+ */
+public class BeanMapperGenerator {
+	/** A custom converter: A static method, which converts values of the
+	 * source type into the target type.
+	 */
+	public static class Converter {
+		private final JQName sourceType, targetType, type;
+		private final String methodName;
+
+		/** Creates a new instance.
+		 * @param pSourceType The type, which is being converted.
+		 * @param pTargetType The result type of the conversion.
+		 * @param pType The class, which implements the conversion.
+		 * @param pMethodName Name of the static conversion method in {@code pType}.
+		 */
+		public Converter(@Nonnull JQName pSourceType, @Nonnull JQName pTargetType,
+				         @Nonnull JQName pType, @Nonnull String pMethodName) {
+			sourceType = Objects.requireNonNull(pSourceType, "Source type");
+			targetType = Objects.requireNonNull(pTargetType, "Target type");
+			type = Objects.requireNonNull(pType, "Type");
+			methodName = Objects.requireNonNull(pMethodName, "Method name");
+		}
+
+		/** Returns the type, which is being converted.
+		 * @return The type, which is being converted.
+		 */
+		@Nonnull public JQName getSourceType() { return sourceType; }
+		/** Returns the result type of the conversion.
+		 * @return The result type of the conversion.
+		 */
+		@Nonnull public JQName getTargetType() { return targetType; }
+		/** Returns the class, which implements the conversion.
+		 * @return The class, which implements the conversion.
+		 */
+		@Nonnull public JQName getType() { return type; }
+		/** Returns the name of the static conversion method.
+		 * @return The name of the static conversion method.
+		 */
+		@Nonnull public String getMethodName() { return methodName; }
+	}
+
+	private static final String[] PRIMITIVES = { "byte", "short", "char", "int", "long", "float", "double", "boolean" };
+	private static final JQName[] WRAPPERS = { JQName.BYTE_OBJ, JQName.SHORT_OBJ, JQName.CHAR_OBJ,
+			JQName.INT_OBJ, JQName.LONG_OBJ, JQName.FLOAT_OBJ, JQName.DOUBLE_OBJ, JQName.BOOLEAN_OBJ };
+
+	private final List<Converter> converters = new ArrayList<>();
+	private boolean strict;
+
+	/** Returns, whether strict mode is enabled. In strict mode, every non-static,
+	 * and non-final field of the target class must be assigned. Defaults to false.
+	 * @return True, if strict mode is enabled, otherwise false.
+	 */
+	public boolean isStrict() {
+		return strict;
+	}
+
+	/** Sets, whether strict mode is enabled. In strict mode, every non-static,
+	 * and non-final field of the target class must be assigned. Defaults to false.
+	 * @param pStrict True, if strict mode is enabled, otherwise false.
+	 */
+	public void setStrict(boolean pStrict) {
+		strict = pStrict;
+	}
+
+	/** Registers a custom converter. Custom converters take precedence over
+	 * the builtin conversions.
+	 * @param pSourceType The type, which is being converted.
+	 * @param pTargetType The result type of the conversion.
+	 * @param pType The class, which implements the conversion.
+	 * @param pMethodName Name of the static conversion method in {@code pType}.
+	 */
+	public void addConverter(@Nonnull JQName pSourceType, @Nonnull JQName pTargetType,
+			                 @Nonnull JQName pType, @Nonnull String pMethodName) {
+		converters.add(new Converter(pSourceType, pTargetType, pType, pMethodName));
+	}
+
+	/** Returns the registered converters.
+	 * @return The registered converters.
+	 */
+	@Nonnull public List<Converter> getConverters() {
+		return converters;
+	}
+
+	/** Creates a new mapper class with a mapping from the given source class
+	 * to the given target class. Use {@link #addMapping(ClassBase, ClassBase, ClassBase)}
+	 * to add more mappings (for example, the reverse mapping) to the mapper.
+	 * @param pFactory The factory, which is used to create the mapper.
+	 * @param pType The mapper classes type.
+	 * @param pSource The source class.
+	 * @param pTarget The target class.
+	 * @return The created mapper class.
+	 */
+	@Nonnull public Source generate(@Nonnull JSGFactory pFactory, @Nonnull JQName pType,
+			                        @Nonnull ClassBase<?> pSource, @Nonnull ClassBase<?> pTarget) {
+		final Source mapper = pFactory.newSource(pType, Protection.PUBLIC).makeFinal();
+		mapper.comment("Maps instances of " + pSource.getType().getSimpleClassName() + " to "
+				       + pTarget.getType().getSimpleClassName() + ".");
+		mapper.newConstructor(Protection.PRIVATE);
+		addMapping(mapper, pSource, pTarget);
+		return mapper;
+	}
+
+	/** Adds a mapping from the given source class to the given target class to the
+	 * given mapper. The mapper receives a method {@code copy(Source, Target)}, which
+	 * copies the fields, and, if the target class has a public no-args constructor
+	 * (or no constructor at all), a method {@code toTarget(Source)}, which creates
+	 * a new target instance, or returns null for a null source.
+	 * @param pMapper The mapper class, which is being modified.
+	 * @param pSource The source class.
+	 * @param pTarget The target class.
+	 * @return The created method {@code copy(Source, Target)}.
+	 * @throws IllegalStateException Strict mode is enabled, and a target field
+	 *   cannot be assigned.
+	 */
+	@Nonnull public Method addMapping(@Nonnull ClassBase<?> pMapper, @Nonnull ClassBase<?> pSource,
+			                          @Nonnull ClassBase<?> pTarget) {
+		final String pkg = pMapper.getType().getPackageName();
+		final JQName sourceType = pSource.getType();
+		final JQName targetType = pTarget.getType();
+		final Method copy = pMapper.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "copy").makeStatic();
+		copy.parameter(sourceType, "pSource");
+		copy.parameter(targetType, "pTarget");
+		for (Object o : pTarget.getContent()) {
+			if (!(o instanceof Field)  ||  ((Field) o).isStatic()) {
+				continue;
+			}
+			final Field targetField = (Field) o;
+			final String setter = getSetter(pkg, pTarget, targetField);
+			final Field sourceField = findField(pSource, targetField.getName());
+			final Object getter = sourceField == null ? null : getGetter(pkg, pSource, sourceField);
+			final Object[] value;
+			if (setter == null  ||  getter == null) {
+				value = null;
+			} else {
+				value = convert(sourceField.getType(), targetField.getType(), new Object[] { "pSource.", getter });
+			}
+			if (value == null) {
+				if (strict  &&  !targetField.isFinal()) {
+					throw new IllegalStateException("Unable to map field " + targetField.getName()
+					                                + " of " + targetType + " from " + sourceType);
+				}
+			} else if (setter.equals(targetField.getName())) {
+				copy.body().tline("pTarget.", setter, " = ", value);
+			} else {
+				copy.body().tline("pTarget.", setter, "(", value, ")");
+			}
+		}
+		if (isInstantiable(pkg, pTarget)) {
+			final Method map = pMapper.newMethod(Protection.PUBLIC, targetType,
+					                             "to" + targetType.getSimpleClassName()).makeStatic();
+			map.parameter(sourceType, "pSource");
+			map.body().newIf("pSource == null").tline("return null");
+			map.body().tline("final ", targetType, " target = new ", targetType, "()");
+			map.body().tline("copy(pSource, target)");
+			map.body().tline("return target");
+		}
+		return copy;
+	}
+
+	/** Returns the tokens of an expression, which converts the given value
+	 * from the given source type into the given target type.
+	 * @param pSourceType The source type.
+	 * @param pTargetType The target type.
+	 * @param pValue The tokens of the value, which is being converted.
+	 * @return The tokens of the converted value, or null, if the conversion isn't supported.
+	 */
+	@Nullable protected Object[] convert(@Nonnull JQName pSourceType, @Nonnull JQName pTargetType,
+			                             @Nonnull Object[] pValue) {
+		for (Converter c : converters) {
+			if (isSameType(c.getSourceType(), pSourceType)  &&  isSameType(c.getTargetType(), pTargetType)) {
+				return new Object[] { c.getType(), ".", c.getMethodName(), "(", pValue, ")" };
+			}
+		}
+		if (isSameType(pSourceType, pTargetType)) {
+			return pValue;
+		}
+		if (pSourceType.isArray()  ||  pTargetType.isArray()) {
+			return null;
+		}
+		final int source = getPrimitiveIndex(pSourceType);
+		final int target = getPrimitiveIndex(pTargetType);
+		if (source == -1  ||  target == -1) {
+			return null;
+		}
+		if (pTargetType.isPrimitive()) {
+			// Primitive widening, possibly after unboxing.
+			if (source == target  ||  isWidening(source, target)) {
+				return pValue;
+			}
+		} else if (pSourceType.isPrimitive()) {
+			// Boxing, possibly after primitive widening.
+			if (source == target) {
+				return pValue;
+			} else if (isWidening(source, target)) {
+				return new Object[] { "(", PRIMITIVES[target], ") ", pValue };
+			}
+		}
+		return null;
+	}
+
+	private static boolean isSameType(JQName pType1, JQName pType2) {
+		return pType1.equals(pType2)  &&  pType1.isArray() == pType2.isArray();
+	}
+
+	/** Returns the index of the given primitive, or wrapper type in {@link #PRIMITIVES}.
+	 */
+	private static int getPrimitiveIndex(JQName pType) {
+		for (int i = 0;  i < PRIMITIVES.length;  i++) {
+			if (pType.isPrimitive() ? PRIMITIVES[i].equals(pType.getQName()) : WRAPPERS[i].equals(pType)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/** Returns, whether a widening primitive conversion exists (JLS 5.1.2).
+	 */
+	private static boolean isWidening(int pSource, int pTarget) {
+		switch (PRIMITIVES[pSource]) {
+		  case "byte": return pTarget != 2  &&  pTarget > 0  &&  pTarget < 7;
+		  case "short": case "char": return pTarget > 2  &&  pTarget < 7;
+		  case "int": case "long": case "float": return pTarget > pSource  &&  pTarget < 7;
+		  default: return false;
+		}
+	}
+
+	private static @Nullable Field findField(ClassBase<?> pClass, String pName) {
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Field  &&  !((Field) o).isStatic()  &&  pName.equals(((Field) o).getName())) {
+				return (Field) o;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isAccessible(String pPackage, ClassBase<?> pClass, Protection pProtection) {
+		return pProtection == Protection.PUBLIC
+			||  (pProtection != Protection.PRIVATE  &&  pPackage.equals(pClass.getType().getPackageName()));
+	}
+
+	private static @Nullable Method findMethod(String pPackage, ClassBase<?> pClass, String pName, int pNumParameters) {
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Method) {
+				final Method method = (Method) o;
+				if (!method.isStatic()  &&  pName.equals(method.getName())
+						&&  method.getParameters().size() == pNumParameters
+						&&  isAccessible(pPackage, pClass, method.getProtection())) {
+					return method;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static @Nullable String getGetter(String pPackage, ClassBase<?> pClass, Field pField) {
+		if (isAccessible(pPackage, pClass, pField.getProtection())) {
+			return pField.getName();
+		}
+		final String getter = (JQName.BOOLEAN_TYPE.equals(pField.getType()) ? "is" : "get") + asSuffix(pField.getName());
+		final Method method = findMethod(pPackage, pClass, getter, 0);
+		if (method != null  &&  isSameType(pField.getType(), method.getReturnType())) {
+			return getter + "()";
+		}
+		return null;
+	}
+
+	private static @Nullable String getSetter(String pPackage, ClassBase<?> pClass, Field pField) {
+		if (pField.isFinal()) {
+			return null;
+		}
+		if (isAccessible(pPackage, pClass, pField.getProtection())) {
+			return pField.getName();
+		}
+		final String setter = "set" + asSuffix(pField.getName());
+		final Method method = findMethod(pPackage, pClass, setter, 1);
+		if (method != null  &&  isSameType(pField.getType(), method.getParameters().get(0).getType())) {
+			return setter;
+		}
+		return null;
+	}
+
+	private static boolean isInstantiable(String pPackage, ClassBase<?> pClass) {
+		if (pClass.isAbstract()  ||  pClass.isInterface()) {
+			return false;
+		}
+		boolean hasConstructor = false;
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Constructor) {
+				final Constructor constructor = (Constructor) o;
+				if (constructor.getParameters().isEmpty()
+						&&  isAccessible(pPackage, pClass, constructor.getProtection())) {
+					return true;
+				}
+				hasConstructor = true;
+			}
+		}
+		return !hasConstructor;
+	}
+
+	private static String asSuffix(String pName) {
+		return Character.toUpperCase(pName.charAt(0)) + pName.substring(1);
+	}
+}
@@ -0,0 +1,367 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Constructor;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+
+
+/** A generator for JMH benchmarks of generated methods. For a given class, and
+ * a selection of its methods, a benchmark class is created, with one
+ * {@code @Benchmark} method per selected method. The benchmark class is placed
+ * into the same package, so that package private methods can be benchmarked.
+ *
+ * The JMH annotations are referenced by name, so JMH is only required for
+ * compiling, and running the benchmarks, not for generating them. Arguments
+ * of the benchmarked methods are stored in fields of the benchmark state,
+ * and initialized by a {@code @Setup} method with pseudo random values
+ * (using a fixed seed), based on the parameter types:
+ * <ul>
+ *   <li>Primitive types, and their wrappers, are initialized with a random value.</li>
+ *   <li>Strings, and primitive arrays, are initialized with random contents. Their
+ *     length is given by the {@code @Param} field {@code size}, so that
+ *     JMH runs the benchmarks for all of the {@link #getSizes() sizes}.</li>
+ *   <li>For other types, a value must be registered by invoking
+ *     {@link #addValue(JQName, Object...)}. Likewise, the instance, on which
+ *     non-static methods are invoked, is created with a registered value, or
+ *     the no-args constructor.</li>
+ * </ul>
+ * The benchmarks return the results of the benchmarked methods, so that JMH
+ * consumes them, and the JIT compiler cannot eliminate the invocations.
+ */
+public class BenchmarkGenerator {
+	private static final String JMH = "org.openjdk.jmh.annotations.";
+	private static final JQName BENCHMARK = JQName.valueOf(JMH + "Benchmark");
+	private static final JQName BENCHMARK_MODE = JQName.valueOf(JMH + "BenchmarkMode");
+	private static final JQName MODE = JQName.valueOf(JMH + "Mode");
+	private static final JQName OUTPUT_TIME_UNIT = JQName.valueOf(JMH + "OutputTimeUnit");
+	private static final JQName PARAM = JQName.valueOf(JMH + "Param");
+	private static final JQName SCOPE = JQName.valueOf(JMH + "Scope");
+	private static final JQName SETUP = JQName.valueOf(JMH + "Setup");
+	private static final JQName STATE = JQName.valueOf(JMH + "State");
+	private static final JQName RANDOM = JQName.valueOf(Random.class);
+	private static final JQName TIME_UNIT = JQName.valueOf(TimeUnit.class);
+
+	/** Default value for {@link #getSuffix()}.
+	 */
+	public static final String DEFAULT_SUFFIX = "Benchmark";
+	/** Default value for {@link #getMode()}.
+	 */
+	public static final String DEFAULT_MODE = "AverageTime";
+	/** Default value for {@link #getTimeUnit()}.
+	 */
+	public static final TimeUnit DEFAULT_TIME_UNIT = TimeUnit.NANOSECONDS;
+
+	private final Map<String,Object[]> values = new HashMap<>();
+	private String suffix = DEFAULT_SUFFIX;
+	private String mode = DEFAULT_MODE;
+	private TimeUnit timeUnit = DEFAULT_TIME_UNIT;
+	private int[] sizes = { 16, 1024 };
+
+	/** Returns the suffix, which is appended to the benchmarked classes name.
+	 * Defaults to {@value #DEFAULT_SUFFIX}.
+	 * @return The suffix of the benchmark classes name.
+	 */
+	@Nonnull public String getSuffix() {
+		return suffix;
+	}
+
+	/** Sets the suffix, which is appended to the benchmarked classes name.
+	 * Defaults to {@value #DEFAULT_SUFFIX}.
+	 * @param pSuffix The suffix of the benchmark classes name.
+	 */
+	public void setSuffix(@Nonnull String pSuffix) {
+		suffix = pSuffix;
+	}
+
+	/** Returns the benchmark mode, the name of a constant in {@code org.openjdk.jmh.annotations.Mode}.
+	 * Defaults to {@value #DEFAULT_MODE}.
+	 * @return The benchmark mode.
+	 */
+	@Nonnull public String getMode() {
+		return mode;
+	}
+
+	/** Sets the benchmark mode, the name of a constant in {@code org.openjdk.jmh.annotations.Mode}.
+	 * Defaults to {@value #DEFAULT_MODE}.
+	 * @param pMode The benchmark mode.
+	 */
+	public void setMode(@Nonnull String pMode) {
+		mode = pMode;
+	}
+
+	/** Returns the time unit of the benchmark results. Defaults to
+	 * {@link TimeUnit#NANOSECONDS}.
+	 * @return The time unit of the benchmark results.
+	 */
+	@Nonnull public TimeUnit getTimeUnit() {
+		return timeUnit;
+	}
+
+	/** Sets the time unit of the benchmark results. Defaults to
+	 * {@link TimeUnit#NANOSECONDS}.
+	 * @param pTimeUnit The time unit of the benchmark results.
+	 */
+	public void setTimeUnit(@Nonnull TimeUnit pTimeUnit) {
+		timeUnit = pTimeUnit;
+	}
+
+	/** Returns the values of the {@code size} parameter, which is used for
+	 * strings, and arrays. Defaults to 16, and 1024.
+	 * @return The sizes of strings, and arrays.
+	 */
+	@Nonnull public int[] getSizes() {
+		return sizes;
+	}
+
+	/** Sets the values of the {@code size} parameter, which is used for
+	 * strings, and arrays. Defaults to 16, and 1024.
+	 * @param pSizes The sizes of strings, and arrays.
+	 */
+	public void setSizes(@Nonnull int... pSizes) {
+		if (pSizes.length == 0) {
+			throw new IllegalArgumentException("At least one size is required.");
+		}
+		sizes = pSizes;
+	}
+
+	/** Registers an expression, which is used for initializing values of the
+	 * given type. The expression may use the local variable {@code random}
+	 * (a {@link Random}), and the field {@code size}.
+	 * @param pType The type of the initialized values.
+	 * @param pExpression The expressions tokens.
+	 */
+	public void addValue(@Nonnull JQName pType, @Nonnull Object... pExpression) {
+		values.put(getKey(Objects.requireNonNull(pType, "Type")), Objects.requireNonNull(pExpression, "Expression"));
+	}
+
+	/** Creates a benchmark class for the given methods. The benchmark class
+	 * is in the same package as the benchmarked class, and its name is
+	 * the benchmarked classes name with the {@link #getSuffix() suffix}.
+	 * @param pFactory The factory, which is used to create the benchmark class.
+	 *   Typically, this is a separate factory for the test sources.
+	 * @param pSource The class, which is being benchmarked.
+	 * @param pMethods The methods, which are being benchmarked.
+	 * @return The created benchmark class.
+	 * @throws IllegalStateException No value can be created for a parameter,
+	 *   or the benchmarked instance.
+	 * @throws IllegalArgumentException A method isn't declared by {@code pSource}.
+	 */
+	@Nonnull public Source generate(@Nonnull JSGFactory pFactory, @Nonnull Source pSource,
+			                        @Nonnull Method... pMethods) {
+		final JQName type = JQName.valueOf(pSource.getType().getQName() + suffix);
+		return generate(pFactory, type, pSource, pMethods);
+	}
+
+	/** Creates a benchmark class with the given name for the given methods.
+	 * @param pFactory The factory, which is used to create the benchmark class.
+	 * @param pType The benchmark classes type.
+	 * @param pClass The class, which is being benchmarked.
+	 * @param pMethods The methods, which are being benchmarked.
+	 * @return The created benchmark class.
+	 * @throws IllegalStateException No value can be created for a parameter,
+	 *   or the benchmarked instance.
+	 * @throws IllegalArgumentException A method isn't declared by {@code pClass}.
+	 */
+	@Nonnull public Source generate(@Nonnull JSGFactory pFactory, @Nonnull JQName pType,
+			                        @Nonnull ClassBase<?> pClass, @Nonnull Method... pMethods) {
+		final JQName classType = pClass.getType();
+		final Source source = pFactory.newSource(pType, Protection.PUBLIC);
+		source.comment("JMH benchmarks for " + classType.getSimpleClassName() + ".");
+		source.annotation(STATE).attribute("value", new Object[] { SCOPE, ".Thread" });
+		source.annotation(BENCHMARK_MODE).attribute("value", new Object[] { MODE, ".", mode });
+		source.annotation(OUTPUT_TIME_UNIT).attribute("value", new Object[] { TIME_UNIT, ".", timeUnit.name() });
+		final Method setup = source.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "setup");
+		setup.annotation(SETUP);
+		setup.body().tline("final ", RANDOM, " random = new ", RANDOM, "(42)");
+		Field target = null;
+		boolean sizeRequired = false;
+		final Set<String> names = new HashSet<>();
+		for (Method m : pMethods) {
+			if (!pClass.getContent().contains(m)) {
+				throw new IllegalArgumentException("The method " + m.getName() + " isn't declared by " + classType);
+			}
+			if (!m.isStatic()  &&  target == null) {
+				target = source.newField(classType, "target", Protection.PRIVATE);
+				final Object[] value = getValue(classType);
+				if (value != null) {
+					setup.body().tline(target, " = ", value);
+				} else if (isInstantiable(pClass)) {
+					setup.body().tline(target, " = new ", classType, "()");
+				} else {
+					throw new IllegalStateException("Unable to create an instance of " + classType
+					                                + ", use addValue() to register a value.");
+				}
+			}
+			String name = m.getName();
+			for (int i = 1;  !names.add(name);  i++) {
+				name = m.getName() + "_" + i;
+			}
+			final List<Parameter> parameters = m.getParameters();
+			final Object[] args = new Object[parameters.size()*2];
+			for (int i = 0;  i < parameters.size();  i++) {
+				final Parameter p = parameters.get(i);
+				final Field field = source.newField(p.getType(), name + "_" + p.getName(), Protection.PRIVATE);
+				sizeRequired |= addSetup(setup, field, classType, m);
+				args[2*i] = i == 0 ? "" : ", ";
+				args[2*i+1] = field;
+			}
+			final boolean isVoid = JQName.VOID_TYPE.equals(m.getReturnType());
+			final Method benchmark = source.newMethod(Protection.PUBLIC, m.getReturnType(), name);
+			benchmark.annotation(BENCHMARK);
+			if (!m.getExceptions().isEmpty()) {
+				benchmark.exception(JQName.valueOf(Exception.class));
+			}
+			benchmark.body().tline(isVoid ? "" : "return ", m.isStatic() ? classType : target, ".", m.getName(),
+					               "(", args, ")");
+		}
+		if (sizeRequired) {
+			final StringBuilder sb = new StringBuilder("{");
+			for (int i = 0;  i < sizes.length;  i++) {
+				sb.append(i == 0 ? "" : ", ").append('"').append(sizes[i]).append('"');
+			}
+			final Field size = source.newField(JQName.INT_TYPE, "size", Protection.PUBLIC);
+			size.annotation(PARAM).attribute("value", sb.append('}').toString());
+			// The @Param field comes first.
+			source.getContent().remove(size);
+			source.getContent().add(0, size);
+		}
+		// Reorder the contents: Fields first, then the setup method, and the benchmarks.
+		final List<Object> members = new ArrayList<>();
+		for (Iterator<Object> iter = source.getContent().iterator();  iter.hasNext();  ) {
+			final Object o = iter.next();
+			if (!(o instanceof Field)) {
+				members.add(o);
+				iter.remove();
+			}
+		}
+		source.getContent().addAll(members);
+		return source;
+	}
+
+	/** Adds code to the setup method, which initializes the given field.
+	 * @return True, if the code uses the {@code size} parameter.
+	 */
+	private boolean addSetup(Method pSetup, Field pField, JQName pClassType, Method pMethod) {
+		final JQName type = pField.getType();
+		final Object[] value = getValue(type);
+		if (value != null) {
+			pSetup.body().tline(pField, " = ", value);
+			return false;
+		}
+		if (type.isArray()  &&  type.isPrimitive()) {
+			final String primitive = type.getQName();
+			pSetup.body().tline(pField, " = new ", primitive, "[size]");
+			if ("byte".equals(primitive)) {
+				pSetup.body().tline("random.nextBytes(", pField, ")");
+			} else {
+				pSetup.body().newFor("int i = 0;  i < ", pField, ".length;  i++")
+					.tline(pField, "[i] = ", getRandomValue(primitive));
+			}
+			return true;
+		}
+		if (!type.isArray()) {
+			if (JQName.STRING.equals(type)) {
+				pSetup.body().tline(pField, " = random.ints(size, 'a', 'z' + 1)"
+						+ ".collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString()");
+				return true;
+			}
+			final String primitive = getPrimitive(type);
+			if (primitive != null) {
+				pSetup.body().tline(pField, " = ", getRandomValue(primitive));
+				return false;
+			}
+		}
+		throw new IllegalStateException("Unable to create a value of type " + type + " for the method "
+				                        + pMethod.getName() + " of " + pClassType + ", use addValue() to register a value.");
+	}
+
+	private @Nullable Object[] getValue(JQName pType) {
+		return values.get(getKey(pType));
+	}
+
+	private static String getKey(JQName pType) {
+		// JQName.equals() ignores the array flag, so it cannot be used as a key.
+		return pType.isArray() ? pType.getQName() + "[]" : pType.getQName();
+	}
+
+	private static @Nullable String getPrimitive(JQName pType) {
+		if (pType.isPrimitive()) {
+			return pType.getQName();
+		}
+		final JQName[] wrappers = { JQName.BOOLEAN_OBJ, JQName.BYTE_OBJ, JQName.CHAR_OBJ, JQName.DOUBLE_OBJ,
+				JQName.FLOAT_OBJ, JQName.INT_OBJ, JQName.LONG_OBJ, JQName.SHORT_OBJ };
+		final String[] primitives = { "boolean", "byte", "char", "double", "float", "int", "long", "short" };
+		for (int i = 0;  i < wrappers.length;  i++) {
+			if (wrappers[i].equals(pType)) {
+				return primitives[i];
+			}
+		}
+		return null;
+	}
+
+	private static String getRandomValue(String pPrimitive) {
+		switch (pPrimitive) {
+		  case "boolean": return "random.nextBoolean()";
+		  case "byte": return "(byte) random.nextInt()";
+		  case "char": return "(char) ('a' + random.nextInt(26))";
+		  case "double": return "random.nextDouble()";
+		  case "float": return "random.nextFloat()";
+		  case "int": return "random.nextInt()";
+		  case "long": return "random.nextLong()";
+		  case "short": return "(short) random.nextInt()";
+		  default: throw new IllegalStateException("Unsupported primitive type: " + pPrimitive);
+		}
+	}
+
+	private static boolean isInstantiable(ClassBase<?> pClass) {
+		if (pClass.isAbstract()  ||  pClass.isInterface()) {
+			return false;
+		}
+		boolean hasConstructor = false;
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Constructor) {
+				final Constructor constructor = (Constructor) o;
+				if (constructor.getParameters().isEmpty()  &&  constructor.getProtection() != Protection.PRIVATE) {
+					return true;
+				}
+				hasConstructor = true;
+			}
+		}
+		return !hasConstructor;
+	}
+}
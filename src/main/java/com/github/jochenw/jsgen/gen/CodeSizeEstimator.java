@@ -0,0 +1,254 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.ArrayInitializer;
+import com.github.jochenw.jsgen.api.Block.Line;
+import com.github.jochenw.jsgen.api.Comment;
+import com.github.jochenw.jsgen.api.Constructor;
+import com.github.jochenw.jsgen.api.DoWhileBlock;
+import com.github.jochenw.jsgen.api.ElseBlock;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.ForBlock;
+import com.github.jochenw.jsgen.api.IField;
+import com.github.jochenw.jsgen.api.INode;
+import com.github.jochenw.jsgen.api.INodeVisitor;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.NestedBlock;
+import com.github.jochenw.jsgen.api.RawFragment;
+import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.api.SwitchBlock;
+import com.github.jochenw.jsgen.api.Throw;
+import com.github.jochenw.jsgen.api.WhileBlock;
+
+
+/** A heuristic estimator for the size of the bytecode, which javac
+ * will generate for a piece of code. The estimate is based on the
+ * nodes, and tokens in a block, and is deliberately rough: Its purpose
+ * is to detect method bodies, which are getting close to the JIT
+ * compilers limit (HotSpot's {@code HugeMethodLimit}: 8000 bytes),
+ * or to the class file formats limit (64KB per method), not to
+ * predict the exact size.
+ */
+public class CodeSizeEstimator {
+	private int size;
+	private final INodeVisitor visitor = new INodeVisitor() {
+		@Override
+		public void visitField(Field pField) {
+			// A fields initializer becomes part of a constructor, or the static initializer.
+			addValue(pField.getValue());
+		}
+
+		@Override
+		public void visitLocalField(LocalField pField) {
+			size += 2;
+			addValue(pField.getValue());
+		}
+
+		@Override
+		public void visitMethod(Method pMethod) {
+			addContents(pMethod.body().getContents());
+		}
+
+		@Override
+		public void visitConstructor(Constructor pConstructor) {
+			addContents(pConstructor.body().getContents());
+		}
+
+		@Override
+		public void visitInnerClass(InnerClass pClass) {
+			// An inner class is compiled into a separate class file.
+		}
+
+		@Override
+		public void visitStaticInitializer(StaticInitializer pInitializer) {
+			addContents(pInitializer.body().getContents());
+		}
+
+		@Override
+		public void visitIfBlock(IfBlock pBlock) {
+			IfBlock block = pBlock;
+			ElseBlock elseBlock = null;
+			while (block != null) {
+				size += 6;
+				addToken(block.getCondition());
+				addContents(block.getContents());
+				elseBlock = block.getElseBlock();
+				block = block.getNextIfBlock();
+			}
+			if (elseBlock != null) {
+				addContents(elseBlock.getContents());
+			}
+		}
+
+		@Override
+		public void visitForBlock(ForBlock pBlock) {
+			size += 6;
+			addToken(pBlock.getCondition());
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitWhileBlock(WhileBlock pBlock) {
+			size += 6;
+			addToken(pBlock.getCondition());
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitDoWhileBlock(DoWhileBlock pBlock) {
+			size += 6;
+			addToken(pBlock.getCondition());
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitLine(Line pLine) {
+			size += 1;
+			addToken(pLine.getElements());
+		}
+
+		@Override
+		public void visitComment(Comment pComment) {
+			// Comments don't generate any code.
+		}
+
+		@Override
+		public void visitNestedBlock(NestedBlock pBlock) {
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitSwitchBlock(SwitchBlock pBlock) {
+			size += 8;
+			addToken(pBlock.getExpression());
+			final boolean strings = pBlock.getLabelType() == String.class;
+			for (SwitchBlock.Case c : pBlock.getCases()) {
+				// An entry in the lookup table, and, for strings, a call to equals().
+				size += c.getLabels().size() * (strings ? 20 : 8);
+				addContents(c.getContents());
+			}
+		}
+
+		@Override
+		public void visitRawFragment(RawFragment pFragment) {
+			size += estimate(pFragment.getText());
+		}
+	};
+
+	/** Returns the estimated size of the given object.
+	 * @param pObject The object, which is being estimated: Either of
+	 *   an {@link INode node}, a list of nodes (a blocks contents),
+	 *   or a token, like a string, a {@link JQName}, or an array of tokens.
+	 * @return The estimated size in bytes.
+	 */
+	public static int of(@Nonnull Object pObject) {
+		return new CodeSizeEstimator().add(pObject).getSize();
+	}
+
+	/** Adds the estimated size of the given object.
+	 * @param pObject The object, which is being estimated: Either of
+	 *   an {@link INode node}, a list of nodes (a blocks contents),
+	 *   or a token, like a string, a {@link JQName}, or an array of tokens.
+	 * @return This object.
+	 */
+	public CodeSizeEstimator add(@Nonnull Object pObject) {
+		if (pObject instanceof INode) {
+			((INode) pObject).accept(visitor);
+		} else if (pObject instanceof List) {
+			@SuppressWarnings("unchecked")
+			final List<Object> list = (List<Object>) pObject;
+			addContents(list);
+		} else {
+			addToken(pObject);
+		}
+		return this;
+	}
+
+	/** Returns the estimated size of all the objects, which have been
+	 * added so far.
+	 * @return The estimated size in bytes.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	protected void addContents(@Nonnull List<Object> pContents) {
+		for (Object o : pContents) {
+			add(o);
+		}
+	}
+
+	protected void addValue(Object pValue) {
+		if (pValue != null) {
+			size += 1;
+			addToken(pValue);
+		}
+	}
+
+	protected void addToken(@Nonnull Object pToken) {
+		if (pToken instanceof String) {
+			size += estimate((String) pToken);
+		} else if (pToken instanceof Object[]) {
+			for (Object o : (Object[]) pToken) {
+				addToken(o);
+			}
+		} else if (pToken instanceof Iterable) {
+			for (Object o : (Iterable<?>) pToken) {
+				addToken(o);
+			}
+		} else if (pToken instanceof JQName  ||  pToken instanceof Class) {
+			size += 3;
+		} else if (pToken instanceof IField) {
+			size += 3;
+		} else if (pToken instanceof Throw) {
+			size += 8;
+			addToken(((Throw) pToken).getConstructorArgs());
+		} else if (pToken instanceof ArrayInitializer) {
+			final ArrayInitializer value = (ArrayInitializer) pToken;
+			final int perElement;
+			switch (value.getKind()) {
+			  case BYTE: perElement = 6; break;
+			  case INT: perElement = 7; break;
+			  case LONG: perElement = 8; break;
+			  case STRING: perElement = 7; break;
+			  default: throw new IllegalStateException("Invalid kind: " + value.getKind());
+			}
+			size += 6 + perElement * value.getLength();
+		} else if (pToken instanceof Number) {
+			size += 3;
+		} else {
+			// Format tokens, like Format.NEWLINE: No code.
+		}
+	}
+
+	/** Estimates the size of a piece of source code: Roughly, one
+	 * byte per three characters.
+	 * @param pText The source code, which is being estimated.
+	 * @return The estimated size in bytes.
+	 */
+	protected int estimate(@Nonnull CharSequence pText) {
+		return (pText.length() + 2) / 3;
+	}
+}
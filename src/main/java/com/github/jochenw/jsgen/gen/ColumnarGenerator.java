@@ -0,0 +1,265 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.jochenw.jsgen.api.Block;
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Constructor;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+
+
+/** A generator for columnar ("struct of arrays") containers: Given a record
+ * class with primitive instance fields, the generator creates a companion
+ * class, which stores the records in one primitive array per field. The
+ * companion class provides indexed getters, and setters, direct access to the
+ * columns, growable capacity, bulk append, and a {@code Cursor}, which iterates
+ * over the records without creating an object per record.
+ *
+ * If all fields of the record are accessible (either not private, or with
+ * a getter {@code getX()}, or {@code isX()}), then the companion class has
+ * additional methods {@code add(Record)}, and {@code addAll(Iterable<Record>)}.
+ */
+public class ColumnarGenerator {
+	/** The default suffix of the companion classes name.
+	 */
+	public static final String DEFAULT_SUFFIX = "Columns";
+	/** The default initial capacity of the companion class.
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private @Nonnull String suffix = DEFAULT_SUFFIX;
+	private int capacity = DEFAULT_CAPACITY;
+
+	/** Returns the suffix of the companion classes name.
+	 * @return The suffix of the companion classes name.
+	 *   Defaults to {@value #DEFAULT_SUFFIX}.
+	 */
+	@Nonnull public String getSuffix() {
+		return suffix;
+	}
+
+	/** Sets the suffix of the companion classes name.
+	 * @param pSuffix The suffix of the companion classes name.
+	 *   Defaults to {@value #DEFAULT_SUFFIX}.
+	 */
+	public void setSuffix(@Nonnull String pSuffix) {
+		if (pSuffix == null  ||  pSuffix.length() == 0) {
+			throw new IllegalArgumentException("The suffix must not be null, or empty.");
+		}
+		suffix = pSuffix;
+	}
+
+	/** Returns the initial capacity of the companion class, if it
+	 * is created by the default constructor.
+	 * @return The initial capacity. Defaults to {@value #DEFAULT_CAPACITY}.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/** Sets the initial capacity of the companion class, if it
+	 * is created by the default constructor.
+	 * @param pCapacity The initial capacity. Defaults to {@value #DEFAULT_CAPACITY}.
+	 */
+	public void setCapacity(int pCapacity) {
+		if (pCapacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: " + pCapacity);
+		}
+		capacity = pCapacity;
+	}
+
+	/** Creates the columnar companion class for the given record class.
+	 * The companion class is in the same package, and its name is the records
+	 * class name, followed by the {@link #getSuffix() suffix}.
+	 * @param pFactory The factory, which is used to create the companion class.
+	 * @param pRecord The record class.
+	 * @return The created class, a public source, which may be configured further.
+	 * @throws IllegalStateException The record class has no instance fields,
+	 *   or an instance field with a non-primitive type.
+	 */
+	@Nonnull public Source generate(@Nonnull JSGFactory pFactory, @Nonnull ClassBase<?> pRecord) {
+		final JQName recordType = pRecord.getType();
+		final String packageName = recordType.getPackageName();
+		final String className = recordType.getSimpleClassName() + suffix;
+		return generate(pFactory, JQName.valueOf(packageName.length() == 0 ? className : packageName + "." + className), pRecord);
+	}
+
+	/** Creates the columnar companion class for the given record class.
+	 * @param pFactory The factory, which is used to create the companion class.
+	 * @param pType The companion classes type.
+	 * @param pRecord The record class.
+	 * @return The created class, a public source, which may be configured further.
+	 * @throws IllegalStateException The record class has no instance fields,
+	 *   or an instance field with a non-primitive type.
+	 */
+	@Nonnull public Source generate(@Nonnull JSGFactory pFactory, @Nonnull JQName pType, @Nonnull ClassBase<?> pRecord) {
+		final List<Field> fields = new ArrayList<>();
+		for (Object o : pRecord.getContent()) {
+			if (o instanceof Field) {
+				final Field field = (Field) o;
+				if (field.isStatic()) {
+					continue;
+				}
+				if (!field.getType().isPrimitive()  ||  field.getType().isArray()) {
+					throw new IllegalStateException("Expected a primitive type for field " + field.getName()
+					                                + " of " + pRecord.getType() + ", got " + field.getType());
+				}
+				fields.add(field);
+			}
+		}
+		if (fields.isEmpty()) {
+			throw new IllegalStateException("The class " + pRecord.getType() + " has no instance fields.");
+		}
+		final List<String> accessors = new ArrayList<>();
+		for (Field f : fields) {
+			final String accessor = getAccessor(pRecord, f);
+			if (accessor == null) {
+				accessors.clear();
+				break;
+			}
+			accessors.add(accessor);
+		}
+
+		final Source source = pFactory.newSource(pType, Protection.PUBLIC);
+		source.comment("Columnar storage of " + pRecord.getType().getSimpleClassName() + " records.");
+		source.newField(JQName.INT_TYPE, "size", Protection.PRIVATE);
+		for (Field f : fields) {
+			source.newField(f.getType().arrayOf(), f.getName(), Protection.PRIVATE);
+		}
+		final String first = fields.get(0).getName();
+
+		final Constructor defaultConstructor = source.newConstructor();
+		defaultConstructor.body().tline("this(", String.valueOf(capacity), ")");
+		final Constructor constructor = source.newConstructor();
+		constructor.parameter(JQName.INT_TYPE, "pCapacity");
+		for (Field f : fields) {
+			constructor.body().tline(f.getName(), " = new ", f.getType().getQName(), "[pCapacity]");
+		}
+
+		source.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "size").body().tline("return size");
+		source.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "capacity").body().tline("return ", first, ".length");
+		source.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "clear").body().tline("size = 0");
+
+		final Method ensureCapacity = source.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "ensureCapacity");
+		ensureCapacity.parameter(JQName.INT_TYPE, "pCapacity");
+		final Block<?> grow = ensureCapacity.body().newIf("pCapacity > ", first, ".length");
+		grow.tline("final int newCapacity = Math.max(pCapacity, 2 * ", first, ".length)");
+		final JQName arrays = JQName.valueOf(Arrays.class);
+		for (Field f : fields) {
+			grow.tline(f.getName(), " = ", arrays, ".copyOf(", f.getName(), ", newCapacity)");
+		}
+
+		for (Field f : fields) {
+			final String name = asSuffix(f.getName());
+			final Method getter = source.newMethod(Protection.PUBLIC, f.getType(), getterName(f));
+			getter.parameter(JQName.INT_TYPE, "pIndex");
+			getter.body().tline("return ", f.getName(), "[pIndex]");
+			final Method setter = source.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "set" + name);
+			setter.parameter(JQName.INT_TYPE, "pIndex");
+			setter.parameter(f.getType(), "pValue");
+			setter.body().tline(f.getName(), "[pIndex] = pValue");
+			source.newMethod(Protection.PUBLIC, f.getType().arrayOf(), "get" + name + "Column")
+				.comment("Returns the backing array. Valid indexes are 0 .. size()-1.")
+				.body().tline("return ", f.getName());
+		}
+
+		final Method add = source.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "add");
+		add.body().tline("ensureCapacity(size + 1)");
+		for (Field f : fields) {
+			add.parameter(f.getType(), "p" + asSuffix(f.getName()));
+			add.body().tline(f.getName(), "[size] = p", asSuffix(f.getName()));
+		}
+		add.body().tline("return size++");
+
+		final Method addAll = source.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "addAll");
+		addAll.parameter(pType, "pColumns");
+		addAll.body().tline("final int newSize = size + pColumns.size");
+		addAll.body().tline("ensureCapacity(newSize)");
+		for (Field f : fields) {
+			addAll.body().tline("System.arraycopy(pColumns.", f.getName(), ", 0, ", f.getName(), ", size, pColumns.size)");
+		}
+		addAll.body().tline("size = newSize");
+
+		if (!accessors.isEmpty()) {
+			final JQName recordType = pRecord.getType();
+			final Method addRecord = source.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "add");
+			addRecord.parameter(recordType, "pRecord");
+			final List<Object> args = new ArrayList<>();
+			for (int i = 0;  i < accessors.size();  i++) {
+				if (i > 0) {
+					args.add(", ");
+				}
+				args.add("pRecord." + accessors.get(i));
+			}
+			addRecord.body().tline("return add(", args, ")");
+			final Method addRecords = source.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "addAll");
+			addRecords.parameter(JQName.genericValueOf(JQName.valueOf(Iterable.class), "? extends " + recordType.getSimpleClassName()), "pRecords");
+			addRecords.body().newFor("final ", recordType, " record : pRecords").tline("add(record)");
+		}
+
+		final InnerClass cursorClass = source.newInnerClass("Cursor", Protection.PUBLIC);
+		cursorClass.comment("A cursor, which iterates over the records, and provides access",
+				            "to the current records values.");
+		cursorClass.newField(JQName.INT_TYPE, "index", Protection.PRIVATE).assign("-1");
+		final Method next = cursorClass.newMethod(Protection.PUBLIC, JQName.BOOLEAN_TYPE, "next");
+		next.body().tline("return ++index < size");
+		cursorClass.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "index").body().tline("return index");
+		for (Field f : fields) {
+			cursorClass.newMethod(Protection.PUBLIC, f.getType(), getterName(f))
+				.body().tline("return ", f.getName(), "[index]");
+		}
+		source.newMethod(Protection.PUBLIC, cursorClass.getType(), "cursor").body().tline("return new Cursor()");
+		return source;
+	}
+
+	private @Nullable String getAccessor(@Nonnull ClassBase<?> pRecord, @Nonnull Field pField) {
+		if (pField.getProtection() != Protection.PRIVATE) {
+			return pField.getName();
+		}
+		final String getter = getterName(pField);
+		for (Object o : pRecord.getContent()) {
+			if (o instanceof Method) {
+				final Method method = (Method) o;
+				if (!method.isStatic()  &&  getter.equals(method.getName())  &&  method.getParameters().isEmpty()
+						&&  pField.getType().equals(method.getReturnType())  &&  method.getProtection() != Protection.PRIVATE) {
+					return getter + "()";
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String getterName(Field pField) {
+		return (JQName.BOOLEAN_TYPE.equals(pField.getType()) ? "is" : "get") + asSuffix(pField.getName());
+	}
+
+	private static String asSuffix(String pName) {
+		return Character.toUpperCase(pName.charAt(0)) + pName.substring(1);
+	}
+}
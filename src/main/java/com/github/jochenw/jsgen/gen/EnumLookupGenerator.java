@@ -0,0 +1,212 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.EnumConstant;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.Method;
+
+
+/** A generator for lookup methods of enums, which avoid the overhead of
+ * {@code Enum.valueOf(Class, String)} (a map lookup), and {@code values()}
+ * (an array clone on every invocation):
+ * <ul>
+ *   <li>{@link #generateCodeLookup(ClassBase, String, int)} creates a lookup by
+ *     dense int codes, which are taken from the constants constructor arguments.
+ *     The lookup is a range check, and an array access.</li>
+ *   <li>{@link #generateNameLookup(ClassBase, String)} creates a lookup by
+ *     the constants names, which uses a {@link PerfectHashGenerator perfect
+ *     hash function}, and a cached copy of {@code values()}.</li>
+ * </ul>
+ * Both lookups return null for unknown keys, rather than throwing an exception.
+ */
+public class EnumLookupGenerator {
+	/** Default value for {@link #getMaxSparseness()}: {@value}.
+	 */
+	public static final int DEFAULT_MAX_SPARSENESS = 4;
+
+	private int maxSparseness = DEFAULT_MAX_SPARSENESS;
+
+	/** Returns the maximum ratio between the code lookups table size (the
+	 * range of the codes), and the number of constants. Defaults to
+	 * {@value #DEFAULT_MAX_SPARSENESS}.
+	 * @return The maximum ratio between table size, and number of constants.
+	 */
+	public int getMaxSparseness() {
+		return maxSparseness;
+	}
+
+	/** Sets the maximum ratio between the code lookups table size (the
+	 * range of the codes), and the number of constants. Defaults to
+	 * {@value #DEFAULT_MAX_SPARSENESS}.
+	 * @param pMaxSparseness The maximum ratio between table size, and number of constants.
+	 */
+	public void setMaxSparseness(int pMaxSparseness) {
+		if (pMaxSparseness < 1) {
+			throw new IllegalArgumentException("Invalid sparseness: " + pMaxSparseness);
+		}
+		maxSparseness = pMaxSparseness;
+	}
+
+	/** Creates a public static lookup method {@code E pName(int pCode)} with
+	 * the default settings.
+	 * @param pEnum The enum, in which the method, and the table are created.
+	 * @param pName The lookup methods name.
+	 * @param pArgumentIndex Index of the code in the constants constructor arguments.
+	 * @return The created method.
+	 * @see #generateCodeLookup(ClassBase, String, int)
+	 */
+	@Nonnull public static Method newCodeLookup(@Nonnull ClassBase<?> pEnum, @Nonnull String pName, int pArgumentIndex) {
+		return new EnumLookupGenerator().generateCodeLookup(pEnum, pName, pArgumentIndex);
+	}
+
+	/** Creates a public static lookup method {@code E pName(String pName)} with
+	 * the default settings.
+	 * @param pEnum The enum, in which the method, and its tables are created.
+	 * @param pName The lookup methods name.
+	 * @return The created method.
+	 * @see #generateNameLookup(ClassBase, String)
+	 */
+	@Nonnull public static Method newNameLookup(@Nonnull ClassBase<?> pEnum, @Nonnull String pName) {
+		return new EnumLookupGenerator().generateNameLookup(pEnum, pName);
+	}
+
+	/** Creates a public static lookup method {@code E pName(int pCode)}, which
+	 * maps int codes to the enums constants. The codes are taken from the
+	 * constants constructor arguments. The table is created as a private
+	 * static final field with the name {@code pName + "$table"}.
+	 * @param pEnum The enum, in which the method, and the table are created.
+	 * @param pName The lookup methods name.
+	 * @param pArgumentIndex Index of the code in the constants constructor arguments.
+	 * @return The created method.
+	 * @throws IllegalStateException The class isn't an enum, the enum has no
+	 *   constants, a constant doesn't have an int literal at the given index,
+	 *   the codes aren't unique, or the codes are too sparse.
+	 */
+	@Nonnull public Method generateCodeLookup(@Nonnull ClassBase<?> pEnum, @Nonnull String pName, int pArgumentIndex) {
+		final List<EnumConstant> constants = getConstants(pEnum);
+		if (constants.isEmpty()) {
+			throw new IllegalStateException("Unable to create a code lookup for "
+					+ pEnum.getType() + ": The enum has no constants.");
+		}
+		final int[] codes = new int[constants.size()];
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (int i = 0;  i < codes.length;  i++) {
+			final EnumConstant constant = constants.get(i);
+			codes[i] = getCode(pEnum, constant, pArgumentIndex);
+			min = Math.min(min, codes[i]);
+			max = Math.max(max, codes[i]);
+		}
+		final long range = (long) max - min + 1;
+		if (range > (long) maxSparseness * codes.length) {
+			throw new IllegalStateException("The codes of " + pEnum.getType() + " are too sparse: "
+					+ codes.length + " constants, range " + min + ".." + max);
+		}
+		final EnumConstant[] table = new EnumConstant[(int) range];
+		for (int i = 0;  i < codes.length;  i++) {
+			final int index = codes[i] - min;
+			if (table[index] != null) {
+				throw new IllegalStateException("The constants " + table[index].getName() + ", and "
+						+ constants.get(i).getName() + " of " + pEnum.getType() + " have the same code " + codes[i]);
+			}
+			table[index] = constants.get(i);
+		}
+		final List<Object> values = new ArrayList<>();
+		values.add("{ ");
+		for (int i = 0;  i < table.length;  i++) {
+			if (i > 0) {
+				values.add(", ");
+			}
+			values.add(table[i] == null ? "null" : table[i].getName());
+		}
+		values.add(" }");
+		final JQName type = pEnum.getType();
+		final String tableName = pName + "$table";
+		pEnum.newField(type.arrayOf(), tableName, Protection.PRIVATE).makeStatic().makeFinal().assign(values);
+		final Method method = pEnum.newMethod(Protection.PUBLIC, type, pName).makeStatic();
+		method.parameter(JQName.INT_TYPE, "pCode");
+		if (min == 0) {
+			method.body().newIf("pCode < 0  ||  pCode >= ", tableName, ".length").tline("return null");
+			method.body().tline("return ", tableName, "[pCode]");
+		} else {
+			method.body().tline("final int index = pCode ", min < 0 ? "+ " : "- ", String.valueOf(Math.abs((long) min)));
+			method.body().newIf("index < 0  ||  index >= ", tableName, ".length").tline("return null");
+			method.body().tline("return ", tableName, "[index]");
+		}
+		return method;
+	}
+
+	/** Creates a public static lookup method {@code E pName(String pName)}, which
+	 * maps the constant names to the enums constants. The lookup uses a
+	 * perfect hash function (a private method {@code pName + "$index"}),
+	 * and a cached copy of {@code values()} (a private static final field
+	 * {@code pName + "$values"}).
+	 * @param pEnum The enum, in which the method, and its tables are created.
+	 * @param pName The lookup methods name.
+	 * @return The created method.
+	 * @throws IllegalStateException The class isn't an enum.
+	 */
+	@Nonnull public Method generateNameLookup(@Nonnull ClassBase<?> pEnum, @Nonnull String pName) {
+		final List<EnumConstant> constants = getConstants(pEnum);
+		final Map<String,Integer> ordinals = new HashMap<>();
+		for (int i = 0;  i < constants.size();  i++) {
+			ordinals.put(constants.get(i).getName(), Integer.valueOf(i));
+		}
+		final JQName type = pEnum.getType();
+		final String valuesName = pName + "$values";
+		final String indexName = pName + "$index";
+		pEnum.newField(type.arrayOf(), valuesName, Protection.PRIVATE).makeStatic().makeFinal().assign("values()");
+		new PerfectHashGenerator().generate(pEnum, indexName, ordinals).protection(Protection.PRIVATE);
+		final Method method = pEnum.newMethod(Protection.PUBLIC, type, pName).makeStatic();
+		method.parameter(JQName.STRING, "pName");
+		method.body().tline("final int index = ", indexName, "(pName)");
+		method.body().tline("return index == -1 ? null : ", valuesName, "[index]");
+		return method;
+	}
+
+	private List<EnumConstant> getConstants(ClassBase<?> pEnum) {
+		if (!pEnum.isEnum()) {
+			throw new IllegalStateException("The class " + pEnum.getType() + " is not an enum.");
+		}
+		return pEnum.getEnumConstants();
+	}
+
+	private int getCode(ClassBase<?> pEnum, EnumConstant pConstant, int pArgumentIndex) {
+		final List<Object> args = pConstant.getArguments();
+		final Object arg = pArgumentIndex < args.size() ? args.get(pArgumentIndex) : null;
+		if (arg instanceof Integer  ||  arg instanceof Short  ||  arg instanceof Byte) {
+			return ((Number) arg).intValue();
+		} else if (arg instanceof String) {
+			try {
+				return Integer.decode(((String) arg).trim());
+			} catch (NumberFormatException e) {
+				// Fall through
+			}
+		}
+		throw new IllegalStateException("Expected an int literal as argument " + pArgumentIndex
+				+ " of the constant " + pConstant.getName() + " in " + pEnum.getType() + ", got " + arg);
+	}
+}
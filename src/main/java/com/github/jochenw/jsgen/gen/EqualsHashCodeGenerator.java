@@ -0,0 +1,282 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.Block;
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Method;
+
+
+/** A generator for the methods {@link Object#equals(Object)}, and {@link Object#hashCode()}
+ * of a value class. Unlike {@link Objects#hash(Object...)}, the generated code doesn't
+ * allocate a varargs array, or box primitive values:
+ * <ul>
+ *   <li>Primitive fields are compared with {@code ==}, except for {@code float}, and
+ *     {@code double}, which are compared with {@link Double#compare(double, double)},
+ *     and the like, so that {@code NaN} equals itself.</li>
+ *   <li>Arrays are compared with {@link Arrays#equals(int[], int[])}, or
+ *     {@link Arrays#deepEquals(Object[], Object[])}, and hashed accordingly.</li>
+ *   <li>Other fields are compared with {@link Objects#equals(Object, Object)}.</li>
+ *   <li>The comparisons are ordered cheapest first: Primitive fields, then floating
+ *     point fields, then objects, and arrays. Within these groups, the declaration
+ *     order is retained.</li>
+ * </ul>
+ * If all fields are final, and none of them is an array, the hash code may be cached
+ * in an additional field, much like {@link String#hashCode()} does. (A final array
+ * field may still be modified, which would invalidate the cached hash code.) The cached hash codes are also used
+ * by {@code equals()} to detect differing objects early.
+ */
+public class EqualsHashCodeGenerator {
+	/** Name of the field, which holds the cached hash code.
+	 */
+	public static final String HASH_FIELD = "hashCode$cache";
+
+	private static final JQName ARRAYS = JQName.valueOf(Arrays.class);
+	private static final JQName OBJECTS = JQName.valueOf(Objects.class);
+
+	private boolean cachingHashCode;
+
+	/** Returns, whether the hash code is being cached. Defaults to false.
+	 * @return True, if the hash code is being cached, otherwise false.
+	 */
+	public boolean isCachingHashCode() {
+		return cachingHashCode;
+	}
+
+	/** Sets, whether the hash code is being cached. Defaults to false.
+	 * Caching requires, that all fields are final, and that there are no array fields.
+	 * @param pCaching True, if the hash code is being cached, otherwise false.
+	 */
+	public void setCachingHashCode(boolean pCaching) {
+		cachingHashCode = pCaching;
+	}
+
+	/** Creates the methods {@code equals()}, and {@code hashCode()}, based on the
+	 * non-static fields of the given class. Primitive values aren't boxed, and
+	 * no varargs arrays are allocated.
+	 * @param pClass The class, which is being modified.
+	 * @param pCachingHashCode True, if the hash code should be cached in
+	 *   an additional field. This requires, that all fields are final, and
+	 *   that there are no array fields.
+	 * @return The created method {@code equals()}.
+	 * @see #generate(ClassBase)
+	 */
+	@Nonnull public static Method newEqualsAndHashCode(@Nonnull ClassBase<?> pClass, boolean pCachingHashCode) {
+		final EqualsHashCodeGenerator generator = new EqualsHashCodeGenerator();
+		generator.setCachingHashCode(pCachingHashCode);
+		return generator.generate(pClass);
+	}
+
+	/** Creates the methods {@code equals()}, and {@code hashCode()}, based on the
+	 * non-static fields of the given class.
+	 * @param pClass The class, which is being modified.
+	 * @return The created method {@code equals()}.
+	 * @throws IllegalStateException The class does already have one of the methods,
+	 *   or the hash code is being cached, and a field isn't final, or is an array.
+	 */
+	@Nonnull public Method generate(@Nonnull ClassBase<?> pClass) {
+		final List<Field> fields = new ArrayList<>();
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Field  &&  !((Field) o).isStatic()) {
+				fields.add((Field) o);
+			}
+		}
+		return generate(pClass, fields);
+	}
+
+	/** Creates the methods {@code equals()}, and {@code hashCode()}, based on the
+	 * given fields.
+	 * @param pClass The class, which is being modified.
+	 * @param pFields The fields, which are being compared, and hashed. The fields
+	 *   must be non-static fields of the given class.
+	 * @return The created method {@code equals()}.
+	 * @throws IllegalStateException The class does already have one of the methods,
+	 *   or the hash code is being cached, and a field isn't final, or is an array.
+	 * @throws IllegalArgumentException A field is static, or not a field of the given class.
+	 */
+	@Nonnull public Method generate(@Nonnull ClassBase<?> pClass, @Nonnull List<Field> pFields) {
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Method) {
+				final Method m = (Method) o;
+				if (("equals".equals(m.getName())  &&  m.getParameters().size() == 1)
+				    ||  ("hashCode".equals(m.getName())  &&  m.getParameters().isEmpty())) {
+					throw new IllegalStateException("The class " + pClass.getType()
+					                                + " does already have a method " + m.getName());
+				}
+			}
+		}
+		for (Field f : pFields) {
+			if (f.isStatic()  ||  !pClass.getContent().contains(f)) {
+				throw new IllegalArgumentException("Expected a non-static field of " + pClass.getType()
+				                                   + ", got " + f.getName());
+			}
+			if (cachingHashCode  &&  !f.isFinal()) {
+				throw new IllegalStateException("Unable to cache the hash code of " + pClass.getType()
+				                                + ", because the field " + f.getName() + " isn't final.");
+			}
+			if (cachingHashCode  &&  f.getType().isArray()) {
+				throw new IllegalStateException("Unable to cache the hash code of " + pClass.getType()
+				                                + ", because the field " + f.getName() + " is an array.");
+			}
+		}
+		final Field cache;
+		if (cachingHashCode) {
+			cache = pClass.newField(JQName.INT_TYPE, HASH_FIELD, Protection.PRIVATE);
+		} else {
+			cache = null;
+		}
+		final List<Field> sortedFields = new ArrayList<>(pFields);
+		sortedFields.sort(Comparator.comparingInt((f) -> getCost(f.getType())));
+
+		final Method equals = pClass.newMethod(Protection.PUBLIC, JQName.BOOLEAN_TYPE, "equals").overriding();
+		equals.parameter(JQName.OBJECT, "pOther");
+		equals.body().newIf("this == pOther").tline("return true");
+		equals.body().newIf("pOther == null  ||  getClass() != pOther.getClass()").tline("return false");
+		final JQName type = pClass.getType();
+		if (sortedFields.isEmpty()) {
+			equals.body().tline("return true");
+		} else {
+			equals.body().tline("final ", type, " other = (", type, ") pOther");
+			if (cache != null) {
+				equals.body().newIf(cache, " != 0  &&  other.", cache, " != 0  &&  ", cache, " != other.", cache)
+					.tline("return false");
+			}
+			final List<Object> expr = new ArrayList<>();
+			expr.add("return ");
+			for (int i = 0;  i < sortedFields.size();  i++) {
+				if (i > 0) {
+					expr.add("  &&  ");
+				}
+				addEquals(expr, sortedFields.get(i));
+			}
+			equals.body().tline(expr);
+		}
+
+		final Method hashCode = pClass.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "hashCode").overriding();
+		if (cache == null) {
+			final LocalField h = hashCode.body().newField(JQName.INT_TYPE, "h").assign("1");
+			addHashCode(hashCode.body(), h, pFields);
+			hashCode.body().tline("return ", h);
+		} else {
+			final LocalField h = hashCode.body().newField(JQName.INT_TYPE, "h").assign(cache);
+			// Like String.hashCode(): The computation is repeated, if the hash code is zero.
+			final IfBlock ifBlock = hashCode.body().newIf(h, " == 0");
+			ifBlock.tline(h, " = 1");
+			addHashCode(ifBlock, h, pFields);
+			ifBlock.tline(cache, " = ", h);
+			hashCode.body().tline("return ", h);
+		}
+		return equals;
+	}
+
+	private void addEquals(List<Object> pExpr, Field pField) {
+		final JQName type = pField.getType();
+		if (type.isArray()) {
+			pExpr.add(ARRAYS);
+			pExpr.add(type.isPrimitive() ? ".equals(" : ".deepEquals(");
+			pExpr.add(pField);
+			pExpr.add(", other.");
+			pExpr.add(pField);
+			pExpr.add(")");
+		} else if (type.isPrimitive()) {
+			final String compare = getCompareType(type);
+			if (compare == null) {
+				pExpr.add(pField);
+				pExpr.add(" == other.");
+				pExpr.add(pField);
+			} else {
+				pExpr.add(compare);
+				pExpr.add(".compare(");
+				pExpr.add(pField);
+				pExpr.add(", other.");
+				pExpr.add(pField);
+				pExpr.add(") == 0");
+			}
+		} else {
+			pExpr.add(OBJECTS);
+			pExpr.add(".equals(");
+			pExpr.add(pField);
+			pExpr.add(", other.");
+			pExpr.add(pField);
+			pExpr.add(")");
+		}
+	}
+
+	private void addHashCode(Block<?> pBlock, LocalField pHash, List<Field> pFields) {
+		for (Field f : pFields) {
+			final JQName type = f.getType();
+			final Object value;
+			if (type.isArray()) {
+				value = new Object[] { ARRAYS, type.isPrimitive() ? ".hashCode(" : ".deepHashCode(", f, ")" };
+			} else if (type.isPrimitive()) {
+				value = new Object[] { getWrapperType(type), ".hashCode(", f, ")" };
+			} else {
+				value = new Object[] { OBJECTS, ".hashCode(", f, ")" };
+			}
+			pBlock.tline(pHash, " = 31 * ", pHash, " + ", value);
+		}
+	}
+
+	/** Returns the estimated cost of comparing values of the given type.
+	 * @param pType The field type.
+	 * @return 0 for primitive types, except float, and double, 1 for float, and
+	 *   double, 2 for objects, and 3 for arrays.
+	 */
+	protected int getCost(@Nonnull JQName pType) {
+		if (pType.isArray()) {
+			return 3;
+		} else if (pType.isPrimitive()) {
+			return getCompareType(pType) == null ? 0 : 1;
+		} else {
+			return 2;
+		}
+	}
+
+	private String getCompareType(JQName pType) {
+		switch (pType.getQName()) {
+		  case "double": return "Double";
+		  case "float": return "Float";
+		  default: return null;
+		}
+	}
+
+	private String getWrapperType(JQName pType) {
+		switch (pType.getQName()) {
+		  case "boolean": return "Boolean";
+		  case "byte": return "Byte";
+		  case "char": return "Character";
+		  case "double": return "Double";
+		  case "float": return "Float";
+		  case "int": return "Integer";
+		  case "long": return "Long";
+		  case "short": return "Short";
+		  default: throw new IllegalStateException("Unsupported primitive type: " + pType.getQName());
+		}
+	}
+}
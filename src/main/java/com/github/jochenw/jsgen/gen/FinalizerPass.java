@@ -0,0 +1,193 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+
+
+/** An optional pass, which declares classes, and methods final, if they
+ * aren't extended, or overridden. This saves the JIT compiler the work of
+ * proving, that a call site is monomorphic (class hierarchy analysis), and
+ * avoids deoptimization, if another subclass is loaded later on.
+ *
+ * The pass builds the inheritance graph from {@link ClassBase#getExtendedClasses()}
+ * of all sources (including inner classes) in a {@link JSGFactory}. It assumes,
+ * that the hierarchy is closed: Classes outside of the factory, including anonymous
+ * classes in generated code, must not extend the generated classes. The following
+ * changes are applied:
+ * <ul>
+ *   <li>Classes, which are neither abstract, nor an interface, nor extended by
+ *     another class, are declared final.</li>
+ *   <li>In the remaining (extended) classes, non-private, non-static, and non-abstract
+ *     methods, which aren't overridden in any subclass, are declared final.</li>
+ * </ul>
+ */
+public class FinalizerPass {
+	/** The result of running the pass: A list of the changed classes, and methods.
+	 */
+	public static class Report {
+		private final List<JQName> finalClasses = new ArrayList<>();
+		private final List<String> finalMethods = new ArrayList<>();
+
+		/** Returns the classes, which have been declared final.
+		 * @return The classes, which have been declared final.
+		 */
+		@Nonnull public List<JQName> getFinalClasses() {
+			return Collections.unmodifiableList(finalClasses);
+		}
+
+		/** Returns the methods, which have been declared final.
+		 * @return The methods, which have been declared final, as strings like
+		 *   "com.foo.Base#run(int)".
+		 */
+		@Nonnull public List<String> getFinalMethods() {
+			return Collections.unmodifiableList(finalMethods);
+		}
+
+		/** Returns a human readable report with one line per change.
+		 */
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			for (JQName n : finalClasses) {
+				sb.append("final class ").append(n.getQName()).append('\n');
+			}
+			for (String m : finalMethods) {
+				sb.append("final method ").append(m).append('\n');
+			}
+			return sb.toString();
+		}
+	}
+
+	/** Runs the pass over all sources in the given factory.
+	 * @param pFactory The factory, which contains the classes. All classes must still be mutable.
+	 * @return A report of the changed classes, and methods.
+	 */
+	@Nonnull public Report run(@Nonnull JSGFactory pFactory) {
+		final List<ClassBase<?>> classes = new ArrayList<>();
+		pFactory.forEach((l, o) -> {
+			if (o instanceof Source) {
+				addClass(classes, (Source) o);
+			}
+		});
+		final Map<String,List<ClassBase<?>>> subclasses = new HashMap<>();
+		for (ClassBase<?> cb : classes) {
+			for (JQName t : cb.getExtendedClasses()) {
+				subclasses.computeIfAbsent(t.getQName(), (s) -> new ArrayList<>()).add(cb);
+			}
+		}
+		final Report report = new Report();
+		for (ClassBase<?> cb : classes) {
+			if (cb.isInterface()  ||  cb.isEnum()  ||  cb.isFinal()) {
+				continue;
+			}
+			final List<ClassBase<?>> directSubclasses = subclasses.get(cb.getType().getQName());
+			if (directSubclasses == null) {
+				if (!cb.isAbstract()) {
+					cb.makeFinal();
+					report.finalClasses.add(cb.getType());
+				}
+				continue;
+			}
+			final List<ClassBase<?>> allSubclasses = new ArrayList<>();
+			addSubclasses(allSubclasses, directSubclasses, subclasses);
+			for (Object o : cb.getContent()) {
+				if (o instanceof Method) {
+					final Method method = (Method) o;
+					if (method.isStatic()  ||  method.isAbstract()  ||  method.isFinal()
+							||  method.getProtection() == Protection.PRIVATE) {
+						continue;
+					}
+					final String signature = getSignature(method);
+					if (!isOverridden(signature, allSubclasses)) {
+						method.makeFinal();
+						report.finalMethods.add(cb.getType().getQName() + "#" + signature);
+					}
+				}
+			}
+		}
+		return report;
+	}
+
+	private void addClass(List<ClassBase<?>> pClasses, ClassBase<?> pClass) {
+		pClasses.add(pClass);
+		for (Object o : pClass.getContent()) {
+			if (o instanceof InnerClass) {
+				addClass(pClasses, (InnerClass) o);
+			}
+		}
+	}
+
+	private void addSubclasses(List<ClassBase<?>> pList, List<ClassBase<?>> pSubclasses,
+			                   Map<String,List<ClassBase<?>>> pSubclassMap) {
+		for (ClassBase<?> cb : pSubclasses) {
+			if (!pList.contains(cb)) {
+				pList.add(cb);
+				final List<ClassBase<?>> subclasses = pSubclassMap.get(cb.getType().getQName());
+				if (subclasses != null) {
+					addSubclasses(pList, subclasses, pSubclassMap);
+				}
+			}
+		}
+	}
+
+	private boolean isOverridden(String pSignature, List<ClassBase<?>> pSubclasses) {
+		for (ClassBase<?> cb : pSubclasses) {
+			for (Object o : cb.getContent()) {
+				if (o instanceof Method) {
+					final Method method = (Method) o;
+					if (!method.isStatic()  &&  pSignature.equals(getSignature(method))) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private String getSignature(Method pMethod) {
+		final StringBuilder sb = new StringBuilder(pMethod.getName());
+		sb.append('(');
+		final List<Parameter> parameters = pMethod.getParameters();
+		for (int i = 0;  i < parameters.size();  i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			final JQName type = parameters.get(i).getType();
+			// Generic type parameters are erased.
+			sb.append(type.getQName());
+			if (type.isArray()) {
+				sb.append("[]");
+			}
+		}
+		return sb.append(')').toString();
+	}
+}
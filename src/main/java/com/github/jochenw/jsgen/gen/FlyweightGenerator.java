@@ -0,0 +1,401 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.Block;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.NestedBlock;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/** A generator for flyweight classes, which provide typed access to records
+ * with a fixed layout in a {@link ByteBuffer}, or in off-heap memory (for
+ * example, a memory mapped file). A flyweight is created once, and then
+ * moved over the records by invoking its {@code wrap} method, so there is no
+ * allocation per record. For every field of the {@link Layout}, the flyweight
+ * has a typed getter, a setter (returning the flyweight), and a constant
+ * {@code NAME_OFFSET}. The constant {@code SIZE} is the records length.
+ *
+ * In {@link Storage#BYTE_BUFFER} mode, the flyweight wraps a {@link ByteBuffer},
+ * and an offset. If the buffers byte order differs from {@link #getByteOrder()},
+ * then {@code wrap} uses a duplicate of the buffer with the right byte order.
+ * The duplicate is kept, and reused, as long as the same buffer is being wrapped,
+ * so it is created only once per buffer. Alternatively, {@code wrap(int)} moves
+ * the flyweight to another record in the current buffer.
+ * In {@link Storage#ADDRESS} mode, the flyweight wraps a native address,
+ * and uses {@code sun.misc.Unsafe}. There are no bounds checks in that case,
+ * and bytes are swapped, if the native byte order differs from
+ * {@link #getByteOrder()}.
+ */
+public class FlyweightGenerator {
+	/** The kind of memory, which is accessed by the flyweight.
+	 */
+	public enum Storage {
+		/** The flyweight wraps a {@link ByteBuffer}, and an offset.
+		 */
+		BYTE_BUFFER,
+		/** The flyweight wraps a native address.
+		 */
+		ADDRESS
+	}
+
+	private static final Map<JQName,Integer> SIZES = new HashMap<>();
+	static {
+		SIZES.put(JQName.BOOLEAN_TYPE, Integer.valueOf(1));
+		SIZES.put(JQName.BYTE_TYPE, Integer.valueOf(1));
+		SIZES.put(JQName.SHORT_TYPE, Integer.valueOf(2));
+		SIZES.put(JQName.CHAR_TYPE, Integer.valueOf(2));
+		SIZES.put(JQName.INT_TYPE, Integer.valueOf(4));
+		SIZES.put(JQName.FLOAT_TYPE, Integer.valueOf(4));
+		SIZES.put(JQName.LONG_TYPE, Integer.valueOf(8));
+		SIZES.put(JQName.DOUBLE_TYPE, Integer.valueOf(8));
+	}
+
+	/** A records layout: A list of fields with primitive types, and offsets.
+	 */
+	public static class Layout {
+		/** A single field of the layout.
+		 */
+		public static class Entry {
+			private final @Nonnull String name;
+			private final @Nonnull JQName type;
+			private final int offset;
+
+			Entry(@Nonnull String pName, @Nonnull JQName pType, int pOffset) {
+				name = pName;
+				type = pType;
+				offset = pOffset;
+			}
+
+			/** Returns the fields name.
+			 * @return The fields name.
+			 */
+			@Nonnull public String getName() {
+				return name;
+			}
+
+			/** Returns the fields type.
+			 * @return The fields type, a primitive type.
+			 */
+			@Nonnull public JQName getType() {
+				return type;
+			}
+
+			/** Returns the fields offset within the record.
+			 * @return The fields offset within the record.
+			 */
+			public int getOffset() {
+				return offset;
+			}
+
+			/** Returns the fields size in bytes.
+			 * @return The fields size in bytes.
+			 */
+			public int getSize() {
+				return SIZES.get(type).intValue();
+			}
+		}
+
+		private final List<Entry> entries = new ArrayList<>();
+		private boolean aligned = true;
+		private int size, alignment = 1;
+
+		/** Sets, whether fields must be aligned to their natural size.
+		 * If so, then fields without explicit offset are aligned automatically,
+		 * explicit offsets are validated, and the records size is a multiple
+		 * of the largest fields size.
+		 * @param pAligned True, if fields must be aligned (default), otherwise false.
+		 * @return This layout.
+		 */
+		@Nonnull public Layout aligned(boolean pAligned) {
+			if (!entries.isEmpty()) {
+				throw new IllegalStateException("The alignment must be set before adding fields.");
+			}
+			aligned = pAligned;
+			return this;
+		}
+
+		/** Returns, whether fields must be aligned to their natural size.
+		 * @return True, if fields must be aligned (default), otherwise false.
+		 */
+		public boolean isAligned() {
+			return aligned;
+		}
+
+		/** Adds a field, which follows the previous field (plus padding,
+		 * if the layout is aligned).
+		 * @param pName The fields name.
+		 * @param pType The fields type, a primitive type.
+		 * @return This layout.
+		 */
+		@Nonnull public Layout field(@Nonnull String pName, @Nonnull JQName pType) {
+			final int fieldSize = sizeOf(pType);
+			int offset = 0;
+			for (Entry e : entries) {
+				offset = Math.max(offset, e.getOffset() + e.getSize());
+			}
+			if (aligned) {
+				offset = (offset + fieldSize - 1) / fieldSize * fieldSize;
+			}
+			return field(pName, pType, offset);
+		}
+
+		/** Adds a field with the given offset.
+		 * @param pName The fields name.
+		 * @param pType The fields type, a primitive type.
+		 * @param pOffset The fields offset within the record.
+		 * @return This layout.
+		 * @throws IllegalArgumentException The type is not primitive, the name is
+		 *   already in use, the field overlaps another field, or the layout is
+		 *   aligned, and the offset isn't.
+		 */
+		@Nonnull public Layout field(@Nonnull String pName, @Nonnull JQName pType, int pOffset) {
+			Objects.requireNonNull(pName, "Name");
+			final int fieldSize = sizeOf(pType);
+			if (pOffset < 0) {
+				throw new IllegalArgumentException("Invalid offset for field " + pName + ": " + pOffset);
+			}
+			if (aligned  &&  pOffset % fieldSize != 0) {
+				throw new IllegalArgumentException("The offset " + pOffset + " of field " + pName
+				                                   + " is not aligned to " + fieldSize + " bytes.");
+			}
+			for (Entry e : entries) {
+				if (e.getName().equals(pName)) {
+					throw new IllegalArgumentException("Duplicate field name: " + pName);
+				}
+				if (pOffset < e.getOffset() + e.getSize()  &&  e.getOffset() < pOffset + fieldSize) {
+					throw new IllegalArgumentException("The field " + pName + " overlaps the field " + e.getName());
+				}
+			}
+			entries.add(new Entry(pName, pType, pOffset));
+			alignment = Math.max(alignment, fieldSize);
+			size = Math.max(size, pOffset + fieldSize);
+			return this;
+		}
+
+		/** Returns the fields.
+		 * @return The fields, in the order of creation.
+		 */
+		@Nonnull public List<Entry> getEntries() {
+			return Collections.unmodifiableList(entries);
+		}
+
+		/** Returns the records size.
+		 * @return The records size in bytes, including trailing padding,
+		 *   if the layout is aligned.
+		 */
+		public int getSize() {
+			if (aligned) {
+				return (size + alignment - 1) / alignment * alignment;
+			}
+			return size;
+		}
+
+		private static int sizeOf(JQName pType) {
+			final Integer fieldSize = SIZES.get(Objects.requireNonNull(pType, "Type"));
+			if (fieldSize == null) {
+				throw new IllegalArgumentException("Expected a primitive type, got " + pType);
+			}
+			return fieldSize.intValue();
+		}
+	}
+
+	private static final JQName UNSAFE = JQName.valueOf("sun.misc.Unsafe");
+	private static final JQName BYTE_ORDER = JQName.valueOf(ByteOrder.class);
+
+	private @Nonnull Storage storage = Storage.BYTE_BUFFER;
+	private @Nonnull ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+
+	/** Returns the kind of memory, which is accessed by the flyweight.
+	 * @return The kind of memory. Defaults to {@link Storage#BYTE_BUFFER}.
+	 */
+	@Nonnull public Storage getStorage() {
+		return storage;
+	}
+
+	/** Sets the kind of memory, which is accessed by the flyweight.
+	 * @param pStorage The kind of memory. Defaults to {@link Storage#BYTE_BUFFER}.
+	 */
+	public void setStorage(@Nonnull Storage pStorage) {
+		storage = Objects.requireNonNull(pStorage, "Storage");
+	}
+
+	/** Returns the byte order of the records.
+	 * @return The byte order of the records. Defaults to {@link ByteOrder#LITTLE_ENDIAN}.
+	 */
+	@Nonnull public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+
+	/** Sets the byte order of the records.
+	 * @param pByteOrder The byte order of the records. Defaults to
+	 *   {@link ByteOrder#LITTLE_ENDIAN}.
+	 */
+	public void setByteOrder(@Nonnull ByteOrder pByteOrder) {
+		byteOrder = Objects.requireNonNull(pByteOrder, "Byte order");
+	}
+
+	/** Creates a new flyweight class.
+	 * @param pFactory The factory, which is used to create the flyweight.
+	 * @param pType The flyweights type.
+	 * @param pLayout The records layout.
+	 * @return The created class, a public source, which may be configured further.
+	 */
+	@Nonnull public Source generate(@Nonnull JSGFactory pFactory, @Nonnull JQName pType, @Nonnull Layout pLayout) {
+		final Source source = pFactory.newSource(pType, Protection.PUBLIC);
+		source.comment("Flyweight for records of " + pLayout.getSize() + " bytes in "
+				       + (byteOrder == ByteOrder.LITTLE_ENDIAN ? "little" : "big") + " endian byte order.");
+		final String order = byteOrder == ByteOrder.LITTLE_ENDIAN ? ".LITTLE_ENDIAN" : ".BIG_ENDIAN";
+		source.newField(JQName.INT_TYPE, "SIZE", Protection.PUBLIC).makeStatic().makeFinal()
+			.assign(String.valueOf(pLayout.getSize()));
+		for (Layout.Entry e : pLayout.getEntries()) {
+			source.newField(JQName.INT_TYPE, offsetName(e), Protection.PUBLIC).makeStatic().makeFinal()
+				.assign(String.valueOf(e.getOffset()));
+		}
+		final Method wrap;
+		final String base;
+		if (storage == Storage.BYTE_BUFFER) {
+			final JQName byteBuffer = JQName.valueOf(ByteBuffer.class);
+			source.newField(byteBuffer, "source", Protection.PRIVATE);
+			source.newField(byteBuffer, "buffer", Protection.PRIVATE);
+			source.newField(JQName.INT_TYPE, "offset", Protection.PRIVATE);
+			wrap = source.newMethod(Protection.PUBLIC, pType, "wrap");
+			wrap.parameter(byteBuffer, "pBuffer");
+			wrap.parameter(JQName.INT_TYPE, "pOffset");
+			// Duplicate the buffer only, if a new buffer is being wrapped, not per record.
+			final IfBlock newBuffer = wrap.body().newIf("pBuffer != source");
+			newBuffer.tline("source = pBuffer");
+			newBuffer.tline("buffer = pBuffer.order() == ", BYTE_ORDER, order, " ? pBuffer : pBuffer.duplicate().order(",
+					BYTE_ORDER, order, ")");
+			wrap.body().tline("offset = pOffset");
+			final Method wrapOffset = source.newMethod(Protection.PUBLIC, pType, "wrap");
+			wrapOffset.parameter(JQName.INT_TYPE, "pOffset");
+			wrapOffset.body().tline("offset = pOffset");
+			wrapOffset.body().tline("return this");
+			base = "offset + ";
+		} else {
+			source.newField(JQName.BOOLEAN_TYPE, "SWAP", Protection.PRIVATE).makeStatic().makeFinal()
+				.assign(BYTE_ORDER, ".nativeOrder() != ", BYTE_ORDER, order);
+			source.newField(UNSAFE, "UNSAFE", Protection.PRIVATE).makeStatic().makeFinal().assign("getUnsafe()");
+			final Block<?> getUnsafe = source.newMethod(Protection.PRIVATE, UNSAFE, "getUnsafe").makeStatic().body();
+			final JQName field = JQName.valueOf(java.lang.reflect.Field.class);
+			getUnsafe.line("try ");
+			final NestedBlock tryBlock = getUnsafe.newBlock();
+			tryBlock.tline("final ", field, " field = ", UNSAFE, ".class.getDeclaredField(", Source.q("theUnsafe"), ")");
+			tryBlock.tline("field.setAccessible(true)");
+			tryBlock.tline("return (", UNSAFE, ") field.get(null)");
+			getUnsafe.line("catch (ReflectiveOperationException e) ");
+			getUnsafe.newBlock().tline("throw new ExceptionInInitializerError(e)");
+			source.newField(JQName.LONG_TYPE, "address", Protection.PRIVATE);
+			wrap = source.newMethod(Protection.PUBLIC, pType, "wrap");
+			wrap.parameter(JQName.LONG_TYPE, "pAddress");
+			wrap.body().tline("address = pAddress");
+			base = "address + ";
+		}
+		wrap.body().tline("return this");
+		for (Layout.Entry e : pLayout.getEntries()) {
+			final String suffix = Character.toUpperCase(e.getName().charAt(0)) + e.getName().substring(1);
+			final boolean isBoolean = JQName.BOOLEAN_TYPE.equals(e.getType());
+			final Method getter = source.newMethod(Protection.PUBLIC, e.getType(), (isBoolean ? "is" : "get") + suffix);
+			final Method setter = source.newMethod(Protection.PUBLIC, pType, "set" + suffix);
+			setter.parameter(e.getType(), "pValue");
+			final String index = base + offsetName(e);
+			if (storage == Storage.BYTE_BUFFER) {
+				addBufferAccess(e, index, getter.body(), setter.body());
+			} else {
+				addAddressAccess(e, index, getter.body(), setter.body());
+			}
+			setter.body().tline("return this");
+		}
+		return source;
+	}
+
+	private void addBufferAccess(Layout.Entry pEntry, String pIndex, Block<?> pGetter, Block<?> pSetter) {
+		final JQName type = pEntry.getType();
+		if (JQName.BOOLEAN_TYPE.equals(type)) {
+			pGetter.tline("return buffer.get(", pIndex, ") != 0");
+			pSetter.tline("buffer.put(", pIndex, ", (byte) (pValue ? 1 : 0))");
+		} else if (JQName.BYTE_TYPE.equals(type)) {
+			pGetter.tline("return buffer.get(", pIndex, ")");
+			pSetter.tline("buffer.put(", pIndex, ", pValue)");
+		} else {
+			final String name = capitalize(type.getQName());
+			pGetter.tline("return buffer.get", name, "(", pIndex, ")");
+			pSetter.tline("buffer.put", name, "(", pIndex, ", pValue)");
+		}
+	}
+
+	private void addAddressAccess(Layout.Entry pEntry, String pIndex, Block<?> pGetter, Block<?> pSetter) {
+		final JQName type = pEntry.getType();
+		if (JQName.BOOLEAN_TYPE.equals(type)) {
+			pGetter.tline("return UNSAFE.getByte(", pIndex, ") != 0");
+			pSetter.tline("UNSAFE.putByte(", pIndex, ", (byte) (pValue ? 1 : 0))");
+		} else if (JQName.BYTE_TYPE.equals(type)) {
+			pGetter.tline("return UNSAFE.getByte(", pIndex, ")");
+			pSetter.tline("UNSAFE.putByte(", pIndex, ", pValue)");
+		} else if (JQName.FLOAT_TYPE.equals(type)  ||  JQName.DOUBLE_TYPE.equals(type)) {
+			final boolean isFloat = JQName.FLOAT_TYPE.equals(type);
+			final String bits = isFloat ? "int" : "long";
+			final String wrapper = isFloat ? "Integer" : "Long";
+			final String name = capitalize(bits);
+			final String boxed = isFloat ? "Float" : "Double";
+			pGetter.tline("final ", bits, " value = UNSAFE.get", name, "(", pIndex, ")");
+			pGetter.tline("return ", boxed, ".", bits, "BitsTo", capitalize(type.getQName()),
+					"(SWAP ? ", wrapper, ".reverseBytes(value) : value)");
+			pSetter.tline("final ", bits, " value = ", boxed, ".", type.getQName(), "ToRaw", name, "Bits(pValue)");
+			pSetter.tline("UNSAFE.put", name, "(", pIndex, ", SWAP ? ", wrapper, ".reverseBytes(value) : value)");
+		} else {
+			final String name = capitalize(type.getQName());
+			final String wrapper = JQName.INT_TYPE.equals(type) ? "Integer"
+					: JQName.CHAR_TYPE.equals(type) ? "Character" : name;
+			pGetter.tline("final ", type, " value = UNSAFE.get", name, "(", pIndex, ")");
+			pGetter.tline("return SWAP ? ", wrapper, ".reverseBytes(value) : value");
+			pSetter.tline("UNSAFE.put", name, "(", pIndex, ", SWAP ? ", wrapper, ".reverseBytes(pValue) : pValue)");
+		}
+	}
+
+	private static String offsetName(Layout.Entry pEntry) {
+		final String name = pEntry.getName();
+		final StringBuilder sb = new StringBuilder(name.length() + 8);
+		for (int i = 0;  i < name.length();  i++) {
+			final char c = name.charAt(i);
+			if (i > 0  &&  Character.isUpperCase(c)  &&  Character.isLowerCase(name.charAt(i-1))) {
+				sb.append('_');
+			}
+			sb.append(Character.toUpperCase(c));
+		}
+		return sb.append("_OFFSET").toString();
+	}
+
+	private static String capitalize(String pName) {
+		return Character.toUpperCase(pName.charAt(0)) + pName.substring(1);
+	}
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+import com.github.jochenw.jsgen.util.AbstractBuilder;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/** An optional pass, which adds invocation counters, and timers to generated
+ * methods. The methods body is moved into a private helper method
+ * ({@code name$body}), and the method itself becomes a wrapper, which invokes
+ * the helper. If instrumentation is enabled, then the wrapper increments a
+ * {@link LongAdder}, and adds the elapsed time (as measured by
+ * {@link System#nanoTime()}) to another.
+ *
+ * The counters are static fields of a registry class, which is created by
+ * {@link #generateRegistry(JSGFactory)}, after all methods have been
+ * instrumented. Instrumentation is enabled by a {@code static final boolean}
+ * in the registry, which is initialized from a system property. If the property
+ * isn't set, then the JIT compiler removes the instrumentation completely,
+ * and inlines the helper method.
+ */
+public class Instrumenter {
+	/** The suffix of the helper methods name.
+	 */
+	public static final String BODY_SUFFIX = "$body";
+
+	private static final JQName LONG_ADDER = JQName.valueOf(LongAdder.class);
+
+	private final @Nonnull JQName registryType;
+	private final Map<String,String> counters = new LinkedHashMap<>();
+	private @Nonnull String property;
+	private boolean timing = true;
+
+	/** Creates a new instance.
+	 * @param pRegistryType The type of the registry class, which is created by
+	 *   {@link #generateRegistry(JSGFactory)}.
+	 */
+	public Instrumenter(@Nonnull JQName pRegistryType) {
+		registryType = Objects.requireNonNull(pRegistryType, "Registry type");
+		property = pRegistryType.getQName() + ".enabled";
+	}
+
+	/** Returns the type of the registry class.
+	 * @return The type of the registry class.
+	 */
+	@Nonnull public JQName getRegistryType() {
+		return registryType;
+	}
+
+	/** Returns the name of the system property, which enables instrumentation.
+	 * @return The system property name. Defaults to the registry types
+	 *   fully qualified name, followed by ".enabled".
+	 */
+	@Nonnull public String getProperty() {
+		return property;
+	}
+
+	/** Sets the name of the system property, which enables instrumentation.
+	 * @param pProperty The system property name. Defaults to the registry types
+	 *   fully qualified name, followed by ".enabled".
+	 */
+	public void setProperty(@Nonnull String pProperty) {
+		property = Objects.requireNonNull(pProperty, "Property");
+	}
+
+	/** Returns, whether methods are timed, in addition to counting invocations.
+	 * @return True, if methods are timed (default), otherwise false.
+	 */
+	public boolean isTiming() {
+		return timing;
+	}
+
+	/** Sets, whether methods are timed, in addition to counting invocations.
+	 * @param pTiming True, if methods are timed (default), otherwise false.
+	 */
+	public void setTiming(boolean pTiming) {
+		timing = pTiming;
+	}
+
+	/** Returns the counters, which have been created so far.
+	 * @return A map with the counters names as keys (for example,
+	 *   "com.foo.Bar.baz.count"), and the names of the registry fields as values.
+	 */
+	@Nonnull public Map<String,String> getCounters() {
+		return counters;
+	}
+
+	/** Instruments all non-abstract methods in the given class, and its inner classes.
+	 * @param pClass The class, which is being processed. Must still be mutable.
+	 * @return The number of methods, which have been instrumented.
+	 */
+	public int instrument(@Nonnull ClassBase<?> pClass) {
+		int numMethods = 0;
+		for (Object o : new ArrayList<>(pClass.getContent())) {
+			if (o instanceof Method) {
+				if (instrument(pClass, (Method) o)) {
+					++numMethods;
+				}
+			} else if (o instanceof InnerClass) {
+				numMethods += instrument((InnerClass) o);
+			}
+		}
+		return numMethods;
+	}
+
+	/** Instruments the given method, which must have been created by
+	 * {@link ClassBase#newMethod(JQName, String)}, or the like.
+	 * @param pMethod The method, which is being instrumented. Must still be mutable.
+	 * @return True, if the method has been instrumented.
+	 * @throws IllegalStateException The method has no source class.
+	 * @see #instrument(ClassBase, Method)
+	 */
+	public boolean instrument(@Nonnull Method pMethod) {
+		final ClassBase<?> sourceClass = pMethod.getSourceClass();
+		if (sourceClass == null) {
+			throw new IllegalStateException("The method " + pMethod.getName() + " has no source class.");
+		}
+		return instrument(sourceClass, pMethod);
+	}
+
+	/** Instruments the given method.
+	 * @param pClass The class, which contains the method. Must still be mutable.
+	 * @param pMethod The method, which is being instrumented. Must still be mutable.
+	 * @return True, if the method has been instrumented. False, if the method is
+	 *   abstract, or a helper method, which has been created by this pass.
+	 */
+	public boolean instrument(@Nonnull ClassBase<?> pClass, @Nonnull Method pMethod) {
+		if (pMethod.isAbstract()  ||  pClass.isInterface()  ||  pMethod.getName().endsWith(BODY_SUFFIX)) {
+			return false;
+		}
+		AbstractBuilder.assertMutable(pClass);
+		AbstractBuilder.assertMutable(pMethod);
+		final List<Object> classContent = pClass.getContent();
+		final int index = classContent.indexOf(pMethod);
+		if (index == -1) {
+			throw new IllegalStateException("The method " + pMethod.getName()
+			                                + " isn't contained in the class " + pClass.getType());
+		}
+		final JQName returnType = pMethod.getReturnType();
+		final String helperName = pMethod.getName() + BODY_SUFFIX;
+		final Method helper = pClass.newMethod(Protection.PRIVATE, returnType, helperName);
+		helper.makeStatic(pMethod.isStatic());
+		final List<String> argNames = new ArrayList<>();
+		for (Parameter p : pMethod.getParameters()) {
+			helper.parameter(p.getType(), p.getName()).makeFinal(p.isFinal());
+			argNames.add(p.getName());
+		}
+		for (JQName exception : pMethod.getExceptions()) {
+			helper.exception(exception);
+		}
+		final List<Object> contents = pMethod.body().getContents();
+		helper.body().getContents().addAll(contents);
+		contents.clear();
+		classContent.remove(classContent.size()-1);
+		classContent.add(index+1, helper);
+
+		final String count = newCounter(pClass.getType(), pMethod.getName(), "count");
+		final String call = helperName + "(" + String.join(", ", argNames) + ")";
+		final boolean isVoid = JQName.VOID_TYPE.equals(returnType);
+		final IfBlock ifEnabled = pMethod.body().newIf(registryType, ".ENABLED");
+		ifEnabled.tline(registryType, ".", count, ".increment()");
+		if (timing) {
+			final String nanos = newCounter(pClass.getType(), pMethod.getName(), "nanos");
+			// The local variable must not hide a parameter, which is passed to the helper.
+			String start = "start$nanos";
+			for (int i = 1;  argNames.contains(start);  i++) {
+				start = "start$nanos" + i;
+			}
+			ifEnabled.tline("final long ", start, " = System.nanoTime()");
+			ifEnabled.line("try ");
+			ifEnabled.newBlock().tline(isVoid ? "" : "return ", call);
+			ifEnabled.line("finally ");
+			ifEnabled.newBlock().tline(registryType, ".", nanos, ".add(System.nanoTime() - ", start, ")");
+			if (isVoid) {
+				ifEnabled.tline("return");
+			}
+		}
+		pMethod.body().tline(isVoid ? "" : "return ", call);
+		return true;
+	}
+
+	/** Creates the registry class, which contains the switch, and the counters
+	 * of all methods, which have been instrumented so far.
+	 * @param pFactory The factory, which is used to create the registry class.
+	 * @return The created class, a public source, which may be configured further.
+	 */
+	@Nonnull public Source generateRegistry(@Nonnull JSGFactory pFactory) {
+		final Source source = pFactory.newSource(registryType, Protection.PUBLIC);
+		source.comment("Counters of instrumented methods. Enabled by the system property " + property + ".");
+		source.newField(JQName.BOOLEAN_TYPE, "ENABLED", Protection.PUBLIC).makeStatic().makeFinal()
+			.assign(JQName.BOOLEAN_OBJ, ".getBoolean(", Source.q(property), ")");
+		for (String field : counters.values()) {
+			source.newField(LONG_ADDER, field, Protection.PUBLIC).makeStatic().makeFinal()
+				.assign("new ", LONG_ADDER, "()");
+		}
+		final JQName mapType = JQName.MAP.qualifiedBy(JQName.STRING, LONG_ADDER);
+		final Method getCounters = source.newMethod(Protection.PUBLIC, mapType, "getCounters").makeStatic();
+		getCounters.comment("Returns the counters, keyed by name.");
+		getCounters.body().tline("final ", mapType, " counters = new ", JQName.valueOf(LinkedHashMap.class),
+				                 "<>()");
+		for (Map.Entry<String,String> en : counters.entrySet()) {
+			getCounters.body().tline("counters.put(", Source.q(en.getKey()), ", ", en.getValue(), ")");
+		}
+		getCounters.body().tline("return counters");
+		return source;
+	}
+
+	private String newCounter(JQName pType, String pMethodName, String pKind) {
+		final String base = asConstantName(pType.getClassName().replace('.', '_') + "_" + pMethodName + "_" + pKind);
+		String field = base;
+		String name = pType.getQName() + "." + pMethodName + "." + pKind;
+		// Overloaded methods get a numeric suffix.
+		for (int i = 1;  counters.containsValue(field);  i++) {
+			field = base + "_" + i;
+			name = pType.getQName() + "." + pMethodName + "#" + i + "." + pKind;
+		}
+		counters.put(name, field);
+		return field;
+	}
+
+	private static String asConstantName(String pName) {
+		final StringBuilder sb = new StringBuilder(pName.length() + 8);
+		for (int i = 0;  i < pName.length();  i++) {
+			final char c = pName.charAt(i);
+			if (i > 0  &&  Character.isUpperCase(c)  &&  Character.isLowerCase(pName.charAt(i-1))) {
+				sb.append('_');
+			}
+			sb.append(c == '$' ? '_' : Character.toUpperCase(c));
+		}
+		return sb.toString();
+	}
+}
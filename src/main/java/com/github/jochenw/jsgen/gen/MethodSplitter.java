@@ -0,0 +1,296 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.Block.Line;
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.CodeBlock;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+import com.github.jochenw.jsgen.util.AbstractBuilder;
+
+
+/** An optional pass, which splits oversized methods, and static initializers
+ * into a chain of private helper methods. Oversized bodies are either not
+ * compilable at all (javac's limit of 64KB per method), or they are never
+ * compiled by the JIT compiler (HotSpot's {@code HugeMethodLimit} of 8000 bytes),
+ * and run interpreted forever.
+ *
+ * The body is split at top level statement boundaries, so the order of
+ * statements is preserved. A statement boundary is either a terminated line,
+ * or a complete node, like a local field, or a nested block. Unterminated
+ * lines are assumed to be continued by the next element, so the body is
+ * never split after an unterminated line. The last statement of every part is a call to
+ * the next helper method ({@code return helper(...)}, if the method returns
+ * a value). The methods parameters, and all local fields, which have been
+ * declared at the top level of preceding parts, are passed to the helper
+ * method as parameters, so their scope is preserved as well. Sizes are
+ * measured by the {@link CodeSizeEstimator}.
+ *
+ * Restrictions:
+ * <ul>
+ *   <li>Constructors are not split.</li>
+ *   <li>A single top level statement (for example, a large loop) is never
+ *     split, even if it exceeds the limit.</li>
+ *   <li>Local fields without an initial value must be assigned before
+ *     the next split point.</li>
+ *   <li>Local fields must be declared as {@link LocalField} nodes (for example,
+ *     by using {@link CodeBlock#newField(JQName, String)}). Local variables, which
+ *     are declared by plain lines, like {@code tline("int sum = 0")}, are not
+ *     passed to the helper methods, so the generated code wouldn't compile.</li>
+ *   <li>Blank final fields may only be assigned in the first part of a
+ *     static initializer. Otherwise, an {@link IllegalStateException} is
+ *     thrown.</li>
+ * </ul>
+ */
+public class MethodSplitter {
+	/** The default maximum size of a method body: {@value}, which is
+	 * HotSpot's default {@code HugeMethodLimit}.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 8000;
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	/** Returns the maximum estimated size of a method body.
+	 * @return The maximum estimated size of a method body.
+	 *   Defaults to {@link #DEFAULT_MAX_SIZE}.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/** Sets the maximum estimated size of a method body.
+	 * @param pMaxSize The maximum estimated size of a method body.
+	 *   Defaults to {@link #DEFAULT_MAX_SIZE}.
+	 */
+	public void setMaxSize(int pMaxSize) {
+		if (pMaxSize <= 0) {
+			throw new IllegalArgumentException("Invalid maximum size: " + pMaxSize);
+		}
+		maxSize = pMaxSize;
+	}
+
+	/** Splits all oversized methods, and static initializers in the given class,
+	 * and its inner classes.
+	 * @param pClass The class, which is being processed. Must still be mutable.
+	 * @return The number of helper methods, which have been created.
+	 */
+	public int split(@Nonnull ClassBase<?> pClass) {
+		int numHelpers = 0;
+		for (Object o : new ArrayList<>(pClass.getContent())) {
+			if (o instanceof Method) {
+				numHelpers += split(pClass, (Method) o);
+			} else if (o instanceof StaticInitializer) {
+				numHelpers += split(pClass, (StaticInitializer) o);
+			} else if (o instanceof InnerClass) {
+				numHelpers += split((InnerClass) o);
+			}
+		}
+		return numHelpers;
+	}
+
+	/** Splits the given method, if it is oversized.
+	 * @param pClass The class, which contains the method. Must still be mutable.
+	 * @param pMethod The method, which is being split. Must still be mutable.
+	 * @return The number of helper methods, which have been created.
+	 */
+	public int split(@Nonnull ClassBase<?> pClass, @Nonnull Method pMethod) {
+		if (pMethod.isAbstract()  ||  pClass.isInterface()) {
+			return 0;
+		}
+		return split(pClass, pMethod, pMethod.getName(), pMethod.isStatic(),
+				     pMethod.getReturnType(), pMethod.getParameters(), pMethod.getExceptions());
+	}
+
+	/** Splits the given static initializer, if it is oversized.
+	 * @param pClass The class, which contains the static initializer. Must still be mutable.
+	 * @param pInitializer The static initializer, which is being split. Must still be mutable.
+	 * @return The number of helper methods, which have been created.
+	 */
+	public int split(@Nonnull ClassBase<?> pClass, @Nonnull StaticInitializer pInitializer) {
+		return split(pClass, pInitializer, "staticInit", true, JQName.VOID_TYPE,
+				     new ArrayList<Parameter>(), new ArrayList<JQName>());
+	}
+
+	protected int split(ClassBase<?> pClass, CodeBlock<?> pBlock, String pName, boolean pStatic,
+			            JQName pReturnType, List<Parameter> pParameters, List<JQName> pExceptions) {
+		final List<Object> contents = pBlock.body().getContents();
+		if (CodeSizeEstimator.of(contents) <= maxSize) {
+			return 0;
+		}
+		AbstractBuilder.assertMutable(pClass);
+		AbstractBuilder.assertMutable(pBlock);
+		final List<JQName> argTypes = new ArrayList<>();
+		final List<String> argNames = new ArrayList<>();
+		for (Parameter p : pParameters) {
+			argTypes.add(p.getType());
+			argNames.add(p.getName());
+		}
+		final List<List<Object>> parts = partition(contents, argNames.size());
+		if (parts.size() <= 1) {
+			return 0;
+		}
+		if (pBlock instanceof StaticInitializer) {
+			assertNoBlankFinalAssignments(parts);
+		}
+		final Set<String> methodNames = new HashSet<>();
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Method) {
+				methodNames.add(((Method) o).getName());
+			}
+		}
+		final boolean isVoid = JQName.VOID_TYPE.equals(pReturnType);
+		final List<Object> classContent = pClass.getContent();
+		int index = classContent.indexOf(pBlock);
+		contents.clear();
+		contents.addAll(parts.get(0));
+		CodeBlock<?> previous = pBlock;
+		for (int i = 1;  i < parts.size();  i++) {
+			for (Object o : parts.get(i-1)) {
+				if (o instanceof LocalField) {
+					final LocalField lf = (LocalField) o;
+					argTypes.add(lf.getType());
+					argNames.add(lf.getName());
+				}
+			}
+			if (argNames.size() > 255) {
+				throw new IllegalStateException("Unable to split " + pName
+						+ ": Too many local fields.");
+			}
+			final String helperName = newHelperName(pName, methodNames);
+			final Method helper = pClass.newMethod(Protection.PRIVATE, pReturnType, helperName);
+			helper.makeStatic(pStatic);
+			for (int j = 0;  j < argNames.size();  j++) {
+				helper.parameter(argTypes.get(j), argNames.get(j));
+			}
+			for (JQName exception : pExceptions) {
+				helper.exception(exception);
+			}
+			helper.body().getContents().addAll(parts.get(i));
+			final StringBuilder call = new StringBuilder();
+			if (!isVoid) {
+				call.append("return ");
+			}
+			call.append(helperName).append('(').append(String.join(", ", argNames)).append(')');
+			previous.body().tline(call.toString());
+			classContent.remove(classContent.size()-1);
+			classContent.add(++index, helper);
+			previous = helper;
+		}
+		return parts.size()-1;
+	}
+
+	/** Partitions the given list of top level statements.
+	 * @param pContents The top level statements.
+	 * @param pNumArgs The number of arguments, that are passed to a helper method
+	 *   in any case. Used to estimate the size of the helper methods invocation.
+	 * @return The partitioned list. The size of every part (including the invocation
+	 *   of the next helper method) is at most {@link #getMaxSize()}, unless it consists
+	 *   of a single, oversized statement.
+	 */
+	protected List<List<Object>> partition(List<Object> pContents, int pNumArgs) {
+		final List<List<Object>> parts = new ArrayList<>();
+		List<Object> part = new ArrayList<>();
+		int size = 0;
+		int numArgs = pNumArgs;
+		for (int i = 0;  i < pContents.size();  i++) {
+			final Object o = pContents.get(i);
+			final int estimate = CodeSizeEstimator.of(o);
+			// Reserve space for the invocation of the next helper method.
+			final int callSize = 4 + 2*numArgs;
+			if (!part.isEmpty()  &&  size + estimate + callSize > maxSize
+					&&  isSplitPoint(part.get(part.size()-1))) {
+				parts.add(part);
+				part = new ArrayList<>();
+				size = 0;
+			}
+			part.add(o);
+			size += estimate;
+			if (o instanceof LocalField) {
+				++numArgs;
+			}
+		}
+		if (!part.isEmpty()) {
+			parts.add(part);
+		}
+		return parts;
+	}
+
+	/** Returns, whether the body may be split after the given element.
+	 * @param pObject The element, which would be the last element of
+	 *   the current part.
+	 * @return True, if the element is a complete statement, which doesn't
+	 *   need to be followed by the next element.
+	 */
+	protected boolean isSplitPoint(Object pObject) {
+		if (pObject instanceof LocalField) {
+			return ((LocalField) pObject).getValue() != null;
+		} else if (pObject instanceof Line) {
+			return ((Line) pObject).isTerminated();
+		} else {
+			return true;
+		}
+	}
+
+	private void assertNoBlankFinalAssignments(List<List<Object>> pParts) {
+		for (int i = 1;  i < pParts.size();  i++) {
+			for (Object o : pParts.get(i)) {
+				if (o instanceof Line) {
+					final Object elements = ((Line) o).getElements();
+					final Object first;
+					if (elements instanceof Object[]) {
+						final Object[] array = (Object[]) elements;
+						first = array.length == 0 ? null : array[0];
+					} else {
+						@SuppressWarnings("unchecked")
+						final Iterable<Object> iterable = (Iterable<Object>) elements;
+						first = iterable.iterator().hasNext() ? iterable.iterator().next() : null;
+					}
+					if (first instanceof Field) {
+						final Field field = (Field) first;
+						if (field.isFinal()  &&  field.getValue() == null) {
+							throw new IllegalStateException("Unable to split the static initializer:"
+									+ " The blank final field " + field.getName()
+									+ " is assigned in an oversized part.");
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private String newHelperName(String pName, Set<String> pMethodNames) {
+		for (int i = 1;  ;  i++) {
+			final String name = pName + "$" + i;
+			if (pMethodNames.add(name)) {
+				return name;
+			}
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/** A generator, which protects frequently updated fields (counters,
+ * ring buffer cursors, and the like) against false sharing: If two such
+ * fields are located in the same cache line, then updates by different
+ * threads invalidate each others cache line.
+ *
+ * In {@link Mode#CLASS_HIERARCHY class hierarchy mode}, every selected
+ * field is moved into a separate abstract super class, which is surrounded
+ * by super classes with seven long fields ("p1", ..., "p7"). For a class
+ * "Cursor" with a single field, the hierarchy would be
+ * {@code CursorPad0 <- CursorFields1 <- CursorPad1 <- Cursor}.
+ * This is layout stable, because the JVM places the fields of a super
+ * class before the fields of its subclasses. The super classes are
+ * created as package private sources in the classes package, so the
+ * moved fields must not be private, and are made package private, if
+ * necessary.
+ *
+ * In {@link Mode#CONTENDED contended mode}, the selected fields are
+ * annotated with {@link #getContendedAnnotation()} instead. This requires
+ * the JVM option -XX:-RestrictContended, if the generated code is not part
+ * of the JDK.
+ */
+public class PaddingGenerator {
+	/** The padding technique.
+	 */
+	public enum Mode {
+		/** The fields are moved into a hierarchy of padded super classes.
+		 */
+		CLASS_HIERARCHY,
+		/** The fields are annotated with {@link PaddingGenerator#getContendedAnnotation()}.
+		 */
+		CONTENDED
+	}
+
+	/** The number of long fields in a padding class: {@value}. Together with
+	 * the object header, or the padded field, this fills a cache line of 64 bytes.
+	 */
+	public static final int NUM_PAD_FIELDS = 7;
+	/** The default value for {@link #getContendedAnnotation()}: The annotation
+	 * {@code jdk.internal.vm.annotation.Contended}, which is available in Java 9,
+	 * or later. Java 8 uses {@code sun.misc.Contended} instead.
+	 */
+	public static final JQName DEFAULT_CONTENDED_ANNOTATION = JQName.valueOf("jdk.internal.vm.annotation.Contended");
+
+	private @Nonnull Mode mode = Mode.CLASS_HIERARCHY;
+	private @Nonnull JQName contendedAnnotation = DEFAULT_CONTENDED_ANNOTATION;
+
+	/** Returns the padding technique.
+	 * @return The padding technique. Defaults to {@link Mode#CLASS_HIERARCHY}.
+	 */
+	@Nonnull public Mode getMode() {
+		return mode;
+	}
+
+	/** Sets the padding technique.
+	 * @param pMode The padding technique. Defaults to {@link Mode#CLASS_HIERARCHY}.
+	 */
+	public void setMode(@Nonnull Mode pMode) {
+		mode = Objects.requireNonNull(pMode, "Mode");
+	}
+
+	/** Returns the annotation, which is used in {@link Mode#CONTENDED contended mode}.
+	 * @return The annotation type. Defaults to {@link #DEFAULT_CONTENDED_ANNOTATION}.
+	 */
+	@Nonnull public JQName getContendedAnnotation() {
+		return contendedAnnotation;
+	}
+
+	/** Sets the annotation, which is used in {@link Mode#CONTENDED contended mode}.
+	 * @param pType The annotation type. Defaults to {@link #DEFAULT_CONTENDED_ANNOTATION}.
+	 */
+	public void setContendedAnnotation(@Nonnull JQName pType) {
+		contendedAnnotation = Objects.requireNonNull(pType, "Type");
+	}
+
+	/** Pads the given fields of the given class with the default settings.
+	 * @param pFactory The factory, which is used to create the padding classes.
+	 * @param pClass The class, which contains the fields.
+	 * @param pFields The fields, which are being padded.
+	 * @see #pad(JSGFactory, ClassBase, Field...)
+	 */
+	public static void padFields(@Nonnull JSGFactory pFactory, @Nonnull ClassBase<?> pClass, @Nonnull Field... pFields) {
+		new PaddingGenerator().pad(pFactory, pClass, pFields);
+	}
+
+	/** Pads the given fields of the given class.
+	 * @param pFactory The factory, which is used to create the padding
+	 *   classes. Not used in {@link Mode#CONTENDED contended mode}.
+	 * @param pClass The class, which contains the fields.
+	 * @param pFields The fields, which are being padded. The fields must
+	 *   be non-static fields of the given class.
+	 * @throws IllegalStateException One of the fields is static, or
+	 *   it is not contained in the given class, or the class is an
+	 *   interface, or it has more than one super class.
+	 */
+	public void pad(@Nonnull JSGFactory pFactory, @Nonnull ClassBase<?> pClass, @Nonnull Field... pFields) {
+		Objects.requireAllNonNull(pFields, "Fields");
+		if (pClass.isInterface()) {
+			throw new IllegalStateException("Unable to pad the fields of an interface: " + pClass.getType());
+		}
+		for (Field field : pFields) {
+			if (field.isStatic()  ||  !pClass.getContent().contains(field)) {
+				throw new IllegalStateException("Expected a non-static field of " + pClass.getType()
+				                                + ", got " + field.getName());
+			}
+		}
+		if (mode == Mode.CONTENDED) {
+			for (Field field : pFields) {
+				if (!field.isAnnotatedWith(contendedAnnotation)) {
+					field.annotation(contendedAnnotation);
+				}
+			}
+			return;
+		}
+		final List<JQName> extendedClasses = pClass.getExtendedClasses();
+		if (extendedClasses.size() > 1) {
+			throw new IllegalStateException("Expected at most one super class for " + pClass.getType());
+		}
+		final JQName type = pClass.getType();
+		final String prefix = type.getPackageName().isEmpty() ? "" : type.getPackageName() + ".";
+		final String baseName = prefix + type.getClassName().replace(".", "");
+		JQName superClass = extendedClasses.isEmpty() ? null : extendedClasses.get(0);
+		superClass = newPaddingClass(pFactory, JQName.valueOf(baseName + "Pad0"), superClass, pClass);
+		for (int i = 0;  i < pFields.length;  i++) {
+			final Field field = pFields[i];
+			final Source fields = newAbstractClass(pFactory, JQName.valueOf(baseName + "Fields" + (i+1)), superClass);
+			fields.comment("Holds the field " + field.getName() + " of " + type.getClassName() + ".");
+			if (field.getProtection() == Protection.PRIVATE) {
+				field.makePackagePrivate();
+			}
+			field.moveTo(fields);
+			superClass = newPaddingClass(pFactory, JQName.valueOf(baseName + "Pad" + (i+1)), fields.getType(), pClass);
+		}
+		extendedClasses.clear();
+		pClass.extending(superClass);
+	}
+
+	private JQName newPaddingClass(JSGFactory pFactory, JQName pType, JQName pSuperClass, ClassBase<?> pClass) {
+		final Source padding = newAbstractClass(pFactory, pType, pSuperClass);
+		padding.comment("Padding against false sharing for " + pClass.getType().getClassName() + ".");
+		for (int i = 1;  i <= NUM_PAD_FIELDS;  i++) {
+			padding.newField(JQName.LONG_TYPE, "p" + i);
+		}
+		return pType;
+	}
+
+	private Source newAbstractClass(JSGFactory pFactory, JQName pType, JQName pSuperClass) {
+		final Source source = pFactory.newSource(pType, Protection.PACKAGE).makeAbstract();
+		if (pSuperClass != null) {
+			source.extending(pSuperClass);
+		}
+		return source;
+	}
+}
@@ -0,0 +1,410 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/** A generator for lookup methods, which map a fixed set of strings to
+ * integer id's by using a minimal perfect hash function. The generated
+ * method has the signature {@code static int name(String pKey)}, and
+ * returns the id of the given key, or {@link #getNotFound()}, if the key
+ * is unknown. Unlike a {@link java.util.HashMap}, which is populated by
+ * a static initializer, the lookup tables are plain {@code static final}
+ * array constants, and the lookup itself doesn't allocate any objects.
+ *
+ * The hash function is computed by the "hash, and displace" algorithm
+ * at generation time: The keys are distributed over buckets by using
+ * a global seed. For every bucket with more than one key, a seed is
+ * searched, which maps the keys in the bucket to free slots of the
+ * table. Buckets with a single key are assigned a free slot directly.
+ * At runtime, the lookup computes at most two hash values, and a single
+ * {@link String#equals(Object)}, which verifies, that the key is actually
+ * valid.
+ */
+public class PerfectHashGenerator {
+	/** The default average number of keys per bucket: {@value}.
+	 */
+	public static final int DEFAULT_BUCKET_SIZE = 4;
+	/** The default maximum number of seeds, which are tried for a single
+	 * bucket, before giving up, and trying the next global seed: {@value}.
+	 */
+	public static final int DEFAULT_MAX_SEEDS = 1 << 16;
+	/** The number of global seeds, which are tried, before giving up: {@value}.
+	 */
+	public static final int MAX_GLOBAL_SEEDS = 64;
+
+	/** The computed lookup tables.
+	 */
+	public static class Table {
+		private final int globalSeed;
+		private final @Nonnull String[] keys;
+		private final @Nonnull int[] ids;
+		private final @Nonnull int[] seeds;
+
+		Table(int pGlobalSeed, @Nonnull String[] pKeys, @Nonnull int[] pIds, @Nonnull int[] pSeeds) {
+			globalSeed = pGlobalSeed;
+			keys = pKeys;
+			ids = pIds;
+			seeds = pSeeds;
+		}
+
+		/** Returns the global seed, which maps a key to its bucket.
+		 * @return The global seed.
+		 */
+		public int getGlobalSeed() {
+			return globalSeed;
+		}
+
+		/** Returns the keys, indexed by their slot.
+		 * @return The keys, indexed by their slot.
+		 */
+		@Nonnull public String[] getKeys() {
+			return keys;
+		}
+
+		/** Returns the id's, indexed by the slot of the respective key.
+		 * @return The id's, indexed by the slot of the respective key.
+		 */
+		@Nonnull public int[] getIds() {
+			return ids;
+		}
+
+		/** Returns the bucket seeds. A negative value -n-1 denotes the
+		 * slot n of a single key. A positive value is the seed, which is
+		 * used to compute the slot of the keys in the bucket.
+		 * @return The bucket seeds, indexed by bucket.
+		 */
+		@Nonnull public int[] getSeeds() {
+			return seeds;
+		}
+
+		/** Returns the slot of the given key, by doing exactly the same
+		 * computation as the generated lookup method.
+		 * @param pKey The key, which is being searched.
+		 * @return The keys slot, or -1, if the key is unknown.
+		 */
+		public int slotOf(@Nonnull String pKey) {
+			if (keys.length == 0) {
+				return -1;
+			}
+			final int seed = seeds[hash(pKey, globalSeed) % seeds.length];
+			final int slot = seed < 0 ? -seed-1 : hash(pKey, seed) % keys.length;
+			return pKey.equals(keys[slot]) ? slot : -1;
+		}
+	}
+
+	private int bucketSize = DEFAULT_BUCKET_SIZE;
+	private int maxSeeds = DEFAULT_MAX_SEEDS;
+	private int notFound = -1;
+
+	/** Returns the average number of keys per bucket. Larger buckets
+	 * produce smaller seed tables, but take longer to compute.
+	 * @return The average number of keys per bucket. Defaults
+	 *   to {@link #DEFAULT_BUCKET_SIZE}.
+	 */
+	public int getBucketSize() {
+		return bucketSize;
+	}
+
+	/** Sets the average number of keys per bucket. Larger buckets
+	 * produce smaller seed tables, but take longer to compute.
+	 * @param pBucketSize The average number of keys per bucket. Defaults
+	 *   to {@link #DEFAULT_BUCKET_SIZE}.
+	 */
+	public void setBucketSize(int pBucketSize) {
+		if (pBucketSize <= 0) {
+			throw new IllegalArgumentException("Invalid bucket size: " + pBucketSize);
+		}
+		bucketSize = pBucketSize;
+	}
+
+	/** Returns the maximum number of seeds, which are tried for a single
+	 * bucket.
+	 * @return The maximum number of seeds, which are tried for a single
+	 *   bucket. Defaults to {@link #DEFAULT_MAX_SEEDS}.
+	 */
+	public int getMaxSeeds() {
+		return maxSeeds;
+	}
+
+	/** Sets the maximum number of seeds, which are tried for a single
+	 * bucket.
+	 * @param pMaxSeeds The maximum number of seeds, which are tried for a single
+	 *   bucket. Defaults to {@link #DEFAULT_MAX_SEEDS}.
+	 */
+	public void setMaxSeeds(int pMaxSeeds) {
+		if (pMaxSeeds <= 0) {
+			throw new IllegalArgumentException("Invalid maximum number of seeds: " + pMaxSeeds);
+		}
+		maxSeeds = pMaxSeeds;
+	}
+
+	/** Returns the value, which is returned by the generated method for
+	 * unknown keys.
+	 * @return The value, which is returned for unknown keys. Defaults to -1.
+	 */
+	public int getNotFound() {
+		return notFound;
+	}
+
+	/** Sets the value, which is returned by the generated method for
+	 * unknown keys.
+	 * @param pNotFound The value, which is returned for unknown keys. Defaults to -1.
+	 */
+	public void setNotFound(int pNotFound) {
+		notFound = pNotFound;
+	}
+
+	/** The hash function, which is used at generation time. The generated
+	 * code contains an exact copy of this method.
+	 * @param pKey The key, which is being hashed.
+	 * @param pSeed The seed, which is being used.
+	 * @return The keys hash value, a non-negative integer.
+	 */
+	public static int hash(@Nonnull String pKey, int pSeed) {
+		int h = pSeed ^ 0x811c9dc5;
+		for (int i = 0;  i < pKey.length();  i++) {
+			h = (h ^ pKey.charAt(i)) * 0x01000193;
+		}
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		return h & 0x7fffffff;
+	}
+
+	/** Computes the lookup tables for the given keys.
+	 * @param pKeys The keys, and their id's.
+	 * @return The computed lookup tables.
+	 * @throws IllegalStateException No perfect hash function was found.
+	 *   This may be fixed by increasing the {@link #setMaxSeeds(int)
+	 *   maximum number of seeds}, or by decreasing the
+	 *   {@link #setBucketSize(int) bucket size}.
+	 */
+	@Nonnull public Table compute(@Nonnull Map<String,Integer> pKeys) {
+		final int numKeys = pKeys.size();
+		final String[] keys = new String[numKeys];
+		final int[] ids = new int[numKeys];
+		int k = 0;
+		for (Map.Entry<String,Integer> en : pKeys.entrySet()) {
+			keys[k] = Objects.requireNonNull(en.getKey(), "Key");
+			ids[k] = Objects.requireNonNull(en.getValue(), "Id").intValue();
+			k++;
+		}
+		if (numKeys == 0) {
+			return new Table(0, keys, ids, new int[0]);
+		}
+		final int numBuckets = (numKeys + bucketSize - 1) / bucketSize;
+		for (int globalSeed = 0;  globalSeed < MAX_GLOBAL_SEEDS;  globalSeed++) {
+			final Table table = compute(globalSeed, numBuckets, keys, ids);
+			if (table != null) {
+				return table;
+			}
+		}
+		throw new IllegalStateException("No perfect hash function found for " + numKeys + " keys.");
+	}
+
+	private Table compute(int pGlobalSeed, int pNumBuckets, String[] pKeys, int[] pIds) {
+		final int numKeys = pKeys.length;
+		final List<List<Integer>> buckets = new ArrayList<>(pNumBuckets);
+		for (int i = 0;  i < pNumBuckets;  i++) {
+			buckets.add(new ArrayList<>());
+		}
+		for (int i = 0;  i < numKeys;  i++) {
+			buckets.get(hash(pKeys[i], pGlobalSeed) % pNumBuckets).add(Integer.valueOf(i));
+		}
+		final Integer[] order = new Integer[pNumBuckets];
+		for (int i = 0;  i < pNumBuckets;  i++) {
+			order[i] = Integer.valueOf(i);
+		}
+		// Largest buckets first, while most slots are still free.
+		Arrays.sort(order, Comparator.comparingInt((Integer b) -> buckets.get(b.intValue()).size()).reversed());
+		final int[] slots = new int[numKeys];
+		Arrays.fill(slots, -1);
+		final int[] seeds = new int[pNumBuckets];
+		final int[] candidates = new int[numKeys];
+		int b = 0;
+		for (;  b < pNumBuckets;  b++) {
+			final List<Integer> bucket = buckets.get(order[b].intValue());
+			if (bucket.size() <= 1) {
+				break;
+			}
+			int seed = 1;
+			for (;  seed <= maxSeeds;  seed++) {
+				if (isFree(seed, bucket, pKeys, slots, candidates)) {
+					break;
+				}
+			}
+			if (seed > maxSeeds) {
+				return null;
+			}
+			for (int i = 0;  i < bucket.size();  i++) {
+				slots[candidates[i]] = bucket.get(i).intValue();
+			}
+			seeds[order[b].intValue()] = seed;
+		}
+		int freeSlot = 0;
+		for (;  b < pNumBuckets;  b++) {
+			final List<Integer> bucket = buckets.get(order[b].intValue());
+			if (bucket.isEmpty()) {
+				break;
+			}
+			while (slots[freeSlot] != -1) {
+				freeSlot++;
+			}
+			slots[freeSlot] = bucket.get(0).intValue();
+			seeds[order[b].intValue()] = -freeSlot-1;
+		}
+		final String[] keys = new String[numKeys];
+		final int[] ids = new int[numKeys];
+		for (int i = 0;  i < numKeys;  i++) {
+			keys[i] = pKeys[slots[i]];
+			ids[i] = pIds[slots[i]];
+		}
+		return new Table(pGlobalSeed, keys, ids, seeds);
+	}
+
+	private boolean isFree(int pSeed, List<Integer> pBucket, String[] pKeys, int[] pSlots, int[] pCandidates) {
+		for (int i = 0;  i < pBucket.size();  i++) {
+			final int slot = hash(pKeys[pBucket.get(i).intValue()], pSeed) % pKeys.length;
+			if (pSlots[slot] != -1) {
+				return false;
+			}
+			for (int j = 0;  j < i;  j++) {
+				if (pCandidates[j] == slot) {
+					return false;
+				}
+			}
+			pCandidates[i] = slot;
+		}
+		return true;
+	}
+
+	/** Creates a lookup method {@code int pName(String pKey)} with the default
+	 * settings, which maps the given keys to their position in the collection,
+	 * or -1, if the key is unknown.
+	 * @param pClass The class, in which the method, and its tables are
+	 *   being created.
+	 * @param pName The name of the lookup method.
+	 * @param pKeys The keys. Duplicates are not permitted.
+	 * @return The created method, a public static method, which may be
+	 *   configured further.
+	 * @see #generate(ClassBase, String, Collection)
+	 */
+	@Nonnull public static Method newLookup(@Nonnull ClassBase<?> pClass, @Nonnull String pName, @Nonnull Collection<String> pKeys) {
+		return new PerfectHashGenerator().generate(pClass, pName, pKeys);
+	}
+
+	/** Creates a lookup method {@code int pName(String pKey)} with the default
+	 * settings, which maps the given keys to their id's, or -1, if the key is unknown.
+	 * @param pClass The class, in which the method, and its tables are
+	 *   being created.
+	 * @param pName The name of the lookup method.
+	 * @param pKeys The keys, and their id's.
+	 * @return The created method, a public static method, which may be
+	 *   configured further.
+	 * @see #generate(ClassBase, String, Map)
+	 */
+	@Nonnull public static Method newLookup(@Nonnull ClassBase<?> pClass, @Nonnull String pName, @Nonnull Map<String,Integer> pKeys) {
+		return new PerfectHashGenerator().generate(pClass, pName, pKeys);
+	}
+
+	/** Creates a lookup method, which maps the given keys to their
+	 * position in the collection.
+	 * @param pClass The class, in which the method, and its tables are
+	 *   being created.
+	 * @param pName The name of the lookup method.
+	 * @param pKeys The keys. Duplicates are not permitted.
+	 * @return The created method, a public static method, which may be
+	 *   configured further.
+	 * @see #generate(ClassBase, String, Map)
+	 */
+	@Nonnull public Method generate(@Nonnull ClassBase<?> pClass, @Nonnull String pName, @Nonnull Collection<String> pKeys) {
+		final Map<String,Integer> ids = new LinkedHashMap<>();
+		for (String key : Objects.requireAllNonNull(pKeys, "Keys")) {
+			if (ids.put(key, Integer.valueOf(ids.size())) != null) {
+				throw new IllegalArgumentException("Duplicate key: " + key);
+			}
+		}
+		return generate(pClass, pName, ids);
+	}
+
+	/** Creates a lookup method, which maps the given keys to their
+	 * id's. The lookup tables are created as private static final
+	 * fields with the name prefix {@code pName + "$"}.
+	 * @param pClass The class, in which the method, and its tables are
+	 *   being created.
+	 * @param pName The name of the lookup method.
+	 * @param pKeys The keys, and their id's.
+	 * @return The created method, a public static method, which may be
+	 *   configured further.
+	 * @throws IllegalStateException No perfect hash function was found.
+	 */
+	@Nonnull public Method generate(@Nonnull ClassBase<?> pClass, @Nonnull String pName, @Nonnull Map<String,Integer> pKeys) {
+		final Table table = compute(pKeys);
+		final String keysName = pName + "$keys";
+		final String idsName = pName + "$ids";
+		final String seedsName = pName + "$seeds";
+		final String hashName = pName + "$hash";
+		final int numKeys = table.getKeys().length;
+		if (numKeys == 0) {
+			final Method method = pClass.newMethod(Protection.PUBLIC, JQName.INT_TYPE, pName).makeStatic();
+			method.parameter(JQName.STRING, "pKey");
+			method.body().tline("return ", String.valueOf(notFound));
+			return method;
+		}
+		pClass.newField(JQName.STRING_ARRAY, keysName, Protection.PRIVATE).makeStatic().makeFinal()
+			.assignStrings(table.getKeys());
+		pClass.newField(JQName.INT_TYPE.arrayOf(), idsName, Protection.PRIVATE).makeStatic().makeFinal()
+			.assign(table.getIds());
+		pClass.newField(JQName.INT_TYPE.arrayOf(), seedsName, Protection.PRIVATE).makeStatic().makeFinal()
+			.assign(table.getSeeds());
+		final Method method = pClass.newMethod(Protection.PUBLIC, JQName.INT_TYPE, pName).makeStatic();
+		method.parameter(JQName.STRING, "pKey");
+		method.body().newIf("pKey == null").tline("return ", String.valueOf(notFound));
+		method.body().tline("final int seed = ", seedsName, "[", hashName, "(pKey, ",
+				String.valueOf(table.getGlobalSeed()), ") % ", String.valueOf(table.getSeeds().length), "]");
+		method.body().tline("final int slot = seed < 0 ? -seed-1 : ", hashName, "(pKey, seed) % ",
+				String.valueOf(numKeys));
+		method.body().tline("return pKey.equals(", keysName, "[slot]) ? ", idsName, "[slot] : ",
+				String.valueOf(notFound));
+		final Method hash = pClass.newMethod(Protection.PRIVATE, JQName.INT_TYPE, hashName).makeStatic();
+		hash.parameter(JQName.STRING, "pKey");
+		hash.parameter(JQName.INT_TYPE, "pSeed");
+		hash.body().tline("int h = pSeed ^ 0x811c9dc5");
+		hash.body().newFor("int i = 0;  i < pKey.length();  i++")
+			.tline("h = (h ^ pKey.charAt(i)) * 0x01000193");
+		hash.body().tline("h ^= h >>> 16");
+		hash.body().tline("h *= 0x85ebca6b");
+		hash.body().tline("h ^= h >>> 13");
+		hash.body().tline("return h & 0x7fffffff");
+		return method;
+	}
+}
@@ -0,0 +1,464 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.ArrayInitializer;
+import com.github.jochenw.jsgen.api.Block;
+import com.github.jochenw.jsgen.api.Block.Line;
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.CodeBlock;
+import com.github.jochenw.jsgen.api.Comment;
+import com.github.jochenw.jsgen.api.Constructor;
+import com.github.jochenw.jsgen.api.DoWhileBlock;
+import com.github.jochenw.jsgen.api.ElseBlock;
+import com.github.jochenw.jsgen.api.EnumConstant;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.ForBlock;
+import com.github.jochenw.jsgen.api.IAnnotatable.Annotation;
+import com.github.jochenw.jsgen.api.IAnnotatable.AnnotationSet;
+import com.github.jochenw.jsgen.api.IField;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.NestedBlock;
+import com.github.jochenw.jsgen.api.RawFragment;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.api.Subroutine;
+import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+import com.github.jochenw.jsgen.api.SwitchBlock;
+import com.github.jochenw.jsgen.api.Throw;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/** Creates primitive variants of a generic template. The template is a
+ * {@link Source}, which uses a type variable (by default "T"), as created
+ * by {@link #typeVariable(String)}, or {@link JQName#genericValueOf(JQName, String...)}.
+ * The specializer copies the template into a new {@link Source}, replacing
+ * the type variable in every field, parameter, return type, exception,
+ * and line token. A type variable, which is used as a type, is replaced by
+ * the primitive type (for example, {@code int}). A type variable, which is used
+ * as a qualifier (for example, {@code List<T>}), is replaced by the matching
+ * wrapper type (for example, {@code List<Integer>}). References to the template
+ * type, and its inner classes, are replaced by the specialized type.
+ *
+ * Restrictions:
+ * <ul>
+ *   <li>Strings, and raw fragments are copied verbatim. The type variable must
+ *     therefore be used as a {@link JQName} token.</li>
+ *   <li>As the template is a generic class, it should typically be created
+ *     by a separate {@link JSGFactory}, which isn't written.</li>
+ *   <li>Lazy static fields are copied as plain fields.</li>
+ * </ul>
+ */
+public class PrimitiveSpecializer {
+	/** The default name of the type variable.
+	 */
+	public static final String DEFAULT_TYPE_VARIABLE = "T";
+
+	private @Nonnull String typeVariable = DEFAULT_TYPE_VARIABLE;
+
+	/** Returns the name of the type variable, which is being replaced.
+	 * @return The name of the type variable. Defaults to {@value #DEFAULT_TYPE_VARIABLE}.
+	 */
+	@Nonnull public String getTypeVariable() {
+		return typeVariable;
+	}
+
+	/** Sets the name of the type variable, which is being replaced.
+	 * @param pTypeVariable The name of the type variable. Defaults to
+	 *   {@value #DEFAULT_TYPE_VARIABLE}.
+	 */
+	public void setTypeVariable(@Nonnull String pTypeVariable) {
+		typeVariable = Objects.requireNonNull(pTypeVariable, "Type variable");
+	}
+
+	/** Returns a type, which represents the type variable with the given name.
+	 * @param pName The type variables name, for example "T".
+	 * @return A pseudo class, which may be used as a type, or as a qualifier.
+	 */
+	@Nonnull public static JQName typeVariable(@Nonnull String pName) {
+		return JQName.genericValueOf(JQName.OBJECT, pName).getQualifiers().get(0);
+	}
+
+	/** Creates primitive variants of the given template. The variants names are
+	 * derived from the templates simple class name by replacing the type variable
+	 * prefix (if any) with the capitalized primitive type. For example, the template
+	 * "com.foo.TList" yields "com.foo.IntList", "com.foo.LongList", and so on.
+	 * @param pFactory The factory, which is used to create the variants.
+	 * @param pTemplate The template.
+	 * @param pPrimitives The primitive types, for which variants are being created.
+	 * @return The created variants, in the order of {@code pPrimitives}.
+	 */
+	@Nonnull public List<Source> specializeAll(@Nonnull JSGFactory pFactory, @Nonnull Source pTemplate,
+			                                @Nonnull JQName... pPrimitives) {
+		final List<Source> sources = new ArrayList<>(pPrimitives.length);
+		final JQName templateType = pTemplate.getType();
+		String simpleName = templateType.getSimpleClassName();
+		if (simpleName.startsWith(typeVariable)  &&  simpleName.length() > typeVariable.length()
+				&&  Character.isUpperCase(simpleName.charAt(typeVariable.length()))) {
+			simpleName = simpleName.substring(typeVariable.length());
+		}
+		for (JQName primitive : pPrimitives) {
+			final String qName = primitive.getQName();
+			final String className = Character.toUpperCase(qName.charAt(0)) + qName.substring(1) + simpleName;
+			final String packageName = templateType.getPackageName();
+			final JQName type = JQName.valueOf(packageName.length() == 0 ? className : packageName + "." + className);
+			sources.add(specialize(pFactory, pTemplate, type, primitive));
+		}
+		return sources;
+	}
+
+	/** Creates a primitive variant of the given template.
+	 * @param pFactory The factory, which is used to create the variant.
+	 * @param pTemplate The template.
+	 * @param pType The variants type.
+	 * @param pPrimitive The primitive type, which replaces the type variable.
+	 * @return The created variant.
+	 * @throws IllegalArgumentException The type {@code pPrimitive} isn't primitive.
+	 * @throws IllegalStateException The template contains an unsupported node.
+	 */
+	@Nonnull public Source specialize(@Nonnull JSGFactory pFactory, @Nonnull Source pTemplate,
+			                          @Nonnull JQName pType, @Nonnull JQName pPrimitive) {
+		final Copier copier = new Copier(pTemplate.getType(), pType, pPrimitive);
+		final Source source = pFactory.newSource(pType, pTemplate.getProtection());
+		if (pTemplate.getPackageComment() != null) {
+			source.packageComment(pTemplate.getPackageComment().getText().toArray(new String[0]));
+		}
+		copier.copyClass(pTemplate, source);
+		copier.copyBodies();
+		return source;
+	}
+
+	private class Copier {
+		private final JQName templateType, type, primitive, wrapper;
+		private final Pattern variablePattern;
+		private final Map<IField<?>,IField<?>> fields = new IdentityHashMap<>();
+		private final List<Runnable> bodies = new ArrayList<>();
+
+		Copier(JQName pTemplateType, JQName pType, JQName pPrimitive) {
+			templateType = pTemplateType;
+			type = pType;
+			primitive = Objects.requireNonNull(pPrimitive, "Primitive");
+			wrapper = getWrapper(pPrimitive);
+			variablePattern = Pattern.compile("\\b" + Pattern.quote(typeVariable) + "\\b");
+		}
+
+		void copyClass(ClassBase<?> pTemplate, ClassBase<?> pClass) {
+			copyAnnotations(pTemplate.getAnnotations(), pClass.getAnnotations());
+			if (pTemplate.getComment() != null) {
+				// Source overrides comment(Iterable) for the package comment.
+				pClass.comment(pTemplate.getComment().getText().toArray(new String[0]));
+			}
+			pClass.makeInterface(pTemplate.isInterface());
+			pClass.makeAbstract(pTemplate.isAbstract());
+			pClass.makeFinal(pTemplate.isFinal());
+			pClass.makeEnum(pTemplate.isEnum());
+			for (EnumConstant constant : pTemplate.getEnumConstants()) {
+				final EnumConstant ec = pClass.newEnumConstant(constant.getName(),
+						mapTokens(constant.getArguments()).toArray());
+				if (constant.getComment() != null) {
+					ec.comment(constant.getComment().getText().toArray(new String[0]));
+				}
+			}
+			for (JQName t : pTemplate.getExtendedClasses()) {
+				pClass.extending(map(t, false));
+			}
+			for (JQName t : pTemplate.getImplementedInterfaces()) {
+				pClass.implementing(map(t, false));
+			}
+			for (Object o : pTemplate.getContent()) {
+				if (o instanceof Field) {
+					copyField((Field) o, pClass);
+				} else if (o instanceof Method) {
+					final Method method = (Method) o;
+					final Method m = pClass.newMethod(method.getProtection(), map(method.getReturnType(), false), method.getName());
+					m.makeStatic(method.isStatic()).makeAbstract(method.isAbstract()).makeFinal(method.isFinal())
+						.makeSynchronized(method.isSynchronized());
+					copySubroutine(method, m);
+				} else if (o instanceof Constructor) {
+					final Constructor constructor = (Constructor) o;
+					copySubroutine(constructor, pClass.newConstructor(constructor.getProtection()));
+				} else if (o instanceof InnerClass) {
+					final InnerClass innerClass = (InnerClass) o;
+					final InnerClass ic = pClass.newInnerClass(innerClass.getType().getSimpleClassName(),
+							                                   innerClass.getProtection());
+					ic.makeStatic(innerClass.isStatic());
+					copyClass(innerClass, ic);
+				} else if (o instanceof StaticInitializer) {
+					final StaticInitializer initializer = (StaticInitializer) o;
+					final StaticInitializer si = pClass.newInitializer();
+					if (initializer.getComment() != null) {
+						si.comment(initializer.getComment().getText());
+					}
+					copyBody(initializer, si);
+				} else {
+					throw new IllegalStateException("Unsupported content in class " + pTemplate.getType()
+					                                + ": " + o.getClass().getName());
+				}
+			}
+		}
+
+		void copyField(Field pTemplate, ClassBase<?> pClass) {
+			final Field field = pClass.newField(map(pTemplate.getType(), false), pTemplate.getName(), pTemplate.getProtection());
+			field.makeStatic(pTemplate.isStatic()).makeFinal(pTemplate.isFinal()).makeVolatile(pTemplate.isVolatile());
+			copyAnnotations(pTemplate.getAnnotations(), field.getAnnotations());
+			if (pTemplate.getComment() != null) {
+				field.comment(pTemplate.getComment().getText());
+			}
+			fields.put(pTemplate, field);
+			final Object value = pTemplate.getValue();
+			if (value != null) {
+				// Deferred, because the value may refer to fields, which haven't been copied yet.
+				bodies.add(() -> {
+					if (value instanceof ArrayInitializer) {
+						field.assign((ArrayInitializer) value);
+					} else {
+						field.assign(mapTokens(value));
+					}
+				});
+			}
+		}
+
+		void copySubroutine(Subroutine<?> pTemplate, Subroutine<?> pSubroutine) {
+			copyAnnotations(pTemplate.getAnnotations(), pSubroutine.getAnnotations());
+			if (pTemplate.getComment() != null) {
+				pSubroutine.comment(pTemplate.getComment().getText());
+			}
+			pSubroutine.terse(pTemplate.isTerse());
+			for (Parameter p : pTemplate.getParameters()) {
+				final Parameter parameter = pSubroutine.parameter(map(p.getType(), false), p.getName());
+				parameter.makeFinal(p.isFinal());
+				copyAnnotations(p.getAnnotations(), parameter.getAnnotations());
+				fields.put(p, parameter);
+			}
+			for (JQName t : pTemplate.getExceptions()) {
+				pSubroutine.exception(map(t, false));
+			}
+			copyBody(pTemplate, pSubroutine);
+		}
+
+		void copyBody(CodeBlock<?> pTemplate, CodeBlock<?> pCodeBlock) {
+			bodies.add(() -> copyBlock(pTemplate.body(), pCodeBlock.body()));
+		}
+
+		void copyBodies() {
+			for (Runnable r : bodies) {
+				r.run();
+			}
+		}
+
+		void copyBlock(Block<?> pTemplate, Block<?> pBlock) {
+			for (Object o : pTemplate.getContents()) {
+				if (o instanceof Line) {
+					final Line line = (Line) o;
+					if (line.isTerminated()) {
+						pBlock.tline(mapTokens(line.getElements()));
+					} else {
+						pBlock.line(mapTokens(line.getElements()));
+					}
+				} else if (o instanceof LocalField) {
+					final LocalField localField = (LocalField) o;
+					final LocalField lf = pBlock.newField(map(localField.getType(), false), localField.getName());
+					lf.makeFinal(localField.isFinal());
+					copyAnnotations(localField.getAnnotations(), lf.getAnnotations());
+					if (localField.getComment() != null) {
+						lf.comment(localField.getComment().getText());
+					}
+					if (localField.getValue() != null) {
+						lf.assign(mapTokens(localField.getValue()).toArray());
+					}
+					fields.put(localField, lf);
+				} else if (o instanceof IfBlock) {
+					IfBlock ifBlock = (IfBlock) o;
+					IfBlock ib = pBlock.newIf(mapTokens(ifBlock.getCondition()));
+					copyBlock(ifBlock, ib);
+					while (ifBlock.getNextIfBlock() != null) {
+						ifBlock = ifBlock.getNextIfBlock();
+						ib = ib.elseIf(mapTokens(ifBlock.getCondition()));
+						copyBlock(ifBlock, ib);
+					}
+					final ElseBlock elseBlock = ifBlock.getElseBlock();
+					if (elseBlock != null) {
+						copyBlock(elseBlock, ib.otherwise());
+					}
+				} else if (o instanceof ForBlock) {
+					final ForBlock forBlock = (ForBlock) o;
+					copyBlock(forBlock, pBlock.newFor(mapTokens(forBlock.getCondition())));
+				} else if (o instanceof DoWhileBlock) {
+					final DoWhileBlock doWhileBlock = (DoWhileBlock) o;
+					copyBlock(doWhileBlock, pBlock.newDoWhile(mapTokens(doWhileBlock.getCondition())));
+				} else if (o instanceof NestedBlock) {
+					copyBlock((NestedBlock) o, pBlock.newBlock());
+				} else if (o instanceof SwitchBlock) {
+					copySwitch((SwitchBlock) o, pBlock.newSwitch(mapTokens(((SwitchBlock) o).getExpression())));
+				} else if (o instanceof RawFragment) {
+					final RawFragment fragment = (RawFragment) o;
+					final List<JQName> imports = new ArrayList<>();
+					for (JQName t : fragment.getImports()) {
+						imports.add(map(t, false));
+					}
+					pBlock.raw(fragment.getText(), imports.toArray(new JQName[imports.size()]));
+				} else if (o instanceof Comment) {
+					pBlock.comment(((Comment) o).getText());
+				} else {
+					throw new IllegalStateException("Unsupported block content: " + o.getClass().getName());
+				}
+			}
+		}
+
+		void copySwitch(SwitchBlock pTemplate, SwitchBlock pSwitch) {
+			for (SwitchBlock.Case c : pTemplate.getCases()) {
+				final SwitchBlock.Case sc;
+				final List<Object> labels = c.getLabels();
+				if (c.isDefault()) {
+					sc = pSwitch.newDefault();
+				} else if (pTemplate.getLabelType() == Integer.class) {
+					final int[] values = new int[labels.size()];
+					for (int i = 0;  i < values.length;  i++) {
+						values[i] = ((Integer) labels.get(i)).intValue();
+					}
+					sc = pSwitch.newCase(values);
+				} else if (pTemplate.getLabelType() == String.class) {
+					sc = pSwitch.newCase(labels.toArray(new String[labels.size()]));
+				} else if (pTemplate.getLabelType() == SwitchBlock.EnumLabel.class) {
+					final String[] names = new String[labels.size()];
+					for (int i = 0;  i < names.length;  i++) {
+						names[i] = ((SwitchBlock.EnumLabel) labels.get(i)).getName();
+					}
+					sc = pSwitch.newCase(pTemplate.getEnumLabelType(), names);
+				} else {
+					sc = pSwitch.newCase(labels.toArray(new Enum<?>[labels.size()]));
+				}
+				copyBlock(c, sc);
+			}
+		}
+
+		List<Object> mapTokens(Object pTokens) {
+			final List<Object> list = new ArrayList<>();
+			if (pTokens instanceof Object[]) {
+				for (Object o : (Object[]) pTokens) {
+					list.add(mapToken(o));
+				}
+			} else if (pTokens instanceof Iterable) {
+				for (Object o : (Iterable<?>) pTokens) {
+					list.add(mapToken(o));
+				}
+			} else {
+				list.add(mapToken(pTokens));
+			}
+			return list;
+		}
+
+		Object mapToken(Object pToken) {
+			if (pToken instanceof Object[]  ||  pToken instanceof Iterable) {
+				return mapTokens(pToken);
+			} else if (pToken instanceof JQName) {
+				return map((JQName) pToken, false);
+			} else if (pToken instanceof IField) {
+				final IField<?> field = fields.get(pToken);
+				return field == null ? pToken : field;
+			} else if (pToken instanceof Throw) {
+				final Throw t = (Throw) pToken;
+				return new Throw(map(t.getType(), false), mapToken(t.getConstructorArgs()));
+			} else {
+				return pToken;
+			}
+		}
+
+		JQName map(JQName pType, boolean pQualifier) {
+			if (!pType.isPrimitive()  &&  pType.getPackageName().length() == 0
+					&&  typeVariable.equals(pType.getQName())) {
+				final JQName t = pQualifier ? wrapper : primitive;
+				return pType.isArray() ? primitive.arrayOf() : t;
+			}
+			if (pType.isPseudoClass()) {
+				final Matcher matcher = variablePattern.matcher(pType.getQName());
+				if (matcher.find()) {
+					final String name = matcher.replaceAll(Matcher.quoteReplacement(wrapper.getSimpleClassName()));
+					return typeVariable(name);
+				}
+				return pType;
+			}
+			final boolean isTemplateType = templateType.getQName().equals(pType.getQName());
+			JQName result = pType;
+			if (isTemplateType) {
+				result = pType.isArray() ? type.arrayOf() : type;
+			} else if (pType.getOuterClass() != null) {
+				final JQName outerClass = map(pType.getOuterClass(), false);
+				if (outerClass != pType.getOuterClass()) {
+					result = JQName.valueOf(outerClass, pType.getSimpleClassName());
+				}
+			}
+			if (pType.hasQualifiers()) {
+				final List<JQName> qualifiers = new ArrayList<>();
+				for (JQName q : pType.getQualifiers()) {
+					if (isTemplateType  &&  typeVariable.equals(q.getQName())) {
+						// The specialized type has no type variable.
+						continue;
+					}
+					qualifiers.add(map(q, true));
+				}
+				result = result.withQualifiers(qualifiers);
+			}
+			return result;
+		}
+
+		void copyAnnotations(AnnotationSet pTemplate, AnnotationSet pAnnotations) {
+			for (Annotation a : pTemplate.getAnnotations()) {
+				final Annotation annotation = new Annotation(map(a.getType(), false));
+				annotation.getAttributes().putAll(a.getAttributes());
+				pAnnotations.add(annotation);
+			}
+		}
+	}
+
+	private static JQName getWrapper(JQName pPrimitive) {
+		if (pPrimitive.isArray()) {
+			throw new IllegalArgumentException("Expected a primitive type, got " + pPrimitive);
+		} else if (JQName.INT_TYPE.equals(pPrimitive)) {
+			return JQName.INT_OBJ;
+		} else if (JQName.LONG_TYPE.equals(pPrimitive)) {
+			return JQName.LONG_OBJ;
+		} else if (JQName.DOUBLE_TYPE.equals(pPrimitive)) {
+			return JQName.DOUBLE_OBJ;
+		} else if (JQName.FLOAT_TYPE.equals(pPrimitive)) {
+			return JQName.FLOAT_OBJ;
+		} else if (JQName.SHORT_TYPE.equals(pPrimitive)) {
+			return JQName.SHORT_OBJ;
+		} else if (JQName.BYTE_TYPE.equals(pPrimitive)) {
+			return JQName.BYTE_OBJ;
+		} else if (JQName.CHAR_TYPE.equals(pPrimitive)) {
+			return JQName.CHAR_OBJ;
+		} else if (JQName.BOOLEAN_TYPE.equals(pPrimitive)) {
+			return JQName.BOOLEAN_OBJ;
+		} else {
+			throw new IllegalArgumentException("Expected a primitive type, got " + pPrimitive);
+		}
+	}
+}
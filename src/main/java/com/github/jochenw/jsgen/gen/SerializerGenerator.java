@@ -0,0 +1,316 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.Block;
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.util.Objects;
+
+
+/** A generator for reflection free binary serialization code. The generator
+ * walks the non-static fields of a class, and adds the methods
+ * {@code void writeTo(DataOutput pOut)}, and {@code void readFrom(DataInput pIn)}
+ * (or {@code writeTo(ByteBuffer pBuffer)}, and {@code readFrom(ByteBuffer pBuffer)},
+ * depending on the {@link Target}) to the class.
+ *
+ * The fields are written in the order of declaration. Values of
+ * primitive fields are written directly. For all other fields, a null
+ * bitmap (one byte for eight fields) precedes the values, and only the
+ * non-null values are written. The following field types are supported:
+ * <ul>
+ *   <li>Primitive types, and their wrapper classes.</li>
+ *   <li>{@link String}: Written as the length, followed by the characters.</li>
+ *   <li>Arrays of primitive types: Written as the length, followed by the elements.</li>
+ *   <li>{@link java.util.List}, {@link java.util.Collection}, {@link java.util.ArrayList},
+ *     {@link java.util.Set}, {@link java.util.HashSet}, and {@link java.util.LinkedHashSet},
+ *     with String, or wrapper elements: Written as the size, followed by the
+ *     elements, which must not be null.</li>
+ *   <li>Any other class is assumed to be another serializable class with a
+ *     public default constructor, and a {@code writeTo}, and {@code readFrom}
+ *     method for the same target.</li>
+ * </ul>
+ */
+public class SerializerGenerator {
+	/** The kind of methods, which are being generated.
+	 */
+	public enum Target {
+		/** The methods are using {@link DataOutput}, and {@link DataInput}.
+		 */
+		DATA_STREAM,
+		/** The methods are using a {@link ByteBuffer}.
+		 */
+		BYTE_BUFFER
+	}
+
+	private static final Map<String,String> WRAPPERS = new HashMap<>();
+	static {
+		WRAPPERS.put("java.lang.Boolean", "boolean");
+		WRAPPERS.put("java.lang.Byte", "byte");
+		WRAPPERS.put("java.lang.Short", "short");
+		WRAPPERS.put("java.lang.Character", "char");
+		WRAPPERS.put("java.lang.Integer", "int");
+		WRAPPERS.put("java.lang.Long", "long");
+		WRAPPERS.put("java.lang.Float", "float");
+		WRAPPERS.put("java.lang.Double", "double");
+	}
+	private static final Map<String,JQName> COLLECTIONS = new HashMap<>();
+	static {
+		final JQName arrayList = JQName.valueOf(ArrayList.class);
+		final JQName linkedHashSet = JQName.valueOf(LinkedHashSet.class);
+		COLLECTIONS.put("java.util.List", arrayList);
+		COLLECTIONS.put("java.util.Collection", arrayList);
+		COLLECTIONS.put("java.util.ArrayList", arrayList);
+		COLLECTIONS.put("java.util.Set", linkedHashSet);
+		COLLECTIONS.put("java.util.HashSet", JQName.valueOf(java.util.HashSet.class));
+		COLLECTIONS.put("java.util.LinkedHashSet", linkedHashSet);
+	}
+	private static final String STRING = "java.lang.String";
+
+	private @Nonnull Target target = Target.DATA_STREAM;
+
+	/** Returns the kind of methods, which are being generated.
+	 * @return The kind of methods, which are being generated.
+	 *   Defaults to {@link Target#DATA_STREAM}.
+	 */
+	@Nonnull public Target getTarget() {
+		return target;
+	}
+
+	/** Sets the kind of methods, which are being generated.
+	 * @param pTarget The kind of methods, which are being generated.
+	 *   Defaults to {@link Target#DATA_STREAM}.
+	 */
+	public void setTarget(@Nonnull Target pTarget) {
+		target = Objects.requireNonNull(pTarget, "Target");
+	}
+
+	/** Adds the methods {@code writeTo}, and {@code readFrom} to the given class.
+	 * @param pClass The class, which is being made serializable.
+	 * @throws IllegalStateException The class has a final instance field,
+	 *   or a field of an unsupported type.
+	 */
+	public void generate(@Nonnull ClassBase<?> pClass) {
+		final List<Field> fields = new ArrayList<>();
+		final List<Field> nullableFields = new ArrayList<>();
+		for (Object o : pClass.getContent()) {
+			if (o instanceof Field) {
+				final Field field = (Field) o;
+				if (field.isStatic()) {
+					continue;
+				}
+				if (field.isFinal()) {
+					throw new IllegalStateException("Unable to deserialize the final field " + field.getName()
+					                                + " of " + pClass.getType());
+				}
+				fields.add(field);
+				if (!field.getType().isPrimitive()  ||  field.getType().isArray()) {
+					nullableFields.add(field);
+				}
+			}
+		}
+		final boolean streams = target == Target.DATA_STREAM;
+		final JQName outType = streams ? JQName.valueOf(DataOutput.class) : JQName.valueOf(ByteBuffer.class);
+		final JQName inType = streams ? JQName.valueOf(DataInput.class) : JQName.valueOf(ByteBuffer.class);
+		final String out = streams ? "pOut" : "pBuffer";
+		final String in = streams ? "pIn" : "pBuffer";
+		final Method writeTo = pClass.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "writeTo");
+		writeTo.parameter(outType, out);
+		final Method readFrom = pClass.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "readFrom");
+		readFrom.parameter(inType, in);
+		if (streams) {
+			writeTo.exception(IOException.class);
+			readFrom.exception(IOException.class);
+		}
+		final Block<?> writeBody = writeTo.body();
+		final Block<?> readBody = readFrom.body();
+		for (int i = 0;  i < nullableFields.size();  i += 8) {
+			final List<Object> tokens = new ArrayList<>();
+			tokens.add("final int nulls" + i/8 + " = ");
+			for (int j = i;  j < Math.min(i+8, nullableFields.size());  j++) {
+				if (j > i) {
+					tokens.add(" | ");
+				}
+				tokens.add("(");
+				tokens.add(nullableFields.get(j));
+				tokens.add(" == null ? " + (1 << (j-i)) + " : 0)");
+			}
+			writeBody.tline(tokens);
+			writeBody.tline(write(out, "byte", "nulls" + i/8));
+			readBody.tline("final int nulls" + i/8 + " = ", streams ? in + ".readUnsignedByte()" : in + ".get() & 0xff");
+		}
+		boolean needsStringReader = false;
+		for (Field field : fields) {
+			final int index = nullableFields.indexOf(field);
+			final Block<?> writeBlock;
+			final Block<?> readBlock;
+			if (index == -1) {
+				writeBlock = writeBody;
+				readBlock = readBody;
+			} else {
+				writeBlock = writeBody.newIf(field, " != null");
+				final IfBlock ifBlock = readBody.newIf("(nulls" + index/8 + " & " + (1 << (index%8)) + ") != 0");
+				ifBlock.tline(field, " = null");
+				readBlock = ifBlock.otherwise();
+			}
+			needsStringReader |= addField(pClass, field, writeBlock, readBlock, out, in);
+		}
+		if (needsStringReader) {
+			final Method readString = pClass.newMethod(Protection.PRIVATE, JQName.STRING, "readFrom$string").makeStatic();
+			readString.parameter(inType, in);
+			if (streams) {
+				readString.exception(IOException.class);
+			}
+			readString.body().tline("final char[] chars = new char[", read(in, "int"), "]");
+			readString.body().newFor("int i = 0;  i < chars.length;  i++").tline("chars[i] = ", read(in, "char"));
+			readString.body().tline("return new String(chars)");
+		}
+	}
+
+	private boolean addField(ClassBase<?> pClass, Field pField, Block<?> pWriteBlock, Block<?> pReadBlock,
+			                 String pOut, String pIn) {
+		final JQName type = pField.getType();
+		final String qName = type.getQName();
+		if (type.isArray()) {
+			if (!type.isPrimitive()) {
+				throw unsupported(pClass, pField);
+			}
+			pWriteBlock.tline(write(pOut, "int", pField, ".length"));
+			pReadBlock.tline(pField, " = new ", qName, "[", read(pIn, "int"), "]");
+			if ("byte".equals(qName)) {
+				if (target == Target.DATA_STREAM) {
+					pWriteBlock.tline(pOut, ".write(", pField, ")");
+					pReadBlock.tline(pIn, ".readFully(", pField, ")");
+				} else {
+					pWriteBlock.tline(pOut, ".put(", pField, ")");
+					pReadBlock.tline(pIn, ".get(", pField, ")");
+				}
+			} else {
+				pWriteBlock.newFor("int i = 0;  i < ", pField, ".length;  i++")
+					.tline(write(pOut, qName, pField, "[i]"));
+				pReadBlock.newFor("int i = 0;  i < ", pField, ".length;  i++")
+					.tline(pField, "[i] = ", read(pIn, qName));
+			}
+			return false;
+		} else if (type.isPrimitive()) {
+			pWriteBlock.tline(write(pOut, qName, pField));
+			pReadBlock.tline(pField, " = ", read(pIn, qName));
+			return false;
+		} else if (WRAPPERS.containsKey(qName)  ||  STRING.equals(qName)) {
+			addValue(qName, pWriteBlock, pOut, pField);
+			pReadBlock.tline(pField, " = ", readValue(qName, pIn));
+			return STRING.equals(qName);
+		} else if (COLLECTIONS.containsKey(qName)) {
+			if (type.getQualifiers().size() != 1) {
+				throw unsupported(pClass, pField);
+			}
+			final JQName elementType = type.getQualifiers().get(0);
+			final String elementName = elementType.getQName();
+			if (!WRAPPERS.containsKey(elementName)  &&  !STRING.equals(elementName)) {
+				throw unsupported(pClass, pField);
+			}
+			final String size = pField.getName() + "Size";
+			pWriteBlock.tline(write(pOut, "int", pField, ".size()"));
+			final Block<?> writeLoop = pWriteBlock.newFor("final ", elementType, " e : ", pField);
+			addValue(elementName, writeLoop, pOut, "e");
+			pReadBlock.tline("final int ", size, " = ", read(pIn, "int"));
+			pReadBlock.tline(pField, " = new ", COLLECTIONS.get(qName), "<>(", size, ")");
+			pReadBlock.newFor("int i = 0;  i < ", size, ";  i++")
+				.tline(pField, ".add(", readValue(elementName, pIn), ")");
+			return STRING.equals(elementName);
+		} else {
+			pWriteBlock.tline(pField, ".writeTo(", pOut, ")");
+			pReadBlock.tline(pField, " = new ", type, "()");
+			pReadBlock.tline(pField, ".readFrom(", pIn, ")");
+			return false;
+		}
+	}
+
+	private void addValue(String pQName, Block<?> pBlock, String pOut, Object pValue) {
+		if (STRING.equals(pQName)) {
+			pBlock.tline(write(pOut, "int", pValue, ".length()"));
+			if (target == Target.DATA_STREAM) {
+				pBlock.tline(pOut, ".writeChars(", pValue, ")");
+			} else {
+				pBlock.newFor("int i = 0;  i < ", pValue, ".length();  i++")
+					.tline(write(pOut, "char", pValue, ".charAt(i)"));
+			}
+		} else {
+			pBlock.tline(write(pOut, WRAPPERS.get(pQName), pValue));
+		}
+	}
+
+	private Object readValue(String pQName, String pIn) {
+		if (STRING.equals(pQName)) {
+			return new Object[] { "readFrom$string(", pIn, ")" };
+		} else {
+			return read(pIn, WRAPPERS.get(pQName));
+		}
+	}
+
+	/** Returns the tokens, which write a primitive value.
+	 */
+	private Object[] write(String pOut, String pPrimitive, Object... pValue) {
+		if (target == Target.DATA_STREAM) {
+			return new Object[] { pOut, ".write", capitalize(pPrimitive), "(", pValue, ")" };
+		} else if ("boolean".equals(pPrimitive)) {
+			return new Object[] { pOut, ".put((byte) (", pValue, " ? 1 : 0))" };
+		} else if ("byte".equals(pPrimitive)) {
+			return new Object[] { pOut, ".put((byte) ", pValue, ")" };
+		} else {
+			return new Object[] { pOut, ".put", capitalize(pPrimitive), "(", pValue, ")" };
+		}
+	}
+
+	/** Returns the tokens, which read a primitive value.
+	 */
+	private Object[] read(String pIn, String pPrimitive) {
+		if (target == Target.DATA_STREAM) {
+			return new Object[] { pIn, ".read", capitalize(pPrimitive), "()" };
+		} else if ("boolean".equals(pPrimitive)) {
+			return new Object[] { pIn, ".get() != 0" };
+		} else if ("byte".equals(pPrimitive)) {
+			return new Object[] { pIn, ".get()" };
+		} else {
+			return new Object[] { pIn, ".get", capitalize(pPrimitive), "()" };
+		}
+	}
+
+	private static String capitalize(String pName) {
+		return Character.toUpperCase(pName.charAt(0)) + pName.substring(1);
+	}
+
+	private static IllegalStateException unsupported(ClassBase<?> pClass, Field pField) {
+		return new IllegalStateException("Unsupported type " + pField.getType() + " of field " + pField.getName()
+		                                 + " in " + pClass.getType());
+	}
+}
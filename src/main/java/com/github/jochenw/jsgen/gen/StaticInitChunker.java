@@ -0,0 +1,346 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.Block;
+import com.github.jochenw.jsgen.api.Block.Line;
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Comment;
+import com.github.jochenw.jsgen.api.DoWhileBlock;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.ForBlock;
+import com.github.jochenw.jsgen.api.IField;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.api.Subroutine;
+import com.github.jochenw.jsgen.api.SwitchBlock;
+
+
+/** Splits the static initialization of a class into independent chunks, each of
+ * which is moved into a holder class of its own (initialization on demand holder
+ * idiom). The JVM runs a holder classes {@code <clinit>} only, when one of its
+ * fields is used for the first time. So, the work of loading the outer class
+ * is reduced, and the unused chunks are never executed at all.
+ *
+ * Candidates are the static final fields of the class, except for primitive,
+ * and string fields, which don't reference other fields, because these are
+ * most likely constants. Candidates are grouped together, if
+ * <ul>
+ *   <li>a statement of a static initializer references them, or the same
+ *     local variable of the initializer,</li>
+ *   <li>the value of one field references the other, or</li>
+ *   <li>a method, or constructor, references both fields, because the fields
+ *     are used together anyways.</li>
+ * </ul>
+ * For every group, a private static holder class is created. The fields are moved
+ * into the holder by invoking {@link Field#lazyStatic(InnerClass, String)}, and
+ * the groups statements are moved into the holders static initializer, in their
+ * original order. The holders fields are initialized before its statements.
+ * Statements, which don't reference any candidate, remain in the outer class.
+ * Note, that {@link com.github.jochenw.jsgen.api.RawFragment raw fragments} aren't
+ * analyzed: They remain in the outer class, and must not reference the
+ * candidates directly.
+ */
+public class StaticInitChunker {
+	/** Default value for {@link #getHolderSuffix()}.
+	 */
+	public static final String DEFAULT_HOLDER_SUFFIX = "Holder";
+	/** Default value for {@link #getGetterPrefix()}.
+	 */
+	public static final String DEFAULT_GETTER_PREFIX = "get";
+
+	private String holderSuffix = DEFAULT_HOLDER_SUFFIX;
+	private String getterPrefix = DEFAULT_GETTER_PREFIX;
+
+	/** Returns the suffix of the holder classes names. The holder class
+	 * is named after the first field in the group, for example
+	 * {@code LookupTableHolder} for a field {@code LOOKUP_TABLE}.
+	 * Defaults to {@value #DEFAULT_HOLDER_SUFFIX}.
+	 * @return The suffix of the holder classes names.
+	 */
+	@Nonnull public String getHolderSuffix() {
+		return holderSuffix;
+	}
+
+	/** Sets the suffix of the holder classes names. The holder class
+	 * is named after the first field in the group, for example
+	 * {@code LookupTableHolder} for a field {@code LOOKUP_TABLE}.
+	 * Defaults to {@value #DEFAULT_HOLDER_SUFFIX}.
+	 * @param pSuffix The suffix of the holder classes names.
+	 */
+	public void setHolderSuffix(@Nonnull String pSuffix) {
+		holderSuffix = pSuffix;
+	}
+
+	/** Returns the prefix of the getters, which replace the moved fields,
+	 * for example {@code getLookupTable()} for a field {@code LOOKUP_TABLE}.
+	 * Defaults to {@value #DEFAULT_GETTER_PREFIX}.
+	 * @return The prefix of the getter names.
+	 */
+	@Nonnull public String getGetterPrefix() {
+		return getterPrefix;
+	}
+
+	/** Sets the prefix of the getters, which replace the moved fields,
+	 * for example {@code getLookupTable()} for a field {@code LOOKUP_TABLE}.
+	 * Defaults to {@value #DEFAULT_GETTER_PREFIX}.
+	 * @param pPrefix The prefix of the getter names.
+	 */
+	public void setGetterPrefix(@Nonnull String pPrefix) {
+		getterPrefix = pPrefix;
+	}
+
+	/** Splits the static initialization of the given class into chunks.
+	 * @param pClass The class, which is being modified.
+	 * @return The number of created holder classes.
+	 */
+	public int chunk(@Nonnull ClassBase<?> pClass) {
+		final List<Object> content = pClass.getContent();
+		final Map<Object,Object> parents = new IdentityHashMap<>();
+		final List<Field> candidates = new ArrayList<>();
+		final List<Object> statements = new ArrayList<>();
+		for (Object o : content) {
+			if (o instanceof Field  &&  isCandidate((Field) o)) {
+				candidates.add((Field) o);
+				parents.put(o, o);
+			} else if (o instanceof StaticInitializer) {
+				for (Object stmt : ((StaticInitializer) o).body().getContents()) {
+					statements.add(stmt);
+					parents.put(stmt, stmt);
+				}
+			}
+		}
+		if (candidates.isEmpty()) {
+			return 0;
+		}
+		for (Field f : candidates) {
+			if (f.getValue() != null) {
+				for (IField<?> ref : findFields(f.getValue())) {
+					union(parents, f, ref);
+				}
+			}
+		}
+		for (Object o : content) {
+			if (o instanceof Subroutine) {
+				Object first = null;
+				for (IField<?> ref : findFields(((Subroutine<?>) o).body())) {
+					if (ref instanceof Field  &&  parents.containsKey(ref)) {
+						if (first == null) {
+							first = ref;
+						} else {
+							union(parents, first, ref);
+						}
+					}
+				}
+			}
+		}
+		for (int i = 0;  i < statements.size();  i++) {
+			final Object stmt = statements.get(i);
+			if (stmt instanceof Comment) {
+				// A comment belongs to the following statement.
+				if (i+1 < statements.size()) {
+					union(parents, stmt, statements.get(i+1));
+				}
+			} else {
+				for (IField<?> ref : findFields(stmt)) {
+					union(parents, stmt, ref);
+				}
+			}
+		}
+
+		// Collect the groups, in the order of their first field.
+		final Map<Object,List<Field>> groupFields = new LinkedHashMap<>();
+		for (Field f : candidates) {
+			groupFields.computeIfAbsent(find(parents, f), (k) -> new ArrayList<>()).add(f);
+		}
+		final Map<Object,List<Object>> groupStatements = new IdentityHashMap<>();
+		for (Object stmt : statements) {
+			final Object root = find(parents, stmt);
+			if (groupFields.containsKey(root)) {
+				groupStatements.computeIfAbsent(root, (k) -> new ArrayList<>()).add(stmt);
+			}
+		}
+		for (Map.Entry<Object,List<Field>> en : groupFields.entrySet()) {
+			final List<Field> fields = en.getValue();
+			final Field first = fields.get(0);
+			final InnerClass holder = pClass.newInnerClass(getHolderName(pClass, first),
+			                                               Protection.PRIVATE).makeStatic().makeFinal();
+			content.remove(content.size()-1);
+			content.add(content.indexOf(first), holder);
+			for (Field f : fields) {
+				f.lazyStatic(holder, getterPrefix + asCamelCase(f.getName()));
+			}
+			final List<Object> stmts = groupStatements.get(en.getKey());
+			if (stmts != null) {
+				for (Iterator<Object> iter = content.iterator();  iter.hasNext();  ) {
+					final Object o = iter.next();
+					if (o instanceof StaticInitializer) {
+						final StaticInitializer init = (StaticInitializer) o;
+						init.body().getContents().removeAll(stmts);
+						if (init.body().getContents().isEmpty()  &&  init.getComment() == null) {
+							iter.remove();
+						}
+					}
+				}
+				holder.newInitializer().body().getContents().addAll(stmts);
+			}
+		}
+		return groupFields.size();
+	}
+
+	/** Returns, whether the given field may be moved into a holder class.
+	 * @param pField The field, which is being tested.
+	 * @return True, if the given field is a candidate for being moved.
+	 */
+	protected boolean isCandidate(@Nonnull Field pField) {
+		if (!pField.isStatic()  ||  !pField.isFinal()  ||  pField.isLazyStatic()) {
+			return false;
+		}
+		final JQName type = pField.getType();
+		if (!type.isArray()  &&  (type.isPrimitive()  ||  JQName.STRING.equals(type))) {
+			return pField.getValue() != null  &&  !findFields(pField.getValue()).isEmpty();
+		}
+		return true;
+	}
+
+	@Nonnull protected String getHolderName(@Nonnull ClassBase<?> pClass, @Nonnull Field pField) {
+		final String name = asCamelCase(pField.getName()) + holderSuffix;
+		String holderName = name;
+		for (int i = 1;  isUsed(pClass, holderName);  i++) {
+			holderName = name + i;
+		}
+		return holderName;
+	}
+
+	private boolean isUsed(ClassBase<?> pClass, String pName) {
+		for (Object o : pClass.getContent()) {
+			if (o instanceof InnerClass  &&  ((InnerClass) o).getType().getSimpleClassName().equals(pName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String asCamelCase(String pName) {
+		final StringBuilder sb = new StringBuilder(pName.length());
+		final boolean upperCase = pName.equals(pName.toUpperCase(Locale.ROOT));
+		boolean startOfWord = true;
+		for (int i = 0;  i < pName.length();  i++) {
+			final char c = pName.charAt(i);
+			if (c == '_') {
+				startOfWord = true;
+			} else if (startOfWord) {
+				sb.append(Character.toUpperCase(c));
+				startOfWord = false;
+			} else {
+				sb.append(upperCase ? Character.toLowerCase(c) : c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static Object find(Map<Object,Object> pParents, Object pNode) {
+		Object node = pNode;
+		for (;;) {
+			final Object parent = pParents.get(node);
+			if (parent == node) {
+				return node;
+			}
+			node = parent;
+		}
+	}
+
+	private static void union(Map<Object,Object> pParents, Object pNode1, Object pNode2) {
+		if (pParents.containsKey(pNode1)  &&  pParents.containsKey(pNode2)) {
+			final Object root1 = find(pParents, pNode1);
+			final Object root2 = find(pParents, pNode2);
+			if (root1 != root2) {
+				pParents.put(root2, root1);
+			}
+		}
+	}
+
+	/** Returns the fields (both class fields, and local fields), which are
+	 * referenced by the given tokens, or code.
+	 * @param pObject The tokens, or code, which are being scanned.
+	 * @return The referenced fields. Local fields, which are declared
+	 *   by the code, are included.
+	 */
+	@Nonnull protected List<IField<?>> findFields(@Nonnull Object pObject) {
+		final List<IField<?>> list = new ArrayList<>();
+		findFields(pObject, list);
+		return list;
+	}
+
+	private void findFields(Object pObject, List<IField<?>> pList) {
+		if (pObject instanceof Object[]) {
+			for (Object o : (Object[]) pObject) {
+				findFields(o, pList);
+			}
+		} else if (pObject instanceof Iterable) {
+			for (Object o : (Iterable<?>) pObject) {
+				findFields(o, pList);
+			}
+		} else if (pObject instanceof LocalField) {
+			final LocalField localField = (LocalField) pObject;
+			pList.add(localField);
+			if (localField.getValue() != null) {
+				findFields(localField.getValue(), pList);
+			}
+		} else if (pObject instanceof IField) {
+			pList.add((IField<?>) pObject);
+		} else if (pObject instanceof Line) {
+			findFields(((Line) pObject).getElements(), pList);
+		} else if (pObject instanceof IfBlock) {
+			IfBlock ifBlock = (IfBlock) pObject;
+			while (ifBlock != null) {
+				findFields(ifBlock.getCondition(), pList);
+				findFields(ifBlock.getContents(), pList);
+				if (ifBlock.getElseBlock() != null) {
+					findFields(ifBlock.getElseBlock().getContents(), pList);
+				}
+				ifBlock = ifBlock.getNextIfBlock();
+			}
+		} else if (pObject instanceof ForBlock) {
+			findFields(((ForBlock) pObject).getCondition(), pList);
+			findFields(((ForBlock) pObject).getContents(), pList);
+		} else if (pObject instanceof DoWhileBlock) {
+			findFields(((DoWhileBlock) pObject).getCondition(), pList);
+			findFields(((DoWhileBlock) pObject).getContents(), pList);
+		} else if (pObject instanceof SwitchBlock) {
+			findFields(((SwitchBlock) pObject).getExpression(), pList);
+			for (SwitchBlock.Case c : ((SwitchBlock) pObject).getCases()) {
+				findFields(c.getContents(), pList);
+			}
+		} else if (pObject instanceof Block) {
+			findFields(((Block<?>) pObject).getContents(), pList);
+		}
+	}
+}
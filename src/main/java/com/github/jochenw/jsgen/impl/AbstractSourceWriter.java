@@ -15,6 +15,7 @@
  */
 package com.github.jochenw.jsgen.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
@@ -57,6 +58,7 @@ public abstract class AbstractSourceWriter implements ISourceWriter {
 	private IImportSorter importSorter = DEFAULT_IMPORT_SORTER;
 	private @Nonnull SourceSerializer formatter = DEFAULT_FORMATTER;
 	private Supplier<List<JQName>> scopeProvider;
+	private RenderCache renderCache;
 
 	/** Returns the scope provider: It supplies a list of names, which are in the current scope.
 	 * For example, if we would be currently generating the inner class {@link java.util.Map.Entry},
@@ -78,9 +80,42 @@ public abstract class AbstractSourceWriter implements ISourceWriter {
 		scopeProvider = pScopeProvider;
 	}
 
+	/** Returns the render cache, if any. By default, there is no render cache,
+	 * so that every source is rendered.
+	 * @return The render cache, if any, or null.
+	 */
+	public RenderCache getRenderCache() {
+		return renderCache;
+	}
+
+	/** Sets the render cache. If a render cache is present, then
+	 * {@link #write(Source)} will skip rendering of sources, which have been
+	 * rendered before with the same formatter, and import sorter.
+	 * @param pRenderCache The render cache, if any, or null.
+	 */
+	public void setRenderCache(RenderCache pRenderCache) {
+		renderCache = pRenderCache;
+	}
+
 	@Override
 	public void write(Source pSource) throws IOException {
-		write(asNamedResource(pSource));
+		final RenderCache cache = renderCache;
+		if (cache == null) {
+			write(asNamedResource(pSource));
+		} else {
+			final String key = cache.getKey(pSource, formatter, importSorter);
+			final byte[] cachedBytes = cache.get(key);
+			if (cachedBytes == null) {
+				final NamedResource resource = asNamedResource(pSource);
+				final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				resource.writeTo(baos);
+				final byte[] bytes = baos.toByteArray();
+				cache.put(key, bytes);
+				write(asNamedResource(pSource.getType(), bytes));
+			} else {
+				write(asNamedResource(pSource.getType(), cachedBytes));
+			}
+		}
 	}
 
 	@Override
@@ -131,7 +166,16 @@ public abstract class AbstractSourceWriter implements ISourceWriter {
 			scopeProvider = () -> djsf.getScope();
 		}
 		formatter.write(pSource, trgt);
-		final String fileName = pSource.getType().getPackageName().replace('.', '/') + '/' + pSource.getType().getClassName() + ".java";
+		return asNamedResource(pSource.getType(), sw.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/** Creates a resource for the given class, with the given (already rendered) contents.
+	 * @param pType The class name, which determines the resource name.
+	 * @param pContents The resource contents.
+	 * @return The created resource.
+	 */
+	protected NamedResource asNamedResource(JQName pType, byte[] pContents) {
+		final String fileName = pType.getPackageName().replace('.', '/') + '/' + pType.getClassName() + ".java";
 		final ILocation location = new ILocation() {
 			@Override
 			public String getQName() {
@@ -141,7 +185,7 @@ public abstract class AbstractSourceWriter implements ISourceWriter {
 		final NamedResource namedResource = new NamedResource() {
 			@Override
 			public void writeTo(OutputStream pOut) throws IOException {
-				pOut.write(sw.toString().getBytes(StandardCharsets.UTF_8));
+				pOut.write(pContents);
 			}
 
 			@Override
@@ -166,7 +210,9 @@ public abstract class AbstractSourceWriter implements ISourceWriter {
 			}
 			name = outerName;
 		}
-		if (pImportedNames.contains(pName)  ||  pSourceName.equals(pName)) {
+		// The raw type of a generic source class is the source class, too.
+		if (pImportedNames.contains(pName)  ||  pSourceName.equals(pName)
+				||  (!pName.hasQualifiers()  &&  pSourceName.getQName().equals(pName.getQName()))) {
 			return pName.getSimpleClassName();
 		} else {
 			return pName.getQName();
@@ -18,29 +18,38 @@ package com.github.jochenw.jsgen.impl;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import com.github.jochenw.jsgen.api.ICommentOwner;
 import com.github.jochenw.jsgen.api.IField;
 import com.github.jochenw.jsgen.api.IProtectable;
 import com.github.jochenw.jsgen.api.IStaticable;
 import com.github.jochenw.jsgen.api.IVolatilable;
+import com.github.jochenw.jsgen.api.ArrayInitializer;
 import com.github.jochenw.jsgen.api.ClassBase;
 import com.github.jochenw.jsgen.api.Comment;
 import com.github.jochenw.jsgen.api.Constructor;
 import com.github.jochenw.jsgen.api.DoWhileBlock;
 import com.github.jochenw.jsgen.api.ElseBlock;
+import com.github.jochenw.jsgen.api.EnumConstant;
 import com.github.jochenw.jsgen.api.Field;
 import com.github.jochenw.jsgen.api.ForBlock;
 import com.github.jochenw.jsgen.api.IfBlock;
 import com.github.jochenw.jsgen.api.IImportSorter;
+import com.github.jochenw.jsgen.api.INode;
+import com.github.jochenw.jsgen.api.INodeVisitor;
 import com.github.jochenw.jsgen.api.InnerClass;
 import com.github.jochenw.jsgen.api.Method;
 import com.github.jochenw.jsgen.api.NestedBlock;
+import com.github.jochenw.jsgen.api.RawFragment;
 import com.github.jochenw.jsgen.api.JQName;
 import com.github.jochenw.jsgen.api.Source;
 import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.api.SwitchBlock;
 import com.github.jochenw.jsgen.api.Subroutine;
 import com.github.jochenw.jsgen.api.Throw;
 import com.github.jochenw.jsgen.api.WhileBlock;
@@ -49,6 +58,7 @@ import com.github.jochenw.jsgen.api.Block.Line;
 import com.github.jochenw.jsgen.api.IAnnotatable.Annotation;
 import com.github.jochenw.jsgen.api.IAnnotatable.AnnotationSet;
 import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+import com.github.jochenw.jsgen.util.AbstractBuilder;
 import com.github.jochenw.jsgen.util.Objects;
 
 
@@ -64,6 +74,7 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		private final Format format;
 		private int numIndents;
 		private boolean isAfterNewLine;
+		private final List<Fragment> recordings = new ArrayList<>();
 
 		/** Creates a new instance with the given target object, and
 		 * format.
@@ -94,16 +105,14 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 
 		/** Called to indent a single line. Basically, this uses the
 		 * number of indented block levels, and the formatters
-		 * {@link Format#getIndentString}, and writes the latter repeatedly
-		 * to the target object, once for every indented block level.
+		 * {@link Format#getIndentString(int)}, which provides the
+		 * complete (cached) indentation string for that level. The
+		 * indentation is written to the target object in a single step.
 		 */
 		public void indent() {
-			final String indentString = format.getIndentString();
-			if (indentString != null) {
-				for (int i = 0;  i < numIndents;  i++) {
-					write(indentString);
-					isAfterNewLine = false;
-				}
+			final String indentString = format.getIndentString(numIndents);
+			if (!indentString.isEmpty()) {
+				write(indentString);
 			}
 		}
 
@@ -112,9 +121,23 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		@Override
 		public void write(Object pObject) {
 			target.write(pObject);
+			for (int i = 0;  i < recordings.size();  i++) {
+				recordings.get(i).add(pObject);
+			}
 			isAfterNewLine = false;
 		}
 
+		/** Called to declare, that the given type is being used, and
+		 * should be imported.
+		 */
+		@Override
+		public void declareImport(JQName pName) {
+			target.declareImport(pName);
+			for (int i = 0;  i < recordings.size();  i++) {
+				recordings.get(i).add(new ImportDeclaration(pName));
+			}
+		}
+
 		/** Called to terminate a single line by writing the
 		 * line terminator to the target.
 		 */
@@ -134,10 +157,65 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		}
 	}
 
+	/** A recorded import declaration, see {@link Data#declareImport(JQName)}.
+	 */
+	private static class ImportDeclaration {
+		private final JQName name;
+
+		ImportDeclaration(JQName pName) {
+			name = pName;
+		}
+	}
+
+	/** A recorded fragment: The sequence of objects, which have been
+	 * written to the target while rendering an immutable node. Consecutive
+	 * strings are merged, while other objects (in particular, instances of
+	 * {@link JQName}) are kept as they are. Replaying a fragment is thus
+	 * equivalent to rendering the node again.
+	 */
+	protected static class Fragment {
+		private final List<Object> objects = new ArrayList<>();
+		private final StringBuilder sb = new StringBuilder();
+		private boolean isAfterNewLine;
+
+		void add(Object pObject) {
+			if (pObject instanceof String) {
+				sb.append((String) pObject);
+			} else {
+				flush();
+				objects.add(pObject);
+			}
+		}
+
+		void flush() {
+			if (sb.length() > 0) {
+				objects.add(sb.toString());
+				sb.setLength(0);
+			}
+		}
+
+		void replay(Data pTarget) {
+			for (int i = 0;  i < objects.size();  i++) {
+				final Object o = objects.get(i);
+				if (o instanceof ImportDeclaration) {
+					pTarget.declareImport(((ImportDeclaration) o).name);
+				} else {
+					pTarget.write(o);
+				}
+			}
+			pTarget.isAfterNewLine = isAfterNewLine;
+		}
+	}
+
 	private final Format format;
 	private List<JQName> importedNames;
 	private final List<JQName> scope = new ArrayList<JQName>();
 	private IImportSorter importSorter;
+	private boolean memoizing;
+	private int maxFragments = 1024;
+	private Map<String,Fragment> fragments;
+	private final Map<Object,String> structuralHashes = new WeakHashMap<>();
+	private final Set<Object> scopeDependentNodes = Collections.newSetFromMap(new WeakHashMap<>());
 
 	/** Creates a new instance with the given format.
 	 * @param pFormat The source code layout being applied.
@@ -167,6 +245,18 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		importedNames = pImportedNames;
 	}
 
+	/** Returns the source code layout being applied.
+	 * @return The source code layout.
+	 */
+	public Format getFormat() {
+		return format;
+	}
+
+	@Override
+	public String getIdentity() {
+		return getClass().getName() + "|" + format.getIdentity();
+	}
+
 	/** Returns the current scope (a list of classes, which are
 	 * currently being generated).
 	 * @return The current scope.
@@ -189,6 +279,115 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		importSorter = pImportSorter;
 	}
 
+	/** Returns, whether rendered fragments are being memoized.
+	 * @return True, if rendered fragments are being memoized.
+	 *   Otherwise false (default).
+	 * @see #setMemoizing(boolean)
+	 */
+	public boolean isMemoizing() {
+		return memoizing;
+	}
+
+	/** Sets, whether rendered fragments are being memoized. If so,
+	 * the output of immutable nodes (nodes, for which
+	 * {@link com.github.jochenw.jsgen.util.AbstractBuilder#build()}
+	 * has been invoked) is recorded, and reused for any structurally
+	 * identical node at the same indentation depth, instead of traversing
+	 * the node again. This is typically useful, if many sources share the
+	 * same comments, or members. Note, that the recorded fragments keep
+	 * class names as {@link JQName} instances, so that the decision, whether
+	 * to use a simple, or a fully qualified name, is still made by the
+	 * serialization target. Consequently, a fragment may be reused by
+	 * sources with different imports. Memoization assumes, that an immutable
+	 * nodes children (for example, the body of an immutable method) are no
+	 * longer modified.
+	 * @param pMemoizing True, if rendered fragments should be memoized.
+	 *   Otherwise false (default).
+	 */
+	public void setMemoizing(boolean pMemoizing) {
+		memoizing = pMemoizing;
+		fragments = null;
+	}
+
+	/** Returns the maximum number of memoized fragments. If this
+	 * number is exceeded, then the least recently used fragments
+	 * are discarded.
+	 * @return The maximum number of memoized fragments. Defaults to 1024.
+	 */
+	public int getMaxFragments() {
+		return maxFragments;
+	}
+
+	/** Sets the maximum number of memoized fragments. If this
+	 * number is exceeded, then the least recently used fragments
+	 * are discarded.
+	 * @param pMaxFragments The maximum number of memoized fragments. Defaults to 1024.
+	 */
+	public void setMaxFragments(int pMaxFragments) {
+		if (pMaxFragments <= 0) {
+			throw new IllegalArgumentException("Invalid number of fragments: " + pMaxFragments);
+		}
+		maxFragments = pMaxFragments;
+		fragments = null;
+	}
+
+	/** Writes the given node by invoking the given writer. If memoization
+	 * is enabled, and the node is immutable, then the output is recorded,
+	 * and reused, when a structurally identical node is written again at
+	 * the same indentation depth.
+	 * @param pNode The node, which is being written.
+	 * @param pTarget The target object.
+	 * @param pWriter The writer, which actually renders the node.
+	 * @see #setMemoizing(boolean)
+	 */
+	protected void writeMemoized(Object pNode, Data pTarget, Runnable pWriter) {
+		if (!memoizing  ||  !(pNode instanceof AbstractBuilder)  ||  ((AbstractBuilder<?>) pNode).isMutable()) {
+			pWriter.run();
+			return;
+		}
+		String hash = structuralHashes.get(pNode);
+		if (hash == null) {
+			final StructuralHash structuralHash = new StructuralHash().add(pNode);
+			hash = structuralHash.getValue();
+			structuralHashes.put(pNode, hash);
+			if (structuralHash.isScopeDependent()) {
+				scopeDependentNodes.add(pNode);
+			}
+		}
+		String key = hash + ":" + pTarget.numIndents;
+		if (scopeDependentNodes.contains(pNode)  &&  !scope.isEmpty()) {
+			// References to lazy static fields depend on the enclosing class, see isInHolder().
+			key += ":" + scope.get(scope.size()-1).getQName();
+		}
+		if (fragments == null) {
+			fragments = new LinkedHashMap<String,Fragment>(64, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Fragment> pEldest) {
+					return size() > maxFragments;
+				}
+			};
+		}
+		final Fragment cachedFragment = fragments.get(key);
+		if (cachedFragment == null) {
+			final Fragment fragment = new Fragment();
+			final int numIndents = pTarget.numIndents;
+			pTarget.recordings.add(fragment);
+			try {
+				pWriter.run();
+			} finally {
+				pTarget.recordings.remove(pTarget.recordings.size()-1);
+			}
+			fragment.flush();
+			fragment.isAfterNewLine = pTarget.isAfterNewLine;
+			if (numIndents == pTarget.numIndents) {
+				fragments.put(key, fragment);
+			}
+		} else {
+			cachedFragment.replay(pTarget);
+		}
+	}
+
 	/** Returns the sorted list of imports: A list of lists, one outer
 	 * list for every category, and the inner list sorted by a comparator.
 	 * The {@link IImportSorter import sorter} is used to build the
@@ -239,7 +438,8 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		scope.add(pSource.getType());
 		final Data data = new Data(pTarget, format);
 		final JQName type = pSource.getType();
-		write(pSource.getPackageComment(), data);
+		final Comment packageComment = pSource.getPackageComment();
+		writeMemoized(packageComment, data, () -> write(packageComment, data));
 		final String packageName = type.getPackageName();
 		if (packageName != null) {
 			writeObject("package ", data);
@@ -271,15 +471,24 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 	 */
 	protected void writeClass(ClassBase<?> pClass, Data pTarget) {
 		writeObject(format.getClassCommentPrefix(), pTarget);
-		write(pClass.getComment(), pTarget);
+		final Comment comment = pClass.getComment();
+		writeMemoized(comment, pTarget, () -> write(comment, pTarget));
 		writeObject(format.getClassCommentSuffix(), pTarget);
 		write(pClass.getAnnotations(), pTarget, false);
 		write(pClass.getProtection(), pTarget);
 		if (pClass instanceof InnerClass  &&  ((InnerClass) pClass).isStatic()) {
 			writeObject("static ", pTarget);
 		}
+		if (pClass.isAbstract()  &&  !pClass.isInterface()  &&  !pClass.isEnum()) {
+			writeObject("abstract ", pTarget);
+		}
+		if (pClass.isFinal()  &&  !pClass.isInterface()  &&  !pClass.isEnum()) {
+			writeObject("final ", pTarget);
+		}
 		if (pClass.isInterface()) {
 			writeObject("interface ", pTarget);
+		} else if (pClass.isEnum()) {
+			writeObject("enum ", pTarget);
 		} else {
 			writeObject("class ", pTarget);
 		}
@@ -299,7 +508,7 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		if (!implementedInterfaces.isEmpty()) {
 			for (int i = 0;  i < implementedInterfaces.size();  i++) {
 				if (i == 0) {
-					writeObject(" implements", pTarget);
+					writeObject(" implements ", pTarget);
 				} else {
 					writeObject(", ", pTarget);
 				}
@@ -307,10 +516,47 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 			}
 		}
 		writeObject(format.getClassBlockHeader(), pTarget);
+		if (pClass.isEnum()) {
+			writeEnumConstants(pClass.getEnumConstants(), pTarget);
+		}
 		writeList(pClass.getContent(), pTarget, false);
 		writeObject(format.getClassBlockFooter(), pTarget);
 	}
 
+	/** Called to write the constants of an enum, including the terminating
+	 * semicolon, which is required, even if there are no constants.
+	 */
+	protected void writeEnumConstants(List<EnumConstant> pConstants, Data pTarget) {
+		if (pConstants.isEmpty()) {
+			writeObject(format.getFieldPrefix(), pTarget);
+			writeObject(format.getFieldSuffix(), pTarget);
+			return;
+		}
+		for (int i = 0;  i < pConstants.size();  i++) {
+			final EnumConstant constant = pConstants.get(i);
+			write(constant.getComment(), pTarget);
+			writeObject(format.getFieldPrefix(), pTarget);
+			writeObject(constant.getName(), pTarget);
+			final List<Object> args = constant.getArguments();
+			if (!args.isEmpty()) {
+				writeObject("(", pTarget);
+				for (int j = 0;  j < args.size();  j++) {
+					if (j > 0) {
+						writeObject(", ", pTarget);
+					}
+					writeObject(args.get(j), pTarget);
+				}
+				writeObject(")", pTarget);
+			}
+			if (i == pConstants.size()-1) {
+				writeObject(format.getFieldSuffix(), pTarget);
+			} else {
+				writeObject(",", pTarget);
+				writeObject(Format.NEWLINE, pTarget);
+			}
+		}
+	}
+
 	/** Called to write the given field objects declaration to the given
 	 * target.
 	 */
@@ -559,56 +805,209 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		writeObject(format.getDoWhileTerminator(), pTarget);
 	}
 
+	protected void writeSwitchBlock(SwitchBlock pSwitchBlock, Data pTarget) {
+		writeObject(format.getSwitchExpressionPrefix(), pTarget);
+		writeObject(pSwitchBlock.getExpression(), pTarget);
+		writeObject(format.getSwitchExpressionSuffix(), pTarget);
+		for (SwitchBlock.Case c : pSwitchBlock.getCases()) {
+			if (c.isDefault()) {
+				writeObject(format.getSwitchDefaultLabel(), pTarget);
+			} else {
+				for (Object label : c.getLabels()) {
+					writeObject(format.getSwitchCaseLabelPrefix(), pTarget);
+					writeObject(asCaseLabel(label), pTarget);
+					writeObject(format.getSwitchCaseLabelSuffix(), pTarget);
+				}
+			}
+			writeObject(format.getSwitchCaseBodyHeader(), pTarget);
+			writeList(c.getContents(), pTarget, false);
+			writeObject(format.getSwitchCaseBodyFooter(), pTarget);
+		}
+		writeObject(format.getSwitchBlockTerminator(), pTarget);
+	}
+
+	/** Converts the given case label into a string.
+	 * @param pLabel The case label: An {@link Integer}, a {@link String},
+	 *   an {@link Enum}, or an {@link SwitchBlock.EnumLabel}.
+	 * @return The string representation of the case label.
+	 */
+	protected String asCaseLabel(Object pLabel) {
+		if (pLabel instanceof String) {
+			return Quoter.valueOf((String) pLabel);
+		} else if (pLabel instanceof Enum) {
+			return ((Enum<?>) pLabel).name();
+		} else {
+			return pLabel.toString();
+		}
+	}
+
+	/** Visitor, which writes the nodes of a classes, or a blocks content
+	 * to the target by invoking the matching {@code write} method.
+	 */
+	protected class NodeWriter implements INodeVisitor {
+		private final Data target;
+		private final boolean terse;
+
+		/** Creates a new instance, which writes to the given target.
+		 * @param pTarget The target object.
+		 * @param pTerse Whether lines should be written in terse mode.
+		 */
+		public NodeWriter(Data pTarget, boolean pTerse) {
+			target = pTarget;
+			terse = pTerse;
+		}
+
+		@Override
+		public void visitField(Field pField) {
+			writeMemoized(pField, target, () -> writeFieldDeclaration(pField, target));
+		}
+
+		@Override
+		public void visitLocalField(LocalField pField) {
+			writeFieldDeclaration(pField, target);
+		}
+
+		@Override
+		public void visitMethod(Method pMethod) {
+			writeMemoized(pMethod, target, () -> writeMethod(pMethod, target));
+		}
+
+		@Override
+		public void visitConstructor(Constructor pConstructor) {
+			writeMemoized(pConstructor, target, () -> writeMethod(pConstructor, target));
+		}
+
+		@Override
+		public void visitInnerClass(InnerClass pClass) {
+			scope.add(pClass.getType());
+			writeMemoized(pClass, target, () -> writeClass(pClass, target));
+			scope.remove(scope.size()-1);
+		}
+
+		@Override
+		public void visitStaticInitializer(StaticInitializer pInitializer) {
+			writeMemoized(pInitializer, target, () -> writeInitializer(pInitializer, target));
+		}
+
+		@Override
+		public void visitIfBlock(IfBlock pBlock) {
+			writeIfBlock(pBlock, target);
+		}
+
+		@Override
+		public void visitForBlock(ForBlock pBlock) {
+			writeForBlock(pBlock, target);
+		}
+
+		@Override
+		public void visitWhileBlock(WhileBlock pBlock) {
+			writeWhileBlock(pBlock, target);
+		}
+
+		@Override
+		public void visitDoWhileBlock(DoWhileBlock pBlock) {
+			writeDoWhileBlock(pBlock, target);
+		}
+
+		@Override
+		public void visitLine(Line pLine) {
+			writeLine(pLine, target, terse);
+		}
+
+		@Override
+		public void visitComment(Comment pComment) {
+			writeMemoized(pComment, target, () -> write(pComment, target));
+		}
+
+		@Override
+		public void visitNestedBlock(NestedBlock pBlock) {
+			writeNestedBlock(pBlock, target);
+		}
+
+		@Override
+		public void visitRawFragment(RawFragment pFragment) {
+			writeRawFragment(pFragment, target);
+		}
+
+		@Override
+		public void visitSwitchBlock(SwitchBlock pBlock) {
+			writeSwitchBlock(pBlock, target);
+		}
+	}
+
+	/** Creates the visitor, which is used by {@link #writeList(List, Data, boolean)}.
+	 * Subclasses may override this in order to customize the handling of
+	 * particular node kinds.
+	 * @param pTarget The target object.
+	 * @param pTerse Whether lines should be written in terse mode.
+	 * @return The visitor, which writes the nodes to the target.
+	 */
+	protected INodeVisitor newNodeWriter(Data pTarget, boolean pTerse) {
+		return new NodeWriter(pTarget, pTerse);
+	}
+
 	protected void writeList(List<Object> pList, Data pTarget, boolean pTerse) {
-		boolean previousObjectWasField = false;
-		boolean first = true;
+		final INodeVisitor visitor = newNodeWriter(pTarget, pTerse);
 		for (Object o : pList) {
 			if (o == null) {
 				throw new NullPointerException("A list element must not be null.");
 			}
-			if (o instanceof Field) {
-				if (!first  &&  !previousObjectWasField) {
-					pTarget.newLine();
-				}
-				writeFieldDeclaration((Field) o, pTarget);
-				previousObjectWasField = true;
-			} else if (o instanceof LocalField) {
-				if (!first  &&  !previousObjectWasField) {
-					pTarget.newLine();
-				}
-				writeFieldDeclaration((LocalField) o, pTarget);
-				previousObjectWasField = true;
-			} else if (o instanceof Method) {
-				writeMethod((Method) o, pTarget);
-			} else if (o instanceof Constructor) {
-				writeMethod((Constructor) o, pTarget);
-			} else if (o instanceof InnerClass) {
-				final ClassBase<?> clazz = (ClassBase<?>) o;
-				scope.add(clazz.getType());
-				writeClass(clazz, pTarget);
-				scope.remove(scope.size()-1);
-			} else if (o instanceof StaticInitializer) {
-				writeInitializer((StaticInitializer) o, pTarget);
-			} else if (o instanceof IfBlock) {
-				writeIfBlock((IfBlock) o, pTarget);
-			} else if (o instanceof ForBlock) {
-				writeForBlock((ForBlock) o, pTarget);
-			} else if (o instanceof WhileBlock) {
-				writeWhileBlock((WhileBlock) o, pTarget);
-			} else if (o instanceof DoWhileBlock) {
-				writeDoWhileBlock((DoWhileBlock) o, pTarget);
-			} else if (o instanceof Line) {
-				writeLine((Line) o, pTarget, pTerse);
-			} else if (o instanceof Comment) {
-				write((Comment) o, pTarget);
-			} else if (o instanceof NestedBlock) {
-				writeNestedBlock((NestedBlock) o, pTarget);
+			if (o instanceof INode) {
+				((INode) o).accept(visitor);
 			} else {
 				throw new IllegalStateException("Invalid object type: " + o.getClass().getName());
 			}
 		}
 	}
 
+	/** Called to write a raw fragment of pre-formatted code. The text is
+	 * copied in bulk: Every non-empty line is prefixed with the current
+	 * indentation, and line terminators are replaced with the formats
+	 * line terminator.
+	 * @param pFragment The fragment, which is being written.
+	 * @param pTarget The target object.
+	 */
+	protected void writeRawFragment(RawFragment pFragment, Data pTarget) {
+		for (JQName name : pFragment.getImports()) {
+			pTarget.declareImport(name);
+		}
+		final CharSequence text = pFragment.getText();
+		final int length = text.length();
+		if (length == 0) {
+			return;
+		}
+		final String indentString = format.getIndentString(pTarget.numIndents);
+		final String lineTerminator = format.getLineTerminator();
+		final StringBuilder sb = new StringBuilder(length + length/16 + indentString.length());
+		int start = 0;
+		while (start < length) {
+			int end = start;
+			char c = 0;
+			while (end < length) {
+				c = text.charAt(end);
+				if (c == '\n'  ||  c == '\r') {
+					break;
+				}
+				++end;
+			}
+			if (end > start) {
+				sb.append(indentString);
+				sb.append(text, start, end);
+			}
+			sb.append(lineTerminator);
+			if (end < length) {
+				if (c == '\r'  &&  end+1 < length  &&  text.charAt(end+1) == '\n') {
+					end += 2;
+				} else {
+					end += 1;
+				}
+			}
+			start = end;
+		}
+		pTarget.write(sb.toString());
+		pTarget.isAfterNewLine = true;
+	}
+
 	protected void writeLine(Line pLine, Data pTarget, boolean pTerse) {
 		if (!pTerse) {
 			writeObject(format.getLinePrefix(), pTarget);
@@ -637,9 +1036,22 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		writeObject(format.getThrowsConstructorArgsSuffix(), pTarget);
 	}
 
+	/** Returns, whether the given lazy static field is being referenced from
+	 * within its holder class, where it must be accessed directly.
+	 * @param pField The lazy static field.
+	 * @return True, if the current scope is the fields holder class.
+	 */
+	protected boolean isInHolder(Field pField) {
+		final ClassBase<?> holder = pField.getSourceClass();
+		return holder != null  &&  !scope.isEmpty()  &&  holder.getType().equals(scope.get(scope.size()-1));
+	}
+
 	protected void writeObject(Object pValue, Data pTarget) {
 		final Object v = Objects.requireNonNull(pValue, "Value");
-		if (v == Format.INC_INDENT) {
+		if (v instanceof String) {
+			// By far the most frequent case, so we check it first.
+			pTarget.write(v);
+		} else if (v == Format.INC_INDENT) {
 			pTarget.incIndent();
 		} else if (v == Format.DEC_INDENT) {
 			pTarget.decIndent();
@@ -667,7 +1079,7 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 					if (i > 0) {
 						pTarget.write(",");
 					}
-					pTarget.write(name.getQualifiers().get(i));
+					writeObject(name.getQualifiers().get(i), pTarget);
 				}
 				pTarget.write(">");
 			} else {
@@ -676,6 +1088,9 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 			if (name.isArray()) {
 				pTarget.write("[]");
 			}
+		} else if (v instanceof Field  &&  ((Field) v).isLazyStatic()  &&  !isInHolder((Field) v)) {
+			writeObject(((Field) v).getLazyGetterName(), pTarget);
+			writeObject("()", pTarget);
 		} else if (v instanceof IField) {
 			final IField<?> field = (IField<?>) v;
 			writeObject(field.getName(), pTarget);
@@ -684,8 +1099,8 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		} else if (v instanceof Class) {
 			final Class<?> cl = (Class<?>) v;
 			writeObject(JQName.valueOf(cl), pTarget);
-		} else if (v instanceof String) {
-			pTarget.write(v);
+		} else if (v instanceof ArrayInitializer) {
+			writeArrayInitializer((ArrayInitializer) v, pTarget);
 		} else if (v instanceof Number) {
 			pTarget.write(v.toString());
 		} else {
@@ -693,6 +1108,45 @@ public class DefaultJavaSourceFormatter implements SourceSerializer {
 		}
 	}
 
+	/** Called to write an array initializer with primitive values. The
+	 * values of a single row are collected in a reusable string builder,
+	 * and written to the target in a single step.
+	 * @param pValue The array initializer, which is being written.
+	 * @param pTarget The target object.
+	 */
+	protected void writeArrayInitializer(ArrayInitializer pValue, Data pTarget) {
+		final int length = pValue.getLength();
+		if (length == 0) {
+			pTarget.write("{}");
+			return;
+		}
+		final int valuesPerRow = pValue.getValuesPerRow();
+		pTarget.write("{");
+		pTarget.incIndent();
+		final String indentString = format.getIndentString(pTarget.numIndents);
+		final StringBuilder sb = new StringBuilder(indentString.length() + valuesPerRow*13);
+		for (int start = 0;  start < length;  start += valuesPerRow) {
+			final int end = Math.min(length, start + valuesPerRow);
+			sb.setLength(0);
+			sb.append(indentString);
+			for (int i = start;  i < end;  i++) {
+				if (i > start) {
+					sb.append(", ");
+				}
+				pValue.appendValue(sb, i);
+			}
+			if (end < length) {
+				sb.append(',');
+			}
+			pTarget.newLine();
+			pTarget.write(sb.toString());
+		}
+		pTarget.decIndent();
+		pTarget.newLine();
+		pTarget.indent();
+		pTarget.write("}");
+	}
+
 	protected void write(Comment pComment, Data pTarget) {
 		if (pComment != null) {
 			final List<String> text = pComment.getText();
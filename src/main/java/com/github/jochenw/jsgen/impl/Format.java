@@ -41,10 +41,31 @@ public abstract class Format {
 	public static final Object NOTHING = new Object[0];
 
 	private final String indentString, lineTerminator;
+	private final int tabWidth;
+	private volatile String[] indentStrings = new String[0];
 
 	protected Format(String pIndentString, String pLineTerminator) {
+		this(pIndentString, pLineTerminator, 0);
+	}
+
+	/** Creates a new instance with the given indentation string, line terminator,
+	 * and tab width.
+	 * @param pIndentString The string, which is used to indent one level.
+	 * @param pLineTerminator The string, which is used to terminate a single line.
+	 * @param pTabWidth The tab width, which is used for mixed indentation: If
+	 *   this number is positive, then the leading white space of an indented
+	 *   line is written as a sequence of tab characters, one for every
+	 *   {@code pTabWidth} columns, followed by the remaining blanks. A value
+	 *   of zero (the default) disables mixed indentation, in which case the
+	 *   indentation string is used as it is.
+	 */
+	protected Format(String pIndentString, String pLineTerminator, int pTabWidth) {
+		if (pTabWidth < 0) {
+			throw new IllegalArgumentException("Invalid tab width: " + pTabWidth);
+		}
 		indentString = pIndentString;
 		lineTerminator = pLineTerminator;
+		tabWidth = pTabWidth;
 	}
 
 	/** Returns the string, which is used to indent one level.
@@ -55,6 +76,89 @@ public abstract class Format {
 		return indentString;
 	}
 
+	/** Returns the tab width, which is used for mixed indentation, or zero,
+	 * if mixed indentation is disabled.
+	 * @return The tab width, which is used for mixed indentation, or zero,
+	 * if mixed indentation is disabled.
+	 */
+	public int getTabWidth() {
+		return tabWidth;
+	}
+
+	/** Returns the complete string, which is used to indent a line with
+	 * the given number of block levels. The strings are created only once
+	 * per level, and cached, so that indenting a line is a single write
+	 * operation, regardless of the nesting depth.
+	 * @param pLevel The number of indented block levels.
+	 * @return The indentation string. Never null, but possibly empty.
+	 */
+	public String getIndentString(int pLevel) {
+		if (pLevel <= 0) {
+			return "";
+		}
+		final String[] strings = indentStrings;
+		if (pLevel < strings.length) {
+			return strings[pLevel];
+		}
+		return growIndentStrings(pLevel);
+	}
+
+	private synchronized String growIndentStrings(int pLevel) {
+		String[] strings = indentStrings;
+		if (pLevel >= strings.length) {
+			final String[] newStrings = new String[Math.max(pLevel+1, strings.length*2)];
+			System.arraycopy(strings, 0, newStrings, 0, strings.length);
+			for (int i = strings.length;  i < newStrings.length;  i++) {
+				newStrings[i] = newIndentString(i);
+			}
+			indentStrings = strings = newStrings;
+		}
+		return strings[pLevel];
+	}
+
+	/** Called to create the string, which is used to indent a line with
+	 * the given number of block levels. The default implementation
+	 * repeats the {@link #getIndentString() indentation string}, and
+	 * converts the result into a mixture of tabs, and blanks, if a
+	 * {@link #getTabWidth() tab width} is configured. Subclasses may
+	 * override this method in order to implement a different policy.
+	 * The result is cached, so this method is invoked at most once
+	 * per level.
+	 * @param pLevel The number of indented block levels.
+	 * @return The indentation string. Never null, but possibly empty.
+	 */
+	protected String newIndentString(int pLevel) {
+		if (indentString == null  ||  indentString.isEmpty()  ||  pLevel <= 0) {
+			return "";
+		}
+		final StringBuilder sb = new StringBuilder(indentString.length()*pLevel);
+		for (int i = 0;  i < pLevel;  i++) {
+			sb.append(indentString);
+		}
+		if (tabWidth > 0) {
+			int columns = 0;
+			for (int i = 0;  i < sb.length();  i++) {
+				final char c = sb.charAt(i);
+				if (c == ' ') {
+					++columns;
+				} else if (c == '\t') {
+					columns += tabWidth - (columns % tabWidth);
+				} else {
+					// Not a white space indentation, leave it as it is.
+					return sb.toString();
+				}
+			}
+			sb.setLength(0);
+			for (int i = 0;  i < columns/tabWidth;  i++) {
+				sb.append('\t');
+			}
+			for (int i = 0;  i < columns%tabWidth;  i++) {
+				sb.append(' ');
+			}
+		}
+		return sb.toString();
+	}
+
 	/** Returns the string, which is used to terminate a single line (the line separator).
 	 * Examples: "\r\n" (Windows), or "\n" (Linux, or Unix)
 	 * @return The string, which is used to terminate a single line (the line separator).
@@ -63,6 +167,16 @@ public abstract class Format {
 		return lineTerminator;
 	}
 
+	/** Returns a string, which identifies this format, and its settings. Formats
+	 * with the same identity must produce the same output. The identity is used
+	 * as part of the key in a {@link RenderCache}. Subclasses with additional
+	 * settings must override this method.
+	 * @return The formats identity.
+	 */
+	public String getIdentity() {
+		return getClass().getName() + "|" + indentString + "|" + lineTerminator + "|" + tabWidth;
+	}
+
 	/** Returns the annotation prefix, typically "@".
 	 * @return The annotation prefix, typically "@".
 	 */
@@ -396,6 +510,55 @@ public abstract class Format {
 	 * (default {@link #INDENT}).
 	 */
 	public abstract Object getPackageCommentSuffix();
+	/** Returns the prefix for a "switch ..." blocks
+	 * expression (default {@link #INDENT}, "switch (").
+	 * @return The prefix for a "switch ..." blocks
+	 * expression (default {@link #INDENT}, "switch (").
+	 */
+	public abstract Object getSwitchExpressionPrefix();
+	/** Returns the suffix for a "switch ..." blocks
+	 * expression (default ") {", {@link #NEWLINE}). Note, that
+	 * the default format doesn't indent the case labels.
+	 * @return The suffix for a "switch ..." blocks
+	 * expression (default ") {", {@link #NEWLINE}).
+	 */
+	public abstract Object getSwitchExpressionSuffix();
+	/** Returns the prefix for a case label
+	 * (default {@link #INDENT}, "case ").
+	 * @return The prefix for a case label
+	 * (default {@link #INDENT}, "case ").
+	 */
+	public abstract Object getSwitchCaseLabelPrefix();
+	/** Returns the suffix for a case label
+	 * (default ":", {@link #NEWLINE}).
+	 * @return The suffix for a case label
+	 * (default ":", {@link #NEWLINE}).
+	 */
+	public abstract Object getSwitchCaseLabelSuffix();
+	/** Returns the default label of a switch block
+	 * (default {@link #INDENT}, "default:", {@link #NEWLINE}).
+	 * @return The default label of a switch block
+	 * (default {@link #INDENT}, "default:", {@link #NEWLINE}).
+	 */
+	public abstract Object getSwitchDefaultLabel();
+	/** Returns the sequence, which precedes the code of a case
+	 * (default {@link #INC_INDENT}).
+	 * @return The sequence, which precedes the code of a case
+	 * (default {@link #INC_INDENT}).
+	 */
+	public abstract Object getSwitchCaseBodyHeader();
+	/** Returns the sequence, which follows the code of a case
+	 * (default {@link #DEC_INDENT}).
+	 * @return The sequence, which follows the code of a case
+	 * (default {@link #DEC_INDENT}).
+	 */
+	public abstract Object getSwitchCaseBodyFooter();
+	/** Returns the sequence for terminating a switch block
+	 * (default {@link #INDENT}, "}", {@link #NEWLINE}).
+	 * @return The sequence for terminating a switch block
+	 * (default {@link #INDENT}, "}", {@link #NEWLINE}).
+	 */
+	public abstract Object getSwitchBlockTerminator();
 	/** Returns the prefix for a "throw new" statement
 	 * (default "throw new ").
 	 * @return The prefix for a "throw new" statement
@@ -99,6 +99,11 @@ public class ImportCollectingTarget implements SerializationTarget {
 		}
 	}
 
+	@Override
+	public void declareImport(@Nonnull JQName pName) {
+		write(pName);
+	}
+
 	protected boolean isImportable(JQName pName) {
 		if (pName.isPseudoClass()) {
 			return false;
@@ -34,6 +34,22 @@ public class MavenFormat extends Format {
 		super(pIndentString, pLineTerminator);
 	}
 
+	/** Creates a new instance with the given indentation string, the given
+	 * line terminator, and the given tab width.
+	 * @param pIndentString The string, which is used to indent one block
+	 *   level, typically four blanks ("    ").
+	 * @param pLineTerminator The string, which is used to terminate a
+	 *   single line, typically "\r\n" (Windows), or "\n" (Linux, and
+	 *   Unix).
+	 * @param pTabWidth The tab width for mixed indentation, for example 8,
+	 *   if every pair of indentation levels should be replaced by a tab
+	 *   character. Zero disables mixed indentation.
+	 * @see Format#getTabWidth()
+	 */
+	public MavenFormat(String pIndentString, String pLineTerminator, int pTabWidth) {
+		super(pIndentString, pLineTerminator, pTabWidth);
+	}
+
 	private static final Object ANNOTATION_PREFIX = "@";
 	private static final Object ANNOTATION_SEPARATOR = " ";
 	private static final Object ANNOTATION_SET_PREFIX = INDENT;
@@ -71,7 +87,7 @@ public class MavenFormat extends Format {
 	private static final Object FOR_CONDITION_SUFFIX = new Object[] { " )", BLOCK_HEADER };
 	private static final Object IF_CONDITION_PREFIX = new Object[] { INDENT, "if ( " };
 	private static final Object IF_CONDITION_SUFFIX = new Object[] { " )", BLOCK_HEADER };
-	private static final Object INITIALIZER_HEADER = new Object[] { INDENT, BLOCK_HEADER };
+	private static final Object INITIALIZER_HEADER = new Object[] { INDENT, "static", BLOCK_HEADER };
 	private static final Object INITIALIZER_FOOTER = new Object[] { DEC_INDENT, INDENT, "}", NEWLINE };
 	private static final Object LINE_PREFIX = INDENT;
 	private static final Object LINE_SUFFIX = NEWLINE;
@@ -89,6 +105,14 @@ public class MavenFormat extends Format {
 	private static final Object NESTED_BLOCK_HEADER = BLOCK_HEADER;
 	private static final Object PACKAGE_COMMENT_PREFIX = NOTHING;
 	private static final Object PACKAGE_COMMENT_SUFFIX = new Object[] { INDENT };
+	private static final Object SWITCH_EXPRESSION_PREFIX = new Object[] { INDENT, "switch ( " };
+	private static final Object SWITCH_EXPRESSION_SUFFIX = new Object[] { " )", BLOCK_HEADER };
+	private static final Object SWITCH_CASE_LABEL_PREFIX = new Object[] { INDENT, "case " };
+	private static final Object SWITCH_CASE_LABEL_SUFFIX = new Object[] { ":", NEWLINE };
+	private static final Object SWITCH_DEFAULT_LABEL = new Object[] { INDENT, "default:", NEWLINE };
+	private static final Object SWITCH_CASE_BODY_HEADER = INC_INDENT;
+	private static final Object SWITCH_CASE_BODY_FOOTER = DEC_INDENT;
+	private static final Object SWITCH_BLOCK_TERMINATOR = BLOCK_TERMINATOR;
 	private static final Object THROWS_PREFIX = new Object[] { "throw new " };
 	private static final Object THROWS_CONSTRUCTOR_ARGS_PREFIX = "( ";
 	private static final Object THROWS_CONSTRUCTOR_ARGS_SUFFIX = " )";
@@ -366,6 +390,46 @@ public class MavenFormat extends Format {
 		return PACKAGE_COMMENT_SUFFIX;
 	}
 
+	@Override
+	public Object getSwitchExpressionPrefix() {
+		return SWITCH_EXPRESSION_PREFIX;
+	}
+
+	@Override
+	public Object getSwitchExpressionSuffix() {
+		return SWITCH_EXPRESSION_SUFFIX;
+	}
+
+	@Override
+	public Object getSwitchCaseLabelPrefix() {
+		return SWITCH_CASE_LABEL_PREFIX;
+	}
+
+	@Override
+	public Object getSwitchCaseLabelSuffix() {
+		return SWITCH_CASE_LABEL_SUFFIX;
+	}
+
+	@Override
+	public Object getSwitchDefaultLabel() {
+		return SWITCH_DEFAULT_LABEL;
+	}
+
+	@Override
+	public Object getSwitchCaseBodyHeader() {
+		return SWITCH_CASE_BODY_HEADER;
+	}
+
+	@Override
+	public Object getSwitchCaseBodyFooter() {
+		return SWITCH_CASE_BODY_FOOTER;
+	}
+
+	@Override
+	public Object getSwitchBlockTerminator() {
+		return SWITCH_BLOCK_TERMINATOR;
+	}
+
 	@Override
 	public Object getThrowsPrefix() {
 		return THROWS_PREFIX;
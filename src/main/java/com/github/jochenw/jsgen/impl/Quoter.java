@@ -15,48 +15,413 @@
  */
 package com.github.jochenw.jsgen.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /** Helper class for creating escaped strings, and the like.
  */
 public class Quoter {
-	/** Creates a quoted representation of the given value.
+	/** The maximum length of a string constant in a class file: {@value} bytes,
+	 * measured in the "modified UTF-8" encoding of the class file format.
+	 */
+	public static final int MAX_CONSTANT_BYTES = 65535;
+	/** The default maximum size of a single chunk: {@value} bytes. This is
+	 * well below {@link #MAX_CONSTANT_BYTES}, and keeps the source lines readable.
+	 * @see #chunked(String, ChunkMode)
+	 */
+	public static final int DEFAULT_CHUNK_BYTES = 1024;
+
+	/** The layout of a chunked string value.
+	 * @see Quoter#chunked(String, int, ChunkMode)
+	 */
+	public enum ChunkMode {
+		/** The chunks are concatenated, as in {@code "abc" + "def"}. Note, that
+		 * javac folds the concatenation of string constants into a single
+		 * constant. In other words, this mode keeps the source lines short,
+		 * but the complete value must still not exceed {@link Quoter#MAX_CONSTANT_BYTES}.
+		 */
+		CONCATENATION,
+		/** The chunks are assembled by a {@link StringBuilder}, as in
+		 * {@code new StringBuilder(6).append("abc").append("def").toString()}.
+		 * This mode is suitable for values of arbitrary length.
+		 */
+		STRING_BUILDER
+	}
+
+	/** Creates a quoted representation of the given value. Quotes, backslashes,
+	 * and control characters are escaped, other characters are copied as they are.
+	 * Equivalent to {@code valueOf(pValue, false)}.
 	 * @param pValue The string being quoted.
 	 * @return The given value, converted into a quoted string.
 	 */
 	@Nonnull public static final String valueOf(@Nullable String pValue) {
+		return valueOf(pValue, false);
+	}
+
+	/** Creates a quoted representation of the given value. Quotes, backslashes,
+	 * and control characters are escaped. Strings, which don't contain any such
+	 * characters (the most frequent case), are detected by a single scan, and
+	 * copied in bulk.
+	 * @param pValue The string being quoted.
+	 * @param pAsciiOnly True, if non-ASCII characters should be escaped as well
+	 *   (using Unicode escapes), so that the result is
+	 *   suitable for ASCII encoded source files. False, if non-ASCII characters
+	 *   should be copied as they are.
+	 * @return The given value, converted into a quoted string.
+	 */
+	@Nonnull public static final String valueOf(@Nullable String pValue, boolean pAsciiOnly) {
+		if (pValue == null) {
+			return "null";
+		}
+		final int length = pValue.length();
+		if (indexOfEscape(pValue, 0, length, '"', pAsciiOnly) == length) {
+			return new StringBuilder(length + 2).append('"').append(pValue).append('"').toString();
+		}
+		return quoteTo(new StringBuilder(length + 16), pValue, pAsciiOnly).toString();
+	}
+
+	/** Appends a quoted representation of the given value to the given
+	 * string builder. Equivalent to {@code quoteTo(pSb, pValue, false)}.
+	 * @param pSb The string builder, to which the quoted value is being appended.
+	 * @param pValue The value being quoted.
+	 * @return The given string builder.
+	 * @see #valueOf(String)
+	 */
+	@Nonnull public static StringBuilder quoteTo(@Nonnull StringBuilder pSb, @Nonnull CharSequence pValue) {
+		return quoteTo(pSb, pValue, false);
+	}
+
+	/** Appends a quoted representation of the given value to the given
+	 * string builder, without creating a temporary string.
+	 * @param pSb The string builder, to which the quoted value is being appended.
+	 * @param pValue The value being quoted.
+	 * @param pAsciiOnly True, if non-ASCII characters should be escaped as well.
+	 * @return The given string builder.
+	 * @see #valueOf(String, boolean)
+	 */
+	@Nonnull public static StringBuilder quoteTo(@Nonnull StringBuilder pSb, @Nonnull CharSequence pValue, boolean pAsciiOnly) {
+		try {
+			quote(pSb, pValue, 0, pValue.length(), '"', pAsciiOnly);
+		} catch (IOException e) {
+			// A StringBuilder doesn't throw an IOException.
+			throw new UncheckedIOException(e);
+		}
+		return pSb;
+	}
+
+	/** Writes a quoted representation of the given value to the given
+	 * {@link Appendable}. Equivalent to {@code quoteTo(pTarget, pValue, false)}.
+	 * @param pTarget The target, to which the quoted value is being written.
+	 * @param pValue The value being quoted.
+	 * @throws IOException Writing to the target failed.
+	 * @see #valueOf(String)
+	 */
+	public static void quoteTo(@Nonnull Appendable pTarget, @Nonnull CharSequence pValue) throws IOException {
+		quoteTo(pTarget, pValue, false);
+	}
+
+	/** Writes a quoted representation of the given value to the given
+	 * {@link Appendable}. Sequences of characters, which don't need to be
+	 * escaped, are written in bulk.
+	 * @param pTarget The target, to which the quoted value is being written.
+	 * @param pValue The value being quoted.
+	 * @param pAsciiOnly True, if non-ASCII characters should be escaped as well.
+	 * @throws IOException Writing to the target failed.
+	 * @see #valueOf(String, boolean)
+	 */
+	public static void quoteTo(@Nonnull Appendable pTarget, @Nonnull CharSequence pValue, boolean pAsciiOnly) throws IOException {
+		quote(pTarget, pValue, 0, pValue.length(), '"', pAsciiOnly);
+	}
+
+	/** Creates a character literal, like {@code 'a'}, or {@code '\n'}.
+	 * @param pValue The character being quoted.
+	 * @param pAsciiOnly True, if a non-ASCII character should be escaped.
+	 * @return The character literal.
+	 */
+	@Nonnull public static String charLiteral(char pValue, boolean pAsciiOnly) {
+		final StringBuilder sb = new StringBuilder(8);
+		try {
+			quote(sb, String.valueOf(pValue), 0, 1, '\'', pAsciiOnly);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
+
+	/** Creates an array of character literals, like {@code new char[]{'a', 'b'}}.
+	 * @param pValue The characters being quoted.
+	 * @param pAsciiOnly True, if non-ASCII characters should be escaped.
+	 * @return The character array, or "null", if the given array is null.
+	 */
+	@Nonnull public static String charArrayLiteral(@Nullable char[] pValue, boolean pAsciiOnly) {
 		if (pValue == null) {
 			return "null";
-		} else if (pValue.length() == 0) {
-			return "\"\"";
-		} else {
-			final StringBuilder sb = new StringBuilder();
-			sb.append('"');
-			for (int i = 0;  i < pValue.length();  i++) {
+		}
+		final CharSequence chars = CharBuffer.wrap(pValue);
+		final StringBuilder sb = new StringBuilder(12 + pValue.length*5);
+		sb.append("new char[]{");
+		try {
+			for (int i = 0;  i < pValue.length;  i++) {
+				if (i > 0) {
+					sb.append(", ");
+				}
+				quote(sb, chars, i, i+1, '\'', pAsciiOnly);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/** Creates a chunked, quoted representation of the given value, with chunks of
+	 * at most {@link #DEFAULT_CHUNK_BYTES} bytes. Equivalent to
+	 * {@code chunked(pValue, DEFAULT_CHUNK_BYTES, pMode)}.
+	 * @param pValue The string being quoted.
+	 * @param pMode The layout of the chunks.
+	 * @return The given value, converted into a sequence of tokens, which may
+	 *   be used in a {@link com.github.jochenw.jsgen.api.Block.Line}, or as a
+	 *   fields value.
+	 * @see #chunked(String, int, ChunkMode)
+	 */
+	@Nonnull public static Object[] chunked(@Nullable String pValue, @Nonnull ChunkMode pMode) {
+		return chunked(pValue, DEFAULT_CHUNK_BYTES, pMode);
+	}
+
+	/** Creates a chunked, quoted representation of the given value: A sequence of
+	 * string literals, each of which doesn't exceed the given number of bytes, and a
+	 * single line in the generated source. The chunks are split on character boundaries
+	 * (surrogate pairs are never split), and their size is measured in the "modified
+	 * UTF-8" encoding of the class file format. The split points are computed in a single
+	 * pass over the value, without creating intermediate strings.
+	 * @param pValue The string being quoted.
+	 * @param pMaxBytes The maximum number of bytes per chunk. Must be between 6 (the
+	 *   size of a surrogate pair), and {@link #MAX_CONSTANT_BYTES}.
+	 * @param pMode The layout of the chunks.
+	 * @return The given value, converted into a sequence of tokens, which may
+	 *   be used in a {@link com.github.jochenw.jsgen.api.Block.Line}, or as a
+	 *   fields value. If the value fits into a single chunk, then the result is
+	 *   equivalent to {@link #valueOf(String)}.
+	 * @throws IllegalArgumentException The mode is {@link ChunkMode#CONCATENATION},
+	 *   and the value exceeds {@link #MAX_CONSTANT_BYTES}.
+	 */
+	@Nonnull public static Object[] chunked(@Nullable String pValue, int pMaxBytes, @Nonnull ChunkMode pMode) {
+		if (pMaxBytes < 6  ||  pMaxBytes > MAX_CONSTANT_BYTES) {
+			throw new IllegalArgumentException("Invalid chunk size: " + pMaxBytes);
+		}
+		if (pValue == null  ||  pValue.length() == 0) {
+			return new Object[] {valueOf(pValue)};
+		}
+		final SplitPoints splitPoints = new SplitPoints(pValue, pMaxBytes);
+		final int numChunks = splitPoints.numChunks;
+		if (numChunks == 1) {
+			return new Object[] {valueOf(pValue)};
+		}
+		final List<Object> tokens = new ArrayList<>(numChunks*3 + 6);
+		final StringBuilder sb = new StringBuilder(pMaxBytes + 16);
+		switch (pMode) {
+		  case CONCATENATION:
+			if (splitPoints.numBytes > MAX_CONSTANT_BYTES) {
+				throw new IllegalArgumentException("The value exceeds " + MAX_CONSTANT_BYTES
+						+ " bytes, and cannot be used as a constant. Use ChunkMode.STRING_BUILDER instead.");
+			}
+			for (int i = 0;  i < numChunks;  i++) {
+				sb.setLength(0);
+				quoteTo(sb, pValue, i == 0 ? 0 : splitPoints.ends[i-1], splitPoints.ends[i]);
+				if (i < numChunks-1) {
+					sb.append(" +");
+				}
+				tokens.add(sb.toString());
+				if (i == 0) {
+					tokens.add(Format.INC_INDENT);
+				}
+				if (i < numChunks-1) {
+					tokens.add(Format.NEWLINE);
+					tokens.add(Format.INDENT);
+				}
+			}
+			tokens.add(Format.DEC_INDENT);
+			break;
+		  case STRING_BUILDER:
+			tokens.add("new StringBuilder(" + pValue.length() + ")");
+			tokens.add(Format.INC_INDENT);
+			for (int i = 0;  i < numChunks;  i++) {
+				sb.setLength(0);
+				sb.append(".append(");
+				quoteTo(sb, pValue, i == 0 ? 0 : splitPoints.ends[i-1], splitPoints.ends[i]);
+				sb.append(')');
+				tokens.add(Format.NEWLINE);
+				tokens.add(Format.INDENT);
+				tokens.add(sb.toString());
+			}
+			tokens.add(Format.NEWLINE);
+			tokens.add(Format.INDENT);
+			tokens.add(".toString()");
+			tokens.add(Format.DEC_INDENT);
+			break;
+		  default:
+			throw new IllegalStateException("Invalid chunk mode: " + pMode);
+		}
+		return tokens.toArray();
+	}
+
+	/** The split points of a chunked value, as computed by a single
+	 * pass over the value.
+	 */
+	private static class SplitPoints {
+		private int[] ends = new int[16];
+		private int numChunks;
+		private int numBytes;
+
+		SplitPoints(CharSequence pValue, int pMaxBytes) {
+			final int length = pValue.length();
+			int chunkBytes = 0;
+			int i = 0;
+			while (i < length) {
 				final char c = pValue.charAt(i);
-				switch (c) {
-				case '"':
-					sb.append("\\\"");
-					break;
-				case '\\':
-					sb.append("\\\\");
-					break;
-				case '\r':
-					sb.append("\\r");
-					break;
-				case '\n':
-					sb.append("\\n");
-					break;
-				case '\t':
-					sb.append("\\t");
-					break;
-				default:
-					sb.append(c);
+				final int bytes, chars;
+				if (Character.isHighSurrogate(c)  &&  i+1 < length  &&  Character.isLowSurrogate(pValue.charAt(i+1))) {
+					// Modified UTF-8 encodes the surrogates separately, using three bytes each.
+					bytes = 6;
+					chars = 2;
+				} else {
+					if (c != 0  &&  c < 0x80) {
+						bytes = 1;
+					} else if (c < 0x800) {
+						// Modified UTF-8 encodes the null character using two bytes.
+						bytes = 2;
+					} else {
+						bytes = 3;
+					}
+					chars = 1;
+				}
+				if (chunkBytes + bytes > pMaxBytes) {
+					add(i);
+					chunkBytes = 0;
 				}
+				chunkBytes += bytes;
+				numBytes += bytes;
+				i += chars;
+			}
+			add(length);
+		}
+
+		private void add(int pEnd) {
+			if (numChunks == ends.length) {
+				ends = Arrays.copyOf(ends, numChunks*2);
+			}
+			ends[numChunks++] = pEnd;
+		}
+	}
+
+	/** Appends a quoted representation of the given range of characters.
+	 */
+	private static void quoteTo(StringBuilder pSb, CharSequence pValue, int pStart, int pEnd) {
+		try {
+			quote(pSb, pValue, pStart, pEnd, '"', false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** Returns the index of the first character in the given range, which must
+	 * be escaped, or the ranges end, if there is no such character.
+	 */
+	private static int indexOfEscape(CharSequence pValue, int pStart, int pEnd, char pQuote, boolean pAsciiOnly) {
+		for (int i = pStart;  i < pEnd;  i++) {
+			final char c = pValue.charAt(i);
+			if (c < 0x20  ||  c == pQuote  ||  c == '\\'  ||  c == 0x7f) {
+				return i;
+			} else if (c > 0x7f) {
+				if (pAsciiOnly) {
+					return i;
+				} else if (Character.isSurrogate(c)) {
+					if (Character.isHighSurrogate(c)  &&  i+1 < pEnd  &&  Character.isLowSurrogate(pValue.charAt(i+1))) {
+						++i;
+					} else {
+						// An unpaired surrogate cannot be encoded, and must be escaped.
+						return i;
+					}
+				}
+			}
+		}
+		return pEnd;
+	}
+
+	/** Writes a quoted representation of the given range of characters.
+	 * Sequences of characters, which don't need to be escaped, are written
+	 * in bulk.
+	 */
+	private static void quote(Appendable pTarget, CharSequence pValue, int pStart, int pEnd,
+			                  char pQuote, boolean pAsciiOnly) throws IOException {
+		pTarget.append(pQuote);
+		int start = pStart;
+		while (start < pEnd) {
+			final int index = indexOfEscape(pValue, start, pEnd, pQuote, pAsciiOnly);
+			if (index > start) {
+				pTarget.append(pValue, start, index);
+			}
+			if (index == pEnd) {
+				break;
+			}
+			appendEscape(pTarget, pValue.charAt(index));
+			start = index+1;
+		}
+		pTarget.append(pQuote);
+	}
+
+	/** Writes an escaped representation of the given character. Control characters
+	 * are written as octal escapes, rather than Unicode escapes: The latter
+	 * are processed by javac before parsing, so the Unicode escape of a line
+	 * feed would actually terminate the line.
+	 */
+	private static void appendEscape(Appendable pTarget, char pChar) throws IOException {
+		switch (pChar) {
+		case '"':
+			pTarget.append("\\\"");
+			break;
+		case '\'':
+			pTarget.append("\\'");
+			break;
+		case '\\':
+			pTarget.append("\\\\");
+			break;
+		case '\b':
+			pTarget.append("\\b");
+			break;
+		case '\t':
+			pTarget.append("\\t");
+			break;
+		case '\n':
+			pTarget.append("\\n");
+			break;
+		case '\f':
+			pTarget.append("\\f");
+			break;
+		case '\r':
+			pTarget.append("\\r");
+			break;
+		default:
+			if (pChar < 0x20  ||  pChar == 0x7f) {
+				// Always three digits, so that a following digit isn't taken as part of the escape.
+				pTarget.append('\\');
+				pTarget.append((char) ('0' + ((pChar >> 6) & 0x7)));
+				pTarget.append((char) ('0' + ((pChar >> 3) & 0x7)));
+				pTarget.append((char) ('0' + (pChar & 0x7)));
+			} else {
+				pTarget.append("\\u");
+				pTarget.append(Character.forDigit((pChar >> 12) & 0xf, 16));
+				pTarget.append(Character.forDigit((pChar >> 8) & 0xf, 16));
+				pTarget.append(Character.forDigit((pChar >> 4) & 0xf, 16));
+				pTarget.append(Character.forDigit(pChar & 0xf, 16));
 			}
-			sb.append('"');
-			return sb.toString();
 		}
 	}
 }
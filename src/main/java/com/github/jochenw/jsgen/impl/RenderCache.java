@@ -0,0 +1,201 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.jochenw.jsgen.api.IImportSorter;
+import com.github.jochenw.jsgen.api.Source;
+
+
+/** A persistent cache of rendered sources, which allows to skip rendering
+ * unchanged sources in subsequent generator runs. The cache key is the
+ * {@link StructuralHash structural hash} of the source model, combined with
+ * the identity of the {@link SourceSerializer#getIdentity() serializer} (which
+ * includes the {@link Format#getIdentity() format}), and the
+ * {@link IImportSorter#getIdentity() import sorter}.
+ *
+ * The cache is a local directory with one file per entry. The files
+ * modification time is updated on every hit, so that the least recently
+ * used entries can be evicted, if the total size exceeds the limit. This
+ * works across JVM invocations. Use {@link AbstractSourceWriter#setRenderCache(RenderCache)}
+ * to enable the cache.
+ */
+public class RenderCache {
+	/** Default value for the maximum size of the cache: {@value} bytes (64 MB).
+	 */
+	public static final long DEFAULT_MAX_SIZE = 64L*1024*1024;
+	private static final String SUFFIX = ".java.cache";
+
+	private final @Nonnull Path directory;
+	private final long maxSize;
+	private long size = -1;
+
+	/** Creates a new instance with the given directory, and the
+	 * {@link #DEFAULT_MAX_SIZE default maximum size}.
+	 * @param pDirectory The cache directory. Will be created, if necessary.
+	 */
+	public RenderCache(@Nonnull Path pDirectory) {
+		this(pDirectory, DEFAULT_MAX_SIZE);
+	}
+
+	/** Creates a new instance with the given directory, and the given maximum size.
+	 * @param pDirectory The cache directory. Will be created, if necessary.
+	 * @param pMaxSize The maximum size of the cache entries in bytes. If the
+	 *   total size exceeds this limit, then the least recently used entries
+	 *   are being removed.
+	 */
+	public RenderCache(@Nonnull Path pDirectory, long pMaxSize) {
+		if (pMaxSize <= 0) {
+			throw new IllegalArgumentException("Invalid maximum size: " + pMaxSize);
+		}
+		directory = Objects.requireNonNull(pDirectory, "Directory");
+		maxSize = pMaxSize;
+	}
+
+	/** Returns the cache directory.
+	 * @return The cache directory.
+	 */
+	@Nonnull public Path getDirectory() {
+		return directory;
+	}
+
+	/** Returns the maximum size of the cache entries in bytes.
+	 * @return The maximum size of the cache entries in bytes.
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/** Returns the cache key of the given source.
+	 * @param pSource The source, which is being rendered.
+	 * @param pSerializer The serializer, which renders the source.
+	 * @param pImportSorter The import sorter, which is being used.
+	 * @return The cache key, a hex string.
+	 */
+	@Nonnull public String getKey(@Nonnull Source pSource, @Nonnull SourceSerializer pSerializer,
+			                      @Nonnull IImportSorter pImportSorter) {
+		return new StructuralHash().add(pSource).add(pSerializer.getIdentity())
+				.add(pImportSorter.getIdentity()).getValue();
+	}
+
+	/** Returns the cached contents with the given key.
+	 * @param pKey The cache key.
+	 * @return The cached contents, if available, or null.
+	 * @throws IOException Reading the cache entry failed.
+	 */
+	@Nullable public synchronized byte[] get(@Nonnull String pKey) throws IOException {
+		final Path path = directory.resolve(pKey + SUFFIX);
+		try {
+			final byte[] bytes = Files.readAllBytes(path);
+			Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+			return bytes;
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/** Stores the given contents in the cache. Evicts the least recently used
+	 * entries, if the total size exceeds the limit.
+	 * @param pKey The cache key.
+	 * @param pContents The contents, which are being stored.
+	 * @throws IOException Writing the cache entry failed.
+	 */
+	public synchronized void put(@Nonnull String pKey, @Nonnull byte[] pContents) throws IOException {
+		if (size == -1) {
+			Files.createDirectories(directory);
+			size = 0;
+			for (Path p : getEntries()) {
+				size += Files.size(p);
+			}
+		}
+		final Path path = directory.resolve(pKey + SUFFIX);
+		if (Files.exists(path)) {
+			size -= Files.size(path);
+		}
+		// Write a temporary file, and rename it, so that concurrent readers
+		// (for example, another build) never see a partial entry.
+		final Path tempFile = Files.createTempFile(directory, pKey, ".tmp");
+		Files.write(tempFile, pContents);
+		Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		size += pContents.length;
+		if (size > maxSize) {
+			evict(path);
+		}
+	}
+
+	/** Returns the total size of the cache entries, in bytes.
+	 * @return The total size of the cache entries.
+	 * @throws IOException Listing the cache directory failed.
+	 */
+	public synchronized long getSize() throws IOException {
+		long total = 0;
+		for (Path p : getEntries()) {
+			total += Files.size(p);
+		}
+		size = total;
+		return total;
+	}
+
+	private void evict(Path pCurrent) throws IOException {
+		final List<Path> entries = getEntries();
+		final List<FileTime> times = new ArrayList<>(entries.size());
+		for (Path p : entries) {
+			times.add(Files.getLastModifiedTime(p));
+		}
+		final List<Integer> indexes = new ArrayList<>(entries.size());
+		for (int i = 0;  i < entries.size();  i++) {
+			indexes.add(Integer.valueOf(i));
+		}
+		indexes.sort(Comparator.comparing((i) -> times.get(i.intValue())));
+		for (Integer i : indexes) {
+			if (size <= maxSize) {
+				break;
+			}
+			final Path p = entries.get(i.intValue());
+			if (!p.equals(pCurrent)) {
+				final long length = Files.size(p);
+				Files.deleteIfExists(p);
+				size -= length;
+			}
+		}
+	}
+
+	private List<Path> getEntries() throws IOException {
+		final List<Path> entries = new ArrayList<>();
+		if (Files.isDirectory(directory)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+				for (Path p : stream) {
+					entries.add(p);
+				}
+			}
+		}
+		return entries;
+	}
+}
@@ -17,6 +17,8 @@ package com.github.jochenw.jsgen.impl;
 
 import javax.annotation.Nonnull;
 
+import com.github.jochenw.jsgen.api.JQName;
+
 /** Interface of a target object, where the generated Java
  * source can be serialized to.
  */
@@ -30,6 +32,16 @@ public interface SerializationTarget {
 	 * written.
 	 */
 	void newLine();
+	/** Called to declare, that the given type is being used, and should
+	 * be imported, without actually writing it. This is used for text,
+	 * which refers to types by their simple names, like
+	 * {@link com.github.jochenw.jsgen.api.RawFragment raw fragments}.
+	 * The default implementation does nothing.
+	 * @param pName The type, which is being used.
+	 */
+	default void declareImport(@Nonnull JQName pName) {
+		// Does nothing.
+	}
 	/** Closes the target, which may not be used thereafter.
 	 */
 	void close();
@@ -30,4 +30,13 @@ public interface SourceSerializer {
 	 * @param pTarget The target to write to.
 	 */
 	public void write(@Nonnull Source pSource, @Nonnull SerializationTarget pTarget);
+
+	/** Returns a string, which identifies this serializer, and its settings.
+	 * Serializers with the same identity must produce the same output. The
+	 * identity is used as part of the key in a {@link RenderCache}.
+	 * @return The serializers identity. By default, the class name.
+	 */
+	public default @Nonnull String getIdentity() {
+		return getClass().getName();
+	}
 }
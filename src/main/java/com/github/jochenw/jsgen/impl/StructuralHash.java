@@ -0,0 +1,511 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.jochenw.jsgen.api.ArrayInitializer;
+import com.github.jochenw.jsgen.api.ClassBase;
+import com.github.jochenw.jsgen.api.Comment;
+import com.github.jochenw.jsgen.api.Constructor;
+import com.github.jochenw.jsgen.api.DoWhileBlock;
+import com.github.jochenw.jsgen.api.ElseBlock;
+import com.github.jochenw.jsgen.api.EnumConstant;
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.ForBlock;
+import com.github.jochenw.jsgen.api.IField;
+import com.github.jochenw.jsgen.api.INode;
+import com.github.jochenw.jsgen.api.INodeVisitor;
+import com.github.jochenw.jsgen.api.IfBlock;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.NestedBlock;
+import com.github.jochenw.jsgen.api.RawFragment;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.api.SwitchBlock;
+import com.github.jochenw.jsgen.api.Subroutine;
+import com.github.jochenw.jsgen.api.Throw;
+import com.github.jochenw.jsgen.api.WhileBlock;
+import com.github.jochenw.jsgen.api.Block.Line;
+import com.github.jochenw.jsgen.api.IAnnotatable.Annotation;
+import com.github.jochenw.jsgen.api.IAnnotatable.AnnotationSet;
+import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+
+
+/** A structural hash is a fingerprint of a part of the source model:
+ * Two objects, which are structurally identical (same kind of node,
+ * same properties, same contents) have the same structural hash,
+ * regardless of object identity. Consequently, they will also have the
+ * same rendered output. The hash is a SHA-256 digest, which makes
+ * collisions practically impossible, and it is stable across JVM
+ * invocations.
+ */
+public class StructuralHash {
+	private final MessageDigest digest;
+	private boolean scopeDependent;
+	private final INodeVisitor visitor = new INodeVisitor() {
+		@Override
+		public void visitField(Field pField) {
+			tag('F');
+			add(pField.getComment());
+			add(pField.getAnnotations());
+			add(pField.getProtection().name());
+			add(pField.isStatic());
+			add(pField.isFinal());
+			add(pField.isVolatile());
+			add(pField.getType());
+			add(pField.getName());
+			addValue(pField.getValue());
+		}
+
+		@Override
+		public void visitLocalField(LocalField pField) {
+			tag('L');
+			add(pField.getComment());
+			add(pField.getAnnotations());
+			add(pField.isFinal());
+			add(pField.getType());
+			add(pField.getName());
+			addValue(pField.getValue());
+		}
+
+		@Override
+		public void visitMethod(Method pMethod) {
+			tag('M');
+			add(pMethod.isAbstract());
+			add(pMethod.isStatic());
+			add(pMethod.isFinal());
+			add(pMethod.isSynchronized());
+			add(pMethod.getReturnType());
+			add(pMethod.getName());
+			addSubroutine(pMethod);
+		}
+
+		@Override
+		public void visitConstructor(Constructor pConstructor) {
+			tag('C');
+			add(pConstructor.getSourceClass().getType());
+			addSubroutine(pConstructor);
+		}
+
+		@Override
+		public void visitInnerClass(InnerClass pClass) {
+			tag('I');
+			add(pClass.isStatic());
+			addClass(pClass);
+		}
+
+		@Override
+		public void visitStaticInitializer(StaticInitializer pInitializer) {
+			tag('S');
+			add(pInitializer.getComment());
+			addContents(pInitializer.body().getContents());
+		}
+
+		@Override
+		public void visitIfBlock(IfBlock pBlock) {
+			tag('?');
+			IfBlock block = pBlock;
+			ElseBlock elseBlock = null;
+			while (block != null) {
+				addToken(block.getCondition());
+				addContents(block.getContents());
+				elseBlock = block.getElseBlock();
+				block = block.getNextIfBlock();
+			}
+			if (elseBlock == null) {
+				tag('0');
+			} else {
+				tag('1');
+				addContents(elseBlock.getContents());
+			}
+		}
+
+		@Override
+		public void visitForBlock(ForBlock pBlock) {
+			tag('f');
+			addToken(pBlock.getCondition());
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitWhileBlock(WhileBlock pBlock) {
+			tag('w');
+			addToken(pBlock.getCondition());
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitDoWhileBlock(DoWhileBlock pBlock) {
+			tag('d');
+			addToken(pBlock.getCondition());
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitLine(Line pLine) {
+			tag(pLine.isTerminated() ? ';' : '-');
+			addToken(pLine.getElements());
+		}
+
+		@Override
+		public void visitComment(Comment pComment) {
+			tag('/');
+			add(pComment.isPublic());
+			add(pComment.isTerse());
+			final List<String> text = pComment.getText();
+			add(text.size());
+			for (String s : text) {
+				add(s);
+			}
+		}
+
+		@Override
+		public void visitNestedBlock(NestedBlock pBlock) {
+			tag('{');
+			addContents(pBlock.getContents());
+		}
+
+		@Override
+		public void visitSwitchBlock(SwitchBlock pBlock) {
+			tag('x');
+			addToken(pBlock.getExpression());
+			add(pBlock.getCases().size());
+			for (SwitchBlock.Case c : pBlock.getCases()) {
+				add(c.getLabels().size());
+				for (Object label : c.getLabels()) {
+					if (label instanceof Enum) {
+						tag('e');
+						add(((Enum<?>) label).getDeclaringClass().getName());
+						add(((Enum<?>) label).name());
+					} else if (label instanceof SwitchBlock.EnumLabel) {
+						final SwitchBlock.EnumLabel enumLabel = (SwitchBlock.EnumLabel) label;
+						tag('e');
+						add(enumLabel.getType().getQName());
+						add(enumLabel.getName());
+					} else {
+						tag(label instanceof String ? 's' : 'i');
+						add(label.toString());
+					}
+				}
+				addContents(c.getContents());
+			}
+		}
+
+		@Override
+		public void visitRawFragment(RawFragment pFragment) {
+			tag('r');
+			add(pFragment.getText().toString());
+			add(pFragment.getImports().size());
+			for (JQName name : pFragment.getImports()) {
+				add(name);
+			}
+		}
+	};
+
+	/** Creates a new instance.
+	 */
+	public StructuralHash() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Returns the structural hash of the given object.
+	 * @param pObject The object, which is being hashed: Either of
+	 *   a {@link Source}, an {@link INode node}, or a token, like a
+	 *   string, a {@link JQName}, or an array of tokens.
+	 * @return The hash value, as a hex string.
+	 */
+	public static String of(@Nonnull Object pObject) {
+		return new StructuralHash().add(pObject).getValue();
+	}
+
+	/** Adds the given object to the hash value.
+	 * @param pObject The object, which is being hashed: Either of
+	 *   a {@link Source}, an {@link INode node}, or a token, like a
+	 *   string, a {@link JQName}, or an array of tokens.
+	 * @return This object.
+	 */
+	public StructuralHash add(@Nonnull Object pObject) {
+		if (pObject instanceof Source) {
+			final Source source = (Source) pObject;
+			tag('P');
+			add(source.getPackageComment());
+			addClass(source);
+		} else if (pObject instanceof INode) {
+			((INode) pObject).accept(visitor);
+		} else {
+			addToken(pObject);
+		}
+		return this;
+	}
+
+	/** Adds the given string to the hash value.
+	 * @param pValue The string, which is being hashed.
+	 * @return This object.
+	 */
+	public StructuralHash add(@Nullable String pValue) {
+		if (pValue == null) {
+			add(-1);
+		} else {
+			final byte[] bytes = pValue.getBytes(StandardCharsets.UTF_8);
+			add(bytes.length);
+			digest.update(bytes);
+		}
+		return this;
+	}
+
+	/** Adds the given number to the hash value.
+	 * @param pValue The number, which is being hashed.
+	 * @return This object.
+	 */
+	public StructuralHash add(int pValue) {
+		digest.update((byte) (pValue >>> 24));
+		digest.update((byte) (pValue >>> 16));
+		digest.update((byte) (pValue >>> 8));
+		digest.update((byte) pValue);
+		return this;
+	}
+
+	/** Adds the given boolean value to the hash value.
+	 * @param pValue The boolean value, which is being hashed.
+	 * @return This object.
+	 */
+	public StructuralHash add(boolean pValue) {
+		digest.update((byte) (pValue ? 1 : 0));
+		return this;
+	}
+
+	/** Returns, whether the hashed objects contain a reference to a
+	 * {@link Field#isLazyStatic() lazy static field}. Such references are
+	 * rendered differently inside, and outside of the holder class, so the
+	 * rendered output depends on the scope, and not only on the hash value.
+	 * @return True, if the hashed objects contain a reference to a lazy
+	 *   static field.
+	 */
+	public boolean isScopeDependent() {
+		return scopeDependent;
+	}
+
+	/** Returns the hash value, as a hex string. The object must not be
+	 * used thereafter.
+	 * @return The hash value, as a hex string.
+	 */
+	public String getValue() {
+		final byte[] bytes = digest.digest();
+		final StringBuilder sb = new StringBuilder(bytes.length*2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+			sb.append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	protected void tag(char pTag) {
+		digest.update((byte) pTag);
+	}
+
+	protected void add(@Nullable Comment pComment) {
+		if (pComment == null) {
+			tag('0');
+		} else {
+			visitor.visitComment(pComment);
+		}
+	}
+
+	protected void add(@Nonnull JQName pName) {
+		tag('N');
+		add(pName.toString());
+		add(pName.isPrimitive());
+		add(pName.isPseudoClass());
+		add(pName.isInnerClass());
+	}
+
+	protected void add(@Nonnull AnnotationSet pAnnotations) {
+		tag('A');
+		add(pAnnotations.getAnnotations().size());
+		for (Annotation annotation : pAnnotations.getAnnotations()) {
+			add(annotation.getType());
+			final Map<String,Object> attributes = annotation.getAttributes();
+			add(attributes.size());
+			for (Map.Entry<String,Object> en : attributes.entrySet()) {
+				add(en.getKey());
+				addToken(en.getValue());
+			}
+		}
+	}
+
+	protected void addSubroutine(@Nonnull Subroutine<?> pSubroutine) {
+		add(pSubroutine.getComment());
+		add(pSubroutine.getAnnotations());
+		add(pSubroutine.getProtection().name());
+		add(pSubroutine.isTerse());
+		final List<Parameter> parameters = pSubroutine.getParameters();
+		add(parameters.size());
+		for (Parameter param : parameters) {
+			add(param.getAnnotations());
+			add(param.isFinal());
+			add(param.getType());
+			add(param.getName());
+		}
+		final List<JQName> exceptions = pSubroutine.getExceptions();
+		add(exceptions.size());
+		for (JQName exception : exceptions) {
+			add(exception);
+		}
+		addContents(pSubroutine.body().getContents());
+	}
+
+	protected void addClass(@Nonnull ClassBase<?> pClass) {
+		add(pClass.getComment());
+		add(pClass.getAnnotations());
+		add(pClass.getProtection().name());
+		add(pClass.isInterface());
+		add(pClass.isAbstract());
+		add(pClass.isFinal());
+		add(pClass.isEnum());
+		add(pClass.getEnumConstants().size());
+		for (EnumConstant constant : pClass.getEnumConstants()) {
+			add(constant.getComment());
+			add(constant.getName());
+			addToken(constant.getArguments());
+		}
+		add(pClass.getType());
+		add(pClass.getExtendedClasses().size());
+		for (JQName name : pClass.getExtendedClasses()) {
+			add(name);
+		}
+		add(pClass.getImplementedInterfaces().size());
+		for (JQName name : pClass.getImplementedInterfaces()) {
+			add(name);
+		}
+		addContents(pClass.getContent());
+	}
+
+	protected void addContents(@Nonnull List<Object> pContents) {
+		tag('[');
+		for (Object o : pContents) {
+			add(o);
+		}
+		tag(']');
+	}
+
+	protected void addValue(@Nullable Object pValue) {
+		if (pValue == null) {
+			tag('0');
+		} else {
+			addToken(pValue);
+		}
+	}
+
+	protected void add(@Nonnull ArrayInitializer pValue) {
+		tag('a');
+		add(pValue.getKind().name());
+		add(pValue.getValuesPerRow());
+		final int length = pValue.getLength();
+		add(length);
+		switch (pValue.getKind()) {
+		  case BYTE:
+			digest.update(pValue.getBytes(), 0, length);
+			break;
+		  case INT:
+			final int[] ints = pValue.getInts();
+			for (int i = 0;  i < length;  i++) {
+				add(ints[i]);
+			}
+			break;
+		  case LONG:
+			final long[] longs = pValue.getLongs();
+			for (int i = 0;  i < length;  i++) {
+				add((int) (longs[i] >>> 32));
+				add((int) longs[i]);
+			}
+			break;
+		  case STRING:
+			final String[] strings = pValue.getStrings();
+			for (int i = 0;  i < length;  i++) {
+				add(strings[i]);
+			}
+			break;
+		  default:
+			throw new IllegalStateException("Invalid kind: " + pValue.getKind());
+		}
+	}
+
+	protected void addToken(@Nonnull Object pToken) {
+		if (pToken instanceof String) {
+			tag('s');
+			add((String) pToken);
+		} else if (pToken == Format.INC_INDENT) {
+			tag('>');
+		} else if (pToken == Format.DEC_INDENT) {
+			tag('<');
+		} else if (pToken == Format.INDENT) {
+			tag('_');
+		} else if (pToken == Format.NEWLINE) {
+			tag('n');
+		} else if (pToken instanceof Object[]) {
+			final Object[] array = (Object[]) pToken;
+			tag('(');
+			for (Object o : array) {
+				addToken(o);
+			}
+			tag(')');
+		} else if (pToken instanceof Iterable) {
+			tag('(');
+			for (Object o : (Iterable<?>) pToken) {
+				addToken(o);
+			}
+			tag(')');
+		} else if (pToken instanceof JQName) {
+			add((JQName) pToken);
+		} else if (pToken instanceof Field  &&  ((Field) pToken).isLazyStatic()) {
+			tag('g');
+			add(((Field) pToken).getLazyGetterName());
+			scopeDependent = true;
+		} else if (pToken instanceof IField) {
+			tag('v');
+			add(((IField<?>) pToken).getName());
+		} else if (pToken instanceof Throw) {
+			final Throw t = (Throw) pToken;
+			tag('t');
+			add(t.getType());
+			addToken(t.getConstructorArgs());
+		} else if (pToken instanceof Class) {
+			add(JQName.valueOf((Class<?>) pToken));
+		} else if (pToken instanceof ArrayInitializer) {
+			add((ArrayInitializer) pToken);
+		} else if (pToken instanceof Number) {
+			tag('#');
+			add(pToken.toString());
+		} else {
+			throw new IllegalStateException("Invalid object type: " + pToken.getClass().getName());
+		}
+	}
+}
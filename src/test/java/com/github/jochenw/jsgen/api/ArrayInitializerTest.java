@@ -0,0 +1,95 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+
+
+public class ArrayInitializerTest {
+	private static final String EXPECT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Tables {\n" +
+			"    private static final int[] INTS = {\n" +
+			"        0, 1, 4,\n" +
+			"        9, 16\n" +
+			"    };\n" +
+			"    private static final long[] LONGS = {\n" +
+			"        -1L, 9223372036854775807L\n" +
+			"    };\n" +
+			"    private static final byte[] BYTES = {\n" +
+			"        -128, 0, 127\n" +
+			"    };\n" +
+			"    private static final int[] EMPTY = {};\n" +
+			"}\n";
+
+	@Test
+	public void testArrayInitializers() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Tables").makePublic();
+		jsb.newField(JQName.INT_TYPE.arrayOf(), "INTS").makePrivate().makeStatic().makeFinal()
+			.assign(ArrayInitializer.of(IntStream.range(0, 5).map((i) -> i*i).iterator()).valuesPerRow(3));
+		jsb.newField(JQName.LONG_TYPE.arrayOf(), "LONGS").makePrivate().makeStatic().makeFinal()
+			.assign(new long[] {-1L, Long.MAX_VALUE});
+		jsb.newField(JQName.BYTE_TYPE.arrayOf(), "BYTES").makePrivate().makeStatic().makeFinal()
+			.assign(new byte[] {Byte.MIN_VALUE, 0, Byte.MAX_VALUE});
+		jsb.newField(JQName.INT_TYPE.arrayOf(), "EMPTY").makePrivate().makeStatic().makeFinal()
+			.assign(IntStream.empty());
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		assertEquals(EXPECT, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testStringArrays() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Tables").makePublic();
+		jsb.newField(JQName.STRING.arrayOf(), "NAMES").makePrivate().makeStatic().makeFinal()
+			.assignStrings("a", "b");
+		// A string array, which is passed to assign(), is still a list of code tokens.
+		final String[] tokens = {"new java.util.ArrayList<>(", "16", ")"};
+		jsb.newField(JQName.valueOf("java.util.List"), "list").makePrivate().makeFinal()
+			.assign((Object[]) tokens);
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		final String source = new String(baos.toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(source, source.contains(" NAMES = {\n        \"a\", \"b\"\n    };\n"));
+		assertTrue(source, source.contains("    private final List list = new java.util.ArrayList<>(16);\n"));
+	}
+}
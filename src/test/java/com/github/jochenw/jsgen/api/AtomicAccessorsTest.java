@@ -0,0 +1,389 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.Field.AtomicAccess;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class AtomicAccessorsTest {
+	private static final String EXPECT_FIELD_UPDATER_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.concurrent.atomic.AtomicLongFieldUpdater;\n" +
+			"\n" +
+			"public class Counter {\n" +
+			"    private static final java.util.concurrent.atomic.AtomicLongFieldUpdater<Counter> COUNT_UPDATER = AtomicLongFieldUpdater.newUpdater(Counter.class, \"count\");\n" +
+			"    private volatile long count;\n" +
+			"    private boolean compareAndSetCount(long pExpect, long pUpdate) {\n" +
+			"        return COUNT_UPDATER.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private long getAndSetCount(long pValue) {\n" +
+			"        return COUNT_UPDATER.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetCount(long pValue) {\n" +
+			"        COUNT_UPDATER.lazySet(this, pValue);\n" +
+			"    }\n" +
+			"    private long getAndAddCount(long pDelta) {\n" +
+			"        return COUNT_UPDATER.getAndAdd(this, pDelta);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_FIELD_UPDATER_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.concurrent.atomic.AtomicLongFieldUpdater;\n" +
+			"\n" +
+			"public class Counter\n" +
+			"{\n" +
+			"    private static final java.util.concurrent.atomic.AtomicLongFieldUpdater<Counter> COUNT_UPDATER = AtomicLongFieldUpdater.newUpdater(Counter.class, \"count\");\n" +
+			"    private volatile long count;\n" +
+			"    private boolean compareAndSetCount( long pExpect, long pUpdate ) \n" +
+			"    {\n" +
+			"        return COUNT_UPDATER.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private long getAndSetCount( long pValue ) \n" +
+			"    {\n" +
+			"        return COUNT_UPDATER.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetCount( long pValue ) \n" +
+			"    {\n" +
+			"        COUNT_UPDATER.lazySet(this, pValue);\n" +
+			"    }\n" +
+			"    private long getAndAddCount( long pDelta ) \n" +
+			"    {\n" +
+			"        return COUNT_UPDATER.getAndAdd(this, pDelta);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_VAR_HANDLE_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.invoke.MethodHandles;\n" +
+			"import java.lang.invoke.VarHandle;\n" +
+			"\n" +
+			"public class Counter {\n" +
+			"    private static final VarHandle HITS_HANDLE = hits$handle();\n" +
+			"    private volatile int hits;\n" +
+			"    private static VarHandle hits$handle() {\n" +
+			"        try {\n" +
+			"            return MethodHandles.lookup().findVarHandle(Counter.class, \"hits\", int.class);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private boolean compareAndSetHits(int pExpect, int pUpdate) {\n" +
+			"        return HITS_HANDLE.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private int getAndSetHits(int pValue) {\n" +
+			"        return (int) HITS_HANDLE.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetHits(int pValue) {\n" +
+			"        HITS_HANDLE.setRelease(this, pValue);\n" +
+			"    }\n" +
+			"    private int getAndAddHits(int pDelta) {\n" +
+			"        return (int) HITS_HANDLE.getAndAdd(this, pDelta);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_VAR_HANDLE_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.invoke.MethodHandles;\n" +
+			"import java.lang.invoke.VarHandle;\n" +
+			"\n" +
+			"public class Counter\n" +
+			"{\n" +
+			"    private static final VarHandle HITS_HANDLE = hits$handle();\n" +
+			"    private volatile int hits;\n" +
+			"    private static VarHandle hits$handle(  ) \n" +
+			"    {\n" +
+			"        try \n" +
+			"        {\n" +
+			"            return MethodHandles.lookup().findVarHandle(Counter.class, \"hits\", int.class);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) \n" +
+			"        {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private boolean compareAndSetHits( int pExpect, int pUpdate ) \n" +
+			"    {\n" +
+			"        return HITS_HANDLE.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private int getAndSetHits( int pValue ) \n" +
+			"    {\n" +
+			"        return (int) HITS_HANDLE.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetHits( int pValue ) \n" +
+			"    {\n" +
+			"        HITS_HANDLE.setRelease(this, pValue);\n" +
+			"    }\n" +
+			"    private int getAndAddHits( int pDelta ) \n" +
+			"    {\n" +
+			"        return (int) HITS_HANDLE.getAndAdd(this, pDelta);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_ARRAYS_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.invoke.MethodHandles;\n" +
+			"import java.lang.invoke.VarHandle;\n" +
+			"import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;\n" +
+			"\n" +
+			"public class Buffers {\n" +
+			"    private static final java.util.concurrent.atomic.AtomicReferenceFieldUpdater<Buffers,int[]> INTS_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Buffers.class, int[].class, \"ints\");\n" +
+			"    private volatile int[] ints;\n" +
+			"    private boolean compareAndSetInts(int[] pExpect, int[] pUpdate) {\n" +
+			"        return INTS_UPDATER.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private int[] getAndSetInts(int[] pValue) {\n" +
+			"        return INTS_UPDATER.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetInts(int[] pValue) {\n" +
+			"        INTS_UPDATER.lazySet(this, pValue);\n" +
+			"    }\n" +
+			"    private static final VarHandle FLAGS_HANDLE = flags$handle();\n" +
+			"    private volatile boolean[] flags;\n" +
+			"    private static VarHandle flags$handle() {\n" +
+			"        try {\n" +
+			"            return MethodHandles.lookup().findVarHandle(Buffers.class, \"flags\", boolean[].class);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private boolean compareAndSetFlags(boolean[] pExpect, boolean[] pUpdate) {\n" +
+			"        return FLAGS_HANDLE.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private boolean[] getAndSetFlags(boolean[] pValue) {\n" +
+			"        return (boolean[]) FLAGS_HANDLE.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetFlags(boolean[] pValue) {\n" +
+			"        FLAGS_HANDLE.setRelease(this, pValue);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_ARRAYS_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.invoke.MethodHandles;\n" +
+			"import java.lang.invoke.VarHandle;\n" +
+			"import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;\n" +
+			"\n" +
+			"public class Buffers\n" +
+			"{\n" +
+			"    private static final java.util.concurrent.atomic.AtomicReferenceFieldUpdater<Buffers,int[]> INTS_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Buffers.class, int[].class, \"ints\");\n" +
+			"    private volatile int[] ints;\n" +
+			"    private boolean compareAndSetInts( int[] pExpect, int[] pUpdate ) \n" +
+			"    {\n" +
+			"        return INTS_UPDATER.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private int[] getAndSetInts( int[] pValue ) \n" +
+			"    {\n" +
+			"        return INTS_UPDATER.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetInts( int[] pValue ) \n" +
+			"    {\n" +
+			"        INTS_UPDATER.lazySet(this, pValue);\n" +
+			"    }\n" +
+			"    private static final VarHandle FLAGS_HANDLE = flags$handle();\n" +
+			"    private volatile boolean[] flags;\n" +
+			"    private static VarHandle flags$handle(  ) \n" +
+			"    {\n" +
+			"        try \n" +
+			"        {\n" +
+			"            return MethodHandles.lookup().findVarHandle(Buffers.class, \"flags\", boolean[].class);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) \n" +
+			"        {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private boolean compareAndSetFlags( boolean[] pExpect, boolean[] pUpdate ) \n" +
+			"    {\n" +
+			"        return FLAGS_HANDLE.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private boolean[] getAndSetFlags( boolean[] pValue ) \n" +
+			"    {\n" +
+			"        return (boolean[]) FLAGS_HANDLE.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetFlags( boolean[] pValue ) \n" +
+			"    {\n" +
+			"        FLAGS_HANDLE.setRelease(this, pValue);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_GENERIC_OWNER_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.invoke.MethodHandles;\n" +
+			"import java.lang.invoke.VarHandle;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;\n" +
+			"\n" +
+			"public class UBox {\n" +
+			"    private static final java.util.concurrent.atomic.AtomicReferenceFieldUpdater<UBox,String> LABEL_UPDATER = AtomicReferenceFieldUpdater.newUpdater(UBox.class, String.class, \"label\");\n" +
+			"    private volatile String label;\n" +
+			"    private boolean compareAndSetLabel(String pExpect, String pUpdate) {\n" +
+			"        return LABEL_UPDATER.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private String getAndSetLabel(String pValue) {\n" +
+			"        return LABEL_UPDATER.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetLabel(String pValue) {\n" +
+			"        LABEL_UPDATER.lazySet(this, pValue);\n" +
+			"    }\n" +
+			"    private static final VarHandle HITS_HANDLE = hits$handle();\n" +
+			"    private volatile int hits;\n" +
+			"    private static VarHandle hits$handle() {\n" +
+			"        try {\n" +
+			"            return MethodHandles.lookup().findVarHandle(UBox.class, \"hits\", int.class);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private boolean compareAndSetHits(int pExpect, int pUpdate) {\n" +
+			"        return HITS_HANDLE.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private int getAndSetHits(int pValue) {\n" +
+			"        return (int) HITS_HANDLE.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetHits(int pValue) {\n" +
+			"        HITS_HANDLE.setRelease(this, pValue);\n" +
+			"    }\n" +
+			"    private int getAndAddHits(int pDelta) {\n" +
+			"        return (int) HITS_HANDLE.getAndAdd(this, pDelta);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_GENERIC_OWNER_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.invoke.MethodHandles;\n" +
+			"import java.lang.invoke.VarHandle;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;\n" +
+			"\n" +
+			"public class UBox\n" +
+			"{\n" +
+			"    private static final java.util.concurrent.atomic.AtomicReferenceFieldUpdater<UBox,String> LABEL_UPDATER = AtomicReferenceFieldUpdater.newUpdater(UBox.class, String.class, \"label\");\n" +
+			"    private volatile String label;\n" +
+			"    private boolean compareAndSetLabel( String pExpect, String pUpdate ) \n" +
+			"    {\n" +
+			"        return LABEL_UPDATER.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private String getAndSetLabel( String pValue ) \n" +
+			"    {\n" +
+			"        return LABEL_UPDATER.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetLabel( String pValue ) \n" +
+			"    {\n" +
+			"        LABEL_UPDATER.lazySet(this, pValue);\n" +
+			"    }\n" +
+			"    private static final VarHandle HITS_HANDLE = hits$handle();\n" +
+			"    private volatile int hits;\n" +
+			"    private static VarHandle hits$handle(  ) \n" +
+			"    {\n" +
+			"        try \n" +
+			"        {\n" +
+			"            return MethodHandles.lookup().findVarHandle(UBox.class, \"hits\", int.class);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) \n" +
+			"        {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private boolean compareAndSetHits( int pExpect, int pUpdate ) \n" +
+			"    {\n" +
+			"        return HITS_HANDLE.compareAndSet(this, pExpect, pUpdate);\n" +
+			"    }\n" +
+			"    private int getAndSetHits( int pValue ) \n" +
+			"    {\n" +
+			"        return (int) HITS_HANDLE.getAndSet(this, pValue);\n" +
+			"    }\n" +
+			"    private void lazySetHits( int pValue ) \n" +
+			"    {\n" +
+			"        HITS_HANDLE.setRelease(this, pValue);\n" +
+			"    }\n" +
+			"    private int getAndAddHits( int pDelta ) \n" +
+			"    {\n" +
+			"        return (int) HITS_HANDLE.getAndAdd(this, pDelta);\n" +
+			"    }\n" +
+			"}\n";
+
+	private JSGFactory newFieldUpdater() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Counter").makePublic();
+		jsb.newField(JQName.LONG_TYPE, "count", Protection.PRIVATE).atomicAccessors();
+		return factory;
+	}
+
+	private JSGFactory newVarHandle() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Counter").makePublic();
+		jsb.newField(JQName.INT_TYPE, "hits", Protection.PRIVATE).atomicAccessors(AtomicAccess.VAR_HANDLE);
+		return factory;
+	}
+
+	private JSGFactory newArrays() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Buffers").makePublic();
+		jsb.newField(JQName.INT_TYPE.arrayOf(), "ints", Protection.PRIVATE).atomicAccessors();
+		jsb.newField(JQName.BOOLEAN_TYPE.arrayOf(), "flags", Protection.PRIVATE).atomicAccessors(AtomicAccess.VAR_HANDLE);
+		return factory;
+	}
+
+	private JSGFactory newGenericOwner() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource(JQName.valueOf("com.foo.myapp.UBox").qualifiedBy("T")).makePublic();
+		jsb.newField(JQName.STRING, "label", Protection.PRIVATE).atomicAccessors();
+		jsb.newField(JQName.INT_TYPE, "hits", Protection.PRIVATE).atomicAccessors(AtomicAccess.VAR_HANDLE);
+		return factory;
+	}
+
+	@Test
+	public void testFieldUpdater() {
+		assertEquals(EXPECT_FIELD_UPDATER_DEFAULT, SourceRenderer.render(newFieldUpdater()));
+		assertEquals(EXPECT_FIELD_UPDATER_MAVEN, SourceRenderer.render(newFieldUpdater(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testVarHandle() {
+		assertEquals(EXPECT_VAR_HANDLE_DEFAULT, SourceRenderer.render(newVarHandle()));
+		assertEquals(EXPECT_VAR_HANDLE_MAVEN, SourceRenderer.render(newVarHandle(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testArrays() {
+		assertEquals(EXPECT_ARRAYS_DEFAULT, SourceRenderer.render(newArrays()));
+		assertEquals(EXPECT_ARRAYS_MAVEN, SourceRenderer.render(newArrays(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testGenericOwner() {
+		assertEquals(EXPECT_GENERIC_OWNER_DEFAULT, SourceRenderer.render(newGenericOwner()));
+		assertEquals(EXPECT_GENERIC_OWNER_MAVEN, SourceRenderer.render(newGenericOwner(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testStaticField() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Counter").makePublic();
+		jsb.newField(JQName.LONG_TYPE, "count").makeStatic().atomicAccessors();
+	}
+}
@@ -49,7 +49,7 @@ public class JQStaticInitializerTest {
 			+ "\n"
 			+ "public class Foo {\n"
 			+ "    private static final String PACKAGE;\n"
-			+ "    {\n"
+			+ "    static {\n"
 			+ "        final String className = Foo.class.getName();\n"
 			+ "        final int index = className.lastIndexOf('.');\n"
 			+ "        if (index == -1) {\n"
@@ -73,7 +73,7 @@ public class JQStaticInitializerTest {
 			+ "public class Foo\n"
 			+ "{\n"
 			+ "    private static final String PACKAGE;\n"
-			+ "    \n"
+			+ "    static\n"
 			+ "    {\n"
 			+ "        final String className = Foo.class.getName();\n"
 			+ "        final int index = className.lastIndexOf('.');\n"
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+
+
+public class LazyStaticFieldTest {
+	private static final String EXPECT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Tables {\n" +
+			"    private static class PrimesHolder {\n" +
+			"        static final int[] PRIMES = {\n" +
+			"            2, 3, 5, 7\n" +
+			"        };\n" +
+			"    }\n" +
+			"    public static int[] getPrimes() {\n" +
+			"        return PrimesHolder.PRIMES;\n" +
+			"    }\n" +
+			"    public static int numPrimes() {\n" +
+			"        return getPrimes().length;\n" +
+			"    }\n" +
+			"}\n";
+
+	@Test
+	public void testLazyStatic() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Tables").makePublic();
+		final Field primes = jsb.newField(JQName.INT_TYPE.arrayOf(), "PRIMES", Protection.PUBLIC)
+				.makeStatic().makeFinal().lazyStatic().assign(new int[] {2, 3, 5, 7});
+		assertTrue(primes.isLazyStatic());
+		assertEquals("getPrimes", primes.getLazyGetterName());
+		assertSame(jsb.getInnerClass("PrimesHolder"), primes.getSourceClass());
+		jsb.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "numPrimes").makeStatic()
+			.body().tline("return ", primes, ".length");
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		assertEquals(EXPECT, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testLazyStaticTwice() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Tables").makePublic();
+		jsb.newField(JQName.INT_TYPE, "count").lazyStatic().lazyStatic();
+	}
+}
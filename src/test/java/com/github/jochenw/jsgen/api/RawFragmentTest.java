@@ -0,0 +1,70 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+
+
+public class RawFragmentTest {
+	private static final String EXPECT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.ArrayList;\n" +
+			"import java.util.List;\n" +
+			"\n" +
+			"public class Raw {\n" +
+			"    public int getSize() {\n" +
+			"        final List<String> list = new ArrayList<>();\n" +
+			"        for (int i = 0;  i < 3;  i++) {\n" +
+			"            list.add(String.valueOf(i));\n" +
+			"        }\n" +
+			"\n" +
+			"        return list.size();\n" +
+			"    }\n" +
+			"}\n";
+
+	@Test
+	public void testRawFragment() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Raw").makePublic();
+		final JQName list = JQName.valueOf(java.util.List.class);
+		jsb.newMethod(JQName.INT_TYPE, "getSize").makePublic()
+			.body().raw("final List<String> list = new ArrayList<>();\r\n"
+					+ "for (int i = 0;  i < 3;  i++) {\n"
+					+ "    list.add(String.valueOf(i));\n"
+					+ "}\n"
+					+ "\n"
+					+ "return list.size();", list, JQName.valueOf(java.util.ArrayList.class));
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		assertEquals(EXPECT, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.annotation.ElementType;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+import com.github.jochenw.jsgen.impl.StructuralHash;
+
+
+public class SwitchBlockTest {
+	private static final String EXPECT_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Switch {\n" +
+			"    public int rank(int pValue) {\n" +
+			"        switch (pValue) {\n" +
+			"        case 1:\n" +
+			"        case 2:\n" +
+			"            return 0;\n" +
+			"        case 3:\n" +
+			"            return 1;\n" +
+			"        default:\n" +
+			"            return 2;\n" +
+			"        }\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Switch\n" +
+			"{\n" +
+			"    public int rank( int pValue ) \n" +
+			"    {\n" +
+			"        switch ( pValue )\n" +
+			"        {\n" +
+			"            case 1:\n" +
+			"            case 2:\n" +
+			"                return 0;\n" +
+			"            case 3:\n" +
+			"                return 1;\n" +
+			"            default:\n" +
+			"                return 2;\n" +
+			"        }\n" +
+			"    }\n" +
+			"}\n";
+
+	private JSGFactory newFactory() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Switch").makePublic();
+		final Method mth = jsb.newMethod(JQName.INT_TYPE, "rank").makePublic();
+		mth.parameter(JQName.INT_TYPE, "pValue");
+		final SwitchBlock sw = mth.body().newSwitch("pValue");
+		sw.newCase(1, 2).tline("return 0");
+		sw.newCase(3).tline("return 1");
+		sw.newDefault().tline("return 2");
+		return factory;
+	}
+
+	@Test
+	public void testDefaultFormat() {
+		assertEquals(EXPECT_DEFAULT, SourceRenderer.render(newFactory()));
+	}
+
+	@Test
+	public void testMavenFormat() {
+		assertEquals(EXPECT_MAVEN, SourceRenderer.render(newFactory(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testLabelTypes() {
+		final SwitchBlock stringSwitch = new SwitchBlock().expression("s");
+		stringSwitch.newCase("a", "b");
+		assertSame(String.class, stringSwitch.getLabelType());
+		final SwitchBlock enumSwitch = new SwitchBlock().expression("e");
+		enumSwitch.newCase(ElementType.FIELD, ElementType.METHOD);
+		assertSame(ElementType.class, enumSwitch.getLabelType());
+		assertTrue(enumSwitch.isTableSwitch());
+		try {
+			enumSwitch.newCase(1);
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			// Okay
+		}
+	}
+
+	@Test
+	public void testGeneratedEnumLabels() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source color = factory.newSource("com.foo.myapp.Color").makePublic().makeEnum();
+		color.newEnumConstant("RED");
+		color.newEnumConstant("GREEN");
+		color.newEnumConstant("BLUE");
+		final Source jsb = factory.newSource("com.foo.myapp.Switch").makePublic();
+		final Method mth = jsb.newMethod(JQName.BOOLEAN_TYPE, "isRed").makePublic();
+		mth.parameter(color.getType(), "pColor");
+		final SwitchBlock sw = mth.body().newSwitch("pColor");
+		sw.newCase(color.getType(), "RED").tline("return true");
+		sw.newCase(color.getType(), "GREEN", "BLUE").tline("return false");
+		sw.newDefault().tline("throw new IllegalStateException()");
+		assertSame(SwitchBlock.EnumLabel.class, sw.getLabelType());
+		assertEquals(color.getType(), sw.getEnumLabelType());
+		assertTrue(sw.isTableSwitch());
+		try {
+			sw.newCase(color.getType(), "RED");
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			// Okay, duplicate label
+		}
+		try {
+			sw.newCase(JQName.valueOf("com.foo.myapp.Shape"), "CIRCLE");
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			// Okay, different enum type
+		}
+		final String source = SourceRenderer.render(factory);
+		assertTrue(source, source.contains("        switch (pColor) {\n"
+				+ "        case RED:\n"
+				+ "            return true;\n"
+				+ "        case GREEN:\n"
+				+ "        case BLUE:\n"
+				+ "            return false;\n"));
+
+		final SwitchBlock sw1 = new SwitchBlock().expression("c");
+		sw1.newCase(color.getType(), "RED").tline("return 1");
+		final SwitchBlock sw2 = new SwitchBlock().expression("c");
+		sw2.newCase(color.getType(), "RED").tline("return 1");
+		final SwitchBlock sw3 = new SwitchBlock().expression("c");
+		sw3.newCase(color.getType(), "GREEN").tline("return 1");
+		assertEquals(StructuralHash.of(sw1), StructuralHash.of(sw2));
+		assertNotEquals(StructuralHash.of(sw1), StructuralHash.of(sw3));
+	}
+
+	@Test
+	public void testTableSwitch() {
+		assertTrue(SwitchBlock.isTableSwitch(new int[] {1, 2, 3}));
+		assertTrue(SwitchBlock.isTableSwitch(new int[] {1, 2, 3, 5, 6, 8}));
+		assertFalse(SwitchBlock.isTableSwitch(new int[] {1, 1000, 100000}));
+		final SwitchBlock sw = new SwitchBlock().expression("i");
+		sw.newCase(1, 1000);
+		sw.newCase(100000);
+		assertFalse(sw.isTableSwitch());
+	}
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class BeanMapperGeneratorTest {
+	private static final String EXPECT_MAPPER_DEFAULT = "package com.foo.myapp.dto;\n" +
+			"\n" +
+			"import java.lang.Long;\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public class UserDto {\n" +
+			"    public String name;\n" +
+			"    public int age;\n" +
+			"    public int score;\n" +
+			"    public String created;\n" +
+			"    public Long id;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.time.Instant;\n" +
+			"\n" +
+			"import com.foo.myapp.dto.UserDto;\n" +
+			"import com.foo.myapp.entity.User;\n" +
+			"\n" +
+			"// Maps instances of UserDto to User.\n" +
+			"public final class UserMapper {\n" +
+			"    private UserMapper() {\n" +
+			"    }\n" +
+			"    public static void copy(UserDto pSource, User pTarget) {\n" +
+			"        pTarget.setName(pSource.name);\n" +
+			"        pTarget.age = pSource.age;\n" +
+			"        pTarget.score = (double) pSource.score;\n" +
+			"        pTarget.created = Instant.parse(pSource.created);\n" +
+			"        pTarget.id = pSource.id;\n" +
+			"    }\n" +
+			"    public static User toUser(UserDto pSource) {\n" +
+			"        if (pSource == null) {\n" +
+			"            return null;\n" +
+			"        }\n" +
+			"        final User target = new User();\n" +
+			"        copy(pSource, target);\n" +
+			"        return target;\n" +
+			"    }\n" +
+			"    public static void copy(User pSource, UserDto pTarget) {\n" +
+			"        pTarget.name = pSource.getName();\n" +
+			"        pTarget.id = pSource.id;\n" +
+			"    }\n" +
+			"    public static UserDto toUserDto(User pSource) {\n" +
+			"        if (pSource == null) {\n" +
+			"            return null;\n" +
+			"        }\n" +
+			"        final UserDto target = new UserDto();\n" +
+			"        copy(pSource, target);\n" +
+			"        return target;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp.entity;\n" +
+			"\n" +
+			"import java.lang.Double;\n" +
+			"import java.lang.String;\n" +
+			"import java.time.Instant;\n" +
+			"\n" +
+			"public class User {\n" +
+			"    private String name;\n" +
+			"    public String getName() {\n" +
+			"        return name;\n" +
+			"    }\n" +
+			"    public void setName(String pName) {\n" +
+			"        name = pName;\n" +
+			"    }\n" +
+			"    public long age;\n" +
+			"    public Double score;\n" +
+			"    public Instant created;\n" +
+			"    public long id;\n" +
+			"    public int version;\n" +
+			"}\n";
+
+	private static final String EXPECT_MAPPER_MAVEN = "package com.foo.myapp.dto;\n" +
+			"\n" +
+			"import java.lang.Long;\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public class UserDto\n" +
+			"{\n" +
+			"    public String name;\n" +
+			"    public int age;\n" +
+			"    public int score;\n" +
+			"    public String created;\n" +
+			"    public Long id;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.time.Instant;\n" +
+			"\n" +
+			"import com.foo.myapp.dto.UserDto;\n" +
+			"import com.foo.myapp.entity.User;\n" +
+			"\n" +
+			"// Maps instances of UserDto to User.\n" +
+			"public final class UserMapper\n" +
+			"{\n" +
+			"    private UserMapper(  ) \n" +
+			"    {\n" +
+			"    }\n" +
+			"    public static void copy( UserDto pSource, User pTarget ) \n" +
+			"    {\n" +
+			"        pTarget.setName(pSource.name);\n" +
+			"        pTarget.age = pSource.age;\n" +
+			"        pTarget.score = (double) pSource.score;\n" +
+			"        pTarget.created = Instant.parse(pSource.created);\n" +
+			"        pTarget.id = pSource.id;\n" +
+			"    }\n" +
+			"    public static User toUser( UserDto pSource ) \n" +
+			"    {\n" +
+			"        if ( pSource == null )\n" +
+			"        {\n" +
+			"            return null;\n" +
+			"        }\n" +
+			"        final User target = new User();\n" +
+			"        copy(pSource, target);\n" +
+			"        return target;\n" +
+			"    }\n" +
+			"    public static void copy( User pSource, UserDto pTarget ) \n" +
+			"    {\n" +
+			"        pTarget.name = pSource.getName();\n" +
+			"        pTarget.id = pSource.id;\n" +
+			"    }\n" +
+			"    public static UserDto toUserDto( User pSource ) \n" +
+			"    {\n" +
+			"        if ( pSource == null )\n" +
+			"        {\n" +
+			"            return null;\n" +
+			"        }\n" +
+			"        final UserDto target = new UserDto();\n" +
+			"        copy(pSource, target);\n" +
+			"        return target;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp.entity;\n" +
+			"\n" +
+			"import java.lang.Double;\n" +
+			"import java.lang.String;\n" +
+			"import java.time.Instant;\n" +
+			"\n" +
+			"public class User\n" +
+			"{\n" +
+			"    private String name;\n" +
+			"    public String getName(  ) \n" +
+			"    {\n" +
+			"        return name;\n" +
+			"    }\n" +
+			"    public void setName( String pName ) \n" +
+			"    {\n" +
+			"        name = pName;\n" +
+			"    }\n" +
+			"    public long age;\n" +
+			"    public Double score;\n" +
+			"    public Instant created;\n" +
+			"    public long id;\n" +
+			"    public int version;\n" +
+			"}\n";
+
+	private static final JQName INSTANT = JQName.valueOf("java.time.Instant");
+
+	private Source newDto(JSGFactory pFactory) {
+		final Source dto = pFactory.newSource("com.foo.myapp.dto.UserDto").makePublic();
+		dto.newField(JQName.STRING, "name", Protection.PUBLIC);
+		dto.newField(JQName.INT_TYPE, "age", Protection.PUBLIC);
+		dto.newField(JQName.INT_TYPE, "score", Protection.PUBLIC);
+		dto.newField(JQName.STRING, "created", Protection.PUBLIC);
+		dto.newField(JQName.LONG_OBJ, "id", Protection.PUBLIC);
+		return dto;
+	}
+
+	private Source newEntity(JSGFactory pFactory) {
+		final Source entity = pFactory.newSource("com.foo.myapp.entity.User").makePublic();
+		entity.newField(JQName.STRING, "name", Protection.PRIVATE);
+		entity.newMethod(Protection.PUBLIC, JQName.STRING, "getName").body().tline("return name");
+		final Method setName = entity.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "setName");
+		setName.parameter(JQName.STRING, "pName");
+		setName.body().tline("name = pName");
+		entity.newField(JQName.LONG_TYPE, "age", Protection.PUBLIC);
+		entity.newField(JQName.DOUBLE_OBJ, "score", Protection.PUBLIC);
+		entity.newField(INSTANT, "created", Protection.PUBLIC);
+		entity.newField(JQName.LONG_TYPE, "id", Protection.PUBLIC);
+		entity.newField(JQName.INT_TYPE, "version", Protection.PUBLIC);
+		return entity;
+	}
+
+	private JSGFactory newMapper() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source dto = newDto(factory);
+		final Source entity = newEntity(factory);
+		final BeanMapperGenerator generator = new BeanMapperGenerator();
+		generator.addConverter(JQName.STRING, INSTANT, INSTANT, "parse");
+		final Source mapper = generator.generate(factory, JQName.valueOf("com.foo.myapp.UserMapper"), dto, entity);
+		generator.addMapping(mapper, entity, dto);
+		return factory;
+	}
+
+	@Test
+	public void testGenerate() {
+		assertEquals(EXPECT_MAPPER_DEFAULT, SourceRenderer.render(newMapper()));
+		assertEquals(EXPECT_MAPPER_MAVEN, SourceRenderer.render(newMapper(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testStrict() {
+		final JSGFactory factory = JSGFactory.create();
+		final BeanMapperGenerator generator = new BeanMapperGenerator();
+		generator.setStrict(true);
+		try {
+			generator.generate(factory, JQName.valueOf("com.foo.myapp.UserMapper"), newDto(factory), newEntity(factory));
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("Unable to map field created of com.foo.myapp.entity.User from com.foo.myapp.dto.UserDto",
+					e.getMessage());
+		}
+	}
+}
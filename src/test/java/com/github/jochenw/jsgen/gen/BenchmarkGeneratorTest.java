@@ -0,0 +1,189 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class BenchmarkGeneratorTest {
+	private static final String EXPECT_BENCHMARK_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Exception;\n" +
+			"import java.lang.Long;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.concurrent.TimeUnit;\n" +
+			"import java.util.Random;\n" +
+			"import java.util.UUID;\n" +
+			"\n" +
+			"import com.foo.myapp.Codec;\n" +
+			"\n" +
+			"import org.openjdk.jmh.annotations.Benchmark;\n" +
+			"import org.openjdk.jmh.annotations.BenchmarkMode;\n" +
+			"import org.openjdk.jmh.annotations.Mode;\n" +
+			"import org.openjdk.jmh.annotations.OutputTimeUnit;\n" +
+			"import org.openjdk.jmh.annotations.Param;\n" +
+			"import org.openjdk.jmh.annotations.Scope;\n" +
+			"import org.openjdk.jmh.annotations.Setup;\n" +
+			"import org.openjdk.jmh.annotations.State;\n" +
+			"\n" +
+			"// JMH benchmarks for Codec.\n" +
+			"@OutputTimeUnit(value=TimeUnit.NANOSECONDS) @State(value=Scope.Thread) @BenchmarkMode(value=Mode.AverageTime)\n" +
+			"public class CodecBenchmark {\n" +
+			"    @Param(value={\"16\", \"1024\"})\n" +
+			"    public int size;\n" +
+			"    private Codec target;\n" +
+			"    private byte[] encode_pBytes;\n" +
+			"    private Long encode_pSeed;\n" +
+			"    private String encode_1_pValue;\n" +
+			"    private UUID hash_pId;\n" +
+			"    @Setup\n" +
+			"    public void setup() {\n" +
+			"        final Random random = new Random(42);\n" +
+			"        target = new Codec();\n" +
+			"        encode_pBytes = new byte[size];\n" +
+			"        random.nextBytes(encode_pBytes);\n" +
+			"        encode_pSeed = random.nextLong();\n" +
+			"        encode_1_pValue = random.ints(size, 'a', 'z' + 1).collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();\n" +
+			"        hash_pId = UUID.randomUUID();\n" +
+			"    }\n" +
+			"    @Benchmark\n" +
+			"    public int encode() {\n" +
+			"        return target.encode(encode_pBytes, encode_pSeed);\n" +
+			"    }\n" +
+			"    @Benchmark\n" +
+			"    public int encode_1() {\n" +
+			"        return target.encode(encode_1_pValue);\n" +
+			"    }\n" +
+			"    @Benchmark\n" +
+			"    public void hash() throws Exception {\n" +
+			"        Codec.hash(hash_pId);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_BENCHMARK_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Exception;\n" +
+			"import java.lang.Long;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.concurrent.TimeUnit;\n" +
+			"import java.util.Random;\n" +
+			"import java.util.UUID;\n" +
+			"\n" +
+			"import com.foo.myapp.Codec;\n" +
+			"\n" +
+			"import org.openjdk.jmh.annotations.Benchmark;\n" +
+			"import org.openjdk.jmh.annotations.BenchmarkMode;\n" +
+			"import org.openjdk.jmh.annotations.Mode;\n" +
+			"import org.openjdk.jmh.annotations.OutputTimeUnit;\n" +
+			"import org.openjdk.jmh.annotations.Param;\n" +
+			"import org.openjdk.jmh.annotations.Scope;\n" +
+			"import org.openjdk.jmh.annotations.Setup;\n" +
+			"import org.openjdk.jmh.annotations.State;\n" +
+			"\n" +
+			"// JMH benchmarks for Codec.\n" +
+			"@OutputTimeUnit(value=TimeUnit.NANOSECONDS) @State(value=Scope.Thread) @BenchmarkMode(value=Mode.AverageTime)\n" +
+			"public class CodecBenchmark\n" +
+			"{\n" +
+			"    @Param(value={\"16\", \"1024\"})\n" +
+			"    public int size;\n" +
+			"    private Codec target;\n" +
+			"    private byte[] encode_pBytes;\n" +
+			"    private Long encode_pSeed;\n" +
+			"    private String encode_1_pValue;\n" +
+			"    private UUID hash_pId;\n" +
+			"    @Setup\n" +
+			"    public void setup(  ) \n" +
+			"    {\n" +
+			"        final Random random = new Random(42);\n" +
+			"        target = new Codec();\n" +
+			"        encode_pBytes = new byte[size];\n" +
+			"        random.nextBytes(encode_pBytes);\n" +
+			"        encode_pSeed = random.nextLong();\n" +
+			"        encode_1_pValue = random.ints(size, 'a', 'z' + 1).collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();\n" +
+			"        hash_pId = UUID.randomUUID();\n" +
+			"    }\n" +
+			"    @Benchmark\n" +
+			"    public int encode(  ) \n" +
+			"    {\n" +
+			"        return target.encode(encode_pBytes, encode_pSeed);\n" +
+			"    }\n" +
+			"    @Benchmark\n" +
+			"    public int encode_1(  ) \n" +
+			"    {\n" +
+			"        return target.encode(encode_1_pValue);\n" +
+			"    }\n" +
+			"    @Benchmark\n" +
+			"    public void hash(  ) throws Exception \n" +
+			"    {\n" +
+			"        Codec.hash(hash_pId);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final JQName UUID = JQName.valueOf("java.util.UUID");
+
+	private JSGFactory newBenchmark() {
+		final JSGFactory codecFactory = JSGFactory.create();
+		final Source codec = codecFactory.newSource("com.foo.myapp.Codec").makePublic();
+		final Method encode = codec.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "encode");
+		encode.parameter(JQName.BYTE_TYPE.arrayOf(), "pBytes");
+		encode.parameter(JQName.LONG_OBJ, "pSeed");
+		final Method encode2 = codec.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "encode");
+		encode2.parameter(JQName.STRING, "pValue");
+		final Method hash = codec.newMethod(Protection.PACKAGE, JQName.VOID_TYPE, "hash").makeStatic()
+				.exception(JQName.valueOf("java.io.IOException"));
+		hash.parameter(UUID, "pId");
+		final BenchmarkGenerator generator = new BenchmarkGenerator();
+		generator.addValue(UUID, UUID, ".randomUUID()");
+		final JSGFactory factory = JSGFactory.create();
+		final Source benchmark = generator.generate(factory, codec, encode, encode2, hash);
+		assertEquals("com.foo.myapp.CodecBenchmark", benchmark.getType().getQName());
+		assertFalse(SourceRenderer.render(codecFactory).contains("jmh"));
+		return factory;
+	}
+
+	@Test
+	public void testGenerate() {
+		assertEquals(EXPECT_BENCHMARK_DEFAULT, SourceRenderer.render(newBenchmark()));
+		assertEquals(EXPECT_BENCHMARK_MAVEN, SourceRenderer.render(newBenchmark(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testMissingValue() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source codec = factory.newSource("com.foo.myapp.Codec").makePublic();
+		final Method hash = codec.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "hash").makeStatic();
+		hash.parameter(UUID, "pId");
+		try {
+			new BenchmarkGenerator().generate(JSGFactory.create(), codec, hash);
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("Unable to create a value of type java.util.UUID for the method hash of com.foo.myapp.Codec,"
+					+ " use addValue() to register a value.", e.getMessage());
+		}
+	}
+}
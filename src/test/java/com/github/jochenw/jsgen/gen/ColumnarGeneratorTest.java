@@ -0,0 +1,493 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class ColumnarGeneratorTest {
+	private static final String EXPECT_COLUMNS_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Trade {\n" +
+			"    public long id;\n" +
+			"    private double price;\n" +
+			"    public double getPrice() {\n" +
+			"        return price;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Iterable;\n" +
+			"import java.util.Arrays;\n" +
+			"\n" +
+			"import com.foo.myapp.Trade;\n" +
+			"\n" +
+			"// Columnar storage of Trade records.\n" +
+			"public class TradeColumns {\n" +
+			"    private int size;\n" +
+			"    private long[] id;\n" +
+			"    private double[] price;\n" +
+			"    public TradeColumns() {\n" +
+			"        this(16);\n" +
+			"    }\n" +
+			"    public TradeColumns(int pCapacity) {\n" +
+			"        id = new long[pCapacity];\n" +
+			"        price = new double[pCapacity];\n" +
+			"    }\n" +
+			"    public int size() {\n" +
+			"        return size;\n" +
+			"    }\n" +
+			"    public int capacity() {\n" +
+			"        return id.length;\n" +
+			"    }\n" +
+			"    public void clear() {\n" +
+			"        size = 0;\n" +
+			"    }\n" +
+			"    public void ensureCapacity(int pCapacity) {\n" +
+			"        if (pCapacity > id.length) {\n" +
+			"            final int newCapacity = Math.max(pCapacity, 2 * id.length);\n" +
+			"            id = Arrays.copyOf(id, newCapacity);\n" +
+			"            price = Arrays.copyOf(price, newCapacity);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public long getId(int pIndex) {\n" +
+			"        return id[pIndex];\n" +
+			"    }\n" +
+			"    public void setId(int pIndex, long pValue) {\n" +
+			"        id[pIndex] = pValue;\n" +
+			"    }\n" +
+			"    /** Returns the backing array. Valid indexes are 0 .. size()-1.\n" +
+			"      */\n" +
+			"    public long[] getIdColumn() {\n" +
+			"        return id;\n" +
+			"    }\n" +
+			"    public double getPrice(int pIndex) {\n" +
+			"        return price[pIndex];\n" +
+			"    }\n" +
+			"    public void setPrice(int pIndex, double pValue) {\n" +
+			"        price[pIndex] = pValue;\n" +
+			"    }\n" +
+			"    /** Returns the backing array. Valid indexes are 0 .. size()-1.\n" +
+			"      */\n" +
+			"    public double[] getPriceColumn() {\n" +
+			"        return price;\n" +
+			"    }\n" +
+			"    public int add(long pId, double pPrice) {\n" +
+			"        ensureCapacity(size + 1);\n" +
+			"        id[size] = pId;\n" +
+			"        price[size] = pPrice;\n" +
+			"        return size++;\n" +
+			"    }\n" +
+			"    public void addAll(TradeColumns pColumns) {\n" +
+			"        final int newSize = size + pColumns.size;\n" +
+			"        ensureCapacity(newSize);\n" +
+			"        System.arraycopy(pColumns.id, 0, id, size, pColumns.size);\n" +
+			"        System.arraycopy(pColumns.price, 0, price, size, pColumns.size);\n" +
+			"        size = newSize;\n" +
+			"    }\n" +
+			"    public int add(Trade pRecord) {\n" +
+			"        return add(pRecord.id, pRecord.getPrice());\n" +
+			"    }\n" +
+			"    public void addAll(Iterable<? extends Trade> pRecords) {\n" +
+			"        for (final Trade record : pRecords) {\n" +
+			"            add(record);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    /* A cursor, which iterates over the records, and provides access\n" +
+			"     * to the current records values.\n" +
+			"     */\n" +
+			"    public class Cursor {\n" +
+			"        private int index = -1;\n" +
+			"        public boolean next() {\n" +
+			"            return ++index < size;\n" +
+			"        }\n" +
+			"        public int index() {\n" +
+			"            return index;\n" +
+			"        }\n" +
+			"        public long getId() {\n" +
+			"            return id[index];\n" +
+			"        }\n" +
+			"        public double getPrice() {\n" +
+			"            return price[index];\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public TradeColumns.Cursor cursor() {\n" +
+			"        return new Cursor();\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_COLUMNS_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Trade\n" +
+			"{\n" +
+			"    public long id;\n" +
+			"    private double price;\n" +
+			"    public double getPrice(  ) \n" +
+			"    {\n" +
+			"        return price;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Iterable;\n" +
+			"import java.util.Arrays;\n" +
+			"\n" +
+			"import com.foo.myapp.Trade;\n" +
+			"\n" +
+			"// Columnar storage of Trade records.\n" +
+			"public class TradeColumns\n" +
+			"{\n" +
+			"    private int size;\n" +
+			"    private long[] id;\n" +
+			"    private double[] price;\n" +
+			"    public TradeColumns(  ) \n" +
+			"    {\n" +
+			"        this(16);\n" +
+			"    }\n" +
+			"    public TradeColumns( int pCapacity ) \n" +
+			"    {\n" +
+			"        id = new long[pCapacity];\n" +
+			"        price = new double[pCapacity];\n" +
+			"    }\n" +
+			"    public int size(  ) \n" +
+			"    {\n" +
+			"        return size;\n" +
+			"    }\n" +
+			"    public int capacity(  ) \n" +
+			"    {\n" +
+			"        return id.length;\n" +
+			"    }\n" +
+			"    public void clear(  ) \n" +
+			"    {\n" +
+			"        size = 0;\n" +
+			"    }\n" +
+			"    public void ensureCapacity( int pCapacity ) \n" +
+			"    {\n" +
+			"        if ( pCapacity > id.length )\n" +
+			"        {\n" +
+			"            final int newCapacity = Math.max(pCapacity, 2 * id.length);\n" +
+			"            id = Arrays.copyOf(id, newCapacity);\n" +
+			"            price = Arrays.copyOf(price, newCapacity);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public long getId( int pIndex ) \n" +
+			"    {\n" +
+			"        return id[pIndex];\n" +
+			"    }\n" +
+			"    public void setId( int pIndex, long pValue ) \n" +
+			"    {\n" +
+			"        id[pIndex] = pValue;\n" +
+			"    }\n" +
+			"    /** Returns the backing array. Valid indexes are 0 .. size()-1.\n" +
+			"      */\n" +
+			"    public long[] getIdColumn(  ) \n" +
+			"    {\n" +
+			"        return id;\n" +
+			"    }\n" +
+			"    public double getPrice( int pIndex ) \n" +
+			"    {\n" +
+			"        return price[pIndex];\n" +
+			"    }\n" +
+			"    public void setPrice( int pIndex, double pValue ) \n" +
+			"    {\n" +
+			"        price[pIndex] = pValue;\n" +
+			"    }\n" +
+			"    /** Returns the backing array. Valid indexes are 0 .. size()-1.\n" +
+			"      */\n" +
+			"    public double[] getPriceColumn(  ) \n" +
+			"    {\n" +
+			"        return price;\n" +
+			"    }\n" +
+			"    public int add( long pId, double pPrice ) \n" +
+			"    {\n" +
+			"        ensureCapacity(size + 1);\n" +
+			"        id[size] = pId;\n" +
+			"        price[size] = pPrice;\n" +
+			"        return size++;\n" +
+			"    }\n" +
+			"    public void addAll( TradeColumns pColumns ) \n" +
+			"    {\n" +
+			"        final int newSize = size + pColumns.size;\n" +
+			"        ensureCapacity(newSize);\n" +
+			"        System.arraycopy(pColumns.id, 0, id, size, pColumns.size);\n" +
+			"        System.arraycopy(pColumns.price, 0, price, size, pColumns.size);\n" +
+			"        size = newSize;\n" +
+			"    }\n" +
+			"    public int add( Trade pRecord ) \n" +
+			"    {\n" +
+			"        return add(pRecord.id, pRecord.getPrice());\n" +
+			"    }\n" +
+			"    public void addAll( Iterable<? extends Trade> pRecords ) \n" +
+			"    {\n" +
+			"        for ( final Trade record : pRecords )\n" +
+			"        {\n" +
+			"            add(record);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    /* A cursor, which iterates over the records, and provides access\n" +
+			"     * to the current records values.\n" +
+			"     */\n" +
+			"    public class Cursor\n" +
+			"    {\n" +
+			"        private int index = -1;\n" +
+			"        public boolean next(  ) \n" +
+			"        {\n" +
+			"            return ++index < size;\n" +
+			"        }\n" +
+			"        public int index(  ) \n" +
+			"        {\n" +
+			"            return index;\n" +
+			"        }\n" +
+			"        public long getId(  ) \n" +
+			"        {\n" +
+			"            return id[index];\n" +
+			"        }\n" +
+			"        public double getPrice(  ) \n" +
+			"        {\n" +
+			"            return price[index];\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public TradeColumns.Cursor cursor(  ) \n" +
+			"    {\n" +
+			"        return new Cursor();\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_INACCESSIBLE_FIELDS_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Trade {\n" +
+			"    private long id;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.Arrays;\n" +
+			"\n" +
+			"// Columnar storage of Trade records.\n" +
+			"public class TradeColumns {\n" +
+			"    private int size;\n" +
+			"    private long[] id;\n" +
+			"    public TradeColumns() {\n" +
+			"        this(16);\n" +
+			"    }\n" +
+			"    public TradeColumns(int pCapacity) {\n" +
+			"        id = new long[pCapacity];\n" +
+			"    }\n" +
+			"    public int size() {\n" +
+			"        return size;\n" +
+			"    }\n" +
+			"    public int capacity() {\n" +
+			"        return id.length;\n" +
+			"    }\n" +
+			"    public void clear() {\n" +
+			"        size = 0;\n" +
+			"    }\n" +
+			"    public void ensureCapacity(int pCapacity) {\n" +
+			"        if (pCapacity > id.length) {\n" +
+			"            final int newCapacity = Math.max(pCapacity, 2 * id.length);\n" +
+			"            id = Arrays.copyOf(id, newCapacity);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public long getId(int pIndex) {\n" +
+			"        return id[pIndex];\n" +
+			"    }\n" +
+			"    public void setId(int pIndex, long pValue) {\n" +
+			"        id[pIndex] = pValue;\n" +
+			"    }\n" +
+			"    /** Returns the backing array. Valid indexes are 0 .. size()-1.\n" +
+			"      */\n" +
+			"    public long[] getIdColumn() {\n" +
+			"        return id;\n" +
+			"    }\n" +
+			"    public int add(long pId) {\n" +
+			"        ensureCapacity(size + 1);\n" +
+			"        id[size] = pId;\n" +
+			"        return size++;\n" +
+			"    }\n" +
+			"    public void addAll(TradeColumns pColumns) {\n" +
+			"        final int newSize = size + pColumns.size;\n" +
+			"        ensureCapacity(newSize);\n" +
+			"        System.arraycopy(pColumns.id, 0, id, size, pColumns.size);\n" +
+			"        size = newSize;\n" +
+			"    }\n" +
+			"    /* A cursor, which iterates over the records, and provides access\n" +
+			"     * to the current records values.\n" +
+			"     */\n" +
+			"    public class Cursor {\n" +
+			"        private int index = -1;\n" +
+			"        public boolean next() {\n" +
+			"            return ++index < size;\n" +
+			"        }\n" +
+			"        public int index() {\n" +
+			"            return index;\n" +
+			"        }\n" +
+			"        public long getId() {\n" +
+			"            return id[index];\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public TradeColumns.Cursor cursor() {\n" +
+			"        return new Cursor();\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_INACCESSIBLE_FIELDS_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Trade\n" +
+			"{\n" +
+			"    private long id;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.Arrays;\n" +
+			"\n" +
+			"// Columnar storage of Trade records.\n" +
+			"public class TradeColumns\n" +
+			"{\n" +
+			"    private int size;\n" +
+			"    private long[] id;\n" +
+			"    public TradeColumns(  ) \n" +
+			"    {\n" +
+			"        this(16);\n" +
+			"    }\n" +
+			"    public TradeColumns( int pCapacity ) \n" +
+			"    {\n" +
+			"        id = new long[pCapacity];\n" +
+			"    }\n" +
+			"    public int size(  ) \n" +
+			"    {\n" +
+			"        return size;\n" +
+			"    }\n" +
+			"    public int capacity(  ) \n" +
+			"    {\n" +
+			"        return id.length;\n" +
+			"    }\n" +
+			"    public void clear(  ) \n" +
+			"    {\n" +
+			"        size = 0;\n" +
+			"    }\n" +
+			"    public void ensureCapacity( int pCapacity ) \n" +
+			"    {\n" +
+			"        if ( pCapacity > id.length )\n" +
+			"        {\n" +
+			"            final int newCapacity = Math.max(pCapacity, 2 * id.length);\n" +
+			"            id = Arrays.copyOf(id, newCapacity);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public long getId( int pIndex ) \n" +
+			"    {\n" +
+			"        return id[pIndex];\n" +
+			"    }\n" +
+			"    public void setId( int pIndex, long pValue ) \n" +
+			"    {\n" +
+			"        id[pIndex] = pValue;\n" +
+			"    }\n" +
+			"    /** Returns the backing array. Valid indexes are 0 .. size()-1.\n" +
+			"      */\n" +
+			"    public long[] getIdColumn(  ) \n" +
+			"    {\n" +
+			"        return id;\n" +
+			"    }\n" +
+			"    public int add( long pId ) \n" +
+			"    {\n" +
+			"        ensureCapacity(size + 1);\n" +
+			"        id[size] = pId;\n" +
+			"        return size++;\n" +
+			"    }\n" +
+			"    public void addAll( TradeColumns pColumns ) \n" +
+			"    {\n" +
+			"        final int newSize = size + pColumns.size;\n" +
+			"        ensureCapacity(newSize);\n" +
+			"        System.arraycopy(pColumns.id, 0, id, size, pColumns.size);\n" +
+			"        size = newSize;\n" +
+			"    }\n" +
+			"    /* A cursor, which iterates over the records, and provides access\n" +
+			"     * to the current records values.\n" +
+			"     */\n" +
+			"    public class Cursor\n" +
+			"    {\n" +
+			"        private int index = -1;\n" +
+			"        public boolean next(  ) \n" +
+			"        {\n" +
+			"            return ++index < size;\n" +
+			"        }\n" +
+			"        public int index(  ) \n" +
+			"        {\n" +
+			"            return index;\n" +
+			"        }\n" +
+			"        public long getId(  ) \n" +
+			"        {\n" +
+			"            return id[index];\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public TradeColumns.Cursor cursor(  ) \n" +
+			"    {\n" +
+			"        return new Cursor();\n" +
+			"    }\n" +
+			"}\n";
+
+	private JSGFactory newColumns() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source trade = factory.newSource("com.foo.myapp.Trade").makePublic();
+		trade.newField(JQName.LONG_TYPE, "id", Protection.PUBLIC);
+		trade.newField(JQName.DOUBLE_TYPE, "price", Protection.PRIVATE);
+		trade.newMethod(Protection.PUBLIC, JQName.DOUBLE_TYPE, "getPrice").body().tline("return price");
+		final Source columns = new ColumnarGenerator().generate(factory, trade);
+		assertEquals("com.foo.myapp.TradeColumns", columns.getType().getQName());
+		return factory;
+	}
+
+	@Test
+	public void testGenerate() {
+		assertEquals(EXPECT_COLUMNS_DEFAULT, SourceRenderer.render(newColumns()));
+		assertEquals(EXPECT_COLUMNS_MAVEN, SourceRenderer.render(newColumns(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	private JSGFactory newInaccessibleFields() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source trade = factory.newSource("com.foo.myapp.Trade").makePublic();
+		trade.newField(JQName.LONG_TYPE, "id", Protection.PRIVATE);
+		new ColumnarGenerator().generate(factory, trade);
+		return factory;
+	}
+
+	@Test
+	public void testInaccessibleFields() {
+		assertEquals(EXPECT_INACCESSIBLE_FIELDS_DEFAULT, SourceRenderer.render(newInaccessibleFields()));
+		assertEquals(EXPECT_INACCESSIBLE_FIELDS_MAVEN, SourceRenderer.render(newInaccessibleFields(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testNonPrimitiveField() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source trade = factory.newSource("com.foo.myapp.Trade").makePublic();
+		trade.newField(JQName.STRING, "name", Protection.PUBLIC);
+		try {
+			new ColumnarGenerator().generate(factory, trade);
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("Expected a primitive type for field name of com.foo.myapp.Trade, got java.lang.String", e.getMessage());
+		}
+	}
+}
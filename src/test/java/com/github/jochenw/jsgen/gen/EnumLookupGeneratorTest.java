@@ -0,0 +1,329 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.Constructor;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class EnumLookupGeneratorTest {
+	private static final String EXPECT_ENUMS_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public enum Status {\n" +
+			"    /** All fine.\n" +
+			"      */\n" +
+			"    OK(200, \"Okay\"),\n" +
+			"    CREATED(201, \"Created\"),\n" +
+			"    NO_CONTENT(204, \"No content\");\n" +
+			"    private final int code;\n" +
+			"    private Status(int pCode, String pText) {\n" +
+			"        code = pCode;\n" +
+			"    }\n" +
+			"    public enum Color {\n" +
+			"        RED,\n" +
+			"        GREEN;\n" +
+			"    }\n" +
+			"    enum Empty {\n" +
+			"        ;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_ENUMS_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public enum Status\n" +
+			"{\n" +
+			"    /** All fine.\n" +
+			"      */\n" +
+			"    OK(200, \"Okay\"),\n" +
+			"    CREATED(201, \"Created\"),\n" +
+			"    NO_CONTENT(204, \"No content\");\n" +
+			"    private final int code;\n" +
+			"    private Status( int pCode, String pText ) \n" +
+			"    {\n" +
+			"        code = pCode;\n" +
+			"    }\n" +
+			"    public enum Color\n" +
+			"    {\n" +
+			"        RED,\n" +
+			"        GREEN;\n" +
+			"    }\n" +
+			"    enum Empty\n" +
+			"    {\n" +
+			"        ;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_CODE_LOOKUP_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public enum Status {\n" +
+			"    /** All fine.\n" +
+			"      */\n" +
+			"    OK(200, \"Okay\"),\n" +
+			"    CREATED(201, \"Created\"),\n" +
+			"    NO_CONTENT(204, \"No content\");\n" +
+			"    private final int code;\n" +
+			"    private Status(int pCode, String pText) {\n" +
+			"        code = pCode;\n" +
+			"    }\n" +
+			"    private static final Status[] forCode$table = { OK, CREATED, null, null, NO_CONTENT };\n" +
+			"    public static Status forCode(int pCode) {\n" +
+			"        final int index = pCode - 200;\n" +
+			"        if (index < 0  ||  index >= forCode$table.length) {\n" +
+			"            return null;\n" +
+			"        }\n" +
+			"        return forCode$table[index];\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_CODE_LOOKUP_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public enum Status\n" +
+			"{\n" +
+			"    /** All fine.\n" +
+			"      */\n" +
+			"    OK(200, \"Okay\"),\n" +
+			"    CREATED(201, \"Created\"),\n" +
+			"    NO_CONTENT(204, \"No content\");\n" +
+			"    private final int code;\n" +
+			"    private Status( int pCode, String pText ) \n" +
+			"    {\n" +
+			"        code = pCode;\n" +
+			"    }\n" +
+			"    private static final Status[] forCode$table = { OK, CREATED, null, null, NO_CONTENT };\n" +
+			"    public static Status forCode( int pCode ) \n" +
+			"    {\n" +
+			"        final int index = pCode - 200;\n" +
+			"        if ( index < 0  ||  index >= forCode$table.length )\n" +
+			"        {\n" +
+			"            return null;\n" +
+			"        }\n" +
+			"        return forCode$table[index];\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_NAME_LOOKUP_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public enum Status {\n" +
+			"    /** All fine.\n" +
+			"      */\n" +
+			"    OK(200, \"Okay\"),\n" +
+			"    CREATED(201, \"Created\"),\n" +
+			"    NO_CONTENT(204, \"No content\");\n" +
+			"    private final int code;\n" +
+			"    private Status(int pCode, String pText) {\n" +
+			"        code = pCode;\n" +
+			"    }\n" +
+			"    private static final Status[] forName$values = values();\n" +
+			"    private static final String[] forName$index$keys = {\n" +
+			"        \"OK\", \"CREATED\", \"NO_CONTENT\"\n" +
+			"    };\n" +
+			"    private static final int[] forName$index$ids = {\n" +
+			"        0, 1, 2\n" +
+			"    };\n" +
+			"    private static final int[] forName$index$seeds = {\n" +
+			"        2\n" +
+			"    };\n" +
+			"    private static int forName$index(String pKey) {\n" +
+			"        if (pKey == null) {\n" +
+			"            return -1;\n" +
+			"        }\n" +
+			"        final int seed = forName$index$seeds[forName$index$hash(pKey, 0) % 1];\n" +
+			"        final int slot = seed < 0 ? -seed-1 : forName$index$hash(pKey, seed) % 3;\n" +
+			"        return pKey.equals(forName$index$keys[slot]) ? forName$index$ids[slot] : -1;\n" +
+			"    }\n" +
+			"    private static int forName$index$hash(String pKey, int pSeed) {\n" +
+			"        int h = pSeed ^ 0x811c9dc5;\n" +
+			"        for (int i = 0;  i < pKey.length();  i++) {\n" +
+			"            h = (h ^ pKey.charAt(i)) * 0x01000193;\n" +
+			"        }\n" +
+			"        h ^= h >>> 16;\n" +
+			"        h *= 0x85ebca6b;\n" +
+			"        h ^= h >>> 13;\n" +
+			"        return h & 0x7fffffff;\n" +
+			"    }\n" +
+			"    public static Status forName(String pName) {\n" +
+			"        final int index = forName$index(pName);\n" +
+			"        return index == -1 ? null : forName$values[index];\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_NAME_LOOKUP_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.String;\n" +
+			"\n" +
+			"public enum Status\n" +
+			"{\n" +
+			"    /** All fine.\n" +
+			"      */\n" +
+			"    OK(200, \"Okay\"),\n" +
+			"    CREATED(201, \"Created\"),\n" +
+			"    NO_CONTENT(204, \"No content\");\n" +
+			"    private final int code;\n" +
+			"    private Status( int pCode, String pText ) \n" +
+			"    {\n" +
+			"        code = pCode;\n" +
+			"    }\n" +
+			"    private static final Status[] forName$values = values();\n" +
+			"    private static final String[] forName$index$keys = {\n" +
+			"        \"OK\", \"CREATED\", \"NO_CONTENT\"\n" +
+			"    };\n" +
+			"    private static final int[] forName$index$ids = {\n" +
+			"        0, 1, 2\n" +
+			"    };\n" +
+			"    private static final int[] forName$index$seeds = {\n" +
+			"        2\n" +
+			"    };\n" +
+			"    private static int forName$index( String pKey ) \n" +
+			"    {\n" +
+			"        if ( pKey == null )\n" +
+			"        {\n" +
+			"            return -1;\n" +
+			"        }\n" +
+			"        final int seed = forName$index$seeds[forName$index$hash(pKey, 0) % 1];\n" +
+			"        final int slot = seed < 0 ? -seed-1 : forName$index$hash(pKey, seed) % 3;\n" +
+			"        return pKey.equals(forName$index$keys[slot]) ? forName$index$ids[slot] : -1;\n" +
+			"    }\n" +
+			"    private static int forName$index$hash( String pKey, int pSeed ) \n" +
+			"    {\n" +
+			"        int h = pSeed ^ 0x811c9dc5;\n" +
+			"        for ( int i = 0;  i < pKey.length();  i++ )\n" +
+			"        {\n" +
+			"            h = (h ^ pKey.charAt(i)) * 0x01000193;\n" +
+			"        }\n" +
+			"        h ^= h >>> 16;\n" +
+			"        h *= 0x85ebca6b;\n" +
+			"        h ^= h >>> 13;\n" +
+			"        return h & 0x7fffffff;\n" +
+			"    }\n" +
+			"    public static Status forName( String pName ) \n" +
+			"    {\n" +
+			"        final int index = forName$index(pName);\n" +
+			"        return index == -1 ? null : forName$values[index];\n" +
+			"    }\n" +
+			"}\n";
+
+	private Source newStatus(JSGFactory pFactory) {
+		final Source status = pFactory.newSource("com.foo.myapp.Status").makePublic().makeEnum();
+		status.newEnumConstant("OK", Integer.valueOf(200), Source.q("Okay")).comment("All fine.");
+		status.newEnumConstant("CREATED", "201", Source.q("Created"));
+		status.newEnumConstant("NO_CONTENT", Integer.valueOf(204), Source.q("No content"));
+		status.newField(JQName.INT_TYPE, "code", Protection.PRIVATE).makeFinal();
+		final Constructor constructor = status.newConstructor(Protection.PRIVATE);
+		constructor.parameter(JQName.INT_TYPE, "pCode");
+		constructor.parameter(JQName.STRING, "pText");
+		constructor.body().tline("code = pCode");
+		return status;
+	}
+
+	private JSGFactory newEnums() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source status = newStatus(factory);
+		final InnerClass color = status.newInnerClass("Color", Protection.PUBLIC).makeEnum();
+		color.newEnumConstant("RED");
+		color.newEnumConstant("GREEN");
+		status.newInnerClass("Empty").makeEnum();
+		new FinalizerPass().run(factory);
+		return factory;
+	}
+
+	@Test
+	public void testEnum() {
+		assertEquals(EXPECT_ENUMS_DEFAULT, SourceRenderer.render(newEnums()));
+		assertEquals(EXPECT_ENUMS_MAVEN, SourceRenderer.render(newEnums(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testNoEnum() {
+		try {
+			JSGFactory.create().newSource("com.foo.myapp.NoEnum").newEnumConstant("FOO");
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("The class com.foo.myapp.NoEnum is not an enum.", e.getMessage());
+		}
+	}
+
+	private JSGFactory newCodeLookup() {
+		final JSGFactory factory = JSGFactory.create();
+		EnumLookupGenerator.newCodeLookup(newStatus(factory), "forCode", 0);
+		return factory;
+	}
+
+	@Test
+	public void testCodeLookup() {
+		assertEquals(EXPECT_CODE_LOOKUP_DEFAULT, SourceRenderer.render(newCodeLookup()));
+		assertEquals(EXPECT_CODE_LOOKUP_MAVEN, SourceRenderer.render(newCodeLookup(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testCodeLookupErrors() {
+		final EnumLookupGenerator generator = new EnumLookupGenerator();
+		try {
+			generator.generateCodeLookup(newStatus(JSGFactory.create()), "forCode", 1);
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("Expected an int literal as argument 1 of the constant OK in com.foo.myapp.Status, got \"Okay\"",
+					e.getMessage());
+		}
+		generator.setMaxSparseness(1);
+		try {
+			generator.generateCodeLookup(newStatus(JSGFactory.create()), "forCode", 0);
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("The codes of com.foo.myapp.Status are too sparse: 3 constants, range 200..204",
+					e.getMessage());
+		}
+		try {
+			generator.generateCodeLookup(JSGFactory.create().newSource("com.foo.myapp.Empty").makeEnum(), "forCode", 0);
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("Unable to create a code lookup for com.foo.myapp.Empty: The enum has no constants.",
+					e.getMessage());
+		}
+	}
+
+	private JSGFactory newNameLookup() {
+		final JSGFactory factory = JSGFactory.create();
+		EnumLookupGenerator.newNameLookup(newStatus(factory), "forName");
+		return factory;
+	}
+
+	@Test
+	public void testNameLookup() {
+		assertEquals(EXPECT_NAME_LOOKUP_DEFAULT, SourceRenderer.render(newNameLookup()));
+		assertEquals(EXPECT_NAME_LOOKUP_MAVEN, SourceRenderer.render(newNameLookup(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+}
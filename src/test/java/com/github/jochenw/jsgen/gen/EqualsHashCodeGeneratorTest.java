@@ -0,0 +1,259 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class EqualsHashCodeGeneratorTest {
+	private static final String EXPECT_GENERATE_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Object;\n" +
+			"import java.lang.Override;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.Arrays;\n" +
+			"import java.util.Objects;\n" +
+			"\n" +
+			"public class Point {\n" +
+			"    String name;\n" +
+			"    int[] ids;\n" +
+			"    double x;\n" +
+			"    long id;\n" +
+			"    static final int COUNT = 3;\n" +
+			"    @Override\n" +
+			"    public boolean equals(Object pOther) {\n" +
+			"        if (this == pOther) {\n" +
+			"            return true;\n" +
+			"        }\n" +
+			"        if (pOther == null  ||  getClass() != pOther.getClass()) {\n" +
+			"            return false;\n" +
+			"        }\n" +
+			"        final Point other = (Point) pOther;\n" +
+			"        return id == other.id  &&  Double.compare(x, other.x) == 0  &&  Objects.equals(name, other.name)  &&  Arrays.equals(ids, other.ids);\n" +
+			"    }\n" +
+			"    @Override\n" +
+			"    public int hashCode() {\n" +
+			"        int h = 1;\n" +
+			"        h = 31 * h + Objects.hashCode(name);\n" +
+			"        h = 31 * h + Arrays.hashCode(ids);\n" +
+			"        h = 31 * h + Double.hashCode(x);\n" +
+			"        h = 31 * h + Long.hashCode(id);\n" +
+			"        return h;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_GENERATE_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Object;\n" +
+			"import java.lang.Override;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.Arrays;\n" +
+			"import java.util.Objects;\n" +
+			"\n" +
+			"public class Point\n" +
+			"{\n" +
+			"    String name;\n" +
+			"    int[] ids;\n" +
+			"    double x;\n" +
+			"    long id;\n" +
+			"    static final int COUNT = 3;\n" +
+			"    @Override\n" +
+			"    public boolean equals( Object pOther ) \n" +
+			"    {\n" +
+			"        if ( this == pOther )\n" +
+			"        {\n" +
+			"            return true;\n" +
+			"        }\n" +
+			"        if ( pOther == null  ||  getClass() != pOther.getClass() )\n" +
+			"        {\n" +
+			"            return false;\n" +
+			"        }\n" +
+			"        final Point other = (Point) pOther;\n" +
+			"        return id == other.id  &&  Double.compare(x, other.x) == 0  &&  Objects.equals(name, other.name)  &&  Arrays.equals(ids, other.ids);\n" +
+			"    }\n" +
+			"    @Override\n" +
+			"    public int hashCode(  ) \n" +
+			"    {\n" +
+			"        int h = 1;\n" +
+			"        h = 31 * h + Objects.hashCode(name);\n" +
+			"        h = 31 * h + Arrays.hashCode(ids);\n" +
+			"        h = 31 * h + Double.hashCode(x);\n" +
+			"        h = 31 * h + Long.hashCode(id);\n" +
+			"        return h;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_CACHED_HASH_CODE_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Object;\n" +
+			"import java.lang.Override;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.Objects;\n" +
+			"\n" +
+			"public class Point {\n" +
+			"    final String name;\n" +
+			"    final double x;\n" +
+			"    final long id;\n" +
+			"    static final int COUNT = 3;\n" +
+			"    private int hashCode$cache;\n" +
+			"    @Override\n" +
+			"    public boolean equals(Object pOther) {\n" +
+			"        if (this == pOther) {\n" +
+			"            return true;\n" +
+			"        }\n" +
+			"        if (pOther == null  ||  getClass() != pOther.getClass()) {\n" +
+			"            return false;\n" +
+			"        }\n" +
+			"        final Point other = (Point) pOther;\n" +
+			"        if (hashCode$cache != 0  &&  other.hashCode$cache != 0  &&  hashCode$cache != other.hashCode$cache) {\n" +
+			"            return false;\n" +
+			"        }\n" +
+			"        return id == other.id  &&  Double.compare(x, other.x) == 0  &&  Objects.equals(name, other.name);\n" +
+			"    }\n" +
+			"    @Override\n" +
+			"    public int hashCode() {\n" +
+			"        int h = hashCode$cache;\n" +
+			"        if (h == 0) {\n" +
+			"            h = 1;\n" +
+			"            h = 31 * h + Objects.hashCode(name);\n" +
+			"            h = 31 * h + Double.hashCode(x);\n" +
+			"            h = 31 * h + Long.hashCode(id);\n" +
+			"            hashCode$cache = h;\n" +
+			"        }\n" +
+			"        return h;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_CACHED_HASH_CODE_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Object;\n" +
+			"import java.lang.Override;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.Objects;\n" +
+			"\n" +
+			"public class Point\n" +
+			"{\n" +
+			"    final String name;\n" +
+			"    final double x;\n" +
+			"    final long id;\n" +
+			"    static final int COUNT = 3;\n" +
+			"    private int hashCode$cache;\n" +
+			"    @Override\n" +
+			"    public boolean equals( Object pOther ) \n" +
+			"    {\n" +
+			"        if ( this == pOther )\n" +
+			"        {\n" +
+			"            return true;\n" +
+			"        }\n" +
+			"        if ( pOther == null  ||  getClass() != pOther.getClass() )\n" +
+			"        {\n" +
+			"            return false;\n" +
+			"        }\n" +
+			"        final Point other = (Point) pOther;\n" +
+			"        if ( hashCode$cache != 0  &&  other.hashCode$cache != 0  &&  hashCode$cache != other.hashCode$cache )\n" +
+			"        {\n" +
+			"            return false;\n" +
+			"        }\n" +
+			"        return id == other.id  &&  Double.compare(x, other.x) == 0  &&  Objects.equals(name, other.name);\n" +
+			"    }\n" +
+			"    @Override\n" +
+			"    public int hashCode(  ) \n" +
+			"    {\n" +
+			"        int h = hashCode$cache;\n" +
+			"        if ( h == 0 )\n" +
+			"        {\n" +
+			"            h = 1;\n" +
+			"            h = 31 * h + Objects.hashCode(name);\n" +
+			"            h = 31 * h + Double.hashCode(x);\n" +
+			"            h = 31 * h + Long.hashCode(id);\n" +
+			"            hashCode$cache = h;\n" +
+			"        }\n" +
+			"        return h;\n" +
+			"    }\n" +
+			"}\n";
+
+	private Source newPoint(JSGFactory pFactory, boolean pFinal, boolean pArray) {
+		final Source src = pFactory.newSource("com.foo.myapp.Point").makePublic();
+		src.newField(JQName.STRING, "name").makeFinal(pFinal);
+		if (pArray) {
+			src.newField(JQName.INT_TYPE.arrayOf(), "ids").makeFinal(pFinal);
+		}
+		src.newField(JQName.DOUBLE_TYPE, "x").makeFinal(pFinal);
+		src.newField(JQName.LONG_TYPE, "id").makeFinal(pFinal);
+		src.newField(JQName.INT_TYPE, "COUNT").makeStatic().makeFinal().assign("3");
+		return src;
+	}
+
+	private JSGFactory newEqualsAndHashCode() {
+		final JSGFactory factory = JSGFactory.create();
+		final Method equals = EqualsHashCodeGenerator.newEqualsAndHashCode(newPoint(factory, false, true), false);
+		assertTrue(equals.isOverriding());
+		return factory;
+	}
+
+	@Test
+	public void testGenerate() {
+		assertEquals(EXPECT_GENERATE_DEFAULT, SourceRenderer.render(newEqualsAndHashCode()));
+		assertEquals(EXPECT_GENERATE_MAVEN, SourceRenderer.render(newEqualsAndHashCode(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	private JSGFactory newCachedHashCode() {
+		final JSGFactory factory = JSGFactory.create();
+		EqualsHashCodeGenerator.newEqualsAndHashCode(newPoint(factory, true, false), true);
+		return factory;
+	}
+
+	@Test
+	public void testCachedHashCode() {
+		assertEquals(EXPECT_CACHED_HASH_CODE_DEFAULT, SourceRenderer.render(newCachedHashCode()));
+		assertEquals(EXPECT_CACHED_HASH_CODE_MAVEN, SourceRenderer.render(newCachedHashCode(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testCachedHashCodeNonFinal() {
+		final JSGFactory factory = JSGFactory.create();
+		try {
+			EqualsHashCodeGenerator.newEqualsAndHashCode(newPoint(factory, false, true), true);
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("Unable to cache the hash code of com.foo.myapp.Point, because the field name isn't final.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCachedHashCodeArray() {
+		final JSGFactory factory = JSGFactory.create();
+		try {
+			EqualsHashCodeGenerator.newEqualsAndHashCode(newPoint(factory, true, true), true);
+			fail("Expected Exception");
+		} catch (IllegalStateException e) {
+			assertEquals("Unable to cache the hash code of com.foo.myapp.Point, because the field ids is an array.",
+					e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class FinalizerPassTest {
+	private static final String EXPECT_FINALIZED_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Base {\n" +
+			"    public int size() {\n" +
+			"        return 0;\n" +
+			"    }\n" +
+			"    public final void run(int pCount) {\n" +
+			"    }\n" +
+			"    private void reset() {\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"public abstract class AbstractBase {\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Base;\n" +
+			"\n" +
+			"public final class Leaf extends Base {\n" +
+			"    public int size() {\n" +
+			"        return 1;\n" +
+			"    }\n" +
+			"    static final class Inner {\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_FINALIZED_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Base\n" +
+			"{\n" +
+			"    public int size(  ) \n" +
+			"    {\n" +
+			"        return 0;\n" +
+			"    }\n" +
+			"    public final void run( int pCount ) \n" +
+			"    {\n" +
+			"    }\n" +
+			"    private void reset(  ) \n" +
+			"    {\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"public abstract class AbstractBase\n" +
+			"{\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Base;\n" +
+			"\n" +
+			"public final class Leaf extends Base\n" +
+			"{\n" +
+			"    public int size(  ) \n" +
+			"    {\n" +
+			"        return 1;\n" +
+			"    }\n" +
+			"    static final class Inner\n" +
+			"    {\n" +
+			"    }\n" +
+			"}\n";
+
+	private JSGFactory newFinalized() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source base = factory.newSource("com.foo.myapp.Base").makePublic();
+		base.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "size").body().tline("return 0");
+		final Method run = base.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "run");
+		run.parameter(JQName.INT_TYPE, "pCount");
+		base.newMethod(Protection.PRIVATE, JQName.VOID_TYPE, "reset");
+		final Source leaf = factory.newSource("com.foo.myapp.Leaf").makePublic().extending(base.getType());
+		leaf.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "size").body().tline("return 1");
+		final InnerClass inner = leaf.newInnerClass("Inner").makeStatic();
+		factory.newSource("com.foo.myapp.AbstractBase").makePublic().makeAbstract();
+		final FinalizerPass.Report report = new FinalizerPass().run(factory);
+		assertEquals(2, report.getFinalClasses().size());
+		assertTrue(report.getFinalClasses().containsAll(Arrays.asList(leaf.getType(), inner.getType())));
+		assertEquals(Arrays.asList("com.foo.myapp.Base#run(int)"), report.getFinalMethods());
+		assertFalse(base.isFinal());
+		return factory;
+	}
+
+	@Test
+	public void testRun() {
+		assertEquals(EXPECT_FINALIZED_DEFAULT, SourceRenderer.render(newFinalized()));
+		assertEquals(EXPECT_FINALIZED_MAVEN, SourceRenderer.render(newFinalized(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+}
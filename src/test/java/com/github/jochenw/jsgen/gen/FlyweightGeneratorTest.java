@@ -0,0 +1,367 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.gen.FlyweightGenerator.Layout;
+import com.github.jochenw.jsgen.gen.FlyweightGenerator.Storage;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class FlyweightGeneratorTest {
+	private static final String EXPECT_BYTE_BUFFER_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.nio.ByteBuffer;\n" +
+			"import java.nio.ByteOrder;\n" +
+			"\n" +
+			"// Flyweight for records of 32 bytes in little endian byte order.\n" +
+			"public class Quote {\n" +
+			"    public static final int SIZE = 32;\n" +
+			"    public static final int FLAG_OFFSET = 0;\n" +
+			"    public static final int PRICE_OFFSET = 8;\n" +
+			"    public static final int QTY_OFFSET = 16;\n" +
+			"    public static final int AVG_PRICE_OFFSET = 24;\n" +
+			"    private ByteBuffer source;\n" +
+			"    private ByteBuffer buffer;\n" +
+			"    private int offset;\n" +
+			"    public Quote wrap(ByteBuffer pBuffer, int pOffset) {\n" +
+			"        if (pBuffer != source) {\n" +
+			"            source = pBuffer;\n" +
+			"            buffer = pBuffer.order() == ByteOrder.LITTLE_ENDIAN ? pBuffer : pBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);\n" +
+			"        }\n" +
+			"        offset = pOffset;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public Quote wrap(int pOffset) {\n" +
+			"        offset = pOffset;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public boolean isFlag() {\n" +
+			"        return buffer.get(offset + FLAG_OFFSET) != 0;\n" +
+			"    }\n" +
+			"    public Quote setFlag(boolean pValue) {\n" +
+			"        buffer.put(offset + FLAG_OFFSET, (byte) (pValue ? 1 : 0));\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public long getPrice() {\n" +
+			"        return buffer.getLong(offset + PRICE_OFFSET);\n" +
+			"    }\n" +
+			"    public Quote setPrice(long pValue) {\n" +
+			"        buffer.putLong(offset + PRICE_OFFSET, pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public int getQty() {\n" +
+			"        return buffer.getInt(offset + QTY_OFFSET);\n" +
+			"    }\n" +
+			"    public Quote setQty(int pValue) {\n" +
+			"        buffer.putInt(offset + QTY_OFFSET, pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public double getAvgPrice() {\n" +
+			"        return buffer.getDouble(offset + AVG_PRICE_OFFSET);\n" +
+			"    }\n" +
+			"    public Quote setAvgPrice(double pValue) {\n" +
+			"        buffer.putDouble(offset + AVG_PRICE_OFFSET, pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_BYTE_BUFFER_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.nio.ByteBuffer;\n" +
+			"import java.nio.ByteOrder;\n" +
+			"\n" +
+			"// Flyweight for records of 32 bytes in little endian byte order.\n" +
+			"public class Quote\n" +
+			"{\n" +
+			"    public static final int SIZE = 32;\n" +
+			"    public static final int FLAG_OFFSET = 0;\n" +
+			"    public static final int PRICE_OFFSET = 8;\n" +
+			"    public static final int QTY_OFFSET = 16;\n" +
+			"    public static final int AVG_PRICE_OFFSET = 24;\n" +
+			"    private ByteBuffer source;\n" +
+			"    private ByteBuffer buffer;\n" +
+			"    private int offset;\n" +
+			"    public Quote wrap( ByteBuffer pBuffer, int pOffset ) \n" +
+			"    {\n" +
+			"        if ( pBuffer != source )\n" +
+			"        {\n" +
+			"            source = pBuffer;\n" +
+			"            buffer = pBuffer.order() == ByteOrder.LITTLE_ENDIAN ? pBuffer : pBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);\n" +
+			"        }\n" +
+			"        offset = pOffset;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public Quote wrap( int pOffset ) \n" +
+			"    {\n" +
+			"        offset = pOffset;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public boolean isFlag(  ) \n" +
+			"    {\n" +
+			"        return buffer.get(offset + FLAG_OFFSET) != 0;\n" +
+			"    }\n" +
+			"    public Quote setFlag( boolean pValue ) \n" +
+			"    {\n" +
+			"        buffer.put(offset + FLAG_OFFSET, (byte) (pValue ? 1 : 0));\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public long getPrice(  ) \n" +
+			"    {\n" +
+			"        return buffer.getLong(offset + PRICE_OFFSET);\n" +
+			"    }\n" +
+			"    public Quote setPrice( long pValue ) \n" +
+			"    {\n" +
+			"        buffer.putLong(offset + PRICE_OFFSET, pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public int getQty(  ) \n" +
+			"    {\n" +
+			"        return buffer.getInt(offset + QTY_OFFSET);\n" +
+			"    }\n" +
+			"    public Quote setQty( int pValue ) \n" +
+			"    {\n" +
+			"        buffer.putInt(offset + QTY_OFFSET, pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public double getAvgPrice(  ) \n" +
+			"    {\n" +
+			"        return buffer.getDouble(offset + AVG_PRICE_OFFSET);\n" +
+			"    }\n" +
+			"    public Quote setAvgPrice( double pValue ) \n" +
+			"    {\n" +
+			"        buffer.putDouble(offset + AVG_PRICE_OFFSET, pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_ADDRESS_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.reflect.Field;\n" +
+			"import java.nio.ByteOrder;\n" +
+			"\n" +
+			"import sun.misc.Unsafe;\n" +
+			"\n" +
+			"// Flyweight for records of 32 bytes in big endian byte order.\n" +
+			"public class Quote {\n" +
+			"    public static final int SIZE = 32;\n" +
+			"    public static final int FLAG_OFFSET = 0;\n" +
+			"    public static final int PRICE_OFFSET = 8;\n" +
+			"    public static final int QTY_OFFSET = 16;\n" +
+			"    public static final int AVG_PRICE_OFFSET = 24;\n" +
+			"    private static final boolean SWAP = ByteOrder.nativeOrder() != ByteOrder.BIG_ENDIAN;\n" +
+			"    private static final Unsafe UNSAFE = getUnsafe();\n" +
+			"    private static Unsafe getUnsafe() {\n" +
+			"        try {\n" +
+			"            final Field field = Unsafe.class.getDeclaredField(\"theUnsafe\");\n" +
+			"            field.setAccessible(true);\n" +
+			"            return (Unsafe) field.get(null);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private long address;\n" +
+			"    public Quote wrap(long pAddress) {\n" +
+			"        address = pAddress;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public boolean isFlag() {\n" +
+			"        return UNSAFE.getByte(address + FLAG_OFFSET) != 0;\n" +
+			"    }\n" +
+			"    public Quote setFlag(boolean pValue) {\n" +
+			"        UNSAFE.putByte(address + FLAG_OFFSET, (byte) (pValue ? 1 : 0));\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public long getPrice() {\n" +
+			"        final long value = UNSAFE.getLong(address + PRICE_OFFSET);\n" +
+			"        return SWAP ? Long.reverseBytes(value) : value;\n" +
+			"    }\n" +
+			"    public Quote setPrice(long pValue) {\n" +
+			"        UNSAFE.putLong(address + PRICE_OFFSET, SWAP ? Long.reverseBytes(pValue) : pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public int getQty() {\n" +
+			"        final int value = UNSAFE.getInt(address + QTY_OFFSET);\n" +
+			"        return SWAP ? Integer.reverseBytes(value) : value;\n" +
+			"    }\n" +
+			"    public Quote setQty(int pValue) {\n" +
+			"        UNSAFE.putInt(address + QTY_OFFSET, SWAP ? Integer.reverseBytes(pValue) : pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public double getAvgPrice() {\n" +
+			"        final long value = UNSAFE.getLong(address + AVG_PRICE_OFFSET);\n" +
+			"        return Double.longBitsToDouble(SWAP ? Long.reverseBytes(value) : value);\n" +
+			"    }\n" +
+			"    public Quote setAvgPrice(double pValue) {\n" +
+			"        final long value = Double.doubleToRawLongBits(pValue);\n" +
+			"        UNSAFE.putLong(address + AVG_PRICE_OFFSET, SWAP ? Long.reverseBytes(value) : value);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_ADDRESS_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.reflect.Field;\n" +
+			"import java.nio.ByteOrder;\n" +
+			"\n" +
+			"import sun.misc.Unsafe;\n" +
+			"\n" +
+			"// Flyweight for records of 32 bytes in big endian byte order.\n" +
+			"public class Quote\n" +
+			"{\n" +
+			"    public static final int SIZE = 32;\n" +
+			"    public static final int FLAG_OFFSET = 0;\n" +
+			"    public static final int PRICE_OFFSET = 8;\n" +
+			"    public static final int QTY_OFFSET = 16;\n" +
+			"    public static final int AVG_PRICE_OFFSET = 24;\n" +
+			"    private static final boolean SWAP = ByteOrder.nativeOrder() != ByteOrder.BIG_ENDIAN;\n" +
+			"    private static final Unsafe UNSAFE = getUnsafe();\n" +
+			"    private static Unsafe getUnsafe(  ) \n" +
+			"    {\n" +
+			"        try \n" +
+			"        {\n" +
+			"            final Field field = Unsafe.class.getDeclaredField(\"theUnsafe\");\n" +
+			"            field.setAccessible(true);\n" +
+			"            return (Unsafe) field.get(null);\n" +
+			"        }\n" +
+			"        catch (ReflectiveOperationException e) \n" +
+			"        {\n" +
+			"            throw new ExceptionInInitializerError(e);\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private long address;\n" +
+			"    public Quote wrap( long pAddress ) \n" +
+			"    {\n" +
+			"        address = pAddress;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public boolean isFlag(  ) \n" +
+			"    {\n" +
+			"        return UNSAFE.getByte(address + FLAG_OFFSET) != 0;\n" +
+			"    }\n" +
+			"    public Quote setFlag( boolean pValue ) \n" +
+			"    {\n" +
+			"        UNSAFE.putByte(address + FLAG_OFFSET, (byte) (pValue ? 1 : 0));\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public long getPrice(  ) \n" +
+			"    {\n" +
+			"        final long value = UNSAFE.getLong(address + PRICE_OFFSET);\n" +
+			"        return SWAP ? Long.reverseBytes(value) : value;\n" +
+			"    }\n" +
+			"    public Quote setPrice( long pValue ) \n" +
+			"    {\n" +
+			"        UNSAFE.putLong(address + PRICE_OFFSET, SWAP ? Long.reverseBytes(pValue) : pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public int getQty(  ) \n" +
+			"    {\n" +
+			"        final int value = UNSAFE.getInt(address + QTY_OFFSET);\n" +
+			"        return SWAP ? Integer.reverseBytes(value) : value;\n" +
+			"    }\n" +
+			"    public Quote setQty( int pValue ) \n" +
+			"    {\n" +
+			"        UNSAFE.putInt(address + QTY_OFFSET, SWAP ? Integer.reverseBytes(pValue) : pValue);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public double getAvgPrice(  ) \n" +
+			"    {\n" +
+			"        final long value = UNSAFE.getLong(address + AVG_PRICE_OFFSET);\n" +
+			"        return Double.longBitsToDouble(SWAP ? Long.reverseBytes(value) : value);\n" +
+			"    }\n" +
+			"    public Quote setAvgPrice( double pValue ) \n" +
+			"    {\n" +
+			"        final long value = Double.doubleToRawLongBits(pValue);\n" +
+			"        UNSAFE.putLong(address + AVG_PRICE_OFFSET, SWAP ? Long.reverseBytes(value) : value);\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"}\n";
+
+	private Layout newLayout() {
+		return new Layout().field("flag", JQName.BOOLEAN_TYPE).field("price", JQName.LONG_TYPE)
+				.field("qty", JQName.INT_TYPE).field("avgPrice", JQName.DOUBLE_TYPE);
+	}
+
+	@Test
+	public void testLayout() {
+		final Layout layout = newLayout();
+		assertEquals(0, layout.getEntries().get(0).getOffset());
+		assertEquals(8, layout.getEntries().get(1).getOffset());
+		assertEquals(16, layout.getEntries().get(2).getOffset());
+		assertEquals(24, layout.getEntries().get(3).getOffset());
+		assertEquals(32, layout.getSize());
+		final Layout packed = new Layout().aligned(false).field("flag", JQName.BOOLEAN_TYPE)
+				.field("price", JQName.LONG_TYPE);
+		assertEquals(1, packed.getEntries().get(1).getOffset());
+		assertEquals(9, packed.getSize());
+		try {
+			new Layout().field("price", JQName.LONG_TYPE, 4);
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			assertEquals("The offset 4 of field price is not aligned to 8 bytes.", e.getMessage());
+		}
+		try {
+			new Layout().field("price", JQName.LONG_TYPE).field("qty", JQName.INT_TYPE, 4);
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			assertEquals("The field qty overlaps the field price", e.getMessage());
+		}
+		try {
+			new Layout().field("name", JQName.STRING);
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Expected a primitive type"));
+		}
+	}
+
+	private JSGFactory newByteBuffer() {
+		final JSGFactory factory = JSGFactory.create();
+		new FlyweightGenerator().generate(factory, JQName.valueOf("com.foo.myapp.Quote"), newLayout());
+		return factory;
+	}
+
+	@Test
+	public void testByteBuffer() {
+		assertEquals(EXPECT_BYTE_BUFFER_DEFAULT, SourceRenderer.render(newByteBuffer()));
+		assertEquals(EXPECT_BYTE_BUFFER_MAVEN, SourceRenderer.render(newByteBuffer(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	private JSGFactory newAddress() {
+		final JSGFactory factory = JSGFactory.create();
+		final FlyweightGenerator generator = new FlyweightGenerator();
+		generator.setStorage(Storage.ADDRESS);
+		generator.setByteOrder(ByteOrder.BIG_ENDIAN);
+		generator.generate(factory, JQName.valueOf("com.foo.myapp.Quote"), newLayout());
+		return factory;
+	}
+
+	@Test
+	public void testAddress() {
+		assertEquals(EXPECT_ADDRESS_DEFAULT, SourceRenderer.render(newAddress()));
+		assertEquals(EXPECT_ADDRESS_MAVEN, SourceRenderer.render(newAddress(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class InstrumenterTest {
+	private static final String EXPECT_INSTRUMENTED_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Metrics;\n" +
+			"\n" +
+			"public class Calc {\n" +
+			"    public int add(int pA, int pB) {\n" +
+			"        if (Metrics.ENABLED) {\n" +
+			"            Metrics.CALC_ADD_COUNT.increment();\n" +
+			"            final long start$nanos = System.nanoTime();\n" +
+			"            try {\n" +
+			"                return add$body(pA, pB);\n" +
+			"            }\n" +
+			"            finally {\n" +
+			"                Metrics.CALC_ADD_NANOS.add(System.nanoTime() - start$nanos);\n" +
+			"            }\n" +
+			"        }\n" +
+			"        return add$body(pA, pB);\n" +
+			"    }\n" +
+			"    private int add$body(int pA, int pB) {\n" +
+			"        return pA + pB;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Boolean;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.concurrent.atomic.LongAdder;\n" +
+			"import java.util.LinkedHashMap;\n" +
+			"import java.util.Map;\n" +
+			"\n" +
+			"// Counters of instrumented methods. Enabled by the system property com.foo.myapp.Metrics.enabled.\n" +
+			"public class Metrics {\n" +
+			"    public static final boolean ENABLED = Boolean.getBoolean(\"com.foo.myapp.Metrics.enabled\");\n" +
+			"    public static final LongAdder CALC_ADD_COUNT = new LongAdder();\n" +
+			"    public static final LongAdder CALC_ADD_NANOS = new LongAdder();\n" +
+			"    /** Returns the counters, keyed by name.\n" +
+			"      */\n" +
+			"    public static Map<String,LongAdder> getCounters() {\n" +
+			"        final Map<String,LongAdder> counters = new LinkedHashMap<>();\n" +
+			"        counters.put(\"com.foo.myapp.Calc.add.count\", CALC_ADD_COUNT);\n" +
+			"        counters.put(\"com.foo.myapp.Calc.add.nanos\", CALC_ADD_NANOS);\n" +
+			"        return counters;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_INSTRUMENTED_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Metrics;\n" +
+			"\n" +
+			"public class Calc\n" +
+			"{\n" +
+			"    public int add( int pA, int pB ) \n" +
+			"    {\n" +
+			"        if ( Metrics.ENABLED )\n" +
+			"        {\n" +
+			"            Metrics.CALC_ADD_COUNT.increment();\n" +
+			"            final long start$nanos = System.nanoTime();\n" +
+			"            try \n" +
+			"            {\n" +
+			"                return add$body(pA, pB);\n" +
+			"            }\n" +
+			"            finally \n" +
+			"            {\n" +
+			"                Metrics.CALC_ADD_NANOS.add(System.nanoTime() - start$nanos);\n" +
+			"            }\n" +
+			"        }\n" +
+			"        return add$body(pA, pB);\n" +
+			"    }\n" +
+			"    private int add$body( int pA, int pB ) \n" +
+			"    {\n" +
+			"        return pA + pB;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Boolean;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.concurrent.atomic.LongAdder;\n" +
+			"import java.util.LinkedHashMap;\n" +
+			"import java.util.Map;\n" +
+			"\n" +
+			"// Counters of instrumented methods. Enabled by the system property com.foo.myapp.Metrics.enabled.\n" +
+			"public class Metrics\n" +
+			"{\n" +
+			"    public static final boolean ENABLED = Boolean.getBoolean(\"com.foo.myapp.Metrics.enabled\");\n" +
+			"    public static final LongAdder CALC_ADD_COUNT = new LongAdder();\n" +
+			"    public static final LongAdder CALC_ADD_NANOS = new LongAdder();\n" +
+			"    /** Returns the counters, keyed by name.\n" +
+			"      */\n" +
+			"    public static Map<String,LongAdder> getCounters(  ) \n" +
+			"    {\n" +
+			"        final Map<String,LongAdder> counters = new LinkedHashMap<>();\n" +
+			"        counters.put(\"com.foo.myapp.Calc.add.count\", CALC_ADD_COUNT);\n" +
+			"        counters.put(\"com.foo.myapp.Calc.add.nanos\", CALC_ADD_NANOS);\n" +
+			"        return counters;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_PARAMETER_NAMES_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Metrics;\n" +
+			"\n" +
+			"public class Calc {\n" +
+			"    public int span(int start, int start$nanos) {\n" +
+			"        if (Metrics.ENABLED) {\n" +
+			"            Metrics.CALC_SPAN_COUNT.increment();\n" +
+			"            final long start$nanos1 = System.nanoTime();\n" +
+			"            try {\n" +
+			"                return span$body(start, start$nanos);\n" +
+			"            }\n" +
+			"            finally {\n" +
+			"                Metrics.CALC_SPAN_NANOS.add(System.nanoTime() - start$nanos1);\n" +
+			"            }\n" +
+			"        }\n" +
+			"        return span$body(start, start$nanos);\n" +
+			"    }\n" +
+			"    private int span$body(int start, int start$nanos) {\n" +
+			"        return start$nanos - start;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_PARAMETER_NAMES_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Metrics;\n" +
+			"\n" +
+			"public class Calc\n" +
+			"{\n" +
+			"    public int span( int start, int start$nanos ) \n" +
+			"    {\n" +
+			"        if ( Metrics.ENABLED )\n" +
+			"        {\n" +
+			"            Metrics.CALC_SPAN_COUNT.increment();\n" +
+			"            final long start$nanos1 = System.nanoTime();\n" +
+			"            try \n" +
+			"            {\n" +
+			"                return span$body(start, start$nanos);\n" +
+			"            }\n" +
+			"            finally \n" +
+			"            {\n" +
+			"                Metrics.CALC_SPAN_NANOS.add(System.nanoTime() - start$nanos1);\n" +
+			"            }\n" +
+			"        }\n" +
+			"        return span$body(start, start$nanos);\n" +
+			"    }\n" +
+			"    private int span$body( int start, int start$nanos ) \n" +
+			"    {\n" +
+			"        return start$nanos - start;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_COUNT_ONLY_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Metrics;\n" +
+			"\n" +
+			"public class Calc {\n" +
+			"    public void run() {\n" +
+			"        if (Metrics.ENABLED) {\n" +
+			"            Metrics.CALC_RUN_COUNT.increment();\n" +
+			"        }\n" +
+			"        run$body();\n" +
+			"    }\n" +
+			"    private void run$body() {\n" +
+			"        System.gc();\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_COUNT_ONLY_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.Metrics;\n" +
+			"\n" +
+			"public class Calc\n" +
+			"{\n" +
+			"    public void run(  ) \n" +
+			"    {\n" +
+			"        if ( Metrics.ENABLED )\n" +
+			"        {\n" +
+			"            Metrics.CALC_RUN_COUNT.increment();\n" +
+			"        }\n" +
+			"        run$body();\n" +
+			"    }\n" +
+			"    private void run$body(  ) \n" +
+			"    {\n" +
+			"        System.gc();\n" +
+			"    }\n" +
+			"}\n";
+
+	private JSGFactory newInstrumented() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source calc = factory.newSource("com.foo.myapp.Calc").makePublic();
+		final Method add = calc.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "add");
+		add.parameter(JQName.INT_TYPE, "pA");
+		add.parameter(JQName.INT_TYPE, "pB");
+		add.body().tline("return pA + pB");
+		final Instrumenter instrumenter = new Instrumenter(JQName.valueOf("com.foo.myapp.Metrics"));
+		assertEquals(1, instrumenter.instrument(calc));
+		instrumenter.generateRegistry(factory);
+		assertEquals(2, instrumenter.getCounters().size());
+		assertEquals("CALC_ADD_COUNT", instrumenter.getCounters().get("com.foo.myapp.Calc.add.count"));
+		return factory;
+	}
+
+	@Test
+	public void testInstrument() {
+		assertEquals(EXPECT_INSTRUMENTED_DEFAULT, SourceRenderer.render(newInstrumented()));
+		assertEquals(EXPECT_INSTRUMENTED_MAVEN, SourceRenderer.render(newInstrumented(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testAbstractMethod() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source calc = factory.newSource("com.foo.myapp.Calc").makePublic().makeAbstract();
+		final Method reset = calc.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "reset").makeAbstract();
+		final Instrumenter instrumenter = new Instrumenter(JQName.valueOf("com.foo.myapp.Metrics"));
+		assertEquals(0, instrumenter.instrument(calc));
+		assertFalse(instrumenter.instrument(reset));
+		assertEquals(1, calc.getContent().size());
+		assertTrue(instrumenter.getCounters().isEmpty());
+	}
+
+	private JSGFactory newParameterNames() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source calc = factory.newSource("com.foo.myapp.Calc").makePublic();
+		final Method span = calc.newMethod(Protection.PUBLIC, JQName.INT_TYPE, "span");
+		span.parameter(JQName.INT_TYPE, "start");
+		span.parameter(JQName.INT_TYPE, "start$nanos");
+		span.body().tline("return start$nanos - start");
+		new Instrumenter(JQName.valueOf("com.foo.myapp.Metrics")).instrument(span);
+		return factory;
+	}
+
+	@Test
+	public void testParameterNames() {
+		assertEquals(EXPECT_PARAMETER_NAMES_DEFAULT, SourceRenderer.render(newParameterNames()));
+		assertEquals(EXPECT_PARAMETER_NAMES_MAVEN, SourceRenderer.render(newParameterNames(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	private JSGFactory newCountOnly() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source calc = factory.newSource("com.foo.myapp.Calc").makePublic();
+		final Method run = calc.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "run");
+		run.body().tline("System.gc()");
+		final Instrumenter instrumenter = new Instrumenter(JQName.valueOf("com.foo.myapp.Metrics"));
+		instrumenter.setTiming(false);
+		instrumenter.instrument(run);
+		return factory;
+	}
+
+	@Test
+	public void testCountOnly() {
+		assertEquals(EXPECT_COUNT_ONLY_DEFAULT, SourceRenderer.render(newCountOnly()));
+		assertEquals(EXPECT_COUNT_ONLY_MAVEN, SourceRenderer.render(newCountOnly(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+}
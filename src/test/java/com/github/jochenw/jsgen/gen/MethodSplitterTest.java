@@ -0,0 +1,137 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+
+
+public class MethodSplitterTest {
+	private static final String EXPECT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Huge {\n" +
+			"    public static int compute(int pX) {\n" +
+			"        int a = pX + 1;\n" +
+			"        return compute$1(pX, a);\n" +
+			"    }\n" +
+			"    private static int compute$1(int pX, int a) {\n" +
+			"        System.out.println(a + 0);\n" +
+			"        return compute$2(pX, a);\n" +
+			"    }\n" +
+			"    private static int compute$2(int pX, int a) {\n" +
+			"        System.out.println(a + 1);\n" +
+			"        return compute$3(pX, a);\n" +
+			"    }\n" +
+			"    private static int compute$3(int pX, int a) {\n" +
+			"        System.out.println(a + 2);\n" +
+			"        return compute$4(pX, a);\n" +
+			"    }\n" +
+			"    private static int compute$4(int pX, int a) {\n" +
+			"        return a;\n" +
+			"    }\n" +
+			"    static {\n" +
+			"        System.out.println(0);\n" +
+			"        staticInit$1();\n" +
+			"    }\n" +
+			"    private static void staticInit$1() {\n" +
+			"        System.out.println(1);\n" +
+			"        staticInit$2();\n" +
+			"    }\n" +
+			"    private static void staticInit$2() {\n" +
+			"        System.out.println(2);\n" +
+			"        staticInit$3();\n" +
+			"    }\n" +
+			"    private static void staticInit$3() {\n" +
+			"        System.out.println(3);\n" +
+			"    }\n" +
+			"}\n";
+
+	@Test
+	public void testSplit() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Huge").makePublic();
+		final Method method = jsb.newMethod(JQName.INT_TYPE, "compute").makePublic().makeStatic();
+		method.parameter(JQName.INT_TYPE, "pX");
+		final LocalField a = method.newField(JQName.INT_TYPE, "a").assign("pX + 1");
+		for (int i = 0;  i < 3;  i++) {
+			method.body().tline("System.out.println(", a, " + ", i, ")");
+		}
+		method.body().tline("return ", a);
+		final StaticInitializer init = jsb.newInitializer();
+		for (int i = 0;  i < 4;  i++) {
+			init.body().tline("System.out.println(", i, ")");
+		}
+		final MethodSplitter splitter = new MethodSplitter();
+		assertEquals(0, splitter.split(jsb));
+		splitter.setMaxSize(24);
+		assertEquals(7, splitter.split(jsb));
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		assertEquals(EXPECT, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testMultiLineStatement() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Huge").makePublic();
+		final Method method = jsb.newMethod(JQName.INT_TYPE, "sum").makePublic().makeStatic();
+		final LocalField sum = method.newField(JQName.INT_TYPE, "sum").assign("0");
+		for (int i = 0;  i < 3;  i++) {
+			method.body().line(sum, " += compute(", i, ",");
+			method.body().tline("1, 1234567890, 1234567890)");
+		}
+		method.body().tline("return ", sum);
+		final MethodSplitter splitter = new MethodSplitter();
+		splitter.setMaxSize(24);
+		assertEquals(3, splitter.split(jsb));
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		final String source = new String(baos.toByteArray(), StandardCharsets.UTF_8);
+		for (int i = 0;  i < 3;  i++) {
+			// The statement must not be split between its two lines.
+			assertTrue(source, source.matches("(?s).*sum \\+= compute\\(" + i
+					+ ",\\s*1, 1234567890, 1234567890\\);\n.*"));
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.gen.PaddingGenerator.Mode;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class PaddingGeneratorTest {
+	private static final String EXPECT_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.CursorPad1;\n" +
+			"\n" +
+			"public class Cursor extends CursorPad1 {\n" +
+			"    private final int capacity = 1024;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"// Padding against false sharing for Cursor.\n" +
+			"abstract class CursorPad0 {\n" +
+			"    long p1;\n" +
+			"    long p2;\n" +
+			"    long p3;\n" +
+			"    long p4;\n" +
+			"    long p5;\n" +
+			"    long p6;\n" +
+			"    long p7;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.CursorFields1;\n" +
+			"\n" +
+			"// Padding against false sharing for Cursor.\n" +
+			"abstract class CursorPad1 extends CursorFields1 {\n" +
+			"    long p1;\n" +
+			"    long p2;\n" +
+			"    long p3;\n" +
+			"    long p4;\n" +
+			"    long p5;\n" +
+			"    long p6;\n" +
+			"    long p7;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.CursorPad0;\n" +
+			"\n" +
+			"// Holds the field sequence of Cursor.\n" +
+			"abstract class CursorFields1 extends CursorPad0 {\n" +
+			"    volatile long sequence;\n" +
+			"}\n";
+
+	private static final String EXPECT_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.CursorPad1;\n" +
+			"\n" +
+			"public class Cursor extends CursorPad1\n" +
+			"{\n" +
+			"    private final int capacity = 1024;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"// Padding against false sharing for Cursor.\n" +
+			"abstract class CursorPad0\n" +
+			"{\n" +
+			"    long p1;\n" +
+			"    long p2;\n" +
+			"    long p3;\n" +
+			"    long p4;\n" +
+			"    long p5;\n" +
+			"    long p6;\n" +
+			"    long p7;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.CursorFields1;\n" +
+			"\n" +
+			"// Padding against false sharing for Cursor.\n" +
+			"abstract class CursorPad1 extends CursorFields1\n" +
+			"{\n" +
+			"    long p1;\n" +
+			"    long p2;\n" +
+			"    long p3;\n" +
+			"    long p4;\n" +
+			"    long p5;\n" +
+			"    long p6;\n" +
+			"    long p7;\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import com.foo.myapp.CursorPad0;\n" +
+			"\n" +
+			"// Holds the field sequence of Cursor.\n" +
+			"abstract class CursorFields1 extends CursorPad0\n" +
+			"{\n" +
+			"    volatile long sequence;\n" +
+			"}\n";
+
+	private static final String EXPECT_CONTENDED_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import jdk.internal.vm.annotation.Contended;\n" +
+			"\n" +
+			"public class Cursor {\n" +
+			"    @Contended\n" +
+			"    private volatile long sequence;\n" +
+			"}\n";
+
+	private static final String EXPECT_CONTENDED_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import jdk.internal.vm.annotation.Contended;\n" +
+			"\n" +
+			"public class Cursor\n" +
+			"{\n" +
+			"    @Contended\n" +
+			"    private volatile long sequence;\n" +
+			"}\n";
+
+	private JSGFactory newFactory() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source cursor = factory.newSource("com.foo.myapp.Cursor").makePublic();
+		final Field sequence = cursor.newField(JQName.LONG_TYPE, "sequence", Protection.PRIVATE).makeVolatile();
+		cursor.newField(JQName.INT_TYPE, "capacity", Protection.PRIVATE).makeFinal().assign("1024");
+		PaddingGenerator.padFields(factory, cursor, sequence);
+		return factory;
+	}
+
+	private JSGFactory newContendedFactory() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source cursor = factory.newSource("com.foo.myapp.Cursor").makePublic();
+		final Field sequence = cursor.newField(JQName.LONG_TYPE, "sequence", Protection.PRIVATE).makeVolatile();
+		final PaddingGenerator generator = new PaddingGenerator();
+		generator.setMode(Mode.CONTENDED);
+		generator.pad(factory, cursor, sequence);
+		return factory;
+	}
+
+	@Test
+	public void testDefaultFormat() {
+		assertEquals(EXPECT_DEFAULT, SourceRenderer.render(newFactory()));
+		assertEquals(EXPECT_CONTENDED_DEFAULT, SourceRenderer.render(newContendedFactory()));
+	}
+
+	@Test
+	public void testMavenFormat() {
+		assertEquals(EXPECT_MAVEN, SourceRenderer.render(newFactory(), AbstractSourceWriter.MAVEN_FORMATTER));
+		assertEquals(EXPECT_CONTENDED_MAVEN, SourceRenderer.render(newContendedFactory(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testClassHierarchy() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source cursor = factory.newSource("com.foo.myapp.Cursor").makePublic();
+		final Field sequence = cursor.newField(JQName.LONG_TYPE, "sequence", Protection.PRIVATE).makeVolatile();
+		PaddingGenerator.padFields(factory, cursor, sequence);
+		assertEquals(Collections.singletonList(JQName.valueOf("com.foo.myapp.CursorPad1")), cursor.getExtendedClasses());
+		assertTrue(cursor.getContent().isEmpty());
+		final Source pad1 = factory.getSource("com.foo.myapp.CursorPad1");
+		assertEquals(PaddingGenerator.NUM_PAD_FIELDS, pad1.getContent().size());
+		assertEquals(Collections.singletonList(JQName.valueOf("com.foo.myapp.CursorFields1")), pad1.getExtendedClasses());
+		final Source fields1 = factory.getSource("com.foo.myapp.CursorFields1");
+		assertTrue(fields1.isAbstract());
+		assertSame(fields1, sequence.getSourceClass());
+		assertEquals(Collections.singletonList(sequence), fields1.getContent());
+		assertSame(Protection.PACKAGE, sequence.getProtection());
+		assertEquals(Collections.singletonList(JQName.valueOf("com.foo.myapp.CursorPad0")), fields1.getExtendedClasses());
+		final Source pad0 = factory.getSource("com.foo.myapp.CursorPad0");
+		assertTrue(pad0.getExtendedClasses().isEmpty());
+	}
+
+	@Test
+	public void testContended() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source cursor = factory.newSource("com.foo.myapp.Cursor").makePublic();
+		final Field sequence = cursor.newField(JQName.LONG_TYPE, "sequence", Protection.PRIVATE).makeVolatile();
+		final PaddingGenerator generator = new PaddingGenerator();
+		generator.setMode(Mode.CONTENDED);
+		generator.pad(factory, cursor, sequence);
+		assertNotNull(sequence.getAnnotation(PaddingGenerator.DEFAULT_CONTENDED_ANNOTATION));
+		assertSame(cursor, sequence.getSourceClass());
+		assertTrue(cursor.getExtendedClasses().isEmpty());
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.gen.PerfectHashGenerator.Table;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+
+
+public class PerfectHashGeneratorTest {
+	@Test
+	public void testCompute() {
+		final Map<String,Integer> keys = new LinkedHashMap<>();
+		for (int i = 0;  i < 5000;  i++) {
+			keys.put("key" + i, Integer.valueOf(i*3));
+		}
+		final Table table = new PerfectHashGenerator().compute(keys);
+		assertEquals(5000, table.getKeys().length);
+		assertEquals(1250, table.getSeeds().length);
+		final Set<Integer> slots = new HashSet<>();
+		for (Map.Entry<String,Integer> en : keys.entrySet()) {
+			final int slot = table.slotOf(en.getKey());
+			assertTrue(slots.add(Integer.valueOf(slot)));
+			assertEquals(en.getValue().intValue(), table.getIds()[slot]);
+		}
+		assertEquals(-1, table.slotOf("key5000"));
+		assertEquals(-1, table.slotOf(""));
+	}
+
+	@Test
+	public void testGenerate() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Colors").makePublic();
+		PerfectHashGenerator.newLookup(jsb, "colorId", Arrays.asList("red", "green", "blue"));
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		final String source = new String(baos.toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(source, source.contains("private static final String[] colorId$keys = {"));
+		assertTrue(source, source.contains("private static final int[] colorId$seeds = {"));
+		assertTrue(source, source.contains("public static int colorId(String pKey) {"));
+		assertTrue(source, source.contains("return pKey.equals(colorId$keys[slot]) ? colorId$ids[slot] : -1;"));
+		assertTrue(source, source.contains("private static int colorId$hash(String pKey, int pSeed) {"));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDuplicateKeys() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Colors").makePublic();
+		PerfectHashGenerator.newLookup(jsb, "colorId", Arrays.asList("red", "green", "red"));
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.Subroutine.Parameter;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class PrimitiveSpecializerTest {
+	private static final String EXPECT_SPECIALIZED_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.Collection;\n" +
+			"\n" +
+			"public class IntBox {\n" +
+			"    private int value;\n" +
+			"    public IntBox set(int pValue) {\n" +
+			"        value = pValue;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public int sum(Collection<? extends Integer> pValues) {\n" +
+			"        int result = value;\n" +
+			"        for (final int v : pValues) {\n" +
+			"            result += v;\n" +
+			"        }\n" +
+			"        return result;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.Collection;\n" +
+			"\n" +
+			"public class DoubleBox {\n" +
+			"    private double value;\n" +
+			"    public DoubleBox set(double pValue) {\n" +
+			"        value = pValue;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public double sum(Collection<? extends Double> pValues) {\n" +
+			"        double result = value;\n" +
+			"        for (final double v : pValues) {\n" +
+			"            result += v;\n" +
+			"        }\n" +
+			"        return result;\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_SPECIALIZED_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.Collection;\n" +
+			"\n" +
+			"public class IntBox\n" +
+			"{\n" +
+			"    private int value;\n" +
+			"    public IntBox set( int pValue ) \n" +
+			"    {\n" +
+			"        value = pValue;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public int sum( Collection<? extends Integer> pValues ) \n" +
+			"    {\n" +
+			"        int result = value;\n" +
+			"        for ( final int v : pValues )\n" +
+			"        {\n" +
+			"            result += v;\n" +
+			"        }\n" +
+			"        return result;\n" +
+			"    }\n" +
+			"}\n" +
+			"package com.foo.myapp;\n" +
+			"\n" +
+			"import java.util.Collection;\n" +
+			"\n" +
+			"public class DoubleBox\n" +
+			"{\n" +
+			"    private double value;\n" +
+			"    public DoubleBox set( double pValue ) \n" +
+			"    {\n" +
+			"        value = pValue;\n" +
+			"        return this;\n" +
+			"    }\n" +
+			"    public double sum( Collection<? extends Double> pValues ) \n" +
+			"    {\n" +
+			"        double result = value;\n" +
+			"        for ( final double v : pValues )\n" +
+			"        {\n" +
+			"            result += v;\n" +
+			"        }\n" +
+			"        return result;\n" +
+			"    }\n" +
+			"}\n";
+
+	private Source newTemplate() {
+		final JQName t = PrimitiveSpecializer.typeVariable("T");
+		final JQName type = JQName.genericValueOf(JQName.valueOf("com.foo.myapp.TBox"), "T");
+		final Source template = JSGFactory.create().newSource(type, Protection.PUBLIC);
+		final Field value = template.newField(t, "value", Protection.PRIVATE);
+		final Method set = template.newMethod(Protection.PUBLIC, type, "set");
+		final Parameter param = set.parameter(t, "pValue");
+		set.body().tline(value, " = ", param);
+		set.body().tline("return this");
+		final Method sum = template.newMethod(Protection.PUBLIC, t, "sum");
+		sum.parameter(JQName.genericValueOf(JQName.COLLECTION, "? extends T"), "pValues");
+		final LocalField result = sum.body().newField(t, "result").assign(value);
+		sum.body().newFor("final ", t, " v : pValues").tline(result, " += v");
+		sum.body().tline("return ", result);
+		return template;
+	}
+
+	private JSGFactory newSpecialized() {
+		final JSGFactory factory = JSGFactory.create();
+		final List<Source> sources = new PrimitiveSpecializer().specializeAll(factory, newTemplate(),
+				JQName.INT_TYPE, JQName.DOUBLE_TYPE);
+		assertEquals("com.foo.myapp.IntBox", sources.get(0).getType().getQName());
+		assertEquals("com.foo.myapp.DoubleBox", sources.get(1).getType().getQName());
+		return factory;
+	}
+
+	@Test
+	public void testSpecialize() {
+		assertEquals(EXPECT_SPECIALIZED_DEFAULT, SourceRenderer.render(newSpecialized()));
+		assertEquals(EXPECT_SPECIALIZED_MAVEN, SourceRenderer.render(newSpecialized(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testInvalidPrimitive() {
+		try {
+			new PrimitiveSpecializer().specialize(JSGFactory.create(), newTemplate(),
+					JQName.valueOf("com.foo.myapp.IntBox"), JQName.valueOf(Collection.class));
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Expected a primitive type, got java.util.Collection", e.getMessage());
+		}
+	}
+}
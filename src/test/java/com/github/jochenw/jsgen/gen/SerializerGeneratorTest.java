@@ -0,0 +1,330 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.gen.SerializerGenerator.Target;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class SerializerGeneratorTest {
+	private static final String EXPECT_DATA_STREAM_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.io.DataInput;\n" +
+			"import java.io.DataOutput;\n" +
+			"import java.io.IOException;\n" +
+			"import java.lang.Integer;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.ArrayList;\n" +
+			"import java.util.List;\n" +
+			"\n" +
+			"public class Dto {\n" +
+			"    private int id;\n" +
+			"    private String name;\n" +
+			"    private List<Integer> values;\n" +
+			"    public void writeTo(DataOutput pOut) throws IOException {\n" +
+			"        final int nulls0 = (name == null ? 1 : 0) | (values == null ? 2 : 0);\n" +
+			"        pOut.writeByte(nulls0);\n" +
+			"        pOut.writeInt(id);\n" +
+			"        if (name != null) {\n" +
+			"            pOut.writeInt(name.length());\n" +
+			"            pOut.writeChars(name);\n" +
+			"        }\n" +
+			"        if (values != null) {\n" +
+			"            pOut.writeInt(values.size());\n" +
+			"            for (final Integer e : values) {\n" +
+			"                pOut.writeInt(e);\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public void readFrom(DataInput pIn) throws IOException {\n" +
+			"        final int nulls0 = pIn.readUnsignedByte();\n" +
+			"        id = pIn.readInt();\n" +
+			"        if ((nulls0 & 1) != 0) {\n" +
+			"            name = null;\n" +
+			"        } else {\n" +
+			"            name = readFrom$string(pIn);\n" +
+			"        }\n" +
+			"        if ((nulls0 & 2) != 0) {\n" +
+			"            values = null;\n" +
+			"        } else {\n" +
+			"            final int valuesSize = pIn.readInt();\n" +
+			"            values = new ArrayList<>(valuesSize);\n" +
+			"            for (int i = 0;  i < valuesSize;  i++) {\n" +
+			"                values.add(pIn.readInt());\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private static String readFrom$string(DataInput pIn) throws IOException {\n" +
+			"        final char[] chars = new char[pIn.readInt()];\n" +
+			"        for (int i = 0;  i < chars.length;  i++) {\n" +
+			"            chars[i] = pIn.readChar();\n" +
+			"        }\n" +
+			"        return new String(chars);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_DATA_STREAM_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.io.DataInput;\n" +
+			"import java.io.DataOutput;\n" +
+			"import java.io.IOException;\n" +
+			"import java.lang.Integer;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.ArrayList;\n" +
+			"import java.util.List;\n" +
+			"\n" +
+			"public class Dto\n" +
+			"{\n" +
+			"    private int id;\n" +
+			"    private String name;\n" +
+			"    private List<Integer> values;\n" +
+			"    public void writeTo( DataOutput pOut ) throws IOException \n" +
+			"    {\n" +
+			"        final int nulls0 = (name == null ? 1 : 0) | (values == null ? 2 : 0);\n" +
+			"        pOut.writeByte(nulls0);\n" +
+			"        pOut.writeInt(id);\n" +
+			"        if ( name != null )\n" +
+			"        {\n" +
+			"            pOut.writeInt(name.length());\n" +
+			"            pOut.writeChars(name);\n" +
+			"        }\n" +
+			"        if ( values != null )\n" +
+			"        {\n" +
+			"            pOut.writeInt(values.size());\n" +
+			"            for ( final Integer e : values )\n" +
+			"            {\n" +
+			"                pOut.writeInt(e);\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public void readFrom( DataInput pIn ) throws IOException \n" +
+			"    {\n" +
+			"        final int nulls0 = pIn.readUnsignedByte();\n" +
+			"        id = pIn.readInt();\n" +
+			"        if ( (nulls0 & 1) != 0 )\n" +
+			"        {\n" +
+			"            name = null;\n" +
+			"        }\n" +
+			"        else\n" +
+			"        {\n" +
+			"            name = readFrom$string(pIn);\n" +
+			"        }\n" +
+			"        if ( (nulls0 & 2) != 0 )\n" +
+			"        {\n" +
+			"            values = null;\n" +
+			"        }\n" +
+			"        else\n" +
+			"        {\n" +
+			"            final int valuesSize = pIn.readInt();\n" +
+			"            values = new ArrayList<>(valuesSize);\n" +
+			"            for ( int i = 0;  i < valuesSize;  i++ )\n" +
+			"            {\n" +
+			"                values.add(pIn.readInt());\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private static String readFrom$string( DataInput pIn ) throws IOException \n" +
+			"    {\n" +
+			"        final char[] chars = new char[pIn.readInt()];\n" +
+			"        for ( int i = 0;  i < chars.length;  i++ )\n" +
+			"        {\n" +
+			"            chars[i] = pIn.readChar();\n" +
+			"        }\n" +
+			"        return new String(chars);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_BYTE_BUFFER_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Integer;\n" +
+			"import java.lang.String;\n" +
+			"import java.nio.ByteBuffer;\n" +
+			"import java.util.ArrayList;\n" +
+			"import java.util.List;\n" +
+			"\n" +
+			"public class Dto {\n" +
+			"    private int id;\n" +
+			"    private String name;\n" +
+			"    private List<Integer> values;\n" +
+			"    public void writeTo(ByteBuffer pBuffer) {\n" +
+			"        final int nulls0 = (name == null ? 1 : 0) | (values == null ? 2 : 0);\n" +
+			"        pBuffer.put((byte) nulls0);\n" +
+			"        pBuffer.putInt(id);\n" +
+			"        if (name != null) {\n" +
+			"            pBuffer.putInt(name.length());\n" +
+			"            for (int i = 0;  i < name.length();  i++) {\n" +
+			"                pBuffer.putChar(name.charAt(i));\n" +
+			"            }\n" +
+			"        }\n" +
+			"        if (values != null) {\n" +
+			"            pBuffer.putInt(values.size());\n" +
+			"            for (final Integer e : values) {\n" +
+			"                pBuffer.putInt(e);\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public void readFrom(ByteBuffer pBuffer) {\n" +
+			"        final int nulls0 = pBuffer.get() & 0xff;\n" +
+			"        id = pBuffer.getInt();\n" +
+			"        if ((nulls0 & 1) != 0) {\n" +
+			"            name = null;\n" +
+			"        } else {\n" +
+			"            name = readFrom$string(pBuffer);\n" +
+			"        }\n" +
+			"        if ((nulls0 & 2) != 0) {\n" +
+			"            values = null;\n" +
+			"        } else {\n" +
+			"            final int valuesSize = pBuffer.getInt();\n" +
+			"            values = new ArrayList<>(valuesSize);\n" +
+			"            for (int i = 0;  i < valuesSize;  i++) {\n" +
+			"                values.add(pBuffer.getInt());\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private static String readFrom$string(ByteBuffer pBuffer) {\n" +
+			"        final char[] chars = new char[pBuffer.getInt()];\n" +
+			"        for (int i = 0;  i < chars.length;  i++) {\n" +
+			"            chars[i] = pBuffer.getChar();\n" +
+			"        }\n" +
+			"        return new String(chars);\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_BYTE_BUFFER_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Integer;\n" +
+			"import java.lang.String;\n" +
+			"import java.nio.ByteBuffer;\n" +
+			"import java.util.ArrayList;\n" +
+			"import java.util.List;\n" +
+			"\n" +
+			"public class Dto\n" +
+			"{\n" +
+			"    private int id;\n" +
+			"    private String name;\n" +
+			"    private List<Integer> values;\n" +
+			"    public void writeTo( ByteBuffer pBuffer ) \n" +
+			"    {\n" +
+			"        final int nulls0 = (name == null ? 1 : 0) | (values == null ? 2 : 0);\n" +
+			"        pBuffer.put((byte) nulls0);\n" +
+			"        pBuffer.putInt(id);\n" +
+			"        if ( name != null )\n" +
+			"        {\n" +
+			"            pBuffer.putInt(name.length());\n" +
+			"            for ( int i = 0;  i < name.length();  i++ )\n" +
+			"            {\n" +
+			"                pBuffer.putChar(name.charAt(i));\n" +
+			"            }\n" +
+			"        }\n" +
+			"        if ( values != null )\n" +
+			"        {\n" +
+			"            pBuffer.putInt(values.size());\n" +
+			"            for ( final Integer e : values )\n" +
+			"            {\n" +
+			"                pBuffer.putInt(e);\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    public void readFrom( ByteBuffer pBuffer ) \n" +
+			"    {\n" +
+			"        final int nulls0 = pBuffer.get() & 0xff;\n" +
+			"        id = pBuffer.getInt();\n" +
+			"        if ( (nulls0 & 1) != 0 )\n" +
+			"        {\n" +
+			"            name = null;\n" +
+			"        }\n" +
+			"        else\n" +
+			"        {\n" +
+			"            name = readFrom$string(pBuffer);\n" +
+			"        }\n" +
+			"        if ( (nulls0 & 2) != 0 )\n" +
+			"        {\n" +
+			"            values = null;\n" +
+			"        }\n" +
+			"        else\n" +
+			"        {\n" +
+			"            final int valuesSize = pBuffer.getInt();\n" +
+			"            values = new ArrayList<>(valuesSize);\n" +
+			"            for ( int i = 0;  i < valuesSize;  i++ )\n" +
+			"            {\n" +
+			"                values.add(pBuffer.getInt());\n" +
+			"            }\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private static String readFrom$string( ByteBuffer pBuffer ) \n" +
+			"    {\n" +
+			"        final char[] chars = new char[pBuffer.getInt()];\n" +
+			"        for ( int i = 0;  i < chars.length;  i++ )\n" +
+			"        {\n" +
+			"            chars[i] = pBuffer.getChar();\n" +
+			"        }\n" +
+			"        return new String(chars);\n" +
+			"    }\n" +
+			"}\n";
+
+	private Source newDto(JSGFactory pFactory) {
+		final Source dto = pFactory.newSource("com.foo.myapp.Dto").makePublic();
+		dto.newField(JQName.INT_TYPE, "id", Protection.PRIVATE);
+		dto.newField(JQName.STRING, "name", Protection.PRIVATE);
+		dto.newField(JQName.valueOf(List.class).qualifiedBy(Integer.class), "values", Protection.PRIVATE);
+		return dto;
+	}
+
+	private JSGFactory newDataStream() {
+		final JSGFactory factory = JSGFactory.create();
+		new SerializerGenerator().generate(newDto(factory));
+		return factory;
+	}
+
+	private JSGFactory newByteBuffer() {
+		final JSGFactory factory = JSGFactory.create();
+		final SerializerGenerator generator = new SerializerGenerator();
+		generator.setTarget(Target.BYTE_BUFFER);
+		generator.generate(newDto(factory));
+		return factory;
+	}
+
+	@Test
+	public void testDataStream() {
+		assertEquals(EXPECT_DATA_STREAM_DEFAULT, SourceRenderer.render(newDataStream()));
+		assertEquals(EXPECT_DATA_STREAM_MAVEN, SourceRenderer.render(newDataStream(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test
+	public void testByteBuffer() {
+		assertEquals(EXPECT_BYTE_BUFFER_DEFAULT, SourceRenderer.render(newByteBuffer()));
+		assertEquals(EXPECT_BYTE_BUFFER_MAVEN, SourceRenderer.render(newByteBuffer(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testFinalField() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source dto = newDto(factory);
+		dto.newField(JQName.INT_TYPE, "version").makeFinal().assign("1");
+		new SerializerGenerator().generate(dto);
+	}
+}
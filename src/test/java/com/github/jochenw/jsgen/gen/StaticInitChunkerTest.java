@@ -0,0 +1,200 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.LocalField;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.StaticInitializer;
+import com.github.jochenw.jsgen.impl.AbstractSourceWriter;
+import com.github.jochenw.jsgen.impl.SourceRenderer;
+
+
+public class StaticInitChunkerTest {
+	private static final String EXPECT_CHUNKED_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Integer;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.ArrayList;\n" +
+			"import java.util.HashMap;\n" +
+			"import java.util.List;\n" +
+			"import java.util.Map;\n" +
+			"\n" +
+			"public class Config {\n" +
+			"    static final String NAME = \"config\";\n" +
+			"    private static final class MapHolder {\n" +
+			"        static final Map<String,Integer> MAP;\n" +
+			"        static final List<String> KEYS = new ArrayList<>();\n" +
+			"        static {\n" +
+			"            MAP = new HashMap<>();\n" +
+			"            int i = 42;\n" +
+			"            MAP.put(\"a\", i);\n" +
+			"            KEYS.add(\"b\");\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private static Map<String,Integer> getMap() {\n" +
+			"        return MapHolder.MAP;\n" +
+			"    }\n" +
+			"    static List<String> getKeys() {\n" +
+			"        return MapHolder.KEYS;\n" +
+			"    }\n" +
+			"    private static final class ValuesHolder {\n" +
+			"        static final int[] VALUES = new int[]{ 1, 2, 3 };\n" +
+			"        static final int NUM_VALUES = VALUES.length;\n" +
+			"    }\n" +
+			"    static int[] getValues() {\n" +
+			"        return ValuesHolder.VALUES;\n" +
+			"    }\n" +
+			"    static int getNumValues() {\n" +
+			"        return ValuesHolder.NUM_VALUES;\n" +
+			"    }\n" +
+			"    static {\n" +
+			"        System.out.println(\"Loaded\");\n" +
+			"    }\n" +
+			"    public static Integer lookup() {\n" +
+			"        return getMap().get(getKeys().get(0));\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_CHUNKED_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"import java.lang.Integer;\n" +
+			"import java.lang.String;\n" +
+			"import java.util.ArrayList;\n" +
+			"import java.util.HashMap;\n" +
+			"import java.util.List;\n" +
+			"import java.util.Map;\n" +
+			"\n" +
+			"public class Config\n" +
+			"{\n" +
+			"    static final String NAME = \"config\";\n" +
+			"    private static final class MapHolder\n" +
+			"    {\n" +
+			"        static final Map<String,Integer> MAP;\n" +
+			"        static final List<String> KEYS = new ArrayList<>();\n" +
+			"        static\n" +
+			"        {\n" +
+			"            MAP = new HashMap<>();\n" +
+			"            int i = 42;\n" +
+			"            MAP.put(\"a\", i);\n" +
+			"            KEYS.add(\"b\");\n" +
+			"        }\n" +
+			"    }\n" +
+			"    private static Map<String,Integer> getMap(  ) \n" +
+			"    {\n" +
+			"        return MapHolder.MAP;\n" +
+			"    }\n" +
+			"    static List<String> getKeys(  ) \n" +
+			"    {\n" +
+			"        return MapHolder.KEYS;\n" +
+			"    }\n" +
+			"    private static final class ValuesHolder\n" +
+			"    {\n" +
+			"        static final int[] VALUES = new int[]{ 1, 2, 3 };\n" +
+			"        static final int NUM_VALUES = VALUES.length;\n" +
+			"    }\n" +
+			"    static int[] getValues(  ) \n" +
+			"    {\n" +
+			"        return ValuesHolder.VALUES;\n" +
+			"    }\n" +
+			"    static int getNumValues(  ) \n" +
+			"    {\n" +
+			"        return ValuesHolder.NUM_VALUES;\n" +
+			"    }\n" +
+			"    static\n" +
+			"    {\n" +
+			"        System.out.println(\"Loaded\");\n" +
+			"    }\n" +
+			"    public static Integer lookup(  ) \n" +
+			"    {\n" +
+			"        return getMap().get(getKeys().get(0));\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_NO_CANDIDATES_DEFAULT = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Constants {\n" +
+			"    static final int SIZE = 16;\n" +
+			"    static {\n" +
+			"        System.out.println(\"Loaded\");\n" +
+			"    }\n" +
+			"}\n";
+
+	private static final String EXPECT_NO_CANDIDATES_MAVEN = "package com.foo.myapp;\n" +
+			"\n" +
+			"public class Constants\n" +
+			"{\n" +
+			"    static final int SIZE = 16;\n" +
+			"    static\n" +
+			"    {\n" +
+			"        System.out.println(\"Loaded\");\n" +
+			"    }\n" +
+			"}\n";
+
+	private JSGFactory newChunked() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source src = factory.newSource("com.foo.myapp.Config").makePublic();
+		src.newField(JQName.STRING, "NAME").makeStatic().makeFinal().assign("\"config\"");
+		final Field map = src.newField(JQName.MAP.qualifiedBy(JQName.STRING, JQName.INT_OBJ), "MAP", Protection.PRIVATE)
+				.makeStatic().makeFinal();
+		final Field keys = src.newField(JQName.LIST.qualifiedBy(JQName.STRING), "KEYS").makeStatic().makeFinal()
+				.assign("new ", JQName.ARRAY_LIST, "<>()");
+		final Field values = src.newField(JQName.INT_TYPE.arrayOf(), "VALUES").makeStatic().makeFinal()
+				.assign("new int[]{ 1, 2, 3 }");
+		src.newField(JQName.INT_TYPE, "NUM_VALUES").makeStatic().makeFinal().assign(values, ".length");
+		final StaticInitializer init = src.newInitializer();
+		init.body().tline(map, " = new ", JQName.HASH_MAP, "<>()");
+		final LocalField i = init.body().newField(JQName.INT_TYPE, "i").assign("42");
+		init.body().tline(map, ".put(\"a\", ", i, ")");
+		init.body().tline(keys, ".add(\"b\")");
+		init.body().tline("System.out.println(\"Loaded\")");
+		src.newMethod(Protection.PUBLIC, JQName.INT_OBJ, "lookup").makeStatic()
+			.body().tline("return ", map, ".get(", keys, ".get(0))");
+		assertEquals(2, new StaticInitChunker().chunk(src));
+		assertTrue(map.isLazyStatic());
+		assertTrue(keys.isLazyStatic());
+		return factory;
+	}
+
+	@Test
+	public void testChunk() {
+		assertEquals(EXPECT_CHUNKED_DEFAULT, SourceRenderer.render(newChunked()));
+		assertEquals(EXPECT_CHUNKED_MAVEN, SourceRenderer.render(newChunked(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+
+	private JSGFactory newNoCandidates() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source src = factory.newSource("com.foo.myapp.Constants").makePublic();
+		src.newField(JQName.INT_TYPE, "SIZE").makeStatic().makeFinal().assign("16");
+		src.newInitializer().body().tline("System.out.println(\"Loaded\")");
+		assertEquals(0, new StaticInitChunker().chunk(src));
+		return factory;
+	}
+
+	@Test
+	public void testNoCandidates() {
+		assertEquals(EXPECT_NO_CANDIDATES_DEFAULT, SourceRenderer.render(newNoCandidates()));
+		assertEquals(EXPECT_NO_CANDIDATES_MAVEN, SourceRenderer.render(newNoCandidates(), AbstractSourceWriter.MAVEN_FORMATTER));
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FormatTest {
+	/**
+	 * Tests the cached indentation strings with plain blanks, and tabs.
+	 */
+	@Test
+	public void testIndentStrings() {
+		final Format blanks = new DefaultFormat("    ", "\n");
+		Assert.assertEquals("", blanks.getIndentString(0));
+		Assert.assertEquals("    ", blanks.getIndentString(1));
+		Assert.assertEquals("            ", blanks.getIndentString(3));
+		Assert.assertSame(blanks.getIndentString(3), blanks.getIndentString(3));
+		Assert.assertEquals(40, blanks.getIndentString(10).length());
+		final Format tabs = new MavenFormat("\t", "\n");
+		Assert.assertEquals("\t\t", tabs.getIndentString(2));
+	}
+
+	/**
+	 * Tests mixed indentation (tabs, followed by blanks).
+	 */
+	@Test
+	public void testMixedIndentation() {
+		final Format mixed = new DefaultFormat("    ", "\n", 8);
+		Assert.assertEquals("    ", mixed.getIndentString(1));
+		Assert.assertEquals("\t", mixed.getIndentString(2));
+		Assert.assertEquals("\t    ", mixed.getIndentString(3));
+		Assert.assertEquals("\t\t", mixed.getIndentString(4));
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.Field;
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.InnerClass;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.Subroutine;
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+
+public class MemoizationTest {
+	/**
+	 * Tests, that memoization doesn't change the generated output.
+	 */
+	@Test
+	public void testMemoizedOutput() throws Exception {
+		final JSGFactory factory = JSGFactory.create();
+		for (int i = 0;  i < 3;  i++) {
+			final Source src = factory.newSource("com.foo.myapp.Bean" + i).makePublic();
+			src.packageComment("Copyright 2018 Jochen Wiedmann", "All rights reserved.");
+			src.getPackageComment().build();
+			for (String name : new String[] {"name", "description"}) {
+				final Field field = src.newField(JQName.STRING, name).makePrivate().build();
+				final String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+				final Method getter = src.newMethod(JQName.STRING, "get" + suffix).makePublic();
+				getter.body().tline("return ", field);
+				getter.build();
+				final Method setter = src.newMethod(JQName.VOID_TYPE, "set" + suffix).makePublic();
+				setter.parameter(JQName.STRING, "pValue");
+				setter.body().tline(field, " = pValue");
+				setter.build();
+			}
+		}
+		final AtomicInteger plainCounter = new AtomicInteger();
+		final String expect = asString(factory, newCountingFormatter(plainCounter));
+		final AtomicInteger memoizingCounter = new AtomicInteger();
+		final DefaultJavaSourceFormatter memoizingFormatter = newCountingFormatter(memoizingCounter);
+		memoizingFormatter.setMemoizing(true);
+		Assert.assertEquals(expect, asString(factory, memoizingFormatter));
+		// The getters, and setters of Bean1, and Bean2 are structurally identical
+		// to those of Bean0, and must be replayed, rather than rendered.
+		final int numRendered = memoizingCounter.get();
+		Assert.assertTrue(numRendered > 0);
+		Assert.assertTrue(numRendered + " >= " + plainCounter.get(), numRendered < plainCounter.get());
+		// Second run, using the already recorded fragments.
+		Assert.assertEquals(expect, asString(factory, memoizingFormatter));
+		Assert.assertEquals(numRendered, memoizingCounter.get());
+	}
+
+	/**
+	 * Tests, that references to a lazy static field, which are rendered
+	 * differently inside, and outside of the holder class, aren't shared.
+	 */
+	@Test
+	public void testLazyStaticReferences() throws Exception {
+		final JSGFactory factory = JSGFactory.create();
+		final Source src = factory.newSource("com.foo.myapp.Tables").makePublic();
+		final Field values = src.newField(JQName.INT_TYPE.arrayOf(), "VALUES").makeStatic().makeFinal()
+				.lazyStatic().assign(new int[] {1, 2, 3});
+		final InnerClass holder = (InnerClass) values.getSourceClass();
+		holder.newField(JQName.INT_TYPE, "N").makeStatic().makeFinal().assign(values, ".length").build();
+		final InnerClass other = src.newInnerClass("Other", Protection.PRIVATE).makeStatic();
+		other.newField(JQName.INT_TYPE, "N").makeStatic().makeFinal().assign(values, ".length").build();
+		final String expect = asString(factory, new DefaultJavaSourceFormatter(AbstractSourceWriter.DEFAULT_FORMAT));
+		Assert.assertTrue(expect, expect.contains("        static final int N = VALUES.length;\n"));
+		Assert.assertTrue(expect, expect.contains("        static final int N = getValues().length;\n"));
+		final DefaultJavaSourceFormatter memoizingFormatter = new DefaultJavaSourceFormatter(AbstractSourceWriter.DEFAULT_FORMAT);
+		memoizingFormatter.setMemoizing(true);
+		Assert.assertEquals(expect, asString(factory, memoizingFormatter));
+		Assert.assertEquals(expect, asString(factory, memoizingFormatter));
+	}
+
+	private DefaultJavaSourceFormatter newCountingFormatter(AtomicInteger pCounter) {
+		return new DefaultJavaSourceFormatter(AbstractSourceWriter.DEFAULT_FORMAT) {
+			@Override
+			protected void writeMethod(Subroutine<?> pBlock, Data pTarget) {
+				pCounter.incrementAndGet();
+				super.writeMethod(pBlock, pTarget);
+			}
+		};
+	}
+
+	private String asString(JSGFactory pFactory, SourceSerializer pFormatter) throws UnsupportedEncodingException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.setFormatter(pFormatter);
+		jsgw.write(pFactory);
+		return baos.toString(StandardCharsets.UTF_8.name());
+	}
+}
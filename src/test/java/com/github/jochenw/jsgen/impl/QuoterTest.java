@@ -0,0 +1,137 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.Source;
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+import com.github.jochenw.jsgen.impl.Quoter.ChunkMode;
+
+
+public class QuoterTest {
+	@Test
+	public void testValueOf() {
+		assertEquals("\"Hello, world!\"", Quoter.valueOf("Hello, world!"));
+		assertEquals("\"\"", Quoter.valueOf(""));
+		assertEquals("null", Quoter.valueOf(null));
+		assertEquals("\"a\\\"b\\\\c\\r\\n\\td'e\"", Quoter.valueOf("a\"b\\c\r\n\td'e"));
+		// Control characters are written as three digit octal escapes.
+		assertEquals("\"\\0001\\037\\177\"", Quoter.valueOf("\u00001\u001f\u007f"));
+		assertEquals("\"äö\"", Quoter.valueOf("äö"));
+		assertEquals("\"\\u00e4\\u00f6x\"", Quoter.valueOf("äöx", true));
+		// Surrogate pairs are copied, unpaired surrogates are escaped.
+		assertEquals("\"\ud83d\ude00\"", Quoter.valueOf("\ud83d\ude00"));
+		assertEquals("\"\\ud83dx\"", Quoter.valueOf("\ud83dx"));
+	}
+
+	@Test
+	public void testQuoteTo() throws Exception {
+		final StringBuilder sb = new StringBuilder("x = ");
+		assertSame(sb, Quoter.quoteTo(sb, "a\"b"));
+		assertEquals("x = \"a\\\"b\"", sb.toString());
+		final StringWriter sw = new StringWriter();
+		Quoter.quoteTo(sw, "€\n", true);
+		assertEquals("\"\\u20ac\\n\"", sw.toString());
+	}
+
+	@Test
+	public void testCharLiterals() {
+		assertEquals("'a'", Quoter.charLiteral('a', false));
+		assertEquals("'\\''", Quoter.charLiteral('\'', false));
+		assertEquals("'\"'", Quoter.charLiteral('"', false));
+		assertEquals("'\\u00e4'", Quoter.charLiteral('ä', true));
+		assertEquals("new char[]{'a', '\\n', 'ä'}", Quoter.charArrayLiteral(new char[] {'a', '\n', 'ä'}, false));
+		assertEquals("new char[]{}", Quoter.charArrayLiteral(new char[0], false));
+		assertEquals("null", Quoter.charArrayLiteral(null, false));
+	}
+
+	@Test
+	public void testChunkedShortValue() {
+		assertArrayEquals(new Object[] {"\"a\\\"b\""}, Quoter.chunked("a\"b", ChunkMode.CONCATENATION));
+		assertArrayEquals(new Object[] {"null"}, Quoter.chunked(null, ChunkMode.STRING_BUILDER));
+	}
+
+	@Test
+	public void testChunkedMultiByte() {
+		// Two bytes per umlaut, six bytes for the surrogate pair, which must not be split.
+		final String value = "äöü😀x";
+		final Object[] tokens = Quoter.chunked(value, 7, ChunkMode.CONCATENATION);
+		assertArrayEquals(new Object[] {"\"äöü\" +", Format.INC_INDENT, Format.NEWLINE, Format.INDENT,
+				                        "\"😀x\"", Format.DEC_INDENT}, tokens);
+	}
+
+	@Test
+	public void testConcatenationTooLong() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0;  i < Quoter.MAX_CONSTANT_BYTES/3 + 1;  i++) {
+			sb.append('€');
+		}
+		try {
+			Quoter.chunked(sb.toString(), ChunkMode.CONCATENATION);
+			fail("Expected Exception");
+		} catch (IllegalArgumentException e) {
+			// Okay
+		}
+		final Object[] tokens = Quoter.chunked(sb.toString(), ChunkMode.STRING_BUILDER);
+		// 341 characters (1023 bytes) per chunk, so we expect 65 chunks: The prefix, INC_INDENT,
+		// three tokens per chunk, three tokens for the suffix, and DEC_INDENT.
+		assertEquals(1 + 1 + 3*65 + 3 + 1, tokens.length);
+	}
+
+	@Test
+	public void testChunkedField() {
+		final JSGFactory factory = JSGFactory.create();
+		final Source jsb = factory.newSource("com.foo.myapp.Strings").makePublic();
+		jsb.newField(JQName.STRING, "A").makePublic().makeStatic().makeFinal()
+			.assign(Quoter.chunked("abcdefgh", 6, ChunkMode.CONCATENATION));
+		jsb.newField(JQName.STRING, "B").makePublic().makeStatic().makeFinal()
+			.assign(Quoter.chunked("abcdefgh", 6, ChunkMode.STRING_BUILDER));
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.write(factory);
+		assertEquals("package com.foo.myapp;\n"
+				+ "\n"
+				+ "import java.lang.String;\n"
+				+ "\n"
+				+ "public class Strings {\n"
+				+ "    public static final String A = \"abcdef\" +\n"
+				+ "        \"gh\";\n"
+				+ "    public static final String B = new StringBuilder(8)\n"
+				+ "        .append(\"abcdef\")\n"
+				+ "        .append(\"gh\")\n"
+				+ "        .toString();\n"
+				+ "}\n", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
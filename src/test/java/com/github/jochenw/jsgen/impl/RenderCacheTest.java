@@ -0,0 +1,142 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.github.jochenw.jsgen.api.IProtectable.Protection;
+import com.github.jochenw.jsgen.api.JQName;
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+import com.github.jochenw.jsgen.api.Method;
+import com.github.jochenw.jsgen.api.Source;
+
+
+public class RenderCacheTest {
+	private static Path newCacheDir(String pName) throws IOException {
+		final Path dir = Paths.get("target/unit-tests/RenderCacheTest").resolve(pName);
+		if (Files.isDirectory(dir)) {
+			try (Stream<Path> files = Files.list(dir)) {
+				for (Path p : (Iterable<Path>) files::iterator) {
+					Files.delete(p);
+				}
+			}
+		}
+		return dir;
+	}
+
+	private static JSGFactory newFactory(String pMessage) {
+		final JSGFactory factory = JSGFactory.create();
+		final Source source = factory.newSource("com.foo.myapp.Hello").makePublic();
+		final Method main = source.newMethod(Protection.PUBLIC, JQName.VOID_TYPE, "main").makeStatic();
+		main.parameter(JQName.STRING.arrayOf(), "pArgs");
+		main.body().tline("System.out.println(", Source.q(pMessage), ")");
+		return factory;
+	}
+
+	private static String render(JSGFactory pFactory, RenderCache pCache, SourceSerializer pFormatter) {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				assertEquals("com/foo/myapp/Hello.java", pResource.getName().getQName());
+				return baos;
+			}
+		};
+		jsgw.setFormatter(pFormatter);
+		jsgw.setRenderCache(pCache);
+		jsgw.write(pFactory);
+		return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testCacheHit() throws Exception {
+		final AtomicInteger counter = new AtomicInteger();
+		final SourceSerializer formatter = new DefaultJavaSourceFormatter(AbstractSourceWriter.DEFAULT_FORMAT) {
+			@Override
+			public void write(Source pSource, SerializationTarget pTarget) {
+				counter.incrementAndGet();
+				super.write(pSource, pTarget);
+			}
+		};
+		final RenderCache cache = new RenderCache(newCacheDir("hit"));
+		final String source = render(newFactory("Hello, world!"), cache, formatter);
+		assertTrue(source, source.contains("System.out.println(\"Hello, world!\");"));
+		final int renderCount = counter.get();
+		assertTrue(renderCount > 0);
+		assertEquals(source.length(), cache.getSize());
+		// A new, but structurally equal model: Rendering is skipped.
+		assertEquals(source, render(newFactory("Hello, world!"), cache, formatter));
+		assertEquals(renderCount, counter.get());
+		// A new cache instance on the same directory, like in the next build.
+		assertEquals(source, render(newFactory("Hello, world!"), new RenderCache(cache.getDirectory()), formatter));
+		assertEquals(renderCount, counter.get());
+		// A modified model is rendered again.
+		final String modified = render(newFactory("Hello, cache!"), cache, formatter);
+		assertTrue(modified, modified.contains("System.out.println(\"Hello, cache!\");"));
+		assertEquals(2*renderCount, counter.get());
+	}
+
+	@Test
+	public void testKey() {
+		final RenderCache cache = new RenderCache(Paths.get("target/unit-tests/RenderCacheTest/key"));
+		final Source source = newFactory("Hello, world!").getSource("com.foo.myapp.Hello");
+		final String defaultKey = cache.getKey(source, AbstractSourceWriter.DEFAULT_FORMATTER, AbstractSourceWriter.DEFAULT_IMPORT_SORTER);
+		assertEquals(defaultKey, cache.getKey(newFactory("Hello, world!").getSource("com.foo.myapp.Hello"),
+				                              AbstractSourceWriter.DEFAULT_FORMATTER, AbstractSourceWriter.DEFAULT_IMPORT_SORTER));
+		assertEquals(defaultKey, cache.getKey(source, new DefaultJavaSourceFormatter(new DefaultFormat("    ", "\n")),
+				                              AbstractSourceWriter.DEFAULT_IMPORT_SORTER));
+		assertNotEquals(defaultKey, cache.getKey(source, AbstractSourceWriter.MAVEN_FORMATTER, AbstractSourceWriter.DEFAULT_IMPORT_SORTER));
+		assertNotEquals(defaultKey, cache.getKey(source, new DefaultJavaSourceFormatter(new DefaultFormat("\t", "\n")),
+				                                 AbstractSourceWriter.DEFAULT_IMPORT_SORTER));
+		assertNotEquals(defaultKey, cache.getKey(source, AbstractSourceWriter.DEFAULT_FORMATTER, new DefaultImportSorter() {}));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		final RenderCache cache = new RenderCache(newCacheDir("eviction"), 250);
+		final byte[] content = new byte[100];
+		cache.put("a", content);
+		cache.put("b", content);
+		Files.setLastModifiedTime(cache.getDirectory().resolve("a.java.cache"), java.nio.file.attribute.FileTime.fromMillis(1000));
+		Files.setLastModifiedTime(cache.getDirectory().resolve("b.java.cache"), java.nio.file.attribute.FileTime.fromMillis(2000));
+		// Reading "a" makes "b" the least recently used entry.
+		assertEquals(100, cache.get("a").length);
+		cache.put("c", content);
+		assertEquals(200, cache.getSize());
+		assertNull(cache.get("b"));
+		assertEquals(100, cache.get("a").length);
+		assertEquals(100, cache.get("c").length);
+		assertFalse(Files.exists(cache.getDirectory().resolve("b.java.cache")));
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2018 Jochen Wiedmann
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jochenw.jsgen.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnull;
+
+import com.github.jochenw.jsgen.api.JSGFactory;
+import com.github.jochenw.jsgen.api.JSGFactory.NamedResource;
+
+
+/** Test helper, which renders the sources of a factory into a string.
+ */
+public class SourceRenderer {
+	/** Renders the sources of the given factory, using the default format.
+	 * @param pFactory The factory, which provides the sources.
+	 * @return The generated code, with all sources concatenated.
+	 */
+	@Nonnull public static String render(@Nonnull JSGFactory pFactory) {
+		return render(pFactory, AbstractSourceWriter.DEFAULT_FORMATTER);
+	}
+
+	/** Renders the sources of the given factory, using the given formatter.
+	 * @param pFactory The factory, which provides the sources.
+	 * @param pFormatter The formatter, for example {@link AbstractSourceWriter#MAVEN_FORMATTER}.
+	 * @return The generated code, with all sources concatenated.
+	 */
+	@Nonnull public static String render(@Nonnull JSGFactory pFactory, @Nonnull SourceSerializer pFormatter) {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final AbstractSourceWriter jsgw = new AbstractSourceWriter() {
+			@Override
+			protected OutputStream open(NamedResource pResource) throws IOException {
+				return baos;
+			}
+		};
+		jsgw.setFormatter(pFormatter);
+		jsgw.write(pFactory);
+		return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+	}
+}